@@ -33,9 +33,11 @@ import org.kaazing.gateway.management.session.SessionManagementBean;
 import org.kaazing.gateway.management.system.CpuListManagementBean;
 import org.kaazing.gateway.management.system.CpuManagementBean;
 import org.kaazing.gateway.management.system.HostManagementBean;
+import org.kaazing.gateway.management.system.HttpGzipManagementBean;
 import org.kaazing.gateway.management.system.JvmManagementBean;
 import org.kaazing.gateway.management.system.NicListManagementBean;
 import org.kaazing.gateway.management.system.NicManagementBean;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
 import org.kaazing.gateway.service.ServiceContext;
 
 /**
@@ -106,4 +108,8 @@ public interface ManagementServiceHandler {
     void addCpuManagementBean(CpuManagementBean cpuManagementBean, String hostAndPid);
 
     void addNicManagementBean(NicManagementBean nicManagementBean, String hostAndPid);
+
+    void addNioWorkerManagementBean(NioWorkerManagementBean nioWorkerManagementBean, String hostAndPid);
+
+    void addHttpGzipManagementBean(HttpGzipManagementBean httpGzipManagementBean, String hostAndPid);
 }
@@ -21,7 +21,9 @@
 
 package org.kaazing.gateway.management.context;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.kaazing.gateway.management.service.ServiceManagementBeanFactory.newServiceManagementBeanFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.AGRONA_ENABLED;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
@@ -33,11 +35,14 @@ import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
+import org.jboss.netty.channel.socket.Worker;
+import org.jboss.netty.channel.socket.nio.NioWorker;
 import org.kaazing.gateway.management.ManagementService;
 import org.kaazing.gateway.management.ManagementServiceHandler;
 import org.kaazing.gateway.management.ManagementStrategy;
@@ -67,6 +72,9 @@ import org.kaazing.gateway.management.gateway.ManagementGatewayStrategy;
 import org.kaazing.gateway.management.monitoring.configuration.MonitoringEntityFactoryInjector;
 import org.kaazing.gateway.management.monitoring.configuration.impl.MonitoringEntityFactoryInjectorImpl;
 import org.kaazing.gateway.management.monitoring.entity.factory.MonitoringEntityFactory;
+import org.kaazing.gateway.management.monitoring.entity.manager.NioWorkerCounterManager;
+import org.kaazing.gateway.management.monitoring.entity.manager.factory.CounterManagerFactory;
+import org.kaazing.gateway.management.monitoring.entity.manager.impl.CounterManagerFactoryImpl;
 import org.kaazing.gateway.management.service.CollectOnlyManagementServiceStrategy;
 import org.kaazing.gateway.management.service.FullManagementServiceStrategy;
 import org.kaazing.gateway.management.service.ManagementServiceStrategy;
@@ -85,12 +93,16 @@ import org.kaazing.gateway.management.system.CpuManagementBean;
 import org.kaazing.gateway.management.system.FullManagementSystemStrategy;
 import org.kaazing.gateway.management.system.HostManagementBean;
 import org.kaazing.gateway.management.system.HostManagementBeanImpl;
+import org.kaazing.gateway.management.system.HttpGzipManagementBean;
+import org.kaazing.gateway.management.system.HttpGzipManagementBeanImpl;
 import org.kaazing.gateway.management.system.JvmManagementBean;
 import org.kaazing.gateway.management.system.JvmManagementBeanImpl;
 import org.kaazing.gateway.management.system.ManagementSystemStrategy;
 import org.kaazing.gateway.management.system.NicListManagementBean;
 import org.kaazing.gateway.management.system.NicListManagementBeanImpl;
 import org.kaazing.gateway.management.system.NicManagementBean;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
+import org.kaazing.gateway.management.system.NioWorkerManagementBeanImpl;
 import org.kaazing.gateway.management.system.NullManagementSystemStrategy;
 import org.kaazing.gateway.management.system.SystemDataProvider;
 import org.kaazing.gateway.management.system.SystemDataProviderFactory;
@@ -101,6 +113,9 @@ import org.kaazing.gateway.server.context.GatewayContext;
 import org.kaazing.gateway.server.context.ServiceDefaultsContext;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.transport.Transport;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.nio.TcpTransport;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.session.IoSessionEx;
 
@@ -226,6 +241,11 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
 
     private ScheduledExecutorService managementExecutorService;
 
+    private TransportFactory transportFactory;
+
+    // periodically copies the NIO worker metrics into the monitoring counters, when those are enabled
+    private ScheduledFuture<?> nioWorkerCountersFuture;
+
     // when a management service is initialized it will flag the management context as active
     private boolean active;
 
@@ -292,6 +312,11 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
         this.managementExecutorService = schedulerProvider.getScheduler("management", true);
     }
 
+    @Resource(name = "transportFactory")
+    public void setTransportFactory(TransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
     @Resource(name = "configuration")
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
@@ -624,6 +649,69 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
         jvmManagementBean.managementStrategyChanged();
     }
 
+    /**
+     * Add management beans for the NIO workers (I/O threads) of the TCP transport, and publish their metrics
+     * to the monitoring counters when those are enabled.
+     */
+    private void addNioWorkerInfo(GatewayManagementBean gatewayBean) {
+        if (transportFactory == null || !transportFactory.getTransportNames().contains("tcp")) {
+            return;
+        }
+
+        Transport transport = transportFactory.getTransport("tcp");
+        if (!(transport instanceof TcpTransport)) {
+            return;
+        }
+
+        Worker[] workers = ((TcpTransport) transport).getWorkers();
+        String hostAndPid = gatewayBean.getHostAndPid();
+        CounterManagerFactory counterFactory = new CounterManagerFactoryImpl();
+        final List<NioWorkerCounterManager> counterManagers = new ArrayList<>();
+
+        for (int i = 0; i < workers.length; i++) {
+            if (!(workers[i] instanceof NioWorker)) {
+                continue;
+            }
+
+            NioWorkerManagementBean nioWorkerManagementBean = new NioWorkerManagementBeanImpl(i + 1, (NioWorker) workers[i]);
+            for (ManagementServiceHandler handler : managementServiceHandlers) {
+                handler.addNioWorkerManagementBean(nioWorkerManagementBean, hostAndPid);
+            }
+
+            NioWorkerCounterManager counterManager =
+                    counterFactory.makeNioWorkerCounterManager(monitoringEntityFactory, nioWorkerManagementBean);
+            counterManager.initializeCounters();
+            counterManagers.add(counterManager);
+        }
+
+        // the I/O threads never touch the counters, they are updated here off the I/O threads instead
+        if (AGRONA_ENABLED.getBooleanProperty(configuration) && managementExecutorService != null
+                && !counterManagers.isEmpty()) {
+            nioWorkerCountersFuture = managementExecutorService.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    for (NioWorkerCounterManager counterManager : counterManagers) {
+                        counterManager.updateCounters();
+                    }
+                }
+            }, 0, DEFAULT_SUMMARY_DATA_GATHER_INTERVAL, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Add the management bean for the gzip compressor of streaming HTTP responses, when the HTTP transport is present.
+     */
+    private void addHttpGzipInfo(GatewayManagementBean gatewayBean) {
+        if (transportFactory == null || !transportFactory.getTransportNames().contains("http")) {
+            return;
+        }
+
+        HttpGzipManagementBean httpGzipManagementBean = new HttpGzipManagementBeanImpl();
+        for (ManagementServiceHandler handler : managementServiceHandlers) {
+            handler.addHttpGzipManagementBean(httpGzipManagementBean, gatewayBean.getHostAndPid());
+        }
+    }
+
     private ServiceDefaultsConfigurationBean addServiceDefaultsConfigurationBean(ServiceDefaultsContext serviceDefaultsContext,
                                                                                  GatewayManagementBean gatewayBean) {
 
@@ -776,6 +864,8 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
             addCpuListInfo(gatewayBean);
             addNicListInfo(gatewayBean);
             addJvmInfo(gatewayBean);
+            addNioWorkerInfo(gatewayBean);
+            addHttpGzipInfo(gatewayBean);
 
             ClusterContext clusterContext = gatewayContext.getCluster();
             if (clusterContext != null) {
@@ -886,6 +976,10 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
 
     @Override
     public void close() {
+        if (nioWorkerCountersFuture != null) {
+            nioWorkerCountersFuture.cancel(false);
+        }
+
         // Stopping here if no monitoring entity factory was built
         if (monitoringEntityFactory == null) {
             return;
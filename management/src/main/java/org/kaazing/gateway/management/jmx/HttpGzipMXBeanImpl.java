@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.jmx;
+
+import javax.management.ObjectName;
+import org.kaazing.gateway.management.system.HttpGzipManagementBean;
+
+/**
+ * The ManagementProcessor-level wrapper object for a HttpGzipManagementBean.
+ */
+public class HttpGzipMXBeanImpl implements HttpGzipMXBean {
+
+    /*
+     * The management bean this MBean is wrapping.
+     */
+    private final HttpGzipManagementBean httpGzipManagementBean;
+
+    /*
+     * Storing the name only so we can retrieve it during shutdown,
+     * when we need to have it to unregister it.
+     */
+    private final ObjectName objectName;
+
+    public HttpGzipMXBeanImpl(ObjectName objectName, HttpGzipManagementBean httpGzipManagementBean) {
+        this.objectName = objectName;
+        this.httpGzipManagementBean = httpGzipManagementBean;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getBytesIn() {
+        return httpGzipManagementBean.getBytesIn();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return httpGzipManagementBean.getBytesOut();
+    }
+
+    @Override
+    public long getDeflateTime() {
+        return httpGzipManagementBean.getDeflateTime();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        return httpGzipManagementBean.getCompressionRatio();
+    }
+
+    @Override
+    public double getDeflateTimePerByte() {
+        return httpGzipManagementBean.getDeflateTimePerByte();
+    }
+
+    @Override
+    public String getSummaryData() {
+        return httpGzipManagementBean.getSummaryData();
+    }
+}
@@ -43,9 +43,11 @@ import org.kaazing.gateway.management.session.SessionManagementBean;
 import org.kaazing.gateway.management.system.CpuListManagementBean;
 import org.kaazing.gateway.management.system.CpuManagementBean;
 import org.kaazing.gateway.management.system.HostManagementBean;
+import org.kaazing.gateway.management.system.HttpGzipManagementBean;
 import org.kaazing.gateway.management.system.JvmManagementBean;
 import org.kaazing.gateway.management.system.NicListManagementBean;
 import org.kaazing.gateway.management.system.NicManagementBean;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.server.Gateway;
 import org.kaazing.gateway.service.ServiceContext;
@@ -86,6 +88,9 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
             "%s:root=gateways,gatewayId=%s,subtype=configuration,name=version-info";
     private static final String CPU_MBEAN_FORMAT_STR = "%s:root=gateways,gatewayId=%s,subtype=system,name=CPUs/cores,id=%d";
     private static final String NIC_MBEAN_FORMAT_STR = "%s:root=gateways,gatewayId=%s,subtype=system,name=NICs,interfaceName=%s";
+    private static final String NIO_WORKER_MBEAN_FORMAT_STR =
+            "%s:root=gateways,gatewayId=%s,subtype=system,name=IoWorkers,id=%d";
+    private static final String HTTP_GZIP_MBEAN_FORMAT_STR = "%s:root=gateways,gatewayId=%s,subtype=system,name=HttpGzip";
 
     private final AtomicLong notificationSequenceNumber = new AtomicLong(0);
     // For performance, I need to pass this to the agent
@@ -466,6 +471,42 @@ class JmxManagementServiceHandler implements ManagementServiceHandler {
         }
     }
 
+    @Override
+    public void addNioWorkerManagementBean(NioWorkerManagementBean nioWorkerManagementBean, String hostAndPid) {
+        try {
+            ObjectName name =
+                    new ObjectName(String.format(NIO_WORKER_MBEAN_FORMAT_STR,
+                            JMX_OBJECT_NAME,
+                            hostAndPid,
+                            nioWorkerManagementBean.getId()));
+            if (mbeanServer.isRegistered(name)) {
+                LOGGER.warn(String.format("Gateway system I/O worker MBean name %s already registered", name));
+
+            } else {
+                NioWorkerMXBeanImpl nioWorkerMXBean = new NioWorkerMXBeanImpl(name, nioWorkerManagementBean);
+                mbeanServer.registerMBean(nioWorkerMXBean, name);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public void addHttpGzipManagementBean(HttpGzipManagementBean httpGzipManagementBean, String hostAndPid) {
+        try {
+            ObjectName name = new ObjectName(String.format(HTTP_GZIP_MBEAN_FORMAT_STR, JMX_OBJECT_NAME, hostAndPid));
+            if (mbeanServer.isRegistered(name)) {
+                LOGGER.warn(String.format("Gateway system HTTP gzip MBean name %s already registered", name));
+
+            } else {
+                HttpGzipMXBeanImpl httpGzipMXBean = new HttpGzipMXBeanImpl(name, httpGzipManagementBean);
+                mbeanServer.registerMBean(httpGzipMXBean, name);
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     @Override
     public void addJvmManagementBean(JvmManagementBean jvmManagementBean) {
         try {
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.jmx;
+
+import javax.management.ObjectName;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
+
+/**
+ * The ManagementProcessor-level wrapper object for a NioWorkerManagementBean.
+ */
+public class NioWorkerMXBeanImpl implements NioWorkerMXBean {
+
+    /*
+     * The management bean this MBean is wrapping.
+     */
+    private final NioWorkerManagementBean nioWorkerManagementBean;
+
+    /*
+     * Storing the worker's name only so we can retrieve it during shutdown,
+     * when we need to have it to unregister it.
+     */
+    private final ObjectName objectName;
+
+    public NioWorkerMXBeanImpl(ObjectName objectName, NioWorkerManagementBean nioWorkerManagementBean) {
+        this.objectName = objectName;
+        this.nioWorkerManagementBean = nioWorkerManagementBean;
+    }
+
+    @Override
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getId() {
+        return nioWorkerManagementBean.getId();
+    }
+
+    @Override
+    public String getThreadName() {
+        return nioWorkerManagementBean.getThreadName();
+    }
+
+    @Override
+    public long getLoopCount() {
+        return nioWorkerManagementBean.getLoopCount();
+    }
+
+    @Override
+    public long getSelectTime() {
+        return nioWorkerManagementBean.getSelectTime();
+    }
+
+    @Override
+    public long getProcessTime() {
+        return nioWorkerManagementBean.getProcessTime();
+    }
+
+    @Override
+    public long getProcessTimeP99() {
+        return nioWorkerManagementBean.getProcessTimeP99();
+    }
+
+    @Override
+    public long getProcessTimeMax() {
+        return nioWorkerManagementBean.getProcessTimeMax();
+    }
+
+    @Override
+    public long getTaskQueueDepth() {
+        return nioWorkerManagementBean.getTaskQueueDepth();
+    }
+
+    @Override
+    public long getTasksRun() {
+        return nioWorkerManagementBean.getTasksRun();
+    }
+
+    @Override
+    public long getTaskQueueLatencyP99() {
+        return nioWorkerManagementBean.getTaskQueueLatencyP99();
+    }
+
+    @Override
+    public long getTaskQueueLatencyMax() {
+        return nioWorkerManagementBean.getTaskQueueLatencyMax();
+    }
+
+    @Override
+    public long getReadSyscalls() {
+        return nioWorkerManagementBean.getReadSyscalls();
+    }
+
+    @Override
+    public long getReadBytes() {
+        return nioWorkerManagementBean.getReadBytes();
+    }
+
+    @Override
+    public long getReadLatencyP99() {
+        return nioWorkerManagementBean.getReadLatencyP99();
+    }
+
+    @Override
+    public long getReadLatencyMax() {
+        return nioWorkerManagementBean.getReadLatencyMax();
+    }
+
+    @Override
+    public long getWriteSyscalls() {
+        return nioWorkerManagementBean.getWriteSyscalls();
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return nioWorkerManagementBean.getWrittenBytes();
+    }
+
+    @Override
+    public long getWriteLatencyP99() {
+        return nioWorkerManagementBean.getWriteLatencyP99();
+    }
+
+    @Override
+    public long getWriteLatencyMax() {
+        return nioWorkerManagementBean.getWriteLatencyMax();
+    }
+
+    @Override
+    public String getSummaryData() {
+        return nioWorkerManagementBean.getSummaryData();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.monitoring.entity.manager;
+
+/**
+ * Interface for a NioWorkerCounterManager responsible with publishing the event loop metrics of a single NIO worker
+ * (I/O thread) to its respective counters
+ *
+ */
+public interface NioWorkerCounterManager {
+
+    /**
+     * Method initializing the NIO worker counters
+     */
+    void initializeCounters();
+
+    /**
+     * Method copying the current values of the NIO worker metrics into the counters. Called periodically off the
+     * I/O threads, so that the I/O threads never update the counters themselves.
+     */
+    void updateCounters();
+}
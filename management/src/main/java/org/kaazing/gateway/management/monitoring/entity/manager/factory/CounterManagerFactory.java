@@ -22,7 +22,9 @@
 package org.kaazing.gateway.management.monitoring.entity.manager.factory;
 
 import org.kaazing.gateway.management.monitoring.entity.factory.MonitoringEntityFactory;
+import org.kaazing.gateway.management.monitoring.entity.manager.NioWorkerCounterManager;
 import org.kaazing.gateway.management.monitoring.entity.manager.ServiceSessionCounterManager;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
 
 /**
  * Factory for returning a specific counter manager
@@ -42,4 +44,15 @@ public interface CounterManagerFactory {
             MonitoringEntityFactory monitoringEntityFactory,
             String serviceName);
 
+    /**
+     * Method responsible with returning a NioWorkerCounterManager responsible with
+     * publishing the event loop metrics of a NIO worker to its respective counters
+     * @param monitoringEntityFactory - the monitoring entity factory
+     * @param nioWorkerBean - the management bean of the NIO worker
+     * @return - the NioWorkerCounterManager instance
+     */
+    NioWorkerCounterManager makeNioWorkerCounterManager(
+            MonitoringEntityFactory monitoringEntityFactory,
+            NioWorkerManagementBean nioWorkerBean);
+
 }
@@ -22,8 +22,10 @@
 package org.kaazing.gateway.management.monitoring.entity.manager.impl;
 
 import org.kaazing.gateway.management.monitoring.entity.factory.MonitoringEntityFactory;
+import org.kaazing.gateway.management.monitoring.entity.manager.NioWorkerCounterManager;
 import org.kaazing.gateway.management.monitoring.entity.manager.ServiceSessionCounterManager;
 import org.kaazing.gateway.management.monitoring.entity.manager.factory.CounterManagerFactory;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
 
 public class CounterManagerFactoryImpl implements CounterManagerFactory {
 
@@ -33,4 +35,10 @@ public class CounterManagerFactoryImpl implements CounterManagerFactory {
         return new ServiceSessionCounterManagerImpl(monitoringEntityFactory, serviceName);
     }
 
+    @Override
+    public NioWorkerCounterManager makeNioWorkerCounterManager(MonitoringEntityFactory monitoringEntityFactory,
+            NioWorkerManagementBean nioWorkerBean) {
+        return new NioWorkerCounterManagerImpl(monitoringEntityFactory, nioWorkerBean);
+    }
+
 }
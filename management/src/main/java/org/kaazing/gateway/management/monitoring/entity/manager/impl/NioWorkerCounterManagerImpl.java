@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.monitoring.entity.manager.impl;
+
+import org.kaazing.gateway.management.monitoring.entity.LongMonitoringCounter;
+import org.kaazing.gateway.management.monitoring.entity.factory.MonitoringEntityFactory;
+import org.kaazing.gateway.management.monitoring.entity.manager.NioWorkerCounterManager;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
+
+public class NioWorkerCounterManagerImpl implements NioWorkerCounterManager {
+
+    private static final String NIO_WORKER = "nio-worker-";
+    private static final String LOOPS = "-loops";
+    private static final String SELECT_TIME = "-select-time";
+    private static final String PROCESS_TIME = "-process-time";
+    private static final String PROCESS_TIME_P99 = "-process-time-p99";
+    private static final String TASK_QUEUE_DEPTH = "-task-queue-depth";
+    private static final String TASKS_RUN = "-tasks-run";
+    private static final String TASK_QUEUE_LATENCY_P99 = "-task-queue-latency-p99";
+    private static final String READ_SYSCALLS = "-read-syscalls";
+    private static final String READ_BYTES = "-read-bytes";
+    private static final String READ_LATENCY_P99 = "-read-latency-p99";
+    private static final String WRITE_SYSCALLS = "-write-syscalls";
+    private static final String WRITTEN_BYTES = "-written-bytes";
+    private static final String WRITE_LATENCY_P99 = "-write-latency-p99";
+
+    private LongMonitoringCounter loopsCounter;
+    private LongMonitoringCounter selectTimeCounter;
+    private LongMonitoringCounter processTimeCounter;
+    private LongMonitoringCounter processTimeP99Counter;
+    private LongMonitoringCounter taskQueueDepthCounter;
+    private LongMonitoringCounter tasksRunCounter;
+    private LongMonitoringCounter taskQueueLatencyP99Counter;
+    private LongMonitoringCounter readSyscallsCounter;
+    private LongMonitoringCounter readBytesCounter;
+    private LongMonitoringCounter readLatencyP99Counter;
+    private LongMonitoringCounter writeSyscallsCounter;
+    private LongMonitoringCounter writtenBytesCounter;
+    private LongMonitoringCounter writeLatencyP99Counter;
+
+    private final MonitoringEntityFactory monitoringEntityFactory;
+    private final NioWorkerManagementBean nioWorkerBean;
+
+    public NioWorkerCounterManagerImpl(MonitoringEntityFactory monitoringEntityFactory,
+            NioWorkerManagementBean nioWorkerBean) {
+        this.monitoringEntityFactory = monitoringEntityFactory;
+        this.nioWorkerBean = nioWorkerBean;
+    }
+
+    @Override
+    public void initializeCounters() {
+        String prefix = NIO_WORKER + nioWorkerBean.getId();
+        loopsCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + LOOPS);
+        selectTimeCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + SELECT_TIME);
+        processTimeCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + PROCESS_TIME);
+        processTimeP99Counter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + PROCESS_TIME_P99);
+        taskQueueDepthCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + TASK_QUEUE_DEPTH);
+        tasksRunCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + TASKS_RUN);
+        taskQueueLatencyP99Counter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + TASK_QUEUE_LATENCY_P99);
+        readSyscallsCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + READ_SYSCALLS);
+        readBytesCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + READ_BYTES);
+        readLatencyP99Counter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + READ_LATENCY_P99);
+        writeSyscallsCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + WRITE_SYSCALLS);
+        writtenBytesCounter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + WRITTEN_BYTES);
+        writeLatencyP99Counter = monitoringEntityFactory.makeLongMonitoringCounter(prefix + WRITE_LATENCY_P99);
+    }
+
+    @Override
+    public void updateCounters() {
+        loopsCounter = loopsCounter.setValue(nioWorkerBean.getLoopCount());
+        selectTimeCounter = selectTimeCounter.setValue(nioWorkerBean.getSelectTime());
+        processTimeCounter = processTimeCounter.setValue(nioWorkerBean.getProcessTime());
+        processTimeP99Counter = processTimeP99Counter.setValue(nioWorkerBean.getProcessTimeP99());
+        taskQueueDepthCounter = taskQueueDepthCounter.setValue(nioWorkerBean.getTaskQueueDepth());
+        tasksRunCounter = tasksRunCounter.setValue(nioWorkerBean.getTasksRun());
+        taskQueueLatencyP99Counter = taskQueueLatencyP99Counter.setValue(nioWorkerBean.getTaskQueueLatencyP99());
+        readSyscallsCounter = readSyscallsCounter.setValue(nioWorkerBean.getReadSyscalls());
+        readBytesCounter = readBytesCounter.setValue(nioWorkerBean.getReadBytes());
+        readLatencyP99Counter = readLatencyP99Counter.setValue(nioWorkerBean.getReadLatencyP99());
+        writeSyscallsCounter = writeSyscallsCounter.setValue(nioWorkerBean.getWriteSyscalls());
+        writtenBytesCounter = writtenBytesCounter.setValue(nioWorkerBean.getWrittenBytes());
+        writeLatencyP99Counter = writeLatencyP99Counter.setValue(nioWorkerBean.getWriteLatencyP99());
+    }
+
+    /**
+     * Getter for the loopsCounter
+     * @return the loopsCounter
+     */
+    public LongMonitoringCounter getLoopsCounter() {
+        return loopsCounter;
+    }
+
+    /**
+     * Getter for the taskQueueDepthCounter
+     * @return the taskQueueDepthCounter
+     */
+    public LongMonitoringCounter getTaskQueueDepthCounter() {
+        return taskQueueDepthCounter;
+    }
+
+    /**
+     * Getter for the readBytesCounter
+     * @return the readBytesCounter
+     */
+    public LongMonitoringCounter getReadBytesCounter() {
+        return readBytesCounter;
+    }
+
+    /**
+     * Getter for the writeLatencyP99Counter
+     * @return the writeLatencyP99Counter
+     */
+    public LongMonitoringCounter getWriteLatencyP99Counter() {
+        return writeLatencyP99Counter;
+    }
+
+}
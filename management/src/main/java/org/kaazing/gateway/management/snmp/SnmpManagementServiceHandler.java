@@ -70,9 +70,11 @@ import org.kaazing.gateway.management.snmp.transport.ManagementUdpTransport;
 import org.kaazing.gateway.management.system.CpuListManagementBean;
 import org.kaazing.gateway.management.system.CpuManagementBean;
 import org.kaazing.gateway.management.system.HostManagementBean;
+import org.kaazing.gateway.management.system.HttpGzipManagementBean;
 import org.kaazing.gateway.management.system.JvmManagementBean;
 import org.kaazing.gateway.management.system.NicListManagementBean;
 import org.kaazing.gateway.management.system.NicManagementBean;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.server.context.resolve.DefaultServiceContext;
 import org.kaazing.gateway.service.ServiceContext;
@@ -1681,6 +1683,16 @@ class SnmpManagementServiceHandler extends IoHandlerAdapter<IoSessionEx> impleme
     }
 
 
+    @Override
+    public void addNioWorkerManagementBean(NioWorkerManagementBean managementBean, String hostAndPid) {
+        // I/O worker metrics are not part of the Kaazing MIB, they are available through JMX and the monitoring counters.
+    }
+
+    @Override
+    public void addHttpGzipManagementBean(HttpGzipManagementBean managementBean, String hostAndPid) {
+        // gzip compression metrics are not part of the Kaazing MIB, they are available through JMX.
+    }
+
     @Override
     public void addJvmManagementBean(final JvmManagementBean managementBean) {
         agent.addJvmManagementBean(managementBean);
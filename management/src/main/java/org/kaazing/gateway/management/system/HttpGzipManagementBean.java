@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.system;
+
+/**
+ * Interface for the data of the gzip compressor shared by gzipped streaming HTTP responses. Like the NIO worker beans
+ * this is NOT an extension of ManagementBean, the data is read from the compressor each time it is requested.
+ * <p/>
+ * Byte counts and times cover the whole life of the gateway, times are in nanoseconds.
+ */
+public interface HttpGzipManagementBean {
+
+    String[] SUMMARY_DATA_FIELD_LIST =
+            new String[]{"bytesIn", "bytesOut", "deflateTime", "compressionRatio", "deflateTimePerByte"};
+
+    /**
+     * Return the uncompressed bytes written through the compressor.
+     */
+    long getBytesIn();
+
+    /**
+     * Return the compressed bytes produced by the compressor.
+     */
+    long getBytesOut();
+
+    long getDeflateTime();
+
+    /**
+     * Return uncompressed bytes divided by compressed bytes, or 0 if nothing has been compressed.
+     */
+    double getCompressionRatio();
+
+    double getDeflateTimePerByte();
+
+    /**
+     * Retrieve the summary data as a JSON string.
+     */
+    String getSummaryData();
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.system;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpGzipCompressor;
+
+/**
+ * Implementation of the management 'data' bean for the gzip compressor, reading the metrics maintained per I/O
+ * worker by {@link HttpGzipCompressor}. Wrappers for different management protocols define the use of those data.
+ */
+public class HttpGzipManagementBeanImpl implements HttpGzipManagementBean {
+
+    @Override
+    public long getBytesIn() {
+        return HttpGzipCompressor.getBytesIn();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return HttpGzipCompressor.getBytesOut();
+    }
+
+    @Override
+    public long getDeflateTime() {
+        return HttpGzipCompressor.getDeflateNanos();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        return HttpGzipCompressor.getCompressionRatio();
+    }
+
+    @Override
+    public double getDeflateTimePerByte() {
+        return HttpGzipCompressor.getDeflateNanosPerByte();
+    }
+
+    @Override
+    public String getSummaryData() {
+        Object[] values = {getBytesIn(), getBytesOut(), getDeflateTime(), getCompressionRatio(), getDeflateTimePerByte()};
+
+        JSONObject jsonObj = new JSONObject();
+        try {
+            for (int i = 0; i < SUMMARY_DATA_FIELD_LIST.length; i++) {
+                jsonObj.put(SUMMARY_DATA_FIELD_LIST[i], values[i]);
+            }
+        } catch (JSONException ex) {
+            // There should be no way to hit this, as we know all references above are valid.
+        }
+
+        return jsonObj.toString();
+    }
+}
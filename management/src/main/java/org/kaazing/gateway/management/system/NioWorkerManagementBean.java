@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.system;
+
+/**
+ * Interface for the event loop data of a single NIO worker (I/O thread). Like the individual CPU and NIC beans this is NOT an
+ * extension of ManagementBean, the data is read from the worker each time it is requested, so it is always current.
+ * <p/>
+ * Times and latencies are in nanoseconds. Percentiles and maximums cover the whole life of the worker.
+ */
+public interface NioWorkerManagementBean {
+
+    String[] SUMMARY_DATA_FIELD_LIST =
+            new String[]{"loops", "selectTime", "processTime", "processTimeP99", "processTimeMax",
+                    "taskQueueDepth", "tasksRun", "taskQueueLatencyP99", "taskQueueLatencyMax",
+                    "readSyscalls", "readBytes", "readLatencyP99", "readLatencyMax",
+                    "writeSyscalls", "writtenBytes", "writeLatencyP99", "writeLatencyMax"};
+
+    int getId();
+
+    /**
+     * Return the name of the worker's I/O thread, or null if it has not started yet.
+     */
+    String getThreadName();
+
+    long getLoopCount();
+
+    /**
+     * Return the total time spent waiting in select.
+     */
+    long getSelectTime();
+
+    /**
+     * Return the total time spent running tasks and processing selected channels.
+     */
+    long getProcessTime();
+
+    /**
+     * Return the 99th percentile of the time spent running tasks and processing selected channels per selector loop.
+     */
+    long getProcessTimeP99();
+
+    long getProcessTimeMax();
+
+    /**
+     * Return the approximate number of tasks waiting to run on the I/O thread.
+     */
+    long getTaskQueueDepth();
+
+    long getTasksRun();
+
+    /**
+     * Return the 99th percentile of the time from a task being queued to it starting to run.
+     */
+    long getTaskQueueLatencyP99();
+
+    long getTaskQueueLatencyMax();
+
+    long getReadSyscalls();
+
+    long getReadBytes();
+
+    long getReadLatencyP99();
+
+    long getReadLatencyMax();
+
+    long getWriteSyscalls();
+
+    long getWrittenBytes();
+
+    long getWriteLatencyP99();
+
+    long getWriteLatencyMax();
+
+    /**
+     * Retrieve the summary data as a JSON string.
+     */
+    String getSummaryData();
+}
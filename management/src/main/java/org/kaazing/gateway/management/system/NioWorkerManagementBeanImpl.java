@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.system;
+
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Implementation of the management 'data' bean for a single NIO worker, reading the metrics maintained by the
+ * worker's selector loop. Wrappers for different management protocols define the use of those data.
+ */
+public class NioWorkerManagementBeanImpl implements NioWorkerManagementBean {
+
+    private static final double PERCENTILE = 99.0;
+
+    private final int id;
+    private final NioWorker worker;
+
+    public NioWorkerManagementBeanImpl(int id, NioWorker worker) {
+        this.id = id;
+        this.worker = worker;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getThreadName() {
+        Thread thread = worker.getThread();
+        return (thread != null) ? thread.getName() : null;
+    }
+
+    @Override
+    public long getLoopCount() {
+        return worker.getLoopCount();
+    }
+
+    @Override
+    public long getSelectTime() {
+        return worker.getSelectTime();
+    }
+
+    @Override
+    public long getProcessTime() {
+        return worker.getProcessTime();
+    }
+
+    @Override
+    public long getProcessTimeP99() {
+        return worker.getProcessTimeHistogram().getValueAtPercentile(PERCENTILE);
+    }
+
+    @Override
+    public long getProcessTimeMax() {
+        return worker.getProcessTimeHistogram().getMax();
+    }
+
+    @Override
+    public long getTaskQueueDepth() {
+        return worker.getTaskQueueDepth();
+    }
+
+    @Override
+    public long getTasksRun() {
+        return worker.getTasksRun();
+    }
+
+    @Override
+    public long getTaskQueueLatencyP99() {
+        return worker.getTaskQueueLatencyHistogram().getValueAtPercentile(PERCENTILE);
+    }
+
+    @Override
+    public long getTaskQueueLatencyMax() {
+        return worker.getTaskQueueLatencyHistogram().getMax();
+    }
+
+    @Override
+    public long getReadSyscalls() {
+        return worker.getReadSyscalls();
+    }
+
+    @Override
+    public long getReadBytes() {
+        return worker.getReadBytes();
+    }
+
+    @Override
+    public long getReadLatencyP99() {
+        return worker.getReadLatencyHistogram().getValueAtPercentile(PERCENTILE);
+    }
+
+    @Override
+    public long getReadLatencyMax() {
+        return worker.getReadLatencyHistogram().getMax();
+    }
+
+    @Override
+    public long getWriteSyscalls() {
+        return worker.getWriteSyscalls();
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return worker.getWrittenBytes();
+    }
+
+    @Override
+    public long getWriteLatencyP99() {
+        return worker.getWriteLatencyHistogram().getValueAtPercentile(PERCENTILE);
+    }
+
+    @Override
+    public long getWriteLatencyMax() {
+        return worker.getWriteLatencyHistogram().getMax();
+    }
+
+    @Override
+    public String getSummaryData() {
+        long[] values = {getLoopCount(), getSelectTime(), getProcessTime(), getProcessTimeP99(), getProcessTimeMax(),
+                getTaskQueueDepth(), getTasksRun(), getTaskQueueLatencyP99(), getTaskQueueLatencyMax(),
+                getReadSyscalls(), getReadBytes(), getReadLatencyP99(), getReadLatencyMax(),
+                getWriteSyscalls(), getWrittenBytes(), getWriteLatencyP99(), getWriteLatencyMax()};
+
+        JSONObject jsonObj = new JSONObject();
+        try {
+            for (int i = 0; i < SUMMARY_DATA_FIELD_LIST.length; i++) {
+                jsonObj.put(SUMMARY_DATA_FIELD_LIST[i], values[i]);
+            }
+        } catch (JSONException ex) {
+            // There should be no way to hit this, as we know all references above are valid.
+        }
+
+        return jsonObj.toString();
+    }
+}
@@ -34,4 +34,11 @@ public class CounterManagerFactoryImplTest {
         Object serviceSessionCounterManager = counterManagerFactory.makeServiceSessionCounterManager(null, null);
         assertTrue(serviceSessionCounterManager instanceof ServiceSessionCounterManagerImpl);
     }
+
+    @Test
+    public void testMakeNioWorkerCounterManager() {
+        CounterManagerFactory counterManagerFactory = new CounterManagerFactoryImpl();
+        Object nioWorkerCounterManager = counterManagerFactory.makeNioWorkerCounterManager(null, null);
+        assertTrue(nioWorkerCounterManager instanceof NioWorkerCounterManagerImpl);
+    }
 }
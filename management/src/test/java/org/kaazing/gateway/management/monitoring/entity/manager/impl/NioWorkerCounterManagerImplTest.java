@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.management.monitoring.entity.manager.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Properties;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Test;
+import org.kaazing.gateway.management.monitoring.configuration.MonitoringEntityFactoryInjector;
+import org.kaazing.gateway.management.monitoring.configuration.impl.MonitoringEntityFactoryInjectorImpl;
+import org.kaazing.gateway.management.monitoring.entity.factory.MonitoringEntityFactory;
+import org.kaazing.gateway.management.system.NioWorkerManagementBean;
+
+public class NioWorkerCounterManagerImplTest {
+
+    private static final String AGRONA_ENABLED = "org.kaazing.gateway.management.AGRONA_ENABLED";
+
+    @Test
+    public void testAgronaEnabledCountersFollowWorker() {
+        Mockery context = new Mockery();
+        final NioWorkerManagementBean nioWorkerBean = context.mock(NioWorkerManagementBean.class);
+        context.checking(new Expectations() {
+            {
+                allowing(nioWorkerBean).getId(); will(returnValue(1));
+                allowing(nioWorkerBean).getLoopCount(); will(returnValue(10L));
+                allowing(nioWorkerBean).getSelectTime(); will(returnValue(0L));
+                allowing(nioWorkerBean).getProcessTime(); will(returnValue(0L));
+                allowing(nioWorkerBean).getProcessTimeP99(); will(returnValue(0L));
+                allowing(nioWorkerBean).getTaskQueueDepth(); will(returnValue(3L));
+                allowing(nioWorkerBean).getTasksRun(); will(returnValue(0L));
+                allowing(nioWorkerBean).getTaskQueueLatencyP99(); will(returnValue(0L));
+                allowing(nioWorkerBean).getReadSyscalls(); will(returnValue(0L));
+                allowing(nioWorkerBean).getReadBytes(); will(returnValue(4096L));
+                allowing(nioWorkerBean).getReadLatencyP99(); will(returnValue(0L));
+                allowing(nioWorkerBean).getWriteSyscalls(); will(returnValue(0L));
+                allowing(nioWorkerBean).getWrittenBytes(); will(returnValue(0L));
+                allowing(nioWorkerBean).getWriteLatencyP99(); will(returnValue(2000L));
+            }
+        });
+
+        MonitoringEntityFactory monitoringEntityFactory = createMonitoringEntityFactory(true);
+        NioWorkerCounterManagerImpl counterManager = new NioWorkerCounterManagerImpl(monitoringEntityFactory, nioWorkerBean);
+
+        counterManager.initializeCounters();
+        assertEquals(0, counterManager.getLoopsCounter().getValue());
+
+        counterManager.updateCounters();
+        assertEquals(10, counterManager.getLoopsCounter().getValue());
+        assertEquals(3, counterManager.getTaskQueueDepthCounter().getValue());
+        assertEquals(4096, counterManager.getReadBytesCounter().getValue());
+        assertEquals(2000, counterManager.getWriteLatencyP99Counter().getValue());
+
+        monitoringEntityFactory.close();
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * Helper method for creating a monitoring entity factory
+     * @param agronaEnabled
+     * @return
+     */
+    private MonitoringEntityFactory createMonitoringEntityFactory(boolean agronaEnabled) {
+        Properties configuration = new Properties();
+        configuration.setProperty(AGRONA_ENABLED, Boolean.toString(agronaEnabled));
+        MonitoringEntityFactoryInjector injector = new MonitoringEntityFactoryInjectorImpl(configuration);
+        return injector.makeMonitoringEntityFactory();
+    }
+}
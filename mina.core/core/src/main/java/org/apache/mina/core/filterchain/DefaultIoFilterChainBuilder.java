@@ -65,6 +65,9 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
         LoggerFactory.getLogger(DefaultIoFilterChainBuilder.class);
     private final List<Entry> entries;
 
+    /** Incremented whenever a filter is added, removed or replaced */
+    private volatile int modificationCount;
+
     /**
      * Creates a new instance with an empty filter list.
      */
@@ -240,6 +243,7 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
             Entry e = i.next();
             if (e.getName().equals(name)) {
                 entries.remove(i.previousIndex());
+                modificationCount++;
                 return e.getFilter();
             }
         }
@@ -259,6 +263,7 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
             Entry e = i.next();
             if (e.getFilter() == filter) {
                 entries.remove(i.previousIndex());
+                modificationCount++;
                 return e.getFilter();
             }
         }
@@ -278,6 +283,7 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
             Entry e = i.next();
             if (filterType.isAssignableFrom(e.getFilter().getClass())) {
                 entries.remove(i.previousIndex());
+                modificationCount++;
                 return e.getFilter();
             }
         }
@@ -321,6 +327,15 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
      */
     public synchronized void clear() {
         entries.clear();
+        modificationCount++;
+    }
+
+    /**
+     * Returns a number that changes whenever a filter is added, removed or replaced, so that
+     * anything derived from {@link #getAll()} can be reused until the filters change.
+     */
+    public int getModificationCount() {
+        return modificationCount;
     }
     
     /**
@@ -501,6 +516,7 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
         }
 
         entries.add(index, e);
+        modificationCount++;
     }
 
     private class EntryImpl implements Entry {
@@ -529,6 +545,7 @@ public class DefaultIoFilterChainBuilder implements IoFilterChainBuilder {
 
         private void setFilter(IoFilter filter) {
             this.filter = filter;
+            modificationCount++;
         }
 
         public NextFilter getNextFilter() {
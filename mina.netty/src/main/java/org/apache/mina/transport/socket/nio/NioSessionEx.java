@@ -22,6 +22,8 @@
 package org.apache.mina.transport.socket.nio;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.Subject;
 
@@ -29,6 +31,7 @@ import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
 import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.session.IoSessionScheduler;
 import org.kaazing.mina.core.session.SubjectChangeListener;
 
 /**
@@ -58,6 +61,11 @@ public abstract class NioSessionEx extends NioSession implements IoSessionEx {
         return IMMEDIATE_EXECUTOR;
     }
 
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return IoSessionScheduler.schedule(this, command, delay, unit);
+    }
+
     @Override
     public boolean isIoAligned() {
         return false;
@@ -37,6 +37,8 @@
 package org.jboss.netty.channel.socket.nio;
 
 import static java.lang.String.format;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.TIMING_WHEEL_TICK_MILLIS;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.WORKER_LATENCY_METRICS_ENABLED;
 
 import java.io.IOException;
 import java.nio.channels.CancelledKeyException;
@@ -66,6 +68,10 @@ import org.jboss.netty.util.internal.DeadLockProofWorker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.kaazing.mina.netty.util.LatencyHistogram;
+import org.kaazing.mina.netty.util.TimingWheel;
+import org.kaazing.mina.netty.util.threadlocal.WorkerLocal;
+
 abstract class AbstractNioSelector implements NioSelector {
     protected static final Logger PERF_LOGGER = LoggerFactory.getLogger("performance.tcp");
 
@@ -83,6 +89,9 @@ abstract class AbstractNioSelector implements NioSelector {
 
     private static final int CLEANUP_INTERVAL = 256; // XXX Hard-coded value, but won't need customization.
 
+    // one in every 16 queued tasks is timed from being queued to being run
+    private static final long TASK_SAMPLE_MASK = 16 - 1;
+
     /**
      * Executor used to execute {@link Runnable}s such as channel registration
      * task.
@@ -110,11 +119,38 @@ abstract class AbstractNioSelector implements NioSelector {
 
     private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<Runnable>();
 
+    /**
+     * Timing wheel owned by the selector thread, initialized before the selector thread is started.
+     */
+    protected final TimingWheel timingWheel =
+            new TimingWheel(TIMING_WHEEL_TICK_MILLIS.getLongProperty(System.getProperties()), new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    registerTask(command);
+                }
+            });
+
     private volatile int cancelledKeys; // should use AtomicInteger but we just need approximation
 
     private final CountDownLatch shutdownLatch = new CountDownLatch(1);
     private volatile boolean shutdown;
 
+    /**
+     * Whether the selector loop, queued tasks and socket system calls are timed, see
+     * {@link org.kaazing.mina.netty.config.InternalSystemProperty#WORKER_LATENCY_METRICS_ENABLED}.
+     */
+    protected final boolean latencyMetricsEnabled = WORKER_LATENCY_METRICS_ENABLED.getBooleanProperty(System.getProperties());
+
+    // note: tasks are queued by any thread, so counted per thread, the other metrics only by the selector thread
+    private static final int TASKS_QUEUED = 0;
+    private final PerThreadCounters tasksQueued = new PerThreadCounters(1);
+    private volatile long tasksRun;
+    private volatile long loops;
+    private volatile long selectTime;
+    private volatile long processTime;
+    private final LatencyHistogram processTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram taskQueueLatencyHistogram = new LatencyHistogram();
+
     AbstractNioSelector(Executor executor) {
         this(executor, null);
     }
@@ -131,7 +167,11 @@ abstract class AbstractNioSelector implements NioSelector {
     }
 
     protected final void registerTask(Runnable task) {
-        taskQueue.add(task);
+        Runnable queuedTask = task;
+        if ((tasksQueued.add(TASKS_QUEUED, 1L) & TASK_SAMPLE_MASK) == 0 && latencyMetricsEnabled) {
+            queuedTask = new TimedTask(task, taskQueueLatencyHistogram);
+        }
+        taskQueue.add(queuedTask);
 
         Selector selector = this.selector;
 
@@ -141,13 +181,80 @@ abstract class AbstractNioSelector implements NioSelector {
             }
             // log("Task added to queue");
         } else {
-            if (taskQueue.remove(task)) {
+            if (taskQueue.remove(queuedTask)) {
+                tasksQueued.add(TASKS_QUEUED, -1L);
                 // the selector was null this means the Worker has already been shutdown.
                 throw new RejectedExecutionException("Worker has already been shutdown");
             }
         }
     }
 
+    /**
+     * Returns the selector thread, or {@code null} if it has not started yet.
+     */
+    public Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * Returns the number of iterations of the selector loop.
+     */
+    public long getLoopCount() {
+        return loops;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent waiting in select, zero if latency metrics are disabled.
+     */
+    public long getSelectTime() {
+        return selectTime;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent running tasks and processing selected channels, zero if
+     * latency metrics are disabled. Together with {@link #getSelectTime()} this gives the utilization of the thread.
+     */
+    public long getProcessTime() {
+        return processTime;
+    }
+
+    /**
+     * Returns the distribution of the time spent running tasks and processing selected channels in each
+     * iteration of the selector loop.
+     */
+    public LatencyHistogram getProcessTimeHistogram() {
+        return processTimeHistogram;
+    }
+
+    /**
+     * Returns the number of tasks queued to run on the selector thread.
+     */
+    public long getTasksQueued() {
+        return tasksQueued.sum(TASKS_QUEUED);
+    }
+
+    /**
+     * Returns the number of queued tasks that have been run.
+     */
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    /**
+     * Returns the approximate number of tasks waiting to run on the selector thread.
+     */
+    public long getTaskQueueDepth() {
+        return Math.max(0L, tasksQueued.sum(TASKS_QUEUED) - tasksRun);
+    }
+
+    /**
+     * Returns the distribution of the time between a task being queued and starting to run, sampled from
+     * one in every sixteen tasks.
+     */
+    public LatencyHistogram getTaskQueueLatencyHistogram() {
+        return taskQueueLatencyHistogram;
+    }
+
     protected final boolean isIoThread() {
         return Thread.currentThread() == thread;
     }
@@ -155,6 +262,7 @@ abstract class AbstractNioSelector implements NioSelector {
     @Override
     public void rebuildSelector() {
         if (!isIoThread()) {
+            tasksQueued.add(TASKS_QUEUED, 1L);
             taskQueue.add(new Runnable() {
                 @Override
                 public void run() {
@@ -229,6 +337,8 @@ abstract class AbstractNioSelector implements NioSelector {
         if (selector == null) {
             return;
         }
+        timingWheel.bind();
+        WorkerLocal.registerWorker();
         // use 80% of the timeout for measure
         final long minSelectTimeout = SelectorUtil.SELECT_TIMEOUT_NANOS * 80 / 100;
         boolean wakenupFromLoop = false;
@@ -240,8 +350,9 @@ abstract class AbstractNioSelector implements NioSelector {
             try {
                 long beforeSelect = System.nanoTime();
                 int selected = select(selector, quickSelect);
+                long afterSelect = System.nanoTime();
                 if (SelectorUtil.EPOLL_BUG_WORKAROUND && selected == 0 && !wakenupFromLoop && !wakenUp.get()) {
-                    long timeBlocked = System.nanoTime() - beforeSelect;
+                    long timeBlocked = afterSelect - beforeSelect;
 
                     if (timeBlocked < minSelectTimeout) {
                         boolean notConnected = false;
@@ -348,10 +459,20 @@ abstract class AbstractNioSelector implements NioSelector {
                         logger.warn(
                                 "Failed to close a selector.", e);
                     }
+                    timingWheel.unbind();
+                    WorkerLocal.unregisterWorker();
                     shutdownLatch.countDown();
                     break;
                 } else {
                     process(selector);
+
+                    loops++;
+                    if (latencyMetricsEnabled) {
+                        long loopProcessTime = System.nanoTime() - afterSelect;
+                        selectTime += afterSelect - beforeSelect;
+                        processTime += loopProcessTime;
+                        processTimeHistogram.record(loopProcessTime);
+                    }
                 }
             } catch (Throwable t) {
                 logger.warn(
@@ -401,19 +522,26 @@ abstract class AbstractNioSelector implements NioSelector {
     }
 
     private void processTaskQueue() {
-        for (;;) {
-            final Runnable task = taskQueue.poll();
-            if (task == null) {
-                break;
-            }
-            task.run();
+        long numTasks = 0;
+        try {
+            for (;;) {
+                final Runnable task = taskQueue.poll();
+                if (task == null) {
+                    break;
+                }
+                numTasks++;
+                task.run();
 
-            try {
-                cleanUpCancelledKeys();
-            } catch (IOException e) {
-                // Ignore
+                try {
+                    cleanUpCancelledKeys();
+                } catch (IOException e) {
+                    // Ignore
+                }
             }
         }
+        finally {
+            tasksRun += numTasks;
+        }
     }
 
     private boolean processTaskQueue(long deadLineNanos) {
@@ -421,35 +549,40 @@ abstract class AbstractNioSelector implements NioSelector {
         boolean perfLogEnabled = PERF_LOGGER.isInfoEnabled();
         long startTime = perfLogEnabled ? System.nanoTime() : 0;
         boolean quickSelect;
-        for (;;) {
-            final Runnable task = taskQueue.poll();
-            if (task == null) {
-                quickSelect = false;
-                break;
-            }
-            numTasks++;
-            task.run();
+        try {
+            for (;;) {
+                final Runnable task = taskQueue.poll();
+                if (task == null) {
+                    quickSelect = false;
+                    break;
+                }
+                numTasks++;
+                task.run();
 
-            try {
-                cleanUpCancelledKeys();
-            } catch (IOException e) {
-                // Ignore
-            }
-            long now = System.nanoTime();
-            if (now > deadLineNanos) {
-                if (perfLogEnabled) {
-                    long timeSoFar = now - startTime;
-                    if (PERF_LOGGER.isDebugEnabled() || timeSoFar > LATENCY_BEFORE_LOG_TASK) {
-                       PERF_LOGGER.info(format(
-                               "AbstractyNioSelector.processTaskQueue: exiting after processing %d tasks in %d ms",
-                               numTasks, TimeUnit.NANOSECONDS.toMillis(timeSoFar)));
+                try {
+                    cleanUpCancelledKeys();
+                } catch (IOException e) {
+                    // Ignore
+                }
+                long now = System.nanoTime();
+                if (now > deadLineNanos) {
+                    if (perfLogEnabled) {
+                        long timeSoFar = now - startTime;
+                        if (PERF_LOGGER.isDebugEnabled() || timeSoFar > LATENCY_BEFORE_LOG_TASK) {
+                           PERF_LOGGER.info(format(
+                                   "AbstractyNioSelector.processTaskQueue: exiting after processing %d tasks in %d ms",
+                                   numTasks, TimeUnit.NANOSECONDS.toMillis(timeSoFar)));
+                        }
                     }
+                    // Make sure select in run() loop is no wait or short since we still have tasks to do
+                    quickSelect = true;
+                    break;
                 }
-                // Make sure select in run() loop is no wait or short since we still have tasks to do
-                quickSelect = true;
-                break;
             }
         }
+        finally {
+            tasksRun += numTasks;
+        }
         return quickSelect;
     }
 
@@ -504,4 +637,28 @@ abstract class AbstractNioSelector implements NioSelector {
     protected long getMaximumProcessTaskQueueTimeNanos() {
         return 0; // no limit (process all tasks)
     }
+
+    // records the time a sampled task waited in the task queue before running it
+    private static final class TimedTask implements Runnable {
+        private final Runnable task;
+        private final LatencyHistogram histogram;
+        private final long queuedAt;
+
+        TimedTask(Runnable task, LatencyHistogram histogram) {
+            this.task = task;
+            this.histogram = histogram;
+            this.queuedAt = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            histogram.record(System.nanoTime() - queuedAt);
+            task.run();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
 }
@@ -48,12 +48,17 @@ import static org.jboss.netty.channel.Channels.fireExceptionCaught;
 import static org.jboss.netty.channel.Channels.fireExceptionCaughtLater;
 import static org.jboss.netty.channel.Channels.fireWriteCompleteLater;
 import static org.jboss.netty.channel.Channels.succeededFuture;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.WRITE_GATHERING_MAXIMUM_BYTES;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.WRITE_GATHERING_MAXIMUM_MESSAGES;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.WritableByteChannel;
@@ -63,6 +68,8 @@ import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.CompositeChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.MessageEvent;
@@ -72,12 +79,40 @@ import org.jboss.netty.util.ThreadNameDeterminer;
 import org.jboss.netty.util.ThreadRenamingRunnable;
 
 import org.kaazing.mina.netty.channel.DefaultWriteCompletionEventEx;
+import org.kaazing.mina.netty.util.LatencyHistogram;
+import org.kaazing.mina.netty.util.TimingWheel;
 
 abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
 
+    private static final int DIRECT_WRITE_SYSCALLS = 0;
+    private static final int DIRECT_WRITTEN_BYTES = 1;
+    private static final int DIRECT_WRITTEN_MESSAGES = 2;
+
     protected final SocketSendBufferPool sendBufferPool = new SocketSendBufferPool();
     private final DefaultWriteCompletionEventEx writeCompletionEvent = new DefaultWriteCompletionEventEx();
 
+    // Avoid static variables to facilitate unit tests
+    private final int maximumGatheredMessages =
+            Math.max(WRITE_GATHERING_MAXIMUM_MESSAGES.getIntProperty(System.getProperties()), 1);
+    private final long maximumGatheredBytes = WRITE_GATHERING_MAXIMUM_BYTES.getLongProperty(System.getProperties());
+
+    // note: only used by the I/O thread, slot 0 always holds the channel's current write
+    private final MessageEvent[] gatheredEvents = new MessageEvent[maximumGatheredMessages];
+    private final SendBuffer[] gatheredSendBuffers = new SendBuffer[maximumGatheredMessages];
+    private final ByteBuffer[] gatheredBuffers = new ByteBuffer[maximumGatheredMessages];
+
+    // note: only updated by the I/O thread
+    private volatile long readSyscalls;
+    private volatile long bytesRead;
+    private final LatencyHistogram readLatencyHistogram = new LatencyHistogram();
+
+    // note: only updated by the I/O thread, writes made directly by other threads are counted per thread
+    private volatile long writeSyscalls;
+    private volatile long bytesWritten;
+    private volatile long writtenMessages;
+    private final PerThreadCounters directWrites = new PerThreadCounters(3);
+    private final LatencyHistogram writeLatencyHistogram = new LatencyHistogram();
+
     AbstractNioWorker(Executor executor) {
         super(executor);
     }
@@ -86,6 +121,56 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
         super(executor, determiner);
     }
 
+    /**
+     * Returns the number of socket read system calls made by this worker.
+     */
+    public long getReadSyscalls() {
+        return readSyscalls;
+    }
+
+    /**
+     * Returns the number of bytes read from sockets by this worker.
+     */
+    public long getReadBytes() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the distribution of the duration of the socket read system calls made by this worker.
+     */
+    public LatencyHistogram getReadLatencyHistogram() {
+        return readLatencyHistogram;
+    }
+
+    /**
+     * Returns the number of socket write system calls made by this worker, which together with
+     * {@link #getWrittenMessages()} gives the number of system calls per message written.
+     */
+    public long getWriteSyscalls() {
+        return writeSyscalls + directWrites.sum(DIRECT_WRITE_SYSCALLS);
+    }
+
+    /**
+     * Returns the number of bytes written to sockets by this worker.
+     */
+    public long getWrittenBytes() {
+        return bytesWritten + directWrites.sum(DIRECT_WRITTEN_BYTES);
+    }
+
+    /**
+     * Returns the distribution of the duration of the socket write system calls made by this worker.
+     */
+    public LatencyHistogram getWriteLatencyHistogram() {
+        return writeLatencyHistogram;
+    }
+
+    /**
+     * Returns the number of messages completely written by this worker.
+     */
+    public long getWrittenMessages() {
+        return writtenMessages + directWrites.sum(DIRECT_WRITTEN_MESSAGES);
+    }
+
     @Override
     public void executeInIoThread(Runnable task) {
         executeInIoThread(task, false);
@@ -119,14 +204,31 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
         return new ThreadRenamingRunnable(this, "New I/O worker #" + id, determiner);
     }
 
+    /**
+     * Returns the timing wheel advanced by this worker, which expires its tasks on the I/O thread.
+     */
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
     @Override
     public void run() {
         super.run();
         sendBufferPool.releaseExternalResources();
     }
 
+    /**
+     * Returns the specified select timeout, shortened so that the selector wakes up for the next timing wheel tick.
+     */
+    protected final long selectTimeout(long timeoutMillis) {
+        long delayMillis = timingWheel.getDelayMillis(System.currentTimeMillis());
+        return (delayMillis < 0L || delayMillis >= timeoutMillis) ? timeoutMillis : delayMillis;
+    }
+
     @Override
     protected void process(Selector selector) throws IOException {
+        timingWheel.expire(System.currentTimeMillis());
+
         Set<SelectionKey> selectedKeys = selector.selectedKeys();
         // check if the set is empty and if so just return to not create garbage by
         // creating a new Iterator every time even if there is nothing to process.
@@ -215,6 +317,8 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
         boolean iothread = isIoThread(channel);
 
         long writtenBytes = 0;
+        long directWriteSyscalls = 0;
+        long directWrittenMessages = 0;
 
         final SocketSendBufferPool sendBufferPool = this.sendBufferPool;
         final WritableByteChannel ch = channel.channel;
@@ -242,9 +346,33 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                         buf = channel.currentWriteBuffer;
                     }
 
+                    if (iothread && ch instanceof GatheringByteChannel && !writeBuffer.isEmpty()) {
+                        int gathered = gather(channel, evt, buf);
+                        if (gathered > 1) {
+                            long localWrittenBytes = writeGathered((GatheringByteChannel) ch, gathered, writeSpinCount);
+                            writtenBytes += localWrittenBytes;
+                            if (completeGathered(channel, gathered, localWrittenBytes)) {
+                                // Everything gathered was written - proceed to the next messages.
+                                continue;
+                            }
+
+                            // Not written fully - perhaps the kernel buffer is full.
+                            addOpWrite = true;
+                            channel.writeSuspended = true;
+                            break;
+                        }
+                    }
+
                     long localWrittenBytes = 0;
                     for (int i = writeSpinCount; i > 0; i --) {
+                        long writeStart = latencyMetricsEnabled ? System.nanoTime() : 0L;
                         localWrittenBytes = buf.transferTo(ch);
+                        if (iothread) {
+                            writeCompleted(writeStart, localWrittenBytes);
+                        }
+                        else {
+                            directWriteSyscalls++;
+                        }
                         if (localWrittenBytes != 0) {
                             writtenBytes += localWrittenBytes;
                             break;
@@ -263,6 +391,12 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
                         //noinspection UnusedAssignment
                         evt = null;
                         buf = null;
+                        if (iothread) {
+                            writtenMessages++;
+                        }
+                        else {
+                            directWrittenMessages++;
+                        }
                         future.setSuccess();
                     } else {
                         // Not written fully - perhaps the kernel buffer is full.
@@ -328,7 +462,158 @@ abstract class AbstractNioWorker extends AbstractNioSelector implements Worker {
             }
         } else {
             fireWriteCompleteLater(channel, writtenBytes);
+            if (directWriteSyscalls > 0) {
+                directWrites.add(DIRECT_WRITE_SYSCALLS, directWriteSyscalls);
+                directWrites.add(DIRECT_WRITTEN_BYTES, writtenBytes);
+                directWrites.add(DIRECT_WRITTEN_MESSAGES, directWrittenMessages);
+            }
+        }
+    }
+
+    private void writeCompleted(long writeStart, long localWrittenBytes) {
+        writeSyscalls++;
+        bytesWritten += localWrittenBytes;
+        if (latencyMetricsEnabled) {
+            writeLatencyHistogram.record(System.nanoTime() - writeStart);
+        }
+    }
+
+    /**
+     * Reads from the channel into the buffer with a single system call, counting and timing the call.
+     */
+    protected final int read(ReadableByteChannel ch, ByteBuffer bb) throws IOException {
+        long readStart = latencyMetricsEnabled ? System.nanoTime() : 0L;
+        int ret = ch.read(bb);
+        readSyscalls++;
+        if (ret > 0) {
+            bytesRead += ret;
+        }
+        if (latencyMetricsEnabled) {
+            readLatencyHistogram.record(System.nanoTime() - readStart);
+        }
+        return ret;
+    }
+
+    // collects the current write followed by as many queued messages as allowed, returns the number collected
+    private int gather(AbstractNioChannel<?> channel, MessageEvent evt, SendBuffer buf) {
+        ByteBuffer buffer = SocketSendBufferPool.gatherableBuffer(buf);
+        if (buffer == null || maximumGatheredMessages == 1) {
+            return 0;
+        }
+
+        gatheredEvents[0] = evt;
+        gatheredSendBuffers[0] = buf;
+        gatheredBuffers[0] = buffer;
+        long gatheredBytes = buffer.remaining();
+        int count = 1;
+
+        for (Iterator<MessageEvent> i = channel.writeBufferQueue.iterator(); i.hasNext() && count < maximumGatheredMessages;) {
+            MessageEvent next = i.next();
+            Object message = next.getMessage();
+            if (!(message instanceof ChannelBuffer)) {
+                break;
+            }
+            ChannelBuffer src = (ChannelBuffer) message;
+            int size = src.readableBytes();
+            if (size == 0 || gatheredBytes + size > maximumGatheredBytes ||
+                    src instanceof CompositeChannelBuffer && ((CompositeChannelBuffer) src).useGathering()) {
+                break;
+            }
+
+            SendBuffer nextBuf = sendBufferPool.acquire(channel, src);
+            ByteBuffer nextBuffer = SocketSendBufferPool.gatherableBuffer(nextBuf);
+            if (nextBuffer == null) {
+                nextBuf.release();
+                break;
+            }
+
+            gatheredEvents[count] = next;
+            gatheredSendBuffers[count] = nextBuf;
+            gatheredBuffers[count] = nextBuffer;
+            gatheredBytes += size;
+            count++;
+        }
+
+        if (count == 1) {
+            gatheredEvents[0] = null;
+            gatheredSendBuffers[0] = null;
+            gatheredBuffers[0] = null;
+        }
+        return count;
+    }
+
+    private long writeGathered(GatheringByteChannel ch, int count, int writeSpinCount) throws IOException {
+        boolean success = false;
+        try {
+            long localWrittenBytes = 0;
+            for (int i = writeSpinCount; i > 0; i --) {
+                long writeStart = latencyMetricsEnabled ? System.nanoTime() : 0L;
+                localWrittenBytes = ch.write(gatheredBuffers, 0, count);
+                writeCompleted(writeStart, localWrittenBytes);
+                if (localWrittenBytes != 0) {
+                    break;
+                }
+            }
+            success = true;
+            return localWrittenBytes;
+        }
+        finally {
+            if (!success) {
+                // the current write is released by write0, the other messages remain queued
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        gatheredSendBuffers[i].release();
+                    }
+                    gatheredEvents[i] = null;
+                    gatheredSendBuffers[i] = null;
+                    gatheredBuffers[i] = null;
+                }
+            }
+        }
+    }
+
+    // completes each gathered message in order, returns true if all of them were written fully
+    private boolean completeGathered(AbstractNioChannel<?> channel, int count, long localWrittenBytes) {
+        boolean finished = true;
+        for (int i = 0; i < count; i++) {
+            MessageEvent evt = gatheredEvents[i];
+            SendBuffer buf = gatheredSendBuffers[i];
+            gatheredEvents[i] = null;
+            gatheredSendBuffers[i] = null;
+            gatheredBuffers[i] = null;
+
+            if (!finished || i > 0 && buf.writtenBytes() == 0) {
+                // Not reached by this write - the message remains queued and is acquired again later.
+                finished = false;
+                buf.release();
+                continue;
+            }
+
+            if (i > 0) {
+                // note: the gathered message is always at the head of the queue
+                channel.writeBufferQueue.poll();
+                channel.currentWriteEvent = evt;
+                channel.currentWriteBuffer = buf;
+            }
+
+            ChannelFuture future = evt.getFuture();
+            if (buf.finished()) {
+                buf.release();
+                channel.currentWriteEvent = null;
+                channel.currentWriteBuffer = null;
+                writtenMessages++;
+                future.setSuccess();
+            } else {
+                finished = false;
+
+                // Notify progress listeners if necessary.
+                long amount = i > 0 ? buf.writtenBytes() : localWrittenBytes;
+                if (amount > 0) {
+                    future.setProgress(amount, buf.writtenBytes(), buf.totalBytes());
+                }
+            }
         }
+        return finished;
     }
 
     static boolean isIoThread(AbstractNioChannel<?> channel) {
@@ -122,7 +122,7 @@ public class NioWorker extends AbstractNioWorker {
 
         ByteBuffer bb = recvBufferPool.get(predictedRecvBufSize).order(bufferFactory.getDefaultOrder());
         try {
-            while ((ret = ch.read(bb)) > 0) {
+            while ((ret = read(ch, bb)) > 0) {
                 readBytes += ret;
                 if (!bb.hasRemaining()) {
                     break;
@@ -176,9 +176,9 @@ public class NioWorker extends AbstractNioWorker {
     @Override
     protected int select(Selector selector, boolean quickSelect) throws IOException {
         if (quickSelect) {
-            return SelectorUtil.select(selector, QUICK_SELECT_TIMEOUT);
+            return SelectorUtil.select(selector, selectTimeout(QUICK_SELECT_TIMEOUT));
         } else {
-            return SelectorUtil.select(selector);
+            return SelectorUtil.select(selector, selectTimeout(SelectorUtil.SELECT_TIMEOUT));
         }
     }
 
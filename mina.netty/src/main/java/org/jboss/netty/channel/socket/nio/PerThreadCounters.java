@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jboss.netty.channel.socket.nio;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters that any thread can update without contention.  Each thread adds to its own cells, with
+ * ordered writes since it is their only writer, and readers sum the cells of every thread that has counted.
+ */
+final class PerThreadCounters {
+
+    private final int size;
+    private final Queue<AtomicLongArray> cells;
+    private final ThreadLocal<AtomicLongArray> localCells;
+
+    PerThreadCounters(int size) {
+        this.size = size;
+        this.cells = new ConcurrentLinkedQueue<AtomicLongArray>();
+        this.localCells = new ThreadLocal<AtomicLongArray>() {
+            @Override
+            protected AtomicLongArray initialValue() {
+                AtomicLongArray newCells = new AtomicLongArray(PerThreadCounters.this.size);
+                cells.add(newCells);
+                return newCells;
+            }
+        };
+    }
+
+    /**
+     * Adds to a counter of the calling thread, returning that thread's new count.
+     */
+    long add(int counter, long delta) {
+        AtomicLongArray local = localCells.get();
+        long count = local.get(counter) + delta;
+        local.lazySet(counter, count);
+        return count;
+    }
+
+    long sum(int counter) {
+        long sum = 0L;
+        for (AtomicLongArray threadCells : cells) {
+            sum += threadCells.get(counter);
+        }
+        return sum;
+    }
+}
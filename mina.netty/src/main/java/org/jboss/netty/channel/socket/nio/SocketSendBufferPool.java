@@ -140,6 +140,20 @@ final class SocketSendBufferPool implements ExternalResourceReleasable {
         return dst;
     }
 
+    /**
+     * Returns the single buffer backing the given send buffer so that it can be written by a gathering write,
+     * or null if the send buffer is not backed by a single ByteBuffer.
+     */
+    static ByteBuffer gatherableBuffer(SendBuffer buf) {
+        if (buf instanceof UnpooledSendBuffer) {
+            return ((UnpooledSendBuffer) buf).buffer;
+        }
+        if (buf instanceof SharedUnpooledSendBuffer) {
+            return ((SharedUnpooledSendBuffer) buf).buffer;
+        }
+        return null;
+    }
+
     private SharedUnpooledSendBuffer getSharedUnpooled(AbstractNioChannel<?> channel) {
         SharedUnpooledSendBuffer sharedUnpooled = (SharedUnpooledSendBuffer) channel.sharedUnpooled;
         if (sharedUnpooled == null || !sharedUnpooled.canInitialize()) {
@@ -44,6 +44,16 @@ import java.nio.ByteBuffer;
 
 public abstract class AbstractIoBufferAllocatorEx<T extends AbstractIoBufferEx> implements IoBufferAllocatorEx<T> {
 
+    private final IoBufferPool pool;
+
+    protected AbstractIoBufferAllocatorEx() {
+        this(IoBufferPool.getDefaultPool());
+    }
+
+    protected AbstractIoBufferAllocatorEx(IoBufferPool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public final ByteBuffer allocate(int capacity) {
         return allocate(capacity, IoBufferEx.FLAG_NONE);
@@ -63,7 +73,10 @@ public abstract class AbstractIoBufferAllocatorEx<T extends AbstractIoBufferEx>
 
     protected final ByteBuffer allocateNioBuffer0(int capacity, int flags) {
         boolean direct = (flags & IoBufferEx.FLAG_DIRECT) != IoBufferEx.FLAG_NONE;
-        ByteBuffer nioBuffer;
+        ByteBuffer nioBuffer = (pool != null) ? pool.allocate(capacity, direct) : null;
+        if (nioBuffer != null) {
+            return nioBuffer;
+        }
         if (direct) {
             nioBuffer = ByteBuffer.allocateDirect(capacity);
         } else {
@@ -71,4 +84,15 @@ public abstract class AbstractIoBufferAllocatorEx<T extends AbstractIoBufferEx>
         }
         return nioBuffer;
     }
+
+    /**
+     * Transfers ownership of pooled memory to the buffer wrapping it, when the wrapped NIO buffer
+     * was just allocated by {@link #allocateNioBuffer0(int, int)} on the current thread.
+     */
+    protected final T claimNioBuffer0(ByteBuffer nioBuffer, T buffer) {
+        if (pool != null) {
+            buffer.slab = pool.claim(nioBuffer);
+        }
+        return buffer;
+    }
 }
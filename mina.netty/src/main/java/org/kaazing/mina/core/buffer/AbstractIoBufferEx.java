@@ -127,6 +127,9 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
     /** Tells if a buffer can be expanded */
     private boolean recapacityAllowed = true;
 
+    /** The pooled memory shared by this buffer and its derived buffers, or null if not pooled */
+    IoBufferPool.Slab slab;
+
     /** The minimum number of bytes the IoBuffer can hold */
     private int minimumCapacity;
 
@@ -165,6 +168,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         this.recapacityAllowed = false;
         this.derived = true;
         this.minimumCapacity = parent.minimumCapacity;
+        this.slab = parent.slab;
     }
 
     @Override
@@ -172,6 +176,40 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         return this;
     }
 
+    /**
+     * Releases a reference to the pooled memory backing this buffer and its derived buffers,
+     * returning the memory to the pool once every reference has been released.
+     */
+    @Override
+    public void free() {
+        IoBufferPool.Slab slab = this.slab;
+        if (slab != null) {
+            slab.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AbstractIoBufferEx retain() {
+        IoBufferPool.Slab slab = this.slab;
+        if (slab != null) {
+            slab.retain();
+        }
+        return this;
+    }
+
+    private void detachSlab() {
+        // previous memory may still be referenced by buffers created via asSharedBuffer() or
+        // asUnsharedBuffer(), so it is left to the garbage collector instead of returned to the pool
+        IoBufferPool.Slab slab = this.slab;
+        if (slab != null) {
+            slab.abandon();
+            this.slab = null;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -256,6 +294,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
             oldBuf.clear();
             newBuf.put(oldBuf);
             buf(newBuf);
+            detachSlab();
 
             //// Restore the state.
             buf().limit(limit);
@@ -455,6 +494,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         oldBuf.limit(limit);
         newBuf.put(oldBuf);
         buf(newBuf);
+        detachSlab();
 
         //// Restore the state.
         buf().position(position);
@@ -726,6 +766,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
             ByteBuffer newBuf = autoShrinker.allocate(newCapacity, flags());
             newBuf.put(oldBuf);
             buf(newBuf);
+            detachSlab();
 
             //// Restore the state.
             buf().order(bo);
@@ -1032,6 +1073,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         assert (shared.flags() & FLAG_SHARED) == FLAG_SHARED;
         if (shared != this) {
             shared.mark = this.mark;
+            shared.slab = this.slab;
         }
         return shared;
     }
@@ -1043,6 +1085,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         assert (unshared.flags() & FLAG_SHARED) != FLAG_SHARED;
         if (unshared != this) {
             unshared.mark = this.mark;
+            unshared.slab = this.slab;
         }
         return unshared;
     }
@@ -96,6 +96,12 @@ public interface IoBufferEx {
      */
     void free();
 
+    /**
+     * Adds a reference to the memory shared by this buffer and all its derived buffers, so that
+     * an additional call to {@link #free()} is required before the memory can be reused.
+     */
+    IoBufferEx retain();
+
     /**
      * Returns the underlying NIO buffer instance.
      */
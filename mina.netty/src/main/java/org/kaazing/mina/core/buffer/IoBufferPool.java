@@ -0,0 +1,380 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.buffer;
+
+import static org.kaazing.mina.netty.config.InternalSystemProperty.BUFFER_LEAK_DETECTION_ENABLED;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.BUFFER_POOL_ENABLED;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.BUFFER_POOL_MAXIMUM_CACHED_BYTES;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.BUFFER_POOL_MAXIMUM_POOLED_SIZE;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of size-classed buffer slabs cached per thread, so that I/O workers can recycle buffer memory
+ * without contention.  Memory freed by a thread other than the one that allocated it is handed back
+ * to the allocating thread through a concurrent return queue, drained the next time that thread's
+ * local cache runs dry.
+ * <p>
+ * Memory is recycled once every reference to a pooled buffer has been released via {@link IoBufferEx#free()}.
+ * Buffers that are never freed are reclaimed by the garbage collector as usual, and reported if leak
+ * detection is enabled.
+ */
+public final class IoBufferPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoBufferPool.class);
+
+    private static final int MINIMUM_POOLED_SHIFT = 6;
+    private static final int MINIMUM_POOLED_SIZE = 1 << MINIMUM_POOLED_SHIFT;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final IoBufferPool DEFAULT_POOL = newDefaultPool(System.getProperties());
+
+    private final int maximumPooledSize;
+    private final int maximumCachedBytes;
+    private final int sizeClasses;
+    private final ThreadLocal<LocalPool> localPool;
+
+    private final ReferenceQueue<Slab> leakQueue;
+    private final Set<LeakRecord> leakRecords;
+    private final AtomicLong leaks;
+    private final AtomicLong allocations;
+    private final AtomicLong frees;
+
+    public IoBufferPool(int maximumPooledSize, int maximumCachedBytes, boolean leakDetection) {
+        if (maximumPooledSize < MINIMUM_POOLED_SIZE) {
+            throw new IllegalArgumentException("maximumPooledSize: " + maximumPooledSize);
+        }
+        if (maximumCachedBytes < 0) {
+            throw new IllegalArgumentException("maximumCachedBytes: " + maximumCachedBytes);
+        }
+        this.sizeClasses = sizeClass(maximumPooledSize) + 1;
+        this.maximumPooledSize = sizeOf(sizeClasses - 1);
+        this.maximumCachedBytes = maximumCachedBytes;
+        this.localPool = new ThreadLocal<LocalPool>() {
+            @Override
+            protected LocalPool initialValue() {
+                return new LocalPool(sizeClasses);
+            }
+        };
+        this.leakQueue = leakDetection ? new ReferenceQueue<Slab>() : null;
+        this.leakRecords = leakDetection ? Collections.newSetFromMap(new ConcurrentHashMap<LeakRecord, Boolean>()) : null;
+        this.leaks = new AtomicLong();
+        this.allocations = new AtomicLong();
+        this.frees = new AtomicLong();
+    }
+
+    /**
+     * Returns the pool configured by system properties, or {@code null} if buffer pooling is disabled.
+     */
+    public static IoBufferPool getDefaultPool() {
+        return DEFAULT_POOL;
+    }
+
+    public int getMaximumPooledSize() {
+        return maximumPooledSize;
+    }
+
+    public boolean isLeakDetectionEnabled() {
+        return leakQueue != null;
+    }
+
+    /**
+     * Returns the number of pooled buffers detected as garbage collected without having been freed.
+     */
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    /**
+     * Returns the number of buffers allocated from this pool, counted only when leak detection is enabled.
+     */
+    public long getAllocatedCount() {
+        return allocations.get();
+    }
+
+    /**
+     * Returns the number of pooled buffers released back to this pool, or abandoned before being wrapped,
+     * counted only when leak detection is enabled.
+     */
+    public long getFreeCount() {
+        return frees.get();
+    }
+
+    /**
+     * Allocates a buffer of exactly the requested capacity from the calling thread's cache.
+     *
+     * @return the pooled buffer, or {@code null} if the capacity is not eligible for pooling
+     */
+    public ByteBuffer allocate(int capacity, boolean direct) {
+        if (capacity == 0 || capacity > maximumPooledSize) {
+            return null;
+        }
+
+        LocalPool local = localPool.get();
+        if (local.pending != null) {
+            // allocated but never wrapped by a pooling allocator, so it can never be freed
+            abandon(local.pending);
+        }
+
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer piece = local.poll(sizeClass, direct);
+        piece.clear();
+        piece.limit(capacity);
+        ByteBuffer buf = piece.slice().order(ByteOrder.BIG_ENDIAN);
+
+        Slab slab = new Slab(this, local, piece, buf, sizeClass, direct);
+        if (leakQueue != null) {
+            reportLeaks();
+            slab.leak = new LeakRecord(slab, leakQueue);
+            leakRecords.add(slab.leak);
+            allocations.incrementAndGet();
+        }
+        local.pending = slab;
+        return buf;
+    }
+
+    /**
+     * Claims the pooled memory behind a buffer just returned by {@link #allocate(int, boolean)} on
+     * the calling thread, transferring ownership of it to the {@link IoBufferEx} that wraps it.
+     *
+     * @return the pooled memory, or {@code null} if the buffer was not allocated from this pool
+     */
+    Slab claim(ByteBuffer buf) {
+        LocalPool local = localPool.get();
+        Slab slab = local.pending;
+        if (slab != null && slab.buf == buf) {
+            local.pending = null;
+            return slab;
+        }
+        return null;
+    }
+
+    private void recycle(Slab slab) {
+        if (slab.leak != null) {
+            frees.incrementAndGet();
+            leakRecords.remove(slab.leak);
+            slab.leak.clear();
+            slab.leak = null;
+        }
+
+        LocalPool owner = slab.owner;
+        if (owner == localPool.get()) {
+            owner.offer(slab.sizeClass, slab.direct, slab.piece, maximumCachedBytes);
+        }
+        else {
+            owner.returns.offer(slab);
+        }
+    }
+
+    private void abandon(Slab slab) {
+        if (slab.leak != null) {
+            frees.incrementAndGet();
+            leakRecords.remove(slab.leak);
+            slab.leak.clear();
+            slab.leak = null;
+        }
+    }
+
+    private void reportLeaks() {
+        for (;;) {
+            LeakRecord leak = (LeakRecord) leakQueue.poll();
+            if (leak == null) {
+                break;
+            }
+
+            if (leakRecords.remove(leak)) {
+                leaks.incrementAndGet();
+                if (LOGGER.isWarnEnabled()) {
+                    LOGGER.warn("Pooled buffer was garbage collected without being freed", leak.allocation);
+                }
+            }
+        }
+    }
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= MINIMUM_POOLED_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MINIMUM_POOLED_SHIFT;
+    }
+
+    private static int sizeOf(int sizeClass) {
+        return MINIMUM_POOLED_SIZE << sizeClass;
+    }
+
+    private static IoBufferPool newDefaultPool(Properties configuration) {
+        if (!BUFFER_POOL_ENABLED.getBooleanProperty(configuration)) {
+            return null;
+        }
+
+        int maximumPooledSize = BUFFER_POOL_MAXIMUM_POOLED_SIZE.getIntProperty(configuration);
+        int maximumCachedBytes = BUFFER_POOL_MAXIMUM_CACHED_BYTES.getIntProperty(configuration);
+        boolean leakDetection = BUFFER_LEAK_DETECTION_ENABLED.getBooleanProperty(configuration);
+        return new IoBufferPool(maximumPooledSize, maximumCachedBytes, leakDetection);
+    }
+
+    /**
+     * Pooled memory shared by a buffer and all of its derived buffers.
+     */
+    static final class Slab {
+        private static final AtomicIntegerFieldUpdater<Slab> REFERENCES =
+                AtomicIntegerFieldUpdater.newUpdater(Slab.class, "references");
+
+        private final IoBufferPool pool;
+        private final LocalPool owner;
+        private final ByteBuffer piece;
+        private final ByteBuffer buf;
+        private final int sizeClass;
+        private final boolean direct;
+
+        private volatile int references = 1;
+        private LeakRecord leak;
+
+        Slab(IoBufferPool pool, LocalPool owner, ByteBuffer piece, ByteBuffer buf, int sizeClass, boolean direct) {
+            this.pool = pool;
+            this.owner = owner;
+            this.piece = piece;
+            this.buf = buf;
+            this.sizeClass = sizeClass;
+            this.direct = direct;
+        }
+
+        int references() {
+            return references;
+        }
+
+        void retain() {
+            for (;;) {
+                int references = this.references;
+                if (references <= 0) {
+                    throw new IllegalStateException("Buffer already freed");
+                }
+                if (REFERENCES.compareAndSet(this, references, references + 1)) {
+                    break;
+                }
+            }
+        }
+
+        void abandon() {
+            pool.abandon(this);
+        }
+
+        void release() {
+            int references = REFERENCES.decrementAndGet(this);
+            if (references == 0) {
+                pool.recycle(this);
+            }
+            else if (references < 0) {
+                REFERENCES.incrementAndGet(this);
+                throw new IllegalStateException("Buffer already freed");
+            }
+        }
+    }
+
+    private static final class LeakRecord extends WeakReference<Slab> {
+        private final Throwable allocation;
+
+        LeakRecord(Slab slab, ReferenceQueue<Slab> leakQueue) {
+            super(slab, leakQueue);
+            this.allocation = new Throwable(String.format("Allocated %d byte %s buffer in thread %s",
+                    slab.buf.capacity(), slab.direct ? "direct" : "heap", Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Per-thread cache of free pieces for each size class, carved from larger chunks on demand.
+     */
+    private static final class LocalPool {
+        private final Queue<Slab> returns;
+        private final ArrayDeque<ByteBuffer>[] heapPieces;
+        private final ArrayDeque<ByteBuffer>[] directPieces;
+
+        private Slab pending;
+
+        @SuppressWarnings("unchecked")
+        LocalPool(int sizeClasses) {
+            this.returns = new ConcurrentLinkedQueue<Slab>();
+            this.heapPieces = new ArrayDeque[sizeClasses];
+            this.directPieces = new ArrayDeque[sizeClasses];
+            for (int i = 0; i < sizeClasses; i++) {
+                heapPieces[i] = new ArrayDeque<ByteBuffer>();
+                directPieces[i] = new ArrayDeque<ByteBuffer>();
+            }
+        }
+
+        ByteBuffer poll(int sizeClass, boolean direct) {
+            ArrayDeque<ByteBuffer> pieces = direct ? directPieces[sizeClass] : heapPieces[sizeClass];
+            ByteBuffer piece = pieces.pollFirst();
+            if (piece == null) {
+                drainReturns();
+                piece = pieces.pollFirst();
+                if (piece == null) {
+                    piece = carve(pieces, sizeOf(sizeClass), direct);
+                }
+            }
+            return piece;
+        }
+
+        void offer(int sizeClass, boolean direct, ByteBuffer piece, int maximumCachedBytes) {
+            ArrayDeque<ByteBuffer> pieces = direct ? directPieces[sizeClass] : heapPieces[sizeClass];
+            if ((pieces.size() + 1) * piece.capacity() <= maximumCachedBytes) {
+                pieces.offerFirst(piece);
+            }
+        }
+
+        private void drainReturns() {
+            for (;;) {
+                Slab slab = returns.poll();
+                if (slab == null) {
+                    break;
+                }
+                offer(slab.sizeClass, slab.direct, slab.piece, slab.pool.maximumCachedBytes);
+            }
+        }
+
+        private static ByteBuffer carve(ArrayDeque<ByteBuffer> pieces, int size, boolean direct) {
+            int chunkSize = Math.max(size, CHUNK_SIZE);
+            ByteBuffer chunk = direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+            for (int offset = size; offset < chunkSize; offset += size) {
+                chunk.limit(offset + size).position(offset);
+                pieces.offerLast(chunk.slice());
+            }
+            chunk.limit(size).position(0);
+            return chunk.slice();
+        }
+    }
+}
@@ -58,6 +58,10 @@ public final class SimpleBufferAllocator extends AbstractIoBufferAllocatorEx<Sim
     private SimpleBufferAllocator() {
     }
 
+    SimpleBufferAllocator(IoBufferPool pool) {
+        super(pool);
+    }
+
     @Override
     public ByteBuffer allocate(int capacity, int flags) {
         return allocateNioBuffer0(capacity, flags);
@@ -66,7 +70,8 @@ public final class SimpleBufferAllocator extends AbstractIoBufferAllocatorEx<Sim
     @Override
     public SimpleBuffer wrap(ByteBuffer nioBuffer, int flags) {
         boolean shared = (flags & IoBufferEx.FLAG_SHARED) != IoBufferEx.FLAG_NONE;
-        return shared ? new SimpleSharedBuffer(nioBuffer) : new SimpleUnsharedBuffer(nioBuffer);
+        SimpleBuffer buffer = shared ? new SimpleSharedBuffer(nioBuffer) : new SimpleUnsharedBuffer(nioBuffer);
+        return claimNioBuffer0(nioBuffer, buffer);
     }
 
     public abstract static class SimpleBuffer extends AbstractIoBufferEx {
@@ -147,11 +152,6 @@ public final class SimpleBufferAllocator extends AbstractIoBufferAllocatorEx<Sim
         public boolean hasArray() {
             return buf.hasArray();
         }
-
-        @Override
-        public void free() {
-            // do nothing
-        }
     }
 
     static final class SimpleSharedBuffer extends SimpleBuffer {
@@ -238,10 +238,5 @@ public final class SimpleBufferAllocator extends AbstractIoBufferAllocatorEx<Sim
             return buf().hasArray();
         }
 
-        @Override
-        public void free() {
-            // do nothing
-        }
-
     }
 }
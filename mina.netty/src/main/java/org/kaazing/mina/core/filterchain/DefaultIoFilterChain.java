@@ -23,6 +23,7 @@ package org.kaazing.mina.core.filterchain;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -69,24 +70,59 @@ public class DefaultIoFilterChain implements IoFilterChain {
     /** The chain tail */
     private final EntryImpl tail;
 
+    /** The shared template linked between head and tail, until this chain is first modified */
+    private volatile IoFilterChainTemplate template;
+
+    /** The number of leading template entries currently in this chain */
+    private volatile int templateSize;
+
+    /** The private entries materialized from the template, by template index */
+    private volatile EntryImpl[] templateEntries;
+
     /** The logger for this class */
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultIoFilterChain.class);
 
     public DefaultIoFilterChain(DefaultIoFilterChain filterChain) {
         this(filterChain.session);
 
-        // EntryImpl is a non-static inner class that carries an implicit
-        // reference to the original filter chain instance
-        EntryImpl oldHead = filterChain.head;
-        EntryImpl oldTail = filterChain.tail;
-        EntryImpl prevEntry = head;
-        for (EntryImpl entry = oldHead.nextEntry; entry != oldTail; entry = entry.nextEntry) {
-            EntryImpl newEntry = new EntryImpl(prevEntry, tail, entry.name, entry.filter);
-            name2entry.put(entry.name, newEntry);
-            prevEntry.nextEntry = newEntry;
-            prevEntry = newEntry;
+        synchronized (filterChain) {
+            if (filterChain.template != null) {
+                // template entries are shared, so there is nothing to copy
+                template = filterChain.template;
+                templateSize = filterChain.templateSize;
+                return;
+            }
+
+            // EntryImpl is a non-static inner class that carries an implicit
+            // reference to the original filter chain instance
+            EntryImpl[] oldTemplateEntries = filterChain.templateEntries;
+            Map<EntryImpl, EntryImpl> newEntries = (oldTemplateEntries != null)
+                    ? new IdentityHashMap<EntryImpl, EntryImpl>() : null;
+            EntryImpl oldHead = filterChain.head;
+            EntryImpl oldTail = filterChain.tail;
+            EntryImpl prevEntry = head;
+            for (EntryImpl entry = oldHead.nextEntry; entry != oldTail; entry = entry.nextEntry) {
+                EntryImpl newEntry = new EntryImpl(prevEntry, tail, entry.name, entry.filter);
+                name2entry.put(entry.name, newEntry);
+                prevEntry.nextEntry = newEntry;
+                prevEntry = newEntry;
+                if (newEntries != null) {
+                    newEntries.put(entry, newEntry);
+                }
+            }
+            tail.prevEntry = prevEntry;
+
+            if (oldTemplateEntries != null) {
+                // keep shared next filters held by filters pointing at the equivalent entries,
+                // removed entries still refer to their former neighbours in the original chain
+                templateEntries = new EntryImpl[oldTemplateEntries.length];
+                for (int index = 0; index < oldTemplateEntries.length; index++) {
+                    EntryImpl oldEntry = oldTemplateEntries[index];
+                    EntryImpl newEntry = (oldEntry != null) ? newEntries.get(oldEntry) : null;
+                    templateEntries[index] = (newEntry != null) ? newEntry : oldEntry;
+                }
+            }
         }
-        tail.prevEntry = prevEntry;
     }
 
     /**
@@ -111,6 +147,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public Entry getEntry(String name) {
+        materialize();
         Entry e = name2entry.get(name);
         if (e == null) {
             return null;
@@ -119,6 +156,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public Entry getEntry(IoFilter filter) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (e.getFilter() == filter) {
@@ -130,6 +168,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public Entry getEntry(Class<? extends IoFilter> filterType) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (filterType.isAssignableFrom(e.getFilter().getClass())) {
@@ -141,7 +180,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public IoFilter get(String name) {
-        Entry e = getEntry(name);
+        Entry e = findEntry(name);
         if (e == null) {
             return null;
         }
@@ -150,7 +189,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public IoFilter get(Class<? extends IoFilter> filterType) {
-        Entry e = getEntry(filterType);
+        Entry e = findEntry(filterType);
         if (e == null) {
             return null;
         }
@@ -159,7 +198,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public NextFilter getNextFilter(String name) {
-        Entry e = getEntry(name);
+        Entry e = findEntry(name);
         if (e == null) {
             return null;
         }
@@ -168,7 +207,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public NextFilter getNextFilter(IoFilter filter) {
-        Entry e = getEntry(filter);
+        Entry e = findEntry(filter);
         if (e == null) {
             return null;
         }
@@ -177,7 +216,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public NextFilter getNextFilter(Class<? extends IoFilter> filterType) {
-        Entry e = getEntry(filterType);
+        Entry e = findEntry(filterType);
         if (e == null) {
             return null;
         }
@@ -186,17 +225,20 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public synchronized void addFirst(String name, IoFilter filter) {
+        materialize();
         checkAddable(name);
         register(head, name, filter);
     }
 
     public synchronized void addLast(String name, IoFilter filter) {
+        materialize();
         checkAddable(name);
         register(tail.prevEntry, name, filter);
     }
 
     public synchronized void addBefore(String baseName, String name,
             IoFilter filter) {
+        materialize();
         EntryImpl baseEntry = checkOldName(baseName);
         checkAddable(name);
         register(baseEntry.prevEntry, name, filter);
@@ -204,18 +246,21 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     public synchronized void addAfter(String baseName, String name,
             IoFilter filter) {
+        materialize();
         EntryImpl baseEntry = checkOldName(baseName);
         checkAddable(name);
         register(baseEntry, name, filter);
     }
 
     public synchronized IoFilter remove(String name) {
+        materialize();
         EntryImpl entry = checkOldName(name);
         deregister(entry);
         return entry.getFilter();
     }
 
     public synchronized void remove(IoFilter filter) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (e.getFilter() == filter) {
@@ -229,6 +274,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public synchronized IoFilter remove(Class<? extends IoFilter> filterType) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (filterType.isAssignableFrom(e.getFilter().getClass())) {
@@ -243,6 +289,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public synchronized IoFilter replace(String name, IoFilter newFilter) {
+        materialize();
         EntryImpl entry = checkOldName(name);
         IoFilter oldFilter = entry.getFilter();
         entry.setFilter(newFilter);
@@ -250,6 +297,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public synchronized void replace(IoFilter oldFilter, IoFilter newFilter) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (e.getFilter() == oldFilter) {
@@ -264,6 +312,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     public synchronized IoFilter replace(
             Class<? extends IoFilter> oldFilterType, IoFilter newFilter) {
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (oldFilterType.isAssignableFrom(e.getFilter().getClass())) {
@@ -278,6 +327,18 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public synchronized void clear() throws Exception {
+        // remove shared template entries last to first without materializing them
+        while (template != null && templateSize > 0) {
+            int index = templateSize - 1;
+            Entry entry = template.entry(index);
+            try {
+                deregister(entry, index);
+            } catch (Exception e) {
+                throw new IoFilterLifeCycleException("clear(): "
+                        + entry.getName() + " in " + getSession(), e);
+            }
+        }
+
         List<IoFilterChain.Entry> l = new ArrayList<IoFilterChain.Entry>(
                 name2entry.values());
         for (IoFilterChain.Entry entry : l) {
@@ -343,6 +404,197 @@ public class DefaultIoFilterChain implements IoFilterChain {
         name2entry.remove(entry.name);
     }
 
+    /**
+     * Adds the filters of a shared template to the end of this chain, linking the template entries
+     * instead of creating private entries for this chain when the chain is still empty.
+     */
+    synchronized void addTemplate(IoFilterChainTemplate template) {
+        int size = template.size();
+        if (this.template != null || templateEntries != null || head.nextEntry != tail) {
+            for (int index = 0; index < size; index++) {
+                addLast(template.name(index), template.filter(index));
+            }
+            return;
+        }
+
+        this.template = template;
+        this.templateSize = 0;
+        for (int index = 0; index < size; index++) {
+            String name = template.name(index);
+            IoFilter filter = template.filter(index);
+
+            if (this.template == null) {
+                // a life cycle method modified this chain, so add the remaining filters privately
+                addLast(name, filter);
+                continue;
+            }
+
+            NextFilter nextFilter = template.nextFilter(index);
+            try {
+                filter.onPreAdd(this, name, nextFilter);
+            } catch (Exception e) {
+                throw new IoFilterLifeCycleException("onPreAdd(): " + name + ':'
+                        + filter + " in " + getSession(), e);
+            }
+
+            if (this.template != null) {
+                templateSize = index + 1;
+            }
+            else {
+                checkAddable(name);
+                EntryImpl newEntry = new EntryImpl(tail.prevEntry, tail, name, filter);
+                tail.prevEntry.nextEntry = newEntry;
+                tail.prevEntry = newEntry;
+                name2entry.put(name, newEntry);
+                templateEntries[index] = newEntry;
+            }
+
+            try {
+                filter.onPostAdd(this, name, nextFilter);
+            } catch (Exception e) {
+                if (this.template != null) {
+                    templateSize = index;
+                }
+                else {
+                    deregister0(templateEntries[index]);
+                }
+                throw new IoFilterLifeCycleException("onPostAdd(): " + name + ':'
+                        + filter + " in " + getSession(), e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the shared template entries with private entries for this chain, before the chain is modified
+     * or its entries are handed out.
+     */
+    private void materialize() {
+        if (template != null) {
+            materialize0();
+        }
+    }
+
+    private synchronized void materialize0() {
+        IoFilterChainTemplate template = this.template;
+        if (template == null) {
+            return;
+        }
+
+        EntryImpl[] newEntries = new EntryImpl[template.size()];
+        EntryImpl prevEntry = head;
+        for (int index = 0; index < templateSize; index++) {
+            String name = template.name(index);
+            EntryImpl newEntry = new EntryImpl(prevEntry, tail, name, template.filter(index));
+            name2entry.put(name, newEntry);
+            prevEntry.nextEntry = newEntry;
+            prevEntry = newEntry;
+            newEntries[index] = newEntry;
+        }
+        tail.prevEntry = prevEntry;
+
+        templateEntries = newEntries;
+        this.template = null;
+    }
+
+    private void deregister(Entry entry, int index) {
+        IoFilter filter = entry.getFilter();
+        String name = entry.getName();
+
+        try {
+            filter.onPreRemove(this, name, entry.getNextFilter());
+        } catch (Exception e) {
+            throw new IoFilterLifeCycleException("onPreRemove(): "
+                    + name + ':' + filter + " in " + getSession(), e);
+        }
+
+        if (template != null) {
+            templateSize = index;
+        }
+        else {
+            // a life cycle method modified this chain
+            EntryImpl newEntry = templateEntries[index];
+            if (newEntry != null && name2entry.get(name) == newEntry) {
+                deregister0(newEntry);
+            }
+        }
+
+        try {
+            filter.onPostRemove(this, name, entry.getNextFilter());
+        } catch (Exception e) {
+            throw new IoFilterLifeCycleException("onPostRemove(): "
+                    + name + ':' + filter + " in " + getSession(), e);
+        }
+    }
+
+    /**
+     * Returns the entry after the specified template entry, for use by the shared next filters.
+     */
+    final Entry nextTemplateEntry(int index) {
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            int nextIndex = index + 1;
+            return (nextIndex < templateSize) ? template.entry(nextIndex) : tail;
+        }
+
+        EntryImpl[] templateEntries = this.templateEntries;
+        EntryImpl entry = (templateEntries != null) ? templateEntries[index] : null;
+        return (entry != null) ? entry.nextEntry() : tail;
+    }
+
+    /**
+     * Returns the entry before the specified template entry, for use by the shared next filters.
+     */
+    final Entry previousTemplateEntry(int index) {
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            return (index > 0) ? template.entry(index - 1) : head;
+        }
+
+        EntryImpl[] templateEntries = this.templateEntries;
+        EntryImpl entry = (templateEntries != null) ? templateEntries[index] : null;
+        return (entry != null) ? entry.prevEntry() : head;
+    }
+
+    // the shared template entries found here are only read, never handed out
+    private Entry findEntry(String name) {
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            for (int index = 0; index < templateSize; index++) {
+                if (template.name(index).equals(name)) {
+                    return template.entry(index);
+                }
+            }
+            return null;
+        }
+        return name2entry.get(name);
+    }
+
+    private Entry findEntry(IoFilter filter) {
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            for (int index = 0; index < templateSize; index++) {
+                if (template.filter(index) == filter) {
+                    return template.entry(index);
+                }
+            }
+            return null;
+        }
+        return getEntry(filter);
+    }
+
+    private Entry findEntry(Class<? extends IoFilter> filterType) {
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            for (int index = 0; index < templateSize; index++) {
+                if (filterType.isAssignableFrom(template.filter(index).getClass())) {
+                    return template.entry(index);
+                }
+            }
+            return null;
+        }
+        return getEntry(filterType);
+    }
+
     /**
      * Throws an exception when the specified filter name is not registered in this chain.
      *
@@ -546,6 +798,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     public List<Entry> getAll() {
         List<Entry> list = new ArrayList<Entry>();
+        materialize();
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             list.add(e);
@@ -557,6 +810,7 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
     public List<Entry> getAllReversed() {
         List<Entry> list = new ArrayList<Entry>();
+        materialize();
         EntryImpl e = tail.prevEntry;
         while (e != head) {
             list.add(e);
@@ -566,15 +820,15 @@ public class DefaultIoFilterChain implements IoFilterChain {
     }
 
     public boolean contains(String name) {
-        return getEntry(name) != null;
+        return findEntry(name) != null;
     }
 
     public boolean contains(IoFilter filter) {
-        return getEntry(filter) != null;
+        return findEntry(filter) != null;
     }
 
     public boolean contains(Class<? extends IoFilter> filterType) {
-        return getEntry(filterType) != null;
+        return findEntry(filterType) != null;
     }
 
     @Override
@@ -584,6 +838,23 @@ public class DefaultIoFilterChain implements IoFilterChain {
 
         boolean empty = true;
 
+        IoFilterChainTemplate template = this.template;
+        if (template != null) {
+            for (int index = 0; index < templateSize; index++) {
+                if (!empty) {
+                    buf.append(", ");
+                } else {
+                    empty = false;
+                }
+
+                buf.append('(');
+                buf.append(template.name(index));
+                buf.append(':');
+                buf.append(template.filter(index));
+                buf.append(')');
+            }
+        }
+
         EntryImpl e = head.nextEntry;
         while (e != tail) {
             if (!empty) {
@@ -780,58 +1051,77 @@ public class DefaultIoFilterChain implements IoFilterChain {
             this.filter = filter;
             this.nextFilter = new NextFilter() {
                 public void sessionCreated(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextSessionCreated(nextEntry, session);
                 }
 
                 public void sessionOpened(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextSessionOpened(nextEntry, session);
                 }
 
                 public void sessionClosed(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextSessionClosed(nextEntry, session);
                 }
 
                 public void sessionIdle(IoSession session, IdleStatus status) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextSessionIdle(nextEntry, session, status);
                 }
 
                 public void exceptionCaught(IoSession session, Throwable cause) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextExceptionCaught(nextEntry, session, cause);
                 }
 
                 public void messageReceived(IoSession session, Object message) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextMessageReceived(nextEntry, session, message);
                 }
 
                 public void messageSent(IoSession session,
                         WriteRequest writeRequest) {
-                    Entry nextEntry = EntryImpl.this.nextEntry;
+                    Entry nextEntry = EntryImpl.this.nextEntry();
                     callNextMessageSent(nextEntry, session, writeRequest);
                 }
 
                 public void filterWrite(IoSession session,
                         WriteRequest writeRequest) {
-                    Entry nextEntry = EntryImpl.this.prevEntry;
+                    Entry nextEntry = EntryImpl.this.prevEntry();
                     callPreviousFilterWrite(nextEntry, session, writeRequest);
                 }
 
                 public void filterClose(IoSession session) {
-                    Entry nextEntry = EntryImpl.this.prevEntry;
+                    Entry nextEntry = EntryImpl.this.prevEntry();
                     callPreviousFilterClose(nextEntry, session);
                 }
 
                 public String toString() {
-                    return EntryImpl.this.nextEntry.name;
+                    return EntryImpl.this.nextEntry().getName();
                 }
             };
         }
 
+        private Entry nextEntry() {
+            // head is followed by the shared template entries, if any
+            IoFilterChainTemplate template = DefaultIoFilterChain.this.template;
+            if (this == head && template != null) {
+                return (templateSize > 0) ? template.entry(0) : tail;
+            }
+            return nextEntry;
+        }
+
+        private Entry prevEntry() {
+            // tail is preceded by the shared template entries, if any
+            IoFilterChainTemplate template = DefaultIoFilterChain.this.template;
+            if (this == tail && template != null) {
+                int templateSize = DefaultIoFilterChain.this.templateSize;
+                return (templateSize > 0) ? template.entry(templateSize - 1) : head;
+            }
+            return prevEntry;
+        }
+
         public String getName() {
             return name;
         }
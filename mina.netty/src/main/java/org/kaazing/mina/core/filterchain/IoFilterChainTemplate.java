@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.filterchain;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.mina.core.filterchain.IoFilter;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.filterchain.IoFilterChain.Entry;
+import org.apache.mina.core.filterchain.IoFilterChainBuilder;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+
+/**
+ * An immutable, precompiled list of filters that many {@link DefaultIoFilterChain}s can share.
+ *
+ * A chain built from a template links to the shared filters instead of creating its own entries, and only
+ * materializes private entries when a filter is added, removed or replaced at runtime (copy-on-write), or
+ * when its entries are handed out. Events are dispatched through the shared template entries, which are never
+ * handed out since their filters can be in many chains at once. The shared {@link NextFilter}s dispatch through
+ * the filter chain of the session they are called with, so they remain valid after the chain has been
+ * materialized.
+ */
+public final class IoFilterChainTemplate implements IoFilterChainBuilder {
+
+    private final TemplateEntry[] entries;
+
+    public IoFilterChainTemplate(List<Entry> entries) {
+        int size = entries.size();
+        Set<String> names = new HashSet<String>(size * 2);
+        TemplateEntry[] templateEntries = new TemplateEntry[size];
+        for (int index = 0; index < size; index++) {
+            Entry entry = entries.get(index);
+            String name = entry.getName();
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Other filter is using the same name '" + name + "'");
+            }
+            templateEntries[index] = new TemplateEntry(index, name, entry.getFilter());
+        }
+        this.entries = templateEntries;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    @Override
+    public void buildFilterChain(IoFilterChain chain) throws Exception {
+        if (chain instanceof DefaultIoFilterChain) {
+            ((DefaultIoFilterChain) chain).addTemplate(this);
+        }
+        else {
+            for (TemplateEntry entry : entries) {
+                chain.addLast(entry.name, entry.filter);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("{ ");
+        for (int index = 0; index < entries.length; index++) {
+            if (index > 0) {
+                buf.append(", ");
+            }
+            buf.append('(').append(entries[index].name).append(':').append(entries[index].filter).append(')');
+        }
+        if (entries.length == 0) {
+            buf.append("empty");
+        }
+        buf.append(" }");
+        return buf.toString();
+    }
+
+    Entry entry(int index) {
+        return entries[index];
+    }
+
+    NextFilter nextFilter(int index) {
+        return entries[index].nextFilter;
+    }
+
+    String name(int index) {
+        return entries[index].name;
+    }
+
+    IoFilter filter(int index) {
+        return entries[index].filter;
+    }
+
+    private static DefaultIoFilterChain chainOf(IoSession session) {
+        return (DefaultIoFilterChain) session.getFilterChain();
+    }
+
+    // dispatch only, chains hand out their own materialized entries instead
+    private static final class TemplateEntry implements Entry {
+
+        private final String name;
+        private final IoFilter filter;
+        private final NextFilter nextFilter;
+
+        TemplateEntry(final int index, String name, IoFilter filter) {
+            if (filter == null) {
+                throw new NullPointerException("filter");
+            }
+            if (name == null) {
+                throw new NullPointerException("name");
+            }
+
+            this.name = name;
+            this.filter = filter;
+            this.nextFilter = new NextFilter() {
+                public void sessionCreated(IoSession session) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextSessionCreated(chain.nextTemplateEntry(index), session);
+                }
+
+                public void sessionOpened(IoSession session) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextSessionOpened(chain.nextTemplateEntry(index), session);
+                }
+
+                public void sessionClosed(IoSession session) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextSessionClosed(chain.nextTemplateEntry(index), session);
+                }
+
+                public void sessionIdle(IoSession session, IdleStatus status) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextSessionIdle(chain.nextTemplateEntry(index), session, status);
+                }
+
+                public void exceptionCaught(IoSession session, Throwable cause) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextExceptionCaught(chain.nextTemplateEntry(index), session, cause);
+                }
+
+                public void messageReceived(IoSession session, Object message) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextMessageReceived(chain.nextTemplateEntry(index), session, message);
+                }
+
+                public void messageSent(IoSession session, WriteRequest writeRequest) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callNextMessageSent(chain.nextTemplateEntry(index), session, writeRequest);
+                }
+
+                public void filterWrite(IoSession session, WriteRequest writeRequest) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callPreviousFilterWrite(chain.previousTemplateEntry(index), session, writeRequest);
+                }
+
+                public void filterClose(IoSession session) {
+                    DefaultIoFilterChain chain = chainOf(session);
+                    chain.callPreviousFilterClose(chain.previousTemplateEntry(index), session);
+                }
+
+                public String toString() {
+                    return TemplateEntry.this.name;
+                }
+            };
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public IoFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public NextFilter getNextFilter() {
+            return nextFilter;
+        }
+
+        @Override
+        public void addBefore(String name, IoFilter filter) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addAfter(String name, IoFilter filter) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void replace(IoFilter newFilter) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return "('" + name + "':" + filter.getClass().getSimpleName() + ")";
+        }
+    }
+}
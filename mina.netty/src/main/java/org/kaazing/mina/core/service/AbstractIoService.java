@@ -34,6 +34,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mina.core.IoUtil;
 import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.filterchain.IoFilterChain.Entry;
 import org.apache.mina.core.filterchain.IoFilterChainBuilder;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultIoFuture;
@@ -55,6 +57,7 @@ import org.apache.mina.util.ExceptionMonitor;
 import org.apache.mina.util.NamePreservingRunnable;
 
 import org.kaazing.mina.core.filterchain.DefaultIoFilterChain;
+import org.kaazing.mina.core.filterchain.IoFilterChainTemplate;
 import org.kaazing.mina.core.session.AbstractIoSession;
 
 /**
@@ -141,6 +144,11 @@ public abstract class AbstractIoService implements IoService {
      */
     private IoFilterChainBuilder filterChainBuilder = new DefaultIoFilterChainBuilder();
 
+    /**
+     * Filters of the current filter chain builder, compiled for sharing between sessions.
+     */
+    private volatile FilterChainTemplate filterChainTemplate;
+
     private IoSessionDataStructureFactory sessionDataStructureFactory = new DefaultIoSessionDataStructureFactory();
 
     /**
@@ -236,6 +244,29 @@ public abstract class AbstractIoService implements IoService {
         filterChainBuilder = builder;
     }
 
+    /**
+     * Builds the filter chain of a new session. While the filter chain builder is a
+     * {@link DefaultIoFilterChainBuilder} with unchanged filters, sessions share the same
+     * {@link IoFilterChainTemplate} rather than each creating their own entries.
+     */
+    public final void buildFilterChain(IoFilterChain filterChain) throws Exception {
+        IoFilterChainBuilder builder = filterChainBuilder;
+        if (builder instanceof DefaultIoFilterChainBuilder) {
+            DefaultIoFilterChainBuilder defaultBuilder = (DefaultIoFilterChainBuilder) builder;
+            FilterChainTemplate template = filterChainTemplate;
+            if (template == null || !template.isCurrent(defaultBuilder)) {
+                // read the modification count first so a concurrent change is picked up by the next session
+                int modificationCount = defaultBuilder.getModificationCount();
+                List<Entry> entries = defaultBuilder.getAll();
+                template = new FilterChainTemplate(defaultBuilder, modificationCount,
+                        new IoFilterChainTemplate(entries));
+                filterChainTemplate = template;
+            }
+            builder = template.template;
+        }
+        builder.buildFilterChain(filterChain);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -563,6 +594,26 @@ public abstract class AbstractIoService implements IoService {
         }
     }
 
+    /**
+     * A compiled template, valid while the builder it was compiled from has not been modified.
+     */
+    private static final class FilterChainTemplate {
+        private final DefaultIoFilterChainBuilder builder;
+        private final int modificationCount;
+        private final IoFilterChainTemplate template;
+
+        FilterChainTemplate(DefaultIoFilterChainBuilder builder, int modificationCount,
+                IoFilterChainTemplate template) {
+            this.builder = builder;
+            this.modificationCount = modificationCount;
+            this.template = template;
+        }
+
+        boolean isCurrent(DefaultIoFilterChainBuilder builder) {
+            return this.builder == builder && this.modificationCount == builder.getModificationCount();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -28,6 +28,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.channels.FileChannel;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.Set;
@@ -114,6 +115,9 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
     private static final String UNSUPPORTED_WRITEMESSAGES_FORMAT = "Invalid usage of io session %s call.";
 
     private IoSessionAttributeMap attributes;
+
+    // values of IndexedAttributeKeys, all other keys are stored in the attribute map
+    private final IoSessionAttributeSlots attributeSlots = new IoSessionAttributeSlots();
     private WriteRequestQueue writeRequestQueue;
     private WriteRequest currentWriteRequest;
 
@@ -510,6 +514,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final Object getAttribute(Object key, Object defaultValue) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.get(indexedKey, defaultValue);
+        }
         return attributes.getAttribute(this, key, defaultValue);
     }
 
@@ -518,6 +526,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final Object setAttribute(Object key, Object value) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.set(indexedKey, value);
+        }
         return attributes.setAttribute(this, key, value);
     }
 
@@ -534,6 +546,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final Object setAttributeIfAbsent(Object key, Object value) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.setIfAbsent(indexedKey, value);
+        }
         return attributes.setAttributeIfAbsent(this, key, value);
     }
 
@@ -550,6 +566,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final Object removeAttribute(Object key) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.remove(indexedKey);
+        }
         return attributes.removeAttribute(this, key);
     }
 
@@ -558,6 +578,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final boolean removeAttribute(Object key, Object value) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.remove(indexedKey, value);
+        }
         return attributes.removeAttribute(this, key, value);
     }
 
@@ -566,6 +590,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final boolean replaceAttribute(Object key, Object oldValue, Object newValue) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.replace(indexedKey, oldValue, newValue);
+        }
         return attributes.replaceAttribute(this, key, oldValue, newValue);
     }
 
@@ -574,6 +602,10 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final boolean containsAttribute(Object key) {
+        IndexedAttributeKey indexedKey = indexedKey(key);
+        if (indexedKey != null) {
+            return attributeSlots.contains(indexedKey);
+        }
         return attributes.containsAttribute(this, key);
     }
 
@@ -582,7 +614,24 @@ public abstract class AbstractIoSession implements IoSession, IoAlignment {
      */
     @Override
     public final Set<Object> getAttributeKeys() {
-        return attributes.getAttributeKeys(this);
+        Set<Object> keys = attributes.getAttributeKeys(this);
+        if (attributeSlots.isEmpty()) {
+            return keys;
+        }
+
+        Set<Object> allKeys = new HashSet<Object>(keys);
+        attributeSlots.addKeys(allKeys);
+        return allKeys;
+    }
+
+    private static IndexedAttributeKey indexedKey(Object key) {
+        if (key instanceof IndexedAttributeKey) {
+            IndexedAttributeKey indexedKey = (IndexedAttributeKey) key;
+            if (indexedKey.index() != -1) {
+                return indexedKey;
+            }
+        }
+        return null;
     }
 
     /**
@@ -28,6 +28,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.Subject;
 
@@ -166,6 +168,11 @@ public abstract class AbstractIoSessionEx extends AbstractIoSession implements I
         return ioExecutor;
     }
 
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return IoSessionScheduler.schedule(this, command, delay, unit);
+    }
+
     protected void setIoAlignment0(Thread ioThread, Executor ioExecutor) {
         // override
     }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.session;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An attribute key that is assigned a small integer index when it is created, allowing {@link AbstractIoSession}
+ * to store its value in a per-session slot array instead of the session attribute map.
+ *
+ * Indexes are never reused, so only the first {@link #MAXIMUM_INDEXED_KEYS} keys created are indexed, and keys
+ * created per instance rather than once per class (typically {@code static final}) must be created unindexed.
+ * Any further keys, as well as keys used with sessions not derived from {@link AbstractIoSession},
+ * transparently fall back to the session attribute map.
+ */
+public abstract class IndexedAttributeKey {
+
+    public static final int MAXIMUM_INDEXED_KEYS = 1024;
+
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private final int index;
+
+    protected IndexedAttributeKey() {
+        this(true);
+    }
+
+    /**
+     * @param indexed whether this key is assigned a slot index, or always stored in the session attribute map
+     */
+    protected IndexedAttributeKey(boolean indexed) {
+        this.index = indexed ? nextIndex() : -1;
+    }
+
+    /**
+     * Returns the slot index of this key, or -1 if this key is stored in the session attribute map.
+     */
+    public final int index() {
+        return index;
+    }
+
+    private static int nextIndex() {
+        for (;;) {
+            int index = NEXT_INDEX.get();
+            if (index == MAXIMUM_INDEXED_KEYS) {
+                return -1;
+            }
+            if (NEXT_INDEX.compareAndSet(index, index + 1)) {
+                return index;
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.session;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-session storage for the values of {@link IndexedAttributeKey}s, with the same semantics as Mina's default
+ * session attribute map (null values are never stored).
+ *
+ * Slots are allocated in fixed-size chunks on first use. Chunks never move once allocated, so values are read
+ * and updated without locking; only the chunk directory is grown under lock.
+ */
+final class IoSessionAttributeSlots {
+
+    private static final int CHUNK_SHIFT = 3;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // each chunk holds key and value pairs, the key identifies the slot for getAttributeKeys
+    private volatile Object[] chunks;
+
+    Object get(IndexedAttributeKey key, Object defaultValue) {
+        AtomicReferenceArray<Object> chunk = chunk(key.index(), false);
+        Object value = (chunk != null) ? chunk.get(valueOffset(key)) : null;
+        return (value != null) ? value : defaultValue;
+    }
+
+    Object set(IndexedAttributeKey key, Object value) {
+        if (value == null) {
+            return remove(key);
+        }
+        return writableChunk(key).getAndSet(valueOffset(key), value);
+    }
+
+    Object setIfAbsent(IndexedAttributeKey key, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        AtomicReferenceArray<Object> chunk = writableChunk(key);
+        int offset = valueOffset(key);
+        for (;;) {
+            Object oldValue = chunk.get(offset);
+            if (oldValue != null || chunk.compareAndSet(offset, null, value)) {
+                return oldValue;
+            }
+        }
+    }
+
+    Object remove(IndexedAttributeKey key) {
+        AtomicReferenceArray<Object> chunk = chunk(key.index(), false);
+        return (chunk != null) ? chunk.getAndSet(valueOffset(key), null) : null;
+    }
+
+    boolean remove(IndexedAttributeKey key, Object value) {
+        AtomicReferenceArray<Object> chunk = chunk(key.index(), false);
+        if (value == null || chunk == null) {
+            return false;
+        }
+
+        int offset = valueOffset(key);
+        for (;;) {
+            Object actualValue = chunk.get(offset);
+            if (!value.equals(actualValue)) {
+                return false;
+            }
+            if (chunk.compareAndSet(offset, actualValue, null)) {
+                return true;
+            }
+        }
+    }
+
+    boolean replace(IndexedAttributeKey key, Object oldValue, Object newValue) {
+        AtomicReferenceArray<Object> chunk = chunk(key.index(), false);
+        if (chunk == null) {
+            return false;
+        }
+
+        int offset = valueOffset(key);
+        for (;;) {
+            Object actualOldValue = chunk.get(offset);
+            if (actualOldValue == null || !actualOldValue.equals(oldValue)) {
+                return false;
+            }
+            if (chunk.compareAndSet(offset, actualOldValue, newValue)) {
+                return true;
+            }
+        }
+    }
+
+    boolean contains(IndexedAttributeKey key) {
+        return get(key, null) != null;
+    }
+
+    boolean isEmpty() {
+        Object[] chunks = this.chunks;
+        if (chunks != null) {
+            for (Object chunk : chunks) {
+                if (chunk != null) {
+                    AtomicReferenceArray<?> pairs = (AtomicReferenceArray<?>) chunk;
+                    for (int i = 1; i < pairs.length(); i += 2) {
+                        if (pairs.get(i) != null) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    void addKeys(Set<Object> keys) {
+        Object[] chunks = this.chunks;
+        if (chunks != null) {
+            for (Object chunk : chunks) {
+                if (chunk != null) {
+                    AtomicReferenceArray<?> pairs = (AtomicReferenceArray<?>) chunk;
+                    for (int i = 0; i < pairs.length(); i += 2) {
+                        Object key = pairs.get(i);
+                        if (key != null && pairs.get(i + 1) != null) {
+                            keys.add(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int valueOffset(IndexedAttributeKey key) {
+        return ((key.index() & CHUNK_MASK) << 1) + 1;
+    }
+
+    private AtomicReferenceArray<Object> writableChunk(IndexedAttributeKey key) {
+        AtomicReferenceArray<Object> chunk = chunk(key.index(), true);
+
+        // record which key owns the slot, so that getAttributeKeys can report it
+        int keyOffset = valueOffset(key) - 1;
+        if (chunk.get(keyOffset) == null) {
+            chunk.set(keyOffset, key);
+        }
+        return chunk;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Object> chunk(int index, boolean create) {
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        Object[] chunks = this.chunks;
+        if (chunks != null && chunkIndex < chunks.length && chunks[chunkIndex] != null) {
+            return (AtomicReferenceArray<Object>) chunks[chunkIndex];
+        }
+        if (!create) {
+            return null;
+        }
+        return newChunk(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized AtomicReferenceArray<Object> newChunk(int index) {
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        Object[] chunks = this.chunks;
+        if (chunks == null || chunkIndex >= chunks.length) {
+            Object[] newChunks = new Object[chunkIndex + 1];
+            if (chunks != null) {
+                System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+            }
+            chunks = newChunks;
+        }
+
+        AtomicReferenceArray<Object> chunk = (AtomicReferenceArray<Object>) chunks[chunkIndex];
+        if (chunk == null) {
+            chunk = new AtomicReferenceArray<Object>(CHUNK_SIZE << 1);
+            chunks[chunkIndex] = chunk;
+        }
+
+        // publish the directory only once the chunk is in place
+        this.chunks = chunks;
+        return chunk;
+    }
+}
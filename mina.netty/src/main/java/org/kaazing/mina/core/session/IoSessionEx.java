@@ -25,6 +25,8 @@ import static org.apache.mina.core.future.DefaultWriteFuture.newWrittenFuture;
 
 import java.net.SocketAddress;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.Subject;
 
@@ -132,6 +134,13 @@ public interface IoSessionEx extends IoSession, IoAlignment {
      */
     Executor getIoExecutor();
 
+    /**
+     * Schedules a command to be executed in the IO worker thread that owns this session after the specified delay.
+     * The command is queued on the worker's own timing wheel, so no timer thread or cross-thread handoff is needed
+     * when it expires. Sessions without an IO worker fall back to a shared timer thread.
+     */
+    ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit);
+
     IoBufferAllocatorEx<?> getBufferAllocator();
 
     @Override
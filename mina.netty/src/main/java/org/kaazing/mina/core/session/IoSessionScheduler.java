@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.session;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.kaazing.mina.core.session.IoSessionEx.NO_EXECUTOR;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.TIMING_WHEEL_TICK_MILLIS;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.kaazing.mina.netty.util.TimingWheel;
+import org.kaazing.mina.netty.util.TimingWheelTimer;
+
+/**
+ * Schedules delayed commands for a session on the {@link TimingWheel} of its IO worker, see
+ * {@link IoSessionEx#schedule(Runnable, long, TimeUnit)}.
+ *
+ * Commands scheduled from a thread other than the IO thread are handed to the IO executor once, when scheduled,
+ * and are linked into the worker's timing wheel from there. Sessions that are not aligned, or not yet registered
+ * with an IO worker, share a timing wheel driven by a single daemon thread.
+ */
+public final class IoSessionScheduler {
+
+    private static TimingWheelTimer fallbackTimer;
+
+    private IoSessionScheduler() {
+        // utility class
+    }
+
+    public static ScheduledFuture<?> schedule(IoSessionEx session, Runnable command, long delay, TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException("command");
+        }
+
+        ScheduledTask task = new ScheduledTask(session, command, currentTimeMillis() + unit.toMillis(delay));
+        Timer timer = task.timer;
+        if (currentThread() == session.getIoThread()) {
+            timer.run();
+        }
+        else if (session.isIoAligned() && session.isIoRegistered()) {
+            session.getIoExecutor().execute(timer);
+        }
+        else {
+            fallbackWheel().execute(timer);
+        }
+        return task;
+    }
+
+    private static synchronized TimingWheel fallbackWheel() {
+        if (fallbackTimer == null) {
+            long tickMillis = TIMING_WHEEL_TICK_MILLIS.getLongProperty(System.getProperties());
+            fallbackTimer = new TimingWheelTimer("IoSessionScheduler", tickMillis);
+        }
+        return fallbackTimer.getTimingWheel();
+    }
+
+    private static final class ScheduledTask extends FutureTask<Object> implements ScheduledFuture<Object> {
+
+        private final IoSessionEx session;
+        private final long deadlineMillis;
+        private final Timer timer;
+
+        ScheduledTask(IoSessionEx session, Runnable command, long deadlineMillis) {
+            super(command, null);
+            this.session = session;
+            this.deadlineMillis = deadlineMillis;
+            this.timer = new Timer(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - currentTimeMillis(), MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            long delay = getDelay(MILLISECONDS);
+            long otherDelay = o.getDelay(MILLISECONDS);
+            return (delay < otherDelay) ? -1 : (delay == otherDelay) ? 0 : 1;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                // unlink eagerly to release the session rather than waiting for the deadline
+                TimingWheel wheel = timer.wheel;
+                if (wheel != null) {
+                    if (wheel.isOwnerThread()) {
+                        timer.cancel();
+                    }
+                    else {
+                        wheel.execute(timer);
+                    }
+                }
+            }
+            return cancelled;
+        }
+
+        void expired() {
+            IoSessionEx session = this.session;
+            Executor ioExecutor = session.getIoExecutor();
+            if (currentThread() == session.getIoThread() || !session.isIoAligned() || ioExecutor == NO_EXECUTOR) {
+                run();
+            }
+            else {
+                // session was realigned to another IO thread since it was scheduled, or is migrating to one
+                ioExecutor.execute(this);
+            }
+        }
+    }
+
+    private static final class Timer extends TimingWheel.Task implements Runnable {
+
+        private final ScheduledTask task;
+        private volatile TimingWheel wheel;
+
+        Timer(ScheduledTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            TimingWheel wheel = TimingWheel.current();
+            if (wheel == null) {
+                fallbackWheel().execute(this);
+                return;
+            }
+
+            // publish the wheel before checking for cancellation, see ScheduledTask.cancel
+            this.wheel = wheel;
+            if (task.isCancelled()) {
+                cancel();
+            }
+            else {
+                wheel.schedule(this, task.deadlineMillis - currentTimeMillis());
+            }
+        }
+
+        @Override
+        protected void expired() {
+            task.expired();
+        }
+    }
+}
@@ -27,11 +27,19 @@ import java.nio.ByteOrder;
 import org.kaazing.mina.core.buffer.AbstractIoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.AbstractIoBufferEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.IoBufferPool;
 import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 
 public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<ChannelIoBuffer> {
 
+    public ChannelIoBufferAllocator() {
+    }
+
+    public ChannelIoBufferAllocator(IoBufferPool pool) {
+        super(pool);
+    }
+
     @Override
     public ByteBuffer allocate(int capacity, int flags) {
         return allocateNioBuffer0(capacity, flags);
@@ -40,7 +48,8 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
     @Override
     public ChannelIoBuffer wrap(ByteBuffer nioBuffer, int flags) {
         boolean shared = (flags & IoBufferEx.FLAG_SHARED) != IoBufferEx.FLAG_NONE;
-        return shared ? new ChannelIoSharedBuffer(nioBuffer) : new ChannelIoUnsharedBuffer(nioBuffer);
+        ChannelIoBuffer buffer = shared ? new ChannelIoSharedBuffer(nioBuffer) : new ChannelIoUnsharedBuffer(nioBuffer);
+        return claimNioBuffer0(nioBuffer, buffer);
     }
 
     abstract static class ChannelIoBuffer extends AbstractIoBufferEx {
@@ -53,11 +62,6 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
         }
 
         public abstract void buf(ByteBuffer newBuf);
-
-        @Override
-        public void free() {
-            // Do nothing
-        }
     }
 
     // note: thread-aligned so no need for thread local ByteBuffer storage
@@ -45,6 +45,7 @@ import org.jboss.netty.channel.ChannelPipeline;
 
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.AbstractIoProcessor;
+import org.kaazing.mina.core.service.AbstractIoService;
 import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.channel.DownstreamMessageEventEx;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -127,8 +128,14 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
             init(session);
 
             // Build the filter chain of this session.
-            IoFilterChainBuilder chainBuilder = session.getService().getFilterChainBuilder();
-            chainBuilder.buildFilterChain(session.getFilterChain());
+            ChannelIoService service = session.getService();
+            if (service instanceof AbstractIoService) {
+                ((AbstractIoService) service).buildFilterChain(session.getFilterChain());
+            }
+            else {
+                IoFilterChainBuilder chainBuilder = service.getFilterChainBuilder();
+                chainBuilder.buildFilterChain(session.getFilterChain());
+            }
 
             // DefaultIoFilterChain.CONNECT_FUTURE is cleared inside here
             // in AbstractIoFilterChain.fireSessionOpened().
@@ -183,6 +190,7 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                 } else {
                     IoFilterChain filterChain = session.getFilterChain();
                     filterChain.fireMessageSent(req);
+                    ChannelWriteFutureListener.free(req);
                 }
             } else {
                 failedRequests.add(req);
@@ -202,6 +210,7 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
             for (WriteRequest r : failedRequests) {
                 session.decreaseScheduledBytesAndMessages(r);
                 r.getFuture().setException(cause);
+                ChannelWriteFutureListener.free(r);
             }
 
             IoFilterChain filterChain = session.getFilterChain();
@@ -236,6 +245,7 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                     ChannelIoBuffer channelIoBuf = (ChannelIoBuffer) message;
                     if (channelIoBuf.remaining() == 0) {
                         filterChain.fireMessageSent(req);
+                        ChannelWriteFutureListener.free(req);
                     }
                     else {
                         // 1. detect shared buffer
@@ -317,6 +327,7 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                     IoBuffer buf = (IoBuffer) message;
                     if (buf.remaining() == 0) {
                         filterChain.fireMessageSent(req);
+                        ChannelWriteFutureListener.free(req);
                     }
                     else {
                         ChannelFuture future = channel.write(wrappedBuffer(buf.buf()));
@@ -26,6 +26,7 @@ import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.write.WriteRequest;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
+import org.kaazing.mina.core.buffer.IoBufferEx;
 
 final class ChannelWriteFutureListener implements ChannelFutureListener {
     private final IoFilterChain filterChain;
@@ -49,6 +50,22 @@ final class ChannelWriteFutureListener implements ChannelFutureListener {
         else {
             filterChain.fireExceptionCaught(future.getCause());
         }
+        free(request);
+    }
+
+    /**
+     * Releases the pooled memory behind a completed write.  An unshared buffer is owned by the write
+     * once submitted, whereas a shared buffer may be written to several sessions and so remains owned
+     * by the writer.
+     */
+    static void free(WriteRequest request) {
+        Object message = request.getMessage();
+        if (message instanceof IoBufferEx) {
+            IoBufferEx buf = (IoBufferEx) message;
+            if (!buf.isShared()) {
+                buf.free();
+            }
+        }
     }
 
     private static void setFutureWritten(IoFilterChain filterChain, WriteFuture future) {
@@ -23,34 +23,45 @@ package org.kaazing.mina.netty;
 
 import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.TIMING_WHEEL_TICK_MILLIS;
 
 import java.util.concurrent.TimeUnit;
 
-import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.session.IdleStatus;
-import org.jboss.netty.util.HashedWheelTimer;
-import org.jboss.netty.util.Timeout;
-import org.jboss.netty.util.Timer;
-import org.jboss.netty.util.TimerTask;
 
 import org.kaazing.mina.core.session.IoSessionConfigEx;
 import org.kaazing.mina.core.session.IoSessionConfigEx.ChangeListener;
 import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.util.TimingWheel;
+import org.kaazing.mina.netty.util.TimingWheelTimer;
 
+/**
+ * Fires session idle events from the {@link TimingWheel} of the I/O worker that added the session, so idle
+ * events are detected on the session's own I/O thread without a timer thread. Sessions added from threads
+ * without a timing wheel share a wheel driven by a single timer thread owned by this tracker.
+ *
+ * A session that moves to another I/O worker must be added again from its new I/O thread. This cancels the
+ * notifications on the wheel of the previous worker and schedules them on the wheel of the new one.
+ */
 public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
 
-    static final long PRECISION = 100L;
+    private final long tickMillis;
 
-    private final Timer timer;
+    private TimingWheelTimer fallbackTimer;
 
     public DefaultIoSessionIdleTracker() {
-        timer = new HashedWheelTimer(PRECISION, MILLISECONDS);
+        // Avoid static variables to facilitate unit tests
+        tickMillis = TIMING_WHEEL_TICK_MILLIS.getLongProperty(System.getProperties());
     }
 
     @Override
     public void addSession(final IoSessionEx session) {
+        TimingWheel wheel = TimingWheel.current();
+        if (wheel == null) {
+            wheel = fallbackWheel();
+        }
         IoSessionConfigEx config = session.getConfig();
-        config.setChangeListener(new NotifyIdleChangeListener(session));
+        config.setChangeListener(new NotifyIdleChangeListener(session, wheel));
     }
 
     @Override
@@ -60,20 +71,30 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
     }
 
     @Override
-    public void dispose() {
-        timer.stop();
+    public synchronized void dispose() {
+        if (fallbackTimer != null) {
+            fallbackTimer.dispose();
+            fallbackTimer = null;
+        }
     }
 
-    private final class NotifyIdleChangeListener implements ChangeListener {
+    private synchronized TimingWheel fallbackWheel() {
+        if (fallbackTimer == null) {
+            fallbackTimer = new TimingWheelTimer("DefaultIoSessionIdleTracker", tickMillis);
+        }
+        return fallbackTimer.getTimingWheel();
+    }
+
+    private static final class NotifyIdleChangeListener implements ChangeListener {
 
         private final NotifyIdleTask notifyBothIdle;
         private final NotifyIdleTask notifyReaderIdle;
         private final NotifyIdleTask notifyWriterIdle;
 
-        NotifyIdleChangeListener(IoSessionEx session) {
-            notifyBothIdle = new NotifyBothIdleTask(session);
-            notifyReaderIdle = new NotifyReaderIdleTask(session);
-            notifyWriterIdle = new NotifyWriterIdleTask(session);
+        NotifyIdleChangeListener(IoSessionEx session, TimingWheel wheel) {
+            notifyBothIdle = new NotifyBothIdleTask(session, wheel);
+            notifyReaderIdle = new NotifyReaderIdleTask(session, wheel);
+            notifyWriterIdle = new NotifyWriterIdleTask(session, wheel);
         }
 
         @Override
@@ -94,84 +115,57 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
         }
     }
 
-    // KG-9954: This class will be used to assign a noop timer in place of using null
-    private static final Timeout NULL_TIMEOUT = new Timeout() {
-        @Override
-        public Timer getTimer() {
-            return null;
-        }
-
-        @Override
-        public TimerTask getTask() {
-            return null;
-        }
-
-        @Override
-        public boolean isExpired() {
-            return true;
-        }
-
-        @Override
-        public boolean isCancelled() {
-            return true;
-        }
-
-        @Override
-        public void cancel() {
-            // noop
-        }
-    };
-
-    private abstract class NotifyIdleTask implements TimerTask {
+    private abstract static class NotifyIdleTask extends TimingWheel.Task implements Runnable {
 
         protected final IoSessionEx session;
-        protected final IoFilterChain filterChain;
+        private final TimingWheel wheel;
 
         private volatile long idleTimeMillis;
-        private volatile Timeout timeout = NULL_TIMEOUT;
 
-        public NotifyIdleTask(IoSessionEx session) {
+        public NotifyIdleTask(IoSessionEx session, TimingWheel wheel) {
             this.session = session;
-            this.filterChain = session.getFilterChain();
+            this.wheel = wheel;
         }
 
         public final void reschedule(long idleTime, TimeUnit unit)  {
             idleTimeMillis = unit.toMillis(idleTime);
+            if (wheel.isOwnerThread()) {
+                run();
+            }
+            else {
+                // the timing wheel is only accessed from its own thread
+                wheel.execute(this);
+            }
+        }
+
+        @Override
+        public final void run() {
             long startPoint = Math.max(getLastIoTimeMillis(), getLastIdleTimeMillis());
             long delayMillis = startPoint + idleTimeMillis - currentTimeMillis();
             reschedule(delayMillis);
         }
 
         private void reschedule(long delayMillis) {
-            // KG-9954 - We do not want to synchronize the reschedule method, instead use the NULL Timeout in case
-            // timeout gets set to null by another thread before we call cancel.
-            if (timeout != NULL_TIMEOUT) {
-                timeout.cancel();
-            }
-
             if (idleTimeMillis != 0) {
-                timeout = timer.newTimeout(this, delayMillis, MILLISECONDS);
+                wheel.schedule(this, delayMillis);
             }
             else {
-                timeout = NULL_TIMEOUT;
+                cancel();
             }
         }
 
         @Override
-        public final void run(Timeout timeout) throws Exception {
-            if (timeout.isCancelled()) {
-                // reschedule has already been done, don't incur the overhead of redoing it
-                return;
-            }
-
+        protected final void expired() {
+            long idleTimeMillis = this.idleTimeMillis;
             long startPoint = Math.max(getLastIoTimeMillis(), getLastIdleTimeMillis());
-            // Doing the calculation here avoids having to call currentTimeMillis twice (here and in reschedule).
-            // Given that the precision of timeout is limited, and that lastIdleTime is only updated if idle is fired, we must
-            // always call currentTimeMillis(). For example, imagine session idle last fired at t0. Timeout will occur at or
-            // after t0 + configured idleTime. Even if an I/O event occurred after t0, we may still need to fire sessionIdle.
+            // Given that the precision of the timing wheel is limited, and that lastIdleTime is only updated if idle
+            // is fired, we must always call currentTimeMillis(). For example, imagine session idle last fired at t0.
+            // Expiry will occur at or after t0 + configured idleTime. Even if an I/O event occurred after t0, we may
+            // still need to fire sessionIdle.
             long timeUntilSessionIdle = startPoint + idleTimeMillis - currentTimeMillis();
             if (timeUntilSessionIdle <= 0 && idleTimeMillis != 0) {
-                fireSessionIdle(filterChain);
+                // filter chain can change if session is re-aligned
+                fireSessionIdle();
                 reschedule(idleTimeMillis);
             }
             else {
@@ -181,7 +175,7 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
             }
         }
 
-        protected abstract void fireSessionIdle(IoFilterChain filterChain);
+        protected abstract void fireSessionIdle();
 
         protected abstract long getLastIoTimeMillis();
 
@@ -189,15 +183,15 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
 
     }
 
-    private final class NotifyBothIdleTask extends NotifyIdleTask {
+    private static final class NotifyBothIdleTask extends NotifyIdleTask {
 
-        public NotifyBothIdleTask(IoSessionEx session) {
-            super(session);
+        public NotifyBothIdleTask(IoSessionEx session, TimingWheel wheel) {
+            super(session, wheel);
         }
 
         @Override
-        protected void fireSessionIdle(IoFilterChain filterChain) {
-            filterChain.fireSessionIdle(IdleStatus.BOTH_IDLE);
+        protected void fireSessionIdle() {
+            session.getFilterChain().fireSessionIdle(IdleStatus.BOTH_IDLE);
         }
 
         @Override
@@ -212,15 +206,15 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
 
     }
 
-    private final class NotifyReaderIdleTask extends NotifyIdleTask {
+    private static final class NotifyReaderIdleTask extends NotifyIdleTask {
 
-        public NotifyReaderIdleTask(IoSessionEx session) {
-            super(session);
+        public NotifyReaderIdleTask(IoSessionEx session, TimingWheel wheel) {
+            super(session, wheel);
         }
 
         @Override
-        protected void fireSessionIdle(IoFilterChain filterChain) {
-            filterChain.fireSessionIdle(IdleStatus.READER_IDLE);
+        protected void fireSessionIdle() {
+            session.getFilterChain().fireSessionIdle(IdleStatus.READER_IDLE);
         }
 
         @Override
@@ -235,15 +229,15 @@ public final class DefaultIoSessionIdleTracker implements IoSessionIdleTracker {
 
     }
 
-    private final class NotifyWriterIdleTask extends NotifyIdleTask {
+    private static final class NotifyWriterIdleTask extends NotifyIdleTask {
 
-        public NotifyWriterIdleTask(IoSessionEx session) {
-            super(session);
+        public NotifyWriterIdleTask(IoSessionEx session, TimingWheel wheel) {
+            super(session, wheel);
         }
 
         @Override
-        protected void fireSessionIdle(IoFilterChain filterChain) {
-            filterChain.fireSessionIdle(IdleStatus.WRITER_IDLE);
+        protected void fireSessionIdle() {
+            session.getFilterChain().fireSessionIdle(IdleStatus.WRITER_IDLE);
         }
 
         @Override
@@ -25,6 +25,10 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public interface IoSessionIdleTracker {
 
+    /**
+     * Starts tracking the idle time of a session. Adding a session again re-registers it, which is how a session
+     * that has moved to another I/O thread moves its idle notifications to that thread.
+     */
     void addSession(final IoSessionEx session);
 
     void removeSession(final IoSessionEx session);
@@ -21,6 +21,7 @@
 
 package org.kaazing.mina.netty.config;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
 import static java.lang.Long.parseLong;
 
@@ -37,7 +38,41 @@ public enum InternalSystemProperty {
     // The value used should be large enough to guarantee we do get socket readable/writable notification from
     // the kernel (selectNow, done if the value is 0, does not always seem to achieve this) but small enough
     // not to waste too much time if there are no ready ops.
-    QUICK_SELECT_TIMEOUT("org.kaazing.netty.QUICK_SELECT_TIMEOUT", "0"); // use selectNow by default
+    QUICK_SELECT_TIMEOUT("org.kaazing.netty.QUICK_SELECT_TIMEOUT", "0"), // use selectNow by default
+
+    // Recycle buffer memory allocated by SimpleBufferAllocator and ChannelIoBufferAllocator through per-thread
+    // size-classed slabs. Memory is returned to the pool when IoBufferEx.free() is called, which happens
+    // automatically once an unshared buffer has been written to the network.
+    BUFFER_POOL_ENABLED("org.kaazing.netty.BUFFER_POOL_ENABLED", "false"), // disabled by default
+
+    // Largest buffer capacity (in bytes, rounded up to a power of two) served from the buffer pool,
+    // larger buffers are allocated directly
+    BUFFER_POOL_MAXIMUM_POOLED_SIZE("org.kaazing.netty.BUFFER_POOL_MAXIMUM_POOLED_SIZE", "65536"),
+
+    // Maximum number of bytes cached by each thread for each buffer size class (heap and direct counted separately)
+    BUFFER_POOL_MAXIMUM_CACHED_BYTES("org.kaazing.netty.BUFFER_POOL_MAXIMUM_CACHED_BYTES", "1048576"),
+
+    // Record the allocation stack trace of every pooled buffer and report buffers that are garbage collected
+    // without having been freed, counting allocated and freed buffers. Expensive, intended for diagnosing leaks only.
+    BUFFER_LEAK_DETECTION_ENABLED("org.kaazing.netty.BUFFER_LEAK_DETECTION_ENABLED", "false"),
+
+    // Maximum number of queued messages a worker gathers into a single socket write. Value 1 disables
+    // gathering so that each message is written by its own system call.
+    WRITE_GATHERING_MAXIMUM_MESSAGES("org.kaazing.netty.WRITE_GATHERING_MAXIMUM_MESSAGES", "16"),
+
+    // Maximum number of bytes gathered into a single socket write (a single larger message is still written whole)
+    WRITE_GATHERING_MAXIMUM_BYTES("org.kaazing.netty.WRITE_GATHERING_MAXIMUM_BYTES", "65536"),
+
+    // Resolution in milliseconds of the timing wheel each I/O worker uses for session idle tracking
+    TIMING_WHEEL_TICK_MILLIS("org.kaazing.netty.TIMING_WHEEL_TICK_MILLIS", "10"),
+
+    // Time each I/O worker's selector loop, a sample of its queued tasks and its socket read and write system calls,
+    // for monitoring. The worker's task, system call and byte counters are maintained regardless.
+    WORKER_LATENCY_METRICS_ENABLED("org.kaazing.netty.WORKER_LATENCY_METRICS_ENABLED", "true"),
+
+    // Number of WorkerLocal instances whose values are held directly by each I/O worker thread, instances created
+    // beyond this fall back to a thread local
+    WORKER_LOCAL_CAPACITY("org.kaazing.netty.WORKER_LOCAL_CAPACITY", "1024");
 
     private final String name;
     private final String defaultValue;
@@ -55,6 +90,10 @@ public enum InternalSystemProperty {
         return configuration.getProperty(name, defaultValue);
     }
 
+    public boolean getBooleanProperty(Properties configuration) {
+        return parseBoolean(getProperty(configuration));
+    }
+
     public Integer getIntProperty(Properties configuration) {
         String value = getProperty(configuration);
         if (value == null) {
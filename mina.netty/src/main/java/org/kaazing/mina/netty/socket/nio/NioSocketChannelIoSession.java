@@ -24,6 +24,8 @@ package org.kaazing.mina.netty.socket.nio;
 import static java.lang.String.format;
 import static java.lang.Thread.currentThread;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 
 import org.jboss.netty.channel.ChannelConfig;
@@ -32,6 +34,7 @@ import org.jboss.netty.channel.socket.nio.NioSocketChannelConfig;
 import org.jboss.netty.channel.socket.nio.NioWorker;
 
 import org.kaazing.mina.core.service.IoProcessorEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.netty.ChannelIoService;
 import org.kaazing.mina.netty.ChannelIoSession;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -52,10 +55,51 @@ public class NioSocketChannelIoSession extends ChannelIoSession<NioSocketChannel
                 asExecutor(channel.getWorker()));
     }
 
+    /**
+     * Moves this session, together with the bridge sessions layered on top of it, to another worker.
+     * <p>
+     * Must be called on the I/O thread of this session, passing the top-most session of the stack, realigning the
+     * top-most session also realigns each of its parents down to this session. The channel is deregistered from the
+     * current worker before it is registered with the new worker, and commands executed for the sessions in the
+     * meantime are queued and run on the new I/O thread, in order, before {@code onComplete}. The idle tracking of
+     * this session moves to the new worker as well.
+     */
+    public void realign(final IoSessionEx topSession, final NioWorker newWorker, final Runnable onComplete) {
+        if (currentThread() != getIoThread()) {
+            throw new IllegalStateException("Not called from I/O thread");
+        }
+
+        final NioWorker oldWorker = ((NioSocketChannel) getChannel()).getWorker();
+        final HandoffExecutor handoff = new HandoffExecutor();
+        topSession.setIoAlignment(NO_THREAD, handoff);
+
+        // deregistration is queued on the current worker, register with the new worker only after it completes
+        oldWorker.executeInIoThread(new Runnable() {
+            @Override
+            public void run() {
+                newWorker.executeInIoThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Executor ioExecutor = asExecutor(newWorker);
+                        topSession.setIoAlignment(currentThread(), ioExecutor);
+                        if (!isClosing()) {
+                            // move the idle notifications to the timing wheel of the new worker
+                            getService().getSessionIdleTracker().addSession(NioSocketChannelIoSession.this);
+                        }
+                        handoff.handoff(ioExecutor);
+                        if (onComplete != null) {
+                            onComplete.run();
+                        }
+                    }
+                }, /* alwaysAsync */ true);
+            }
+        }, /* alwaysAsync */ true);
+    }
+
     @Override
     protected void setIoAlignment0(Thread ioThread, Executor ioExecutor) {
         NioSocketChannel channel = (NioSocketChannel) getChannel();
-        if (ioExecutor == NO_EXECUTOR) {
+        if (ioThread == NO_THREAD || ioExecutor == NO_EXECUTOR) {
             channel.setWorker(null);
         }
         else {
@@ -88,6 +132,45 @@ public class NioSocketChannelIoSession extends ChannelIoSession<NioSocketChannel
         return aligned;
     }
 
+    private static final class HandoffExecutor implements Executor {
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
+        private volatile Executor target;
+
+        @Override
+        public void execute(Runnable command) {
+            Executor ioExecutor = target;
+            if (ioExecutor != null) {
+                ioExecutor.execute(command);
+            }
+            else {
+                commands.offer(command);
+
+                // handle race with handoff, queued commands must still run on the new I/O thread
+                ioExecutor = target;
+                if (ioExecutor != null) {
+                    ioExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            drain();
+                        }
+                    });
+                }
+            }
+        }
+
+        // called from the new I/O thread
+        void handoff(Executor ioExecutor) {
+            target = ioExecutor;
+            drain();
+        }
+
+        private void drain() {
+            for (Runnable command = commands.poll(); command != null; command = commands.poll()) {
+                command.run();
+            }
+        }
+    }
+
     private static final class WorkerExecutor implements Executor {
         private final NioWorker worker;
 
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of latencies in nanoseconds, cheap enough to be updated from an I/O worker loop.
+ *
+ * Values are counted in logarithmic buckets, each power of two split into four linear sub-buckets, so reported
+ * percentiles are within 25% of the recorded values. Recording does not allocate and uses ordered writes only,
+ * so it is intended for a single writer, normally the owning I/O thread. Concurrent writers may occasionally
+ * lose a sample, which is acceptable for monitoring. Any thread may read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKETS - 1;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final int TOTAL = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    // bucket counts followed by the total and the maximum
+    private final AtomicLongArray values = new AtomicLongArray(BUCKETS + 2);
+
+    /**
+     * Records a latency, negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        int index = indexOf(value);
+        values.lazySet(index, values.get(index) + 1);
+        values.lazySet(TOTAL, values.get(TOTAL) + value);
+        if (value > values.get(MAX)) {
+            values.lazySet(MAX, value);
+        }
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += values.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of all latencies recorded, in nanoseconds.
+     */
+    public long getTotal() {
+        return values.get(TOTAL);
+    }
+
+    /**
+     * Returns the largest latency recorded, in nanoseconds.
+     */
+    public long getMax() {
+        return values.get(MAX);
+    }
+
+    /**
+     * Returns the mean latency in nanoseconds, or zero if nothing has been recorded.
+     */
+    public long getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotal() / count;
+    }
+
+    /**
+     * Returns an upper bound of the latency below which the given percentage of the recorded latencies fall.
+     *
+     * @param percentile  a percentage between 0 and 100, for example 99.9
+     * @return the latency in nanoseconds, or zero if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+
+        long[] snapshot = new long[BUCKETS];
+        long sampled = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = values.get(i);
+            sampled += snapshot[i];
+        }
+        if (sampled == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1L, (long) Math.ceil(sampled * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= threshold) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int indexOf(long value) {
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = msb - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & SUB_BUCKET_MASK;
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long subBucket = index & SUB_BUCKET_MASK;
+        long lowerBound = (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+}
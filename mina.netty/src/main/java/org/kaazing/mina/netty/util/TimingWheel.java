@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util;
+
+import static java.lang.Thread.currentThread;
+
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hierarchical timing wheel owned by a single thread, normally an I/O worker that advances it from its
+ * selector loop.
+ *
+ * Tasks are linked directly into the wheel, so scheduling, rescheduling and cancelling are O(1) and do not
+ * allocate. Deadlines within 64 ticks are held in the first level, later deadlines in coarser levels that
+ * cascade down as time advances. Except for {@link #execute(Runnable)} and {@link #isOwnerThread()}, methods
+ * must only be called from the owner thread.
+ */
+public final class TimingWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAXIMUM_TICKS = (1L << (LEVELS * SLOT_BITS)) - 1;
+
+    // tasks being expired by the current tick
+    private static final int EXPIRING = LEVELS * SLOTS;
+
+    private static final ThreadLocal<TimingWheel> CURRENT = new ThreadLocal<TimingWheel>();
+
+    private final long tickMillis;
+    private final Executor executor;
+    private final Task[] slots = new Task[LEVELS * SLOTS + 1];
+
+    private volatile Thread ownerThread;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis  the resolution of the wheel, tasks never expire early but may expire up to one tick late
+     * @param executor    executes commands on the owner thread, see {@link #execute(Runnable)}
+     */
+    public TimingWheel(long tickMillis, Executor executor) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.tickMillis = tickMillis;
+        this.executor = executor;
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Returns the timing wheel owned by the current thread, or {@code null} if there is none.
+     */
+    public static TimingWheel current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the current thread the owner of this timing wheel.
+     */
+    public void bind() {
+        ownerThread = currentThread();
+        CURRENT.set(this);
+    }
+
+    public void unbind() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        ownerThread = null;
+    }
+
+    public boolean isOwnerThread() {
+        return currentThread() == ownerThread;
+    }
+
+    /**
+     * Executes a command on the owner thread, for example to schedule a task from another thread.
+     */
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Returns the number of scheduled tasks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a task, or reschedules it if it is already scheduled on this wheel.
+     */
+    public void schedule(Task task, long delayMillis) {
+        TimingWheel wheel = task.wheel;
+        if (wheel == this) {
+            unlink(task);
+        }
+        else if (wheel != null) {
+            throw new IllegalStateException("Task already scheduled on another timing wheel");
+        }
+        else {
+            task.wheel = this;
+            size++;
+        }
+
+        // round up so that tasks never expire early
+        long deadline = System.currentTimeMillis() + Math.max(delayMillis, 0L);
+        task.expirationTick = (deadline + tickMillis - 1) / tickMillis;
+        link(task);
+    }
+
+    /**
+     * Expires all tasks due at or before the specified time, in tick order.
+     *
+     * @return the number of expired tasks
+     */
+    public int expire(long currentTimeMillis) {
+        long targetTick = currentTimeMillis / tickMillis;
+        int expired = 0;
+        while (currentTick <= targetTick) {
+            if (size == 0) {
+                currentTick = targetTick + 1;
+                break;
+            }
+
+            int index = (int) (currentTick & SLOT_MASK);
+            if (index == 0) {
+                // cascade coarser levels down when the finer level wraps around
+                int level = 1;
+                while (level < LEVELS && cascade(level) == 0) {
+                    level++;
+                }
+            }
+
+            long tick = currentTick++;
+
+            // move the tasks of this tick aside, so that tasks rescheduled while expiring are linked safely
+            Task task = slots[index];
+            slots[index] = null;
+            slots[EXPIRING] = task;
+            for (; task != null; task = task.next) {
+                task.slot = EXPIRING;
+            }
+
+            while ((task = slots[EXPIRING]) != null) {
+                unlink(task);
+                if (task.expirationTick > tick) {
+                    // deadline was beyond the range of the wheel
+                    link(task);
+                }
+                else {
+                    task.wheel = null;
+                    size--;
+                    expired++;
+                    try {
+                        task.expired();
+                    }
+                    catch (Throwable t) {
+                        LOGGER.warn("Unexpected exception from expired timing wheel task", t);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the number of milliseconds until the next tick that may expire a task,
+     * or {@code -1} if no tasks are scheduled.
+     */
+    public long getDelayMillis(long currentTimeMillis) {
+        if (size == 0) {
+            return -1L;
+        }
+
+        long tick = currentTick;
+        int index = (int) (tick & SLOT_MASK);
+        long nextTick = tick;
+        if (index != 0) {
+            // next occupied slot of the first level, or the next cascade
+            nextTick += SLOTS - index;
+            for (int i = index; i < SLOTS; i++) {
+                if (slots[i] != null) {
+                    nextTick = tick + i - index;
+                    break;
+                }
+            }
+        }
+        return Math.max(nextTick * tickMillis - currentTimeMillis, 0L);
+    }
+
+    private int cascade(int level) {
+        int index = (int) ((currentTick >> (level * SLOT_BITS)) & SLOT_MASK);
+        int slot = level * SLOTS + index;
+        Task task = slots[slot];
+        slots[slot] = null;
+        while (task != null) {
+            Task next = task.next;
+            task.prev = null;
+            task.next = null;
+            link(task);
+            task = next;
+        }
+        return index;
+    }
+
+    private void link(Task task) {
+        long expirationTick = task.expirationTick;
+        long ticks = expirationTick - currentTick;
+
+        int slot;
+        if (ticks < 0L) {
+            slot = (int) (currentTick & SLOT_MASK);
+        }
+        else {
+            if (ticks > MAXIMUM_TICKS) {
+                expirationTick = currentTick + MAXIMUM_TICKS;
+                ticks = MAXIMUM_TICKS;
+            }
+            int level = 0;
+            while (ticks >= 1L << ((level + 1) * SLOT_BITS)) {
+                level++;
+            }
+            slot = level * SLOTS + (int) ((expirationTick >> (level * SLOT_BITS)) & SLOT_MASK);
+        }
+
+        Task head = slots[slot];
+        task.slot = slot;
+        task.prev = null;
+        task.next = head;
+        if (head != null) {
+            head.prev = task;
+        }
+        slots[slot] = task;
+    }
+
+    private void unlink(Task task) {
+        Task prev = task.prev;
+        Task next = task.next;
+        if (prev != null) {
+            prev.next = next;
+        }
+        else {
+            slots[task.slot] = next;
+        }
+        if (next != null) {
+            next.prev = prev;
+        }
+        task.prev = null;
+        task.next = null;
+    }
+
+    /**
+     * A task that can be scheduled on a {@link TimingWheel}. Each instance can be scheduled at most once at a time,
+     * so a task is typically reused for the lifetime of whatever it tracks.
+     */
+    public abstract static class Task {
+
+        private TimingWheel wheel;
+        private Task prev;
+        private Task next;
+        private int slot;
+        private long expirationTick;
+
+        public final boolean isScheduled() {
+            return wheel != null;
+        }
+
+        /**
+         * Cancels this task, must be called from the owner thread of the wheel it is scheduled on.
+         *
+         * @return {@code true} if the task was scheduled
+         */
+        public final boolean cancel() {
+            TimingWheel wheel = this.wheel;
+            if (wheel == null) {
+                return false;
+            }
+            wheel.unlink(this);
+            wheel.size--;
+            this.wheel = null;
+            return true;
+        }
+
+        /**
+         * Called on the owner thread of the wheel when this task expires.
+         */
+        protected abstract void expired();
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Drives a {@link TimingWheel} from a dedicated daemon thread, for timers created on threads that do not own
+ * a timing wheel themselves, such as application threads or unaligned sessions.
+ */
+public final class TimingWheelTimer {
+
+    private final ScheduledExecutorService executor;
+    private final TimingWheel wheel;
+
+    public TimingWheelTimer(final String threadName, long tickMillis) {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        wheel = new TimingWheel(tickMillis, executor);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                wheel.bind();
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                wheel.expire(currentTimeMillis());
+            }
+        }, tickMillis, tickMillis, MILLISECONDS);
+    }
+
+    public TimingWheel getTimingWheel() {
+        return wheel;
+    }
+
+    public void dispose() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util.threadlocal;
+
+import static java.lang.Thread.currentThread;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.WORKER_LOCAL_CAPACITY;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@code ThreadLocal} optimised for I/O worker threads. Each instance is assigned an index when created, and each
+ * {@link WorkerThread} holds the values of all instances in an array field, indexed directly, while it is registered
+ * as a worker. Threads that are not registered workers, and instances created beyond the configured capacity, fall
+ * back to {@link VicariousThreadLocal}.
+ * <p>
+ * A worker's values are released when it unregisters, or its thread exits, so a thread reused for a new worker
+ * sees the initial values. Indexes are never reused, so instances should be long-lived, e.g. one per service,
+ * rather than one per message.
+ */
+public class WorkerLocal<T> extends VicariousThreadLocal<T> {
+
+    private static final int CAPACITY = WORKER_LOCAL_CAPACITY.getIntProperty(System.getProperties());
+
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    // distinguishes unset slots from null values
+    private static final Object UNSET = new Object();
+
+    private final int index;
+
+    public WorkerLocal() {
+        this.index = NEXT_INDEX.getAndIncrement();
+    }
+
+    /**
+     * Registers the current thread as an I/O worker, so that its values are held by the thread itself.
+     *
+     * @return true if the current thread is a {@link WorkerThread}, otherwise it is not registered
+     */
+    public static boolean registerWorker() {
+        Thread thread = currentThread();
+        if (!(thread instanceof WorkerThread)) {
+            return false;
+        }
+
+        WorkerThread worker = (WorkerThread) thread;
+        if (worker.locals == null) {
+            worker.locals = NO_VALUES;
+        }
+        return true;
+    }
+
+    /**
+     * Unregisters the current thread as an I/O worker, releasing its values.
+     */
+    public static void unregisterWorker() {
+        Thread thread = currentThread();
+        if (thread instanceof WorkerThread) {
+            ((WorkerThread) thread).locals = null;
+        }
+    }
+
+    /**
+     * Returns true if the current thread is a registered I/O worker.
+     */
+    public static boolean isWorker() {
+        Thread thread = currentThread();
+        return thread instanceof WorkerThread && ((WorkerThread) thread).locals != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Thread thread = currentThread();
+        if (thread instanceof WorkerThread) {
+            Object[] locals = ((WorkerThread) thread).locals;
+            if (locals != null && index < CAPACITY) {
+                if (index < locals.length) {
+                    Object value = locals[index];
+                    if (value != UNSET) {
+                        return (T) value;
+                    }
+                }
+
+                T value = initialValue();
+                locals(thread, locals)[index] = value;
+                return value;
+            }
+        }
+        return super.get();
+    }
+
+    @Override
+    public void set(T value) {
+        Thread thread = currentThread();
+        if (thread instanceof WorkerThread) {
+            Object[] locals = ((WorkerThread) thread).locals;
+            if (locals != null && index < CAPACITY) {
+                locals(thread, locals)[index] = value;
+                return;
+            }
+        }
+        super.set(value);
+    }
+
+    @Override
+    public void remove() {
+        Thread thread = currentThread();
+        if (thread instanceof WorkerThread) {
+            Object[] locals = ((WorkerThread) thread).locals;
+            if (locals != null && index < CAPACITY) {
+                if (index < locals.length) {
+                    locals[index] = UNSET;
+                }
+                return;
+            }
+        }
+        super.remove();
+    }
+
+    // returns the worker's values, grown to include this instance's index
+    private Object[] locals(Thread thread, Object[] locals) {
+        if (index < locals.length) {
+            return locals;
+        }
+
+        int length = Math.max(locals.length, 8);
+        while (length <= index) {
+            length <<= 1;
+        }
+        Object[] newLocals = Arrays.copyOf(locals, Math.min(length, CAPACITY));
+        Arrays.fill(newLocals, locals.length, newLocals.length, UNSET);
+        ((WorkerThread) thread).locals = newLocals;
+        return newLocals;
+    }
+}
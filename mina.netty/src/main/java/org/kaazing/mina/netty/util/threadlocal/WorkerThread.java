@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util.threadlocal;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread that can run an I/O worker, holding the values of each {@link WorkerLocal} in a field, so that they are
+ * found without a lookup.  Executors for I/O worker pools should create their threads with {@link #FACTORY}.
+ */
+public class WorkerThread extends Thread {
+
+    /**
+     * Creates non-daemon worker threads of normal priority, like {@code Executors.defaultThreadFactory()}.
+     */
+    public static final ThreadFactory FACTORY = new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            WorkerThread thread = new WorkerThread(runnable, "worker-thread-" + count.incrementAndGet());
+            thread.setDaemon(false);
+            thread.setPriority(NORM_PRIORITY);
+            return thread;
+        }
+    };
+
+    // indexed by WorkerLocal, non-null while registered as a worker, accessed only by this thread
+    Object[] locals;
+
+    public WorkerThread(Runnable target, String name) {
+        super(target, name);
+    }
+
+    @Override
+    public void run() {
+        try {
+            super.run();
+        }
+        finally {
+            // release the worker's values even if it did not exit normally
+            WorkerLocal.unregisterWorker();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class IoBufferPoolTest {
+
+    private static final int MAXIMUM_POOLED_SIZE = 64 * 1024;
+
+    @Test
+    public void allocateShouldReturnRequestedCapacity() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        assertEquals(100, buf.capacity());
+        assertEquals(100, buf.remaining());
+    }
+
+    @Test
+    public void allocateDirectShouldReturnDirectBuffer() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100, IoBufferEx.FLAG_DIRECT));
+        assertTrue(buf.isDirect());
+    }
+
+    @Test
+    public void freedBufferShouldBeReused() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        buf.free();
+        IoBufferEx reused = allocator.wrap(allocator.allocate(120));
+        assertSame(buf.array(), reused.array());
+        assertEquals(buf.arrayOffset(), reused.arrayOffset());
+    }
+
+    @Test
+    public void shouldCountAllocatedAndFreedBuffers() throws Exception {
+        IoBufferPool pool = new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, true);
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(pool);
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        IoBufferEx other = allocator.wrap(allocator.allocate(100, IoBufferEx.FLAG_DIRECT));
+        assertEquals(2L, pool.getAllocatedCount());
+        assertEquals(0L, pool.getFreeCount());
+
+        buf.free();
+        other.free();
+        assertEquals(2L, pool.getFreeCount());
+    }
+
+    @Test
+    public void unfreedBufferShouldNotBeReused() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        IoBufferEx other = allocator.wrap(allocator.allocate(100));
+        assertTrue(buf.array() != other.array() || buf.arrayOffset() != other.arrayOffset());
+    }
+
+    @Test
+    public void retainedBufferShouldNotBeReusedUntilFreedByAllReferences() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        buf.retain();
+        buf.free();
+        IoBufferEx other = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        assertNotSame(buf.array(), other.array());
+        buf.free();
+        IoBufferEx reused = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        assertSame(buf.array(), reused.array());
+    }
+
+    @Test
+    public void derivedBufferShouldShareReferenceCount() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        IoBufferEx slice = buf.slice();
+        slice.free();
+        IoBufferEx reused = allocator.wrap(allocator.allocate(100));
+        assertSame(buf.array(), reused.array());
+        assertEquals(buf.arrayOffset(), reused.arrayOffset());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void freeShouldFailWhenAlreadyFreed() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(100));
+        buf.free();
+        buf.free();
+    }
+
+    @Test
+    public void bufferFreedByAnotherThreadShouldBeReturnedToAllocatingThread() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        final IoBufferEx buf = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                buf.free();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        IoBufferEx reused = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        assertSame(buf.array(), reused.array());
+    }
+
+    @Test
+    public void oversizedBufferShouldNotBePooled() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE + 1));
+        assertEquals(MAXIMUM_POOLED_SIZE + 1, buf.array().length);
+        buf.free();
+        buf.free();
+    }
+
+    @Test
+    public void expandedBufferShouldNotReturnPreviousMemory() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        IoBufferEx buf = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        byte[] array = buf.array();
+        buf.capacity(MAXIMUM_POOLED_SIZE * 2, allocator);
+        buf.free();
+        IoBufferEx other = allocator.wrap(allocator.allocate(MAXIMUM_POOLED_SIZE));
+        assertNotSame(array, other.array());
+    }
+
+    @Test
+    public void wrappedBufferShouldNotBePooled() throws Exception {
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, false));
+        ByteBuffer nioBuffer = ByteBuffer.allocate(100);
+        IoBufferEx buf = allocator.wrap(nioBuffer);
+        buf.free();
+        buf.free();
+    }
+
+    @Test
+    public void unfreedBufferShouldBeReportedAsLeak() throws Exception {
+        IoBufferPool pool = new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, true);
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(pool);
+        allocator.wrap(allocator.allocate(100));
+
+        for (int i = 0; i < 50 && pool.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            allocator.wrap(allocator.allocate(100)).free();
+        }
+        assertEquals(1, pool.getLeakCount());
+    }
+
+    @Test
+    public void freedBufferShouldNotBeReportedAsLeak() throws Exception {
+        IoBufferPool pool = new IoBufferPool(MAXIMUM_POOLED_SIZE, 1 << 20, true);
+        SimpleBufferAllocator allocator = new SimpleBufferAllocator(pool);
+        allocator.wrap(allocator.allocate(100)).free();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            allocator.wrap(allocator.allocate(100)).free();
+        }
+        assertEquals(0, pool.getLeakCount());
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.filterchain;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.DefaultIoFilterChainBuilder;
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.filterchain.IoFilterChain.Entry;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class IoFilterChainTemplateTest {
+
+    private List<String> events;
+    private DefaultIoFilterChainBuilder builder;
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<String>();
+        builder = new DefaultIoFilterChainBuilder();
+        builder.addLast("a", new RecordingFilter("a"));
+        builder.addLast("b", new RecordingFilter("b"));
+        builder.addLast("c", new RecordingFilter("c"));
+    }
+
+    @Test
+    public void shouldShareTemplateEntriesBetweenSessions() throws Exception {
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session1 = newSession();
+        DummySessionEx session2 = newSession();
+        template.buildFilterChain(session1.getFilterChain());
+        template.buildFilterChain(session2.getFilterChain());
+
+        assertSame(session1.getFilterChain().getNextFilter("b"), session2.getFilterChain().getNextFilter("b"));
+        assertTrue(session1.getFilterChain().contains("c"));
+        assertSame(builder.get("a"), session2.getFilterChain().get(RecordingFilter.class));
+
+        session1.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "b", "c", "handler"), events);
+    }
+
+    @Test
+    public void shouldCopyOnWriteWhenFilterAdded() throws Exception {
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session1 = newSession();
+        DummySessionEx session2 = newSession();
+        template.buildFilterChain(session1.getFilterChain());
+        template.buildFilterChain(session2.getFilterChain());
+
+        session1.getFilterChain().addAfter("a", "x", new RecordingFilter("x"));
+        assertNotSame(session1.getFilterChain().getNextFilter("b"), session2.getFilterChain().getNextFilter("b"));
+
+        session1.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "x", "b", "c", "handler"), events);
+
+        events.clear();
+        session2.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "b", "c", "handler"), events);
+    }
+
+    @Test
+    public void shouldForwardAfterFilterRemovesItself() throws Exception {
+        builder.addAfter("a", "once", new IoFilterAdapter() {
+            @Override
+            public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+                events.add("once");
+                session.getFilterChain().remove(this);
+                nextFilter.messageReceived(session, message);
+            }
+        });
+
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session = newSession();
+        template.buildFilterChain(session.getFilterChain());
+
+        session.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "once", "b", "c", "handler"), events);
+        assertFalse(session.getFilterChain().contains("once"));
+
+        events.clear();
+        session.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "b", "c", "handler"), events);
+    }
+
+    @Test
+    public void shouldCallLifeCycleMethodsInOrder() throws Exception {
+        builder.clear();
+        builder.addLast("a", new LifeCycleFilter("a"));
+        builder.addLast("b", new LifeCycleFilter("b"));
+
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session = newSession();
+        IoFilterChain chain = session.getFilterChain();
+        template.buildFilterChain(chain);
+        assertEquals(asList("preAdd a []", "postAdd a [a]", "preAdd b [a]", "postAdd b [a, b]"), events);
+
+        events.clear();
+        chain.clear();
+        assertEquals(asList("preRemove b [a, b]", "postRemove b [a]", "preRemove a [a]", "postRemove a []"), events);
+    }
+
+    @Test
+    public void shouldCopyOnWriteWhenModifiedThroughEntry() throws Exception {
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session1 = newSession();
+        DummySessionEx session2 = newSession();
+        template.buildFilterChain(session1.getFilterChain());
+        template.buildFilterChain(session2.getFilterChain());
+
+        Entry entry = session1.getFilterChain().getEntry("b");
+        assertEquals("b", entry.getName());
+        entry.addAfter("x", new RecordingFilter("x"));
+        entry.replace(new RecordingFilter("y"));
+
+        session1.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "y", "x", "c", "handler"), events);
+
+        events.clear();
+        session2.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "b", "c", "handler"), events);
+
+        entry.remove();
+        events.clear();
+        session1.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "x", "c", "handler"), events);
+    }
+
+    @Test
+    public void shouldDispatchThroughSharedTemplateEntries() throws Exception {
+        IoFilterChainTemplate template = new IoFilterChainTemplate(builder.getAll());
+        DummySessionEx session1 = newSession();
+        DummySessionEx session2 = newSession();
+        template.buildFilterChain(session1.getFilterChain());
+        template.buildFilterChain(session2.getFilterChain());
+
+        session1.getFilterChain().fireMessageReceived("message");
+        assertEquals(asList("a", "b", "c", "handler"), events);
+
+        DefaultIoFilterChain chain1 = (DefaultIoFilterChain) session1.getFilterChain();
+        DefaultIoFilterChain chain2 = (DefaultIoFilterChain) session2.getFilterChain();
+        assertSame(chain1.nextTemplateEntry(0), chain2.nextTemplateEntry(0));
+        assertSame(chain1.previousTemplateEntry(2), chain2.previousTemplateEntry(2));
+    }
+
+    @Test
+    public void shouldChangeModificationCountWhenBuilderModified() throws Exception {
+        int modificationCount = builder.getModificationCount();
+        assertEquals(modificationCount, builder.getModificationCount());
+
+        builder.replace("b", new RecordingFilter("b"));
+        assertNotEquals(modificationCount, builder.getModificationCount());
+
+        modificationCount = builder.getModificationCount();
+        builder.remove("c");
+        assertNotEquals(modificationCount, builder.getModificationCount());
+    }
+
+    private DummySessionEx newSession() {
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                events.add("handler");
+            }
+        });
+        return session;
+    }
+
+    private final class RecordingFilter extends IoFilterAdapter {
+        private final String name;
+
+        RecordingFilter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+            events.add(name);
+            super.messageReceived(nextFilter, session, message);
+        }
+    }
+
+    private final class LifeCycleFilter extends IoFilterAdapter {
+        private final String name;
+
+        LifeCycleFilter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onPreAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+            record("preAdd", parent);
+        }
+
+        @Override
+        public void onPostAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+            record("postAdd", parent);
+        }
+
+        @Override
+        public void onPreRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+            record("preRemove", parent);
+        }
+
+        @Override
+        public void onPostRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+            record("postRemove", parent);
+        }
+
+        private void record(String method, IoFilterChain parent) {
+            List<String> names = new ArrayList<String>();
+            for (String name : asList("a", "b")) {
+                if (parent.contains(name)) {
+                    names.add(name);
+                }
+            }
+            events.add(method + " " + this.name + " " + names);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.apache.mina.core.session.AttributeKey;
+import org.junit.Test;
+
+public class IndexedAttributeKeyTest {
+
+    @Test
+    public void shouldAssignDistinctIndexes() {
+        IndexedAttributeKey key1 = new TestKey();
+        IndexedAttributeKey key2 = new TestKey();
+        assertTrue(key1.index() >= 0);
+        assertTrue(key2.index() >= 0);
+        assertTrue(key1.index() != key2.index());
+    }
+
+    @Test
+    public void shouldNotIndexUnindexedKey() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey(false);
+        assertEquals(-1, key.index());
+
+        session.setAttribute(key, "value");
+        assertEquals("value", session.getAttribute(key));
+    }
+
+    @Test
+    public void shouldSetAndGetAttribute() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        assertNull(session.getAttribute(key));
+        assertEquals("default", session.getAttribute(key, "default"));
+        assertNull(session.setAttribute(key, "value1"));
+        assertEquals("value1", session.getAttribute(key));
+        assertEquals("value1", session.setAttribute(key, "value2"));
+        assertEquals("value2", session.getAttribute(key, "default"));
+        assertTrue(session.containsAttribute(key));
+    }
+
+    @Test
+    public void shouldRemoveAttributeWhenSetToNull() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        session.setAttribute(key, "value");
+        assertEquals("value", session.setAttribute(key, null));
+        assertFalse(session.containsAttribute(key));
+    }
+
+    @Test
+    public void shouldSetAttributeIfAbsent() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        assertNull(session.setAttributeIfAbsent(key, "value1"));
+        assertEquals("value1", session.setAttributeIfAbsent(key, "value2"));
+        assertEquals("value1", session.getAttribute(key));
+    }
+
+    @Test
+    public void shouldRemoveAttribute() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        assertNull(session.removeAttribute(key));
+        session.setAttribute(key, "value");
+        assertFalse(session.removeAttribute(key, "other"));
+        assertTrue(session.removeAttribute(key, "value"));
+        assertNull(session.getAttribute(key));
+    }
+
+    @Test
+    public void shouldReplaceAttribute() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        assertFalse(session.replaceAttribute(key, "value1", "value2"));
+        session.setAttribute(key, "value1");
+        assertFalse(session.replaceAttribute(key, "other", "value2"));
+        assertTrue(session.replaceAttribute(key, "value1", "value2"));
+        assertEquals("value2", session.getAttribute(key));
+    }
+
+    @Test
+    public void shouldIncludeIndexedKeysInAttributeKeys() {
+        DummySessionEx session = new DummySessionEx();
+        IndexedAttributeKey indexedKey = new TestKey();
+        AttributeKey mappedKey = new AttributeKey(IndexedAttributeKeyTest.class, "mapped");
+
+        session.setAttribute(indexedKey, "value1");
+        session.setAttribute(mappedKey, "value2");
+        Set<Object> keys = session.getAttributeKeys();
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains(indexedKey));
+        assertTrue(keys.contains(mappedKey));
+
+        session.removeAttribute(indexedKey);
+        assertFalse(session.getAttributeKeys().contains(indexedKey));
+    }
+
+    @Test
+    public void shouldIsolateAttributesPerSession() {
+        DummySessionEx session1 = new DummySessionEx();
+        DummySessionEx session2 = new DummySessionEx();
+        IndexedAttributeKey key = new TestKey();
+
+        session1.setAttribute(key, "value");
+        assertNull(session2.getAttribute(key));
+    }
+
+    private static final class TestKey extends IndexedAttributeKey {
+
+        TestKey() {
+        }
+
+        TestKey(boolean indexed) {
+            super(indexed);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.core.session;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.kaazing.mina.netty.util.TimingWheel;
+import org.kaazing.mina.netty.util.TimingWheelTimer;
+
+public class IoSessionSchedulerTest {
+
+    private final TimingWheelTimer timer = new TimingWheelTimer("IoSessionSchedulerTest", 10L);
+
+    @After
+    public void tearDown() {
+        timer.dispose();
+    }
+
+    @Test
+    public void shouldExecuteScheduledCommand() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(1);
+        DummySessionEx session = new DummySessionEx();
+
+        ScheduledFuture<?> future = session.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 50L, MILLISECONDS);
+
+        assertTrue(executed.await(5, SECONDS));
+        assertFalse(future.isCancelled());
+    }
+
+    @Test
+    public void shouldNotExecuteCancelledCommand() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(1);
+        DummySessionEx session = new DummySessionEx();
+
+        ScheduledFuture<?> future = session.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 100L, MILLISECONDS);
+
+        assertTrue(future.cancel(false));
+        assertFalse(executed.await(500, MILLISECONDS));
+    }
+
+    @Test
+    public void shouldExecuteOnIoThread() throws Exception {
+        final TimingWheel wheel = timer.getTimingWheel();
+        final Executor ioExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                wheel.execute(command);
+            }
+        };
+
+        // aligned sessions are created on their IO thread
+        final AtomicReference<DummySessionEx> created = new AtomicReference<DummySessionEx>();
+        final CountDownLatch bound = new CountDownLatch(1);
+        wheel.execute(new Runnable() {
+            @Override
+            public void run() {
+                created.set(new DummySessionEx(Thread.currentThread(), ioExecutor));
+                bound.countDown();
+            }
+        });
+        assertTrue(bound.await(5, SECONDS));
+        DummySessionEx session = created.get();
+
+        final AtomicReference<Thread> executedThread = new AtomicReference<Thread>();
+        final CountDownLatch executed = new CountDownLatch(1);
+        session.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executedThread.set(Thread.currentThread());
+                executed.countDown();
+            }
+        }, 20L, MILLISECONDS);
+
+        assertTrue(executed.await(5, SECONDS));
+        assertSame(session.getIoThread(), executedThread.get());
+    }
+}
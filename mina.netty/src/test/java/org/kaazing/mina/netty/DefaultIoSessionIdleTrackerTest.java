@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.junit.After;
+import org.junit.Test;
+
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.util.TimingWheel;
+import org.kaazing.mina.netty.util.TimingWheelTimer;
+
+public class DefaultIoSessionIdleTrackerTest {
+
+    private final IoSessionIdleTracker tracker = new DefaultIoSessionIdleTracker();
+
+    @After
+    public void tearDown() {
+        tracker.dispose();
+    }
+
+    @Test
+    public void shouldFireSessionIdle() throws Exception {
+        final CountDownLatch idle = new CountDownLatch(2);
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                idle.countDown();
+            }
+        });
+
+        tracker.addSession(session);
+        session.getConfig().setIdleTimeInMillis(IdleStatus.READER_IDLE, 50L);
+
+        assertTrue(idle.await(5, SECONDS));
+    }
+
+    @Test
+    public void shouldNotFireSessionIdleAfterRemove() throws Exception {
+        final CountDownLatch idle = new CountDownLatch(1);
+        DummySessionEx session = new DummySessionEx();
+        session.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                idle.countDown();
+            }
+        });
+
+        tracker.addSession(session);
+        session.getConfig().setIdleTimeInMillis(IdleStatus.BOTH_IDLE, 200L);
+        tracker.removeSession(session);
+
+        assertFalse(idle.await(500, MILLISECONDS));
+    }
+
+    @Test
+    public void shouldMoveIdleNotificationsWhenAddedAgainFromAnotherWheel() throws Exception {
+        TimingWheelTimer oldTimer = new TimingWheelTimer("old", 10L);
+        TimingWheelTimer newTimer = new TimingWheelTimer("new", 10L);
+        try {
+            final CountDownLatch idle = new CountDownLatch(2);
+            final DummySessionEx session = new DummySessionEx();
+            session.setHandler(new IoHandlerAdapter() {
+                @Override
+                public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+                    assertEquals("new", Thread.currentThread().getName());
+                    idle.countDown();
+                }
+            });
+
+            TimingWheel oldWheel = oldTimer.getTimingWheel();
+            TimingWheel newWheel = newTimer.getTimingWheel();
+            addSession(oldWheel, session);
+            session.getConfig().setIdleTimeInMillis(IdleStatus.READER_IDLE, 50L);
+            assertEquals(1, size(oldWheel));
+
+            addSession(newWheel, session);
+            assertTrue(idle.await(5, SECONDS));
+            assertEquals(0, size(oldWheel));
+            assertEquals(1, size(newWheel));
+        }
+        finally {
+            oldTimer.dispose();
+            newTimer.dispose();
+        }
+    }
+
+    private void addSession(TimingWheel wheel, final IoSessionEx session) throws Exception {
+        call(wheel, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                tracker.addSession(session);
+                return null;
+            }
+        });
+    }
+
+    private static int size(final TimingWheel wheel) throws Exception {
+        return call(wheel, new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return wheel.size();
+            }
+        });
+    }
+
+    private static <T> T call(TimingWheel wheel, Callable<T> callable) throws Exception {
+        FutureTask<T> task = new FutureTask<T>(callable);
+        wheel.execute(task);
+        return task.get(5, SECONDS);
+    }
+}
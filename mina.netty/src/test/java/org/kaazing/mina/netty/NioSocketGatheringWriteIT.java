@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_NONE;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+import static org.kaazing.mina.netty.PortUtil.nextPort;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioWorker;
+import org.jboss.netty.channel.socket.nio.NioWorkerPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
+
+public class NioSocketGatheringWriteIT {
+
+    private static final int MESSAGE_COUNT = 2000;
+    private static final int MESSAGE_SIZE = 100;
+
+    private NioWorkerPool workerPool;
+    private NioSocketChannelIoAcceptor acceptor;
+    private Socket socket;
+
+    @Before
+    public void initResources() {
+        workerPool = new NioWorkerPool(newCachedThreadPool(), 1);
+        NioServerSocketChannelFactory serverChannelFactory = new NioServerSocketChannelFactory(newCachedThreadPool(),
+                workerPool);
+        DefaultNioSocketChannelIoSessionConfig sessionConfig = new DefaultNioSocketChannelIoSessionConfig();
+        sessionConfig.setReuseAddress(true);
+        sessionConfig.setSendBufferSize(2048);
+        acceptor = new NioSocketChannelIoAcceptor(sessionConfig, serverChannelFactory);
+        socket = new Socket();
+    }
+
+    @After
+    public void disposeResources() throws Exception {
+        if (socket != null) {
+            socket.close();
+        }
+        if (acceptor != null) {
+            acceptor.dispose();
+        }
+    }
+
+    // Messages queued behind a blocked socket should be written in order, with fewer system calls than messages,
+    // and each write future should complete once its own bytes have been written.
+    @Test
+    public void shouldGatherQueuedWrites() throws Exception {
+        final List<WriteFuture> futures = new CopyOnWriteArrayList<WriteFuture>();
+        final CountDownLatch written = new CountDownLatch(1);
+        acceptor.setHandler(new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                for (int i = 0; i < MESSAGE_COUNT; i++) {
+                    futures.add(session.write(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(message(i)), FLAG_NONE)));
+                }
+                written.countDown();
+            }
+        });
+
+        int port = nextPort(8400, 100);
+        acceptor.bind(new InetSocketAddress("localhost", port));
+        socket.setReceiveBufferSize(2048);
+        socket.connect(new InetSocketAddress("localhost", port));
+        socket.getOutputStream().write(1);
+        assertTrue("Writes not scheduled", written.await(10, SECONDS));
+
+        // let the server queue up behind the full socket buffers before reading
+        Thread.sleep(200);
+
+        InputStream input = socket.getInputStream();
+        byte[] received = new byte[MESSAGE_SIZE];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            int read = 0;
+            while (read < MESSAGE_SIZE) {
+                int n = input.read(received, read, MESSAGE_SIZE - read);
+                assertTrue("Unexpected end of stream", n != -1);
+                read += n;
+            }
+            assertEquals("message " + i, ByteBuffer.wrap(message(i)), ByteBuffer.wrap(received));
+        }
+
+        for (WriteFuture future : futures) {
+            assertTrue("Write not completed", future.awaitUninterruptibly(10, SECONDS));
+            assertTrue("Write failed", future.isWritten());
+        }
+
+        NioWorker worker = workerPool.nextWorker();
+        assertTrue("Expected all messages written", worker.getWrittenMessages() >= MESSAGE_COUNT);
+        assertTrue(String.format("Expected fewer syscalls (%d) than messages (%d)", worker.getWriteSyscalls(),
+                worker.getWrittenMessages()), worker.getWriteSyscalls() < worker.getWrittenMessages());
+    }
+
+    private static byte[] message(int index) {
+        byte[] data = new byte[MESSAGE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (index + i);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportZeroWhenEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMean());
+        assertEquals(0L, histogram.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    public void shouldTrackCountTotalAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100L);
+        histogram.record(300L);
+        histogram.record(-5L);
+
+        assertEquals(3L, histogram.getCount());
+        assertEquals(400L, histogram.getTotal());
+        assertEquals(300L, histogram.getMax());
+        assertEquals(133L, histogram.getMean());
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        long median = histogram.getValueAtPercentile(50.0);
+        long p99 = histogram.getValueAtPercentile(99.0);
+        assertTrue("median " + median, median >= 500000L && median <= 500000L * 5 / 4);
+        assertTrue("p99 " + p99, p99 >= 990000L && p99 <= 1000000L);
+        assertEquals(1000000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void shouldPlaceEveryValueInBucketCoveringIt() {
+        long[] values = { 0L, 1L, 3L, 4L, 7L, 8L, 1023L, 1024L, 123456789L, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue("value " + value, LatencyHistogram.upperBoundOf(index) >= value);
+            assertTrue("value " + value, index == 0 || LatencyHistogram.upperBoundOf(index - 1) < value);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(101.0);
+    }
+
+}
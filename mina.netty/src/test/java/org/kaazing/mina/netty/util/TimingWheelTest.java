@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private List<String> expired;
+    private TimingWheel wheel;
+    private long now;
+
+    @Before
+    public void setUp() {
+        expired = new ArrayList<String>();
+        wheel = new TimingWheel(10L, DIRECT);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void shouldExpireTasksInDeadlineOrder() {
+        wheel.schedule(new RecordingTask("a"), 50L);
+        wheel.schedule(new RecordingTask("b"), 20L);
+        assertEquals(2, wheel.size());
+
+        assertEquals(0, wheel.expire(now));
+        assertEquals(2, wheel.expire(now + 100L));
+        assertEquals(asList("b", "a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldCancelTask() {
+        RecordingTask task = new RecordingTask("a");
+        wheel.schedule(task, 50L);
+        assertTrue(task.isScheduled());
+        assertTrue(task.cancel());
+        assertFalse(task.isScheduled());
+        assertFalse(task.cancel());
+
+        assertEquals(0, wheel.expire(now + 100L));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldRescheduleTask() {
+        RecordingTask task = new RecordingTask("a");
+        wheel.schedule(task, 20L);
+        wheel.schedule(task, 5000L);
+        assertEquals(1, wheel.size());
+
+        assertEquals(0, wheel.expire(now + 1000L));
+        assertEquals(1, wheel.expire(now + 6000L));
+    }
+
+    @Test
+    public void shouldCascadeLongDelays() {
+        wheel.schedule(new RecordingTask("hour"), 3600000L);
+        wheel.schedule(new RecordingTask("minute"), 60000L);
+
+        assertEquals(0, wheel.expire(now + 59000L));
+        assertEquals(1, wheel.expire(now + 61000L));
+        assertEquals(0, wheel.expire(now + 3599000L));
+        assertEquals(1, wheel.expire(now + 3601000L));
+        assertEquals(asList("minute", "hour"), expired);
+    }
+
+    @Test
+    public void shouldExpireDelayBeyondRange() {
+        TimingWheel wheel = new TimingWheel(1L, DIRECT);
+        long delay = (1L << 24) + 5000L;
+        wheel.schedule(new RecordingTask("a"), delay);
+
+        assertEquals(0, wheel.expire(now + delay - 1000L));
+        assertEquals(1, wheel.expire(now + delay + 1000L));
+    }
+
+    @Test
+    public void shouldScheduleFromExpiredTask() {
+        wheel.schedule(new TimingWheel.Task() {
+            private int count;
+
+            @Override
+            protected void expired() {
+                expired.add("periodic");
+                if (++count < 3) {
+                    wheel.schedule(this, 100L);
+                }
+            }
+        }, 100L);
+
+        for (long time = now; time < now + 1000L; time += 10L) {
+            wheel.expire(time);
+        }
+        assertEquals(asList("periodic", "periodic", "periodic"), expired);
+    }
+
+    @Test
+    public void shouldReportDelayUntilNextTick() {
+        assertEquals(-1L, wheel.getDelayMillis(now));
+
+        wheel.schedule(new RecordingTask("a"), 50L);
+        long delay = wheel.getDelayMillis(now);
+        assertTrue(delay >= 0L && delay <= 60L);
+    }
+
+    private final class RecordingTask extends TimingWheel.Task {
+        private final String name;
+
+        RecordingTask(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected void expired() {
+            expired.add(name);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util.threadlocal;
+
+import static java.lang.String.format;
+
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Compares {@code get()} on I/O worker threads for a plain {@code ThreadLocal}, {@link VicariousThreadLocal}
+ * and {@link WorkerLocal}, across several instances as for per-buffer and per-pool thread locals.
+ * Use main() to run it; results are printed in nanoseconds per get.
+ */
+public class WorkerLocalBenchmarkIT {
+
+    // defeats dead code elimination of the measured gets
+    private static volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        new WorkerLocalBenchmarkIT().benchmark(4, 256, 20000, 5);
+    }
+
+    private void benchmark(int threads, int locals, int iterations, int rounds) throws Exception {
+        final ThreadLocal<?>[] threadLocals = new ThreadLocal<?>[locals];
+        final VicariousThreadLocal<?>[] vicariousLocals = new VicariousThreadLocal<?>[locals];
+        final WorkerLocal<?>[] workerLocals = new WorkerLocal<?>[locals];
+        for (int i = 0; i < locals; i++) {
+            threadLocals[i] = new ThreadLocal<Object>() {
+                @Override
+                protected Object initialValue() {
+                    return new Object();
+                }
+            };
+            vicariousLocals[i] = new VicariousThreadLocal<Object>() {
+                @Override
+                protected Object initialValue() {
+                    return new Object();
+                }
+            };
+            workerLocals[i] = new WorkerLocal<Object>() {
+                @Override
+                protected Object initialValue() {
+                    return new Object();
+                }
+            };
+        }
+
+        // separate loops keep each get() call site monomorphic
+        Loop threadLocalLoop = new Loop() {
+            @Override
+            public int run(int iterations) {
+                return getAll(threadLocals, iterations);
+            }
+        };
+        Loop vicariousLoop = new Loop() {
+            @Override
+            public int run(int iterations) {
+                return getAll(vicariousLocals, iterations);
+            }
+        };
+        Loop workerLoop = new Loop() {
+            @Override
+            public int run(int iterations) {
+                return getAll(workerLocals, iterations);
+            }
+        };
+
+        long gets = (long) threads * locals * iterations;
+        for (int round = 0; round < rounds; round++) {
+            long threadNanos = run(threadLocalLoop, threads, iterations);
+            long vicariousNanos = run(vicariousLoop, threads, iterations);
+            long workerNanos = run(workerLoop, threads, iterations);
+            System.out.println(format("round %d: ThreadLocal %.2f ns/get, VicariousThreadLocal %.2f ns/get, " +
+                    "WorkerLocal %.2f ns/get", round, (double) threadNanos / gets, (double) vicariousNanos / gets,
+                    (double) workerNanos / gets));
+        }
+    }
+
+    private long run(final Loop loop, int threads, final int iterations) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new WorkerThread(new Runnable() {
+                @Override
+                public void run() {
+                    WorkerLocal.registerWorker();
+                    try {
+                        // initialize values before timing
+                        loop.run(1);
+                        barrier.await();
+                        sink = loop.run(iterations);
+                        barrier.await();
+                    }
+                    catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }, "benchmark-" + t);
+            workers[t].start();
+        }
+
+        barrier.await();
+        long start = System.nanoTime();
+        barrier.await();
+        long elapsed = System.nanoTime() - start;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return elapsed;
+    }
+
+    private static int getAll(ThreadLocal<?>[] locals, int iterations) {
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (ThreadLocal<?> local : locals) {
+                if (local.get() != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int getAll(VicariousThreadLocal<?>[] locals, int iterations) {
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (VicariousThreadLocal<?> local : locals) {
+                if (local.get() != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int getAll(WorkerLocal<?>[] locals, int iterations) {
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (WorkerLocal<?> local : locals) {
+                if (local.get() != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private interface Loop {
+
+        int run(int iterations);
+    }
+}
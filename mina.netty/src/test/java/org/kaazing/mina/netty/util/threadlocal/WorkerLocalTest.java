@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.mina.netty.util.threadlocal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class WorkerLocalTest {
+
+    private final AtomicInteger initialized = new AtomicInteger();
+
+    private final WorkerLocal<String> local = new WorkerLocal<String>() {
+        @Override
+        protected String initialValue() {
+            return "initial-" + initialized.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void shouldFallBackForNonWorkerThread() {
+        assertFalse(WorkerLocal.registerWorker());
+        assertFalse(WorkerLocal.isWorker());
+        assertEquals("initial-1", local.get());
+
+        local.set("value");
+        assertEquals("value", local.get());
+
+        local.remove();
+        assertEquals("initial-2", local.get());
+    }
+
+    @Test
+    public void shouldGetInitialValueOnceForWorker() throws Exception {
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(WorkerLocal.registerWorker());
+                assertTrue(WorkerLocal.isWorker());
+                assertTrue(WorkerLocal.registerWorker());
+
+                assertEquals("initial-1", local.get());
+                assertEquals("initial-1", local.get());
+                assertEquals(1, initialized.get());
+            }
+        });
+    }
+
+    @Test
+    public void shouldSetAndRemoveForWorker() throws Exception {
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+
+                local.set("value");
+                assertEquals("value", local.get());
+
+                local.remove();
+                assertEquals("initial-1", local.get());
+            }
+        });
+    }
+
+    @Test
+    public void shouldIsolateWorkers() throws Exception {
+        final AtomicReference<String> other = new AtomicReference<String>();
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+                local.set("main");
+
+                try {
+                    runOnWorker(new Runnable() {
+                        @Override
+                        public void run() {
+                            WorkerLocal.registerWorker();
+                            other.set(local.get());
+                            local.set("other");
+                        }
+                    });
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                assertEquals("main", local.get());
+            }
+        });
+        assertEquals("initial-1", other.get());
+    }
+
+    @Test
+    public void shouldNotExposeValueAfterWorkerReregisters() throws Exception {
+        final AtomicReference<String> reregistered = new AtomicReference<String>();
+
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+                local.set("previous");
+                WorkerLocal.unregisterWorker();
+
+                WorkerLocal.registerWorker();
+                reregistered.set(local.get());
+            }
+        });
+
+        assertEquals("initial-1", reregistered.get());
+    }
+
+    @Test
+    public void shouldReleaseValuesWhenWorkerExitsAbnormally() throws Exception {
+        WorkerThread failed = (WorkerThread) WorkerThread.FACTORY.newThread(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+                local.set("failed");
+                throw new IllegalStateException("worker failed");
+            }
+        });
+        failed.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                // expected
+            }
+        });
+        failed.start();
+        failed.join();
+
+        assertNull(failed.locals);
+    }
+
+    @Test
+    public void shouldHoldValuesOfManyInstances() throws Exception {
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+
+                List<WorkerLocal<Integer>> locals = new ArrayList<WorkerLocal<Integer>>();
+                for (int i = 0; i < 100; i++) {
+                    WorkerLocal<Integer> local = new WorkerLocal<Integer>();
+                    local.set(i);
+                    locals.add(local);
+                }
+                for (int i = 0; i < 100; i++) {
+                    assertEquals(Integer.valueOf(i), locals.get(i).get());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shouldReturnNullWithoutInitialValue() throws Exception {
+        runOnWorker(new Runnable() {
+            @Override
+            public void run() {
+                WorkerLocal.registerWorker();
+                WorkerLocal<Object> local = new WorkerLocal<Object>();
+                assertNull(local.get());
+
+                Object value = new Object();
+                local.set(value);
+                assertSame(value, local.get());
+            }
+        });
+    }
+
+    private static void runOnWorker(final Runnable task) throws InterruptedException {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread worker = WorkerThread.FACTORY.newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                }
+                catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        worker.start();
+        worker.join();
+
+        Throwable t = failure.get();
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        else if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Name resolver that caches the results of another resolver.
+ *
+ * Successful lookups are cached for a time to live, and failed lookups for a (usually shorter) negative time to
+ * live.  A cached result that is used after most of its time to live has elapsed is refreshed in the background,
+ * so hosts in regular use do not expire and are never resolved on the calling thread again.  If that refresh fails,
+ * the previous addresses are still used until they expire, and the refresh is retried after the negative time to
+ * live.  Concurrent lookups of the same host share a single call to the underlying resolver.
+ *
+ * {@link #getAllByName(String)} only blocks when the host is not cached, running the lookup on the calling thread.
+ * Threads that must never block, such as I/O threads, should use {@link #getAllByNameAsync(String)} instead, which
+ * runs the lookup on the executor, see {@link ResourceAddressFactory#newResourceAddressAsync(java.net.URI)}.
+ */
+public final class CachingNameResolver implements NameResolver {
+
+    private static final long DEFAULT_TTL_MILLIS = SECONDS.toMillis(30);
+    private static final long DEFAULT_NEGATIVE_TTL_MILLIS = SECONDS.toMillis(10);
+
+    // refresh once this fraction of the time to live has elapsed
+    private static final double REFRESH_RATIO = 0.8;
+
+    // expired entries are purged when the cache grows beyond this size
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final NameResolver resolver;
+    private final Executor executor;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSupplier currentTimeMillis;
+    private final ConcurrentMap<String, Entry> entries;
+    private final ConcurrentMap<String, CompletableFuture<Entry>> lookups;
+
+    public CachingNameResolver(NameResolver resolver) {
+        this(resolver, DefaultExecutor.INSTANCE, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    public CachingNameResolver(NameResolver resolver, Executor executor, long ttlMillis, long negativeTtlMillis) {
+        this(resolver, executor, ttlMillis, negativeTtlMillis, System::currentTimeMillis);
+    }
+
+    CachingNameResolver(NameResolver resolver,
+                        Executor executor,
+                        long ttlMillis,
+                        long negativeTtlMillis,
+                        LongSupplier currentTimeMillis) {
+        if (resolver == null) {
+            throw new NullPointerException("resolver");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.resolver = resolver;
+        this.executor = executor;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.currentTimeMillis = currentTimeMillis;
+        this.entries = new ConcurrentHashMap<>();
+        this.lookups = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+        Entry entry = getCachedEntry(host);
+        if (entry == null) {
+            CompletableFuture<Entry> lookup = new CompletableFuture<>();
+            CompletableFuture<Entry> oldLookup = lookups.putIfAbsent(host, lookup);
+            if (oldLookup == null) {
+                entry = lookup(host, lookup);
+            }
+            else {
+                entry = await(host, oldLookup);
+            }
+        }
+        return entry.getAddresses(host);
+    }
+
+    /**
+     * Resolves the host without blocking.
+     *
+     * @return a future completed with the addresses of the host, or exceptionally with an UnknownHostException
+     */
+    public CompletableFuture<Collection<InetAddress>> getAllByNameAsync(String host) {
+        Entry entry = getCachedEntry(host);
+        CompletableFuture<Entry> lookup = (entry != null) ? CompletableFuture.completedFuture(entry) : lookupAsync(host);
+        CompletableFuture<Collection<InetAddress>> addresses = new CompletableFuture<>();
+        lookup.whenComplete((result, cause) -> {
+            if (cause != null) {
+                addresses.completeExceptionally(cause);
+                return;
+            }
+            try {
+                addresses.complete(result.getAddresses(host));
+            }
+            catch (UnknownHostException e) {
+                addresses.completeExceptionally(e);
+            }
+        });
+        return addresses;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // returns a cached entry that has not expired, scheduling a refresh when it is about to
+    private Entry getCachedEntry(String host) {
+        Entry entry = entries.get(host);
+        if (entry != null) {
+            long now = currentTimeMillis.getAsLong();
+            if (now >= entry.expiresAt) {
+                return null;
+            }
+            if (now >= entry.refreshAt) {
+                lookupAsync(host);
+            }
+        }
+        return entry;
+    }
+
+    private CompletableFuture<Entry> lookupAsync(String host) {
+        CompletableFuture<Entry> lookup = new CompletableFuture<>();
+        CompletableFuture<Entry> oldLookup = lookups.putIfAbsent(host, lookup);
+        if (oldLookup != null) {
+            return oldLookup;
+        }
+        try {
+            executor.execute(() -> lookup(host, lookup));
+        }
+        catch (RuntimeException e) {
+            lookups.remove(host, lookup);
+            lookup.completeExceptionally(e);
+        }
+        return lookup;
+    }
+
+    private Entry lookup(String host, CompletableFuture<Entry> lookup) {
+        Entry entry;
+        try {
+            Collection<InetAddress> addresses = resolver.getAllByName(host);
+            long now = currentTimeMillis.getAsLong();
+            entry = new Entry(new ArrayList<>(addresses), null, now + ttlMillis, now + (long) (ttlMillis * REFRESH_RATIO));
+        }
+        catch (UnknownHostException e) {
+            long now = currentTimeMillis.getAsLong();
+            Entry oldEntry = entries.get(host);
+            if (oldEntry != null && oldEntry.addresses != null && now < oldEntry.expiresAt) {
+                // failed refresh, keep using the previous addresses until they expire
+                long refreshAt = Math.min(now + negativeTtlMillis, oldEntry.expiresAt);
+                entry = new Entry(oldEntry.addresses, null, oldEntry.expiresAt, refreshAt);
+            }
+            else {
+                entry = new Entry(null, e, now + negativeTtlMillis, Long.MAX_VALUE);
+            }
+        }
+        catch (RuntimeException | Error e) {
+            lookups.remove(host, lookup);
+            lookup.completeExceptionally(e);
+            throw e;
+        }
+
+        if (entries.size() >= PURGE_THRESHOLD) {
+            purgeExpired();
+        }
+        entries.put(host, entry);
+        lookups.remove(host, lookup);
+        lookup.complete(entry);
+        return entry;
+    }
+
+    private void purgeExpired() {
+        long now = currentTimeMillis.getAsLong();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (now >= entry.getValue().expiresAt) {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static Entry await(String host, CompletableFuture<Entry> lookup) throws UnknownHostException {
+        try {
+            return lookup.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            UnknownHostException uhe = new UnknownHostException(host);
+            uhe.initCause(e);
+            throw uhe;
+        }
+        catch (ExecutionException e) {
+            UnknownHostException uhe = new UnknownHostException(host);
+            uhe.initCause(e.getCause());
+            throw uhe;
+        }
+    }
+
+    private static final class Entry {
+        private final List<InetAddress> addresses;
+        private final UnknownHostException failure;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        Entry(List<InetAddress> addresses, UnknownHostException failure, long expiresAt, long refreshAt) {
+            this.addresses = (addresses != null) ? unmodifiableList(addresses) : null;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        List<InetAddress> getAddresses(String host) throws UnknownHostException {
+            if (addresses == null) {
+                // new exception for the stack trace of this caller
+                UnknownHostException e = new UnknownHostException(host);
+                e.initCause(failure);
+                throw e;
+            }
+            return addresses;
+        }
+    }
+
+    private static final class DefaultExecutor {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "name-resolver-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
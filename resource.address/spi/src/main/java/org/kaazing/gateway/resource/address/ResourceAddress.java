@@ -444,7 +444,8 @@ public abstract class ResourceAddress extends SocketAddress implements ResourceO
     private static class ResolverOption extends DefaultResourceOption<NameResolver> {
 
         private ResolverOption() {
-            super(Kind.RESOLVER, "resolver", new NameResolver() {
+            // cached, so that resolving connect addresses at runtime rarely blocks
+            super(Kind.RESOLVER, "resolver", new CachingNameResolver(new NameResolver() {
                 
                 private final Map<String, NameResolver> wildcards;
                 
@@ -501,7 +502,7 @@ public abstract class ResourceAddress extends SocketAddress implements ResourceO
 
                     return asList(InetAddress.getAllByName(host));
                 }
-            });
+            }));
         }
         
         private enum IpAddressFamily { IPv4, IPv6 }
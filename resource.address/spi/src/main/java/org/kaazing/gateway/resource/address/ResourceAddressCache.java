@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of resource addresses created from a location, transport and next protocol, shared by all
+ * threads of a {@link ResourceAddressFactory}.  Resource addresses are read-only, so a cached instance can be
+ * returned for every equivalent request, avoiding option parsing and transport chain construction.
+ *
+ * When the cache is full, an arbitrary entry is evicted for each new entry.
+ */
+public final class ResourceAddressCache {
+
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private final int capacity;
+    private final ConcurrentMap<Key, ResourceAddress> addresses;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    ResourceAddressCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.addresses = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSize() {
+        return addresses.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        addresses.clear();
+    }
+
+    ResourceAddress intern(ResourceAddressFactory addressFactory, URI location, ResourceAddress transport,
+            String nextProtocol) {
+        Key key = new Key(location, transport, nextProtocol);
+        ResourceAddress address = addresses.get(key);
+        if (address != null) {
+            hits.increment();
+            return address;
+        }
+
+        misses.increment();
+        ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+        options.setOption(ResourceAddress.TRANSPORT, transport);
+        options.setOption(ResourceAddress.NEXT_PROTOCOL, nextProtocol);
+        address = addressFactory.newResourceAddress(location, options);
+
+        if (addresses.size() >= capacity) {
+            Iterator<Key> keys = addresses.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+
+        ResourceAddress oldAddress = addresses.putIfAbsent(key, address);
+        return (oldAddress != null) ? oldAddress : address;
+    }
+
+    private static final class Key {
+        private final URI location;
+        private final ResourceAddress transport;
+        private final String nextProtocol;
+        private final int hashCode;
+
+        Key(URI location, ResourceAddress transport, String nextProtocol) {
+            this.location = location;
+            this.transport = transport;
+            this.nextProtocol = nextProtocol;
+            this.hashCode = Objects.hash(location, transport, nextProtocol);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return this.hashCode == that.hashCode &&
+                    this.location.equals(that.location) &&
+                    Objects.equals(this.transport, that.transport) &&
+                    Objects.equals(this.nextProtocol, that.nextProtocol);
+        }
+    }
+}
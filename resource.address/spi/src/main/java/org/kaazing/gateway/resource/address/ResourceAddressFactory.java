@@ -24,6 +24,7 @@ package org.kaazing.gateway.resource.address;
 import static java.lang.String.format;
 import static java.lang.Thread.currentThread;
 import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
+import static org.kaazing.gateway.resource.address.ResourceAddress.RESOLVER;
 import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 
 import java.net.URI;
@@ -32,6 +33,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
 
 public class ResourceAddressFactory {
 
@@ -42,6 +44,9 @@ public class ResourceAddressFactory {
     // "ws" -> { "wse" -> wse factory, "wsr" -> wsr factory, ...}
     private final Map<String, Map<String, ResourceAddressFactorySpi<?>>> alternateAddressFactories;
 
+    // (location, transport, next protocol) -> interned address
+    private final ResourceAddressCache addressCache;
+
     public static ResourceAddressFactory newResourceAddressFactory() {
         return newResourceAddressFactory(currentThread().getContextClassLoader());
     }
@@ -111,6 +116,7 @@ public class ResourceAddressFactory {
                                    Map<String, Map<String, ResourceAddressFactorySpi<?>>> alternateAddressFactories) {
         this.addressFactories = addressFactories;
         this.alternateAddressFactories = alternateAddressFactories;
+        this.addressCache = new ResourceAddressCache(ResourceAddressCache.DEFAULT_CAPACITY);
     }
 
     public ResourceAddress newResourceAddress(URI location) {
@@ -187,6 +193,30 @@ public class ResourceAddressFactory {
         }
     }
 
+    /**
+     * Creates a new resource address for the given location without blocking the calling thread on a name lookup,
+     * for callers such as I/O threads.  The location host is first resolved by the default resolver, off the calling
+     * thread unless already cached, so that the transport address is then created from the cached result.
+     *
+     * @return a future completed with the resource address, on the calling thread if the host was already cached,
+     *         or exceptionally with the exception newResourceAddress would throw
+     */
+    public CompletableFuture<ResourceAddress> newResourceAddressAsync(final URI location) {
+        String host = location.getHost();
+        NameResolver resolver = RESOLVER.defaultValue();
+        if (host == null || !(resolver instanceof CachingNameResolver)) {
+            return CompletableFuture.completedFuture(newResourceAddress(location));
+        }
+
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+
+        // an unresolvable host is reported by newResourceAddress, as for synchronous callers
+        return ((CachingNameResolver) resolver).getAllByNameAsync(host)
+                .handle((addresses, cause) -> newResourceAddress(location));
+    }
+
     public ResourceAddress newResourceAddress(ResourceAddress uriAddress,
                                               ResourceAddress transportAddress) {
         ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
@@ -195,6 +225,26 @@ public class ResourceAddressFactory {
         return newResourceAddress(uriAddress.getResource(),options);
     }
 
+    /**
+     * Returns a resource address for the given location, transport and next protocol, reusing a previously
+     * created address when an equivalent one is still cached.  Intended for addresses built repeatedly from
+     * configured bindings; locations taken from client requests should not be interned, as each distinct
+     * location occupies a cache entry.
+     *
+     * @param transport the transport address, or null
+     * @param nextProtocol the next protocol, or null
+     * @return resource address, possibly shared
+     */
+    public ResourceAddress internResourceAddress(URI location,
+                                                 ResourceAddress transport,
+                                                 String nextProtocol) {
+        return addressCache.intern(this, location, transport, nextProtocol);
+    }
+
+    public ResourceAddressCache getResourceAddressCache() {
+        return addressCache;
+    }
+
     private ResourceAddressFactorySpi<?> findResourceAddressFactory(String schemeName) throws IllegalArgumentException {
 
         if (schemeName == null) {
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingNameResolverTest {
+
+    private static final long TTL = 1000L;
+    private static final long NEGATIVE_TTL = 100L;
+
+    private StubNameResolver stub;
+    private Queue<Runnable> tasks;
+    private long now;
+    private CachingNameResolver resolver;
+
+    @Before
+    public void setUp() throws Exception {
+        stub = new StubNameResolver();
+        tasks = new ArrayDeque<>();
+        Executor executor = tasks::add;
+        resolver = new CachingNameResolver(stub, executor, TTL, NEGATIVE_TTL, () -> now);
+    }
+
+    @Test
+    public void shouldCacheResolvedAddresses() throws Exception {
+        Collection<InetAddress> addresses = resolver.getAllByName("example.com");
+        assertEquals(singletonList(stub.address), addresses);
+        assertEquals(addresses, resolver.getAllByName("example.com"));
+        assertEquals(1, stub.lookups.get());
+
+        now += TTL;
+        resolver.getAllByName("example.com");
+        assertEquals(2, stub.lookups.get());
+    }
+
+    @Test
+    public void shouldCacheUnknownHostForNegativeTimeToLive() throws Exception {
+        stub.unknown = true;
+        assertUnknownHost("unknown.com");
+        assertUnknownHost("unknown.com");
+        assertEquals(1, stub.lookups.get());
+
+        stub.unknown = false;
+        now += NEGATIVE_TTL;
+        resolver.getAllByName("unknown.com");
+        assertEquals(2, stub.lookups.get());
+    }
+
+    @Test
+    public void shouldRefreshInBackgroundBeforeExpiry() throws Exception {
+        resolver.getAllByName("example.com");
+
+        now += TTL - 1;
+        resolver.getAllByName("example.com");
+        resolver.getAllByName("example.com");
+        assertEquals(1, stub.lookups.get());
+        assertEquals(1, tasks.size());
+
+        tasks.poll().run();
+        assertEquals(2, stub.lookups.get());
+
+        // refreshed entry is valid for another time to live
+        now += TTL - 1;
+        resolver.getAllByName("example.com");
+        assertEquals(2, stub.lookups.get());
+    }
+
+    @Test
+    public void shouldKeepPreviousAddressesWhenRefreshFails() throws Exception {
+        resolver.getAllByName("example.com");
+
+        now += TTL - 1;
+        resolver.getAllByName("example.com");
+        stub.unknown = true;
+        tasks.poll().run();
+        assertEquals(2, stub.lookups.get());
+
+        // still resolved until expiry, without another refresh within the negative time to live
+        assertEquals(singletonList(stub.address), resolver.getAllByName("example.com"));
+        assertTrue(tasks.isEmpty());
+
+        now += 1;
+        assertUnknownHost("example.com");
+    }
+
+    @Test
+    public void shouldResolveAsynchronously() throws Exception {
+        CompletableFuture<Collection<InetAddress>> first = resolver.getAllByNameAsync("example.com");
+        CompletableFuture<Collection<InetAddress>> second = resolver.getAllByNameAsync("example.com");
+        assertFalse(first.isDone());
+        assertEquals(1, tasks.size());
+
+        tasks.poll().run();
+        assertEquals(singletonList(stub.address), first.get());
+        assertEquals(singletonList(stub.address), second.get());
+        assertEquals(1, stub.lookups.get());
+
+        assertTrue(resolver.getAllByNameAsync("example.com").isDone());
+    }
+
+    @Test
+    public void shouldCompleteAsynchronousLookupOfUnknownHostExceptionally() throws Exception {
+        stub.unknown = true;
+        CompletableFuture<Collection<InetAddress>> addresses = resolver.getAllByNameAsync("unknown.com");
+        tasks.poll().run();
+        try {
+            addresses.get();
+            fail("expected UnknownHostException");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnknownHostException);
+        }
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentLookups() throws Exception {
+        stub.blocked = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    resolver.getAllByName("example.com");
+                }
+                catch (UnknownHostException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+
+        // let all threads reach the resolver before the first lookup completes
+        Thread.sleep(200L);
+        stub.blocked.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        assertEquals(1, stub.lookups.get());
+    }
+
+    private void assertUnknownHost(String host) {
+        try {
+            resolver.getAllByName(host);
+            fail("expected UnknownHostException");
+        }
+        catch (UnknownHostException e) {
+            assertEquals(host, e.getMessage());
+        }
+    }
+
+    private static final class StubNameResolver implements NameResolver {
+        private final InetAddress address;
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile boolean unknown;
+        private volatile CountDownLatch blocked;
+
+        StubNameResolver() throws UnknownHostException {
+            address = InetAddress.getByAddress("example.com", new byte[] { 10, 0, 0, 1 });
+        }
+
+        @Override
+        public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            CountDownLatch blocked = this.blocked;
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (unknown) {
+                throw new UnknownHostException(host);
+            }
+            return singletonList(address);
+        }
+    }
+}
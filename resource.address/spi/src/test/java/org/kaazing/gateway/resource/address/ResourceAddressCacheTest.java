@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.resource.address;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceAddressCacheTest {
+
+    private ResourceAddressFactory addressFactory;
+    private ResourceAddress transport;
+
+    @Before
+    public void setup() {
+        addressFactory = newResourceAddressFactory();
+        transport = addressFactory.newResourceAddress(URI.create("test://transport"));
+    }
+
+    @Test
+    public void shouldInternEquivalentAddresses() {
+        URI location = URI.create("test://opaque/path");
+        ResourceAddress address = addressFactory.internResourceAddress(location, transport, "nextProtocol");
+        assertEquals(location, address.getResource());
+        assertEquals("nextProtocol", address.getOption(NEXT_PROTOCOL));
+
+        ResourceAddress equivalentTransport = addressFactory.newResourceAddress(URI.create("test://transport"));
+        assertSame(address, addressFactory.internResourceAddress(URI.create("test://opaque/path"), equivalentTransport, "nextProtocol"));
+
+        ResourceAddressCache cache = addressFactory.getResourceAddressCache();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void shouldNotShareAddressesWithDifferentOptions() {
+        URI location = URI.create("test://opaque/path");
+        ResourceAddress address = addressFactory.internResourceAddress(location, transport, "nextProtocol");
+
+        assertNotSame(address, addressFactory.internResourceAddress(location, transport, null));
+        assertNotSame(address, addressFactory.internResourceAddress(location, null, "nextProtocol"));
+        assertNotSame(address, addressFactory.internResourceAddress(URI.create("test://opaque/other"), transport, "nextProtocol"));
+        assertEquals(4, addressFactory.getResourceAddressCache().getMissCount());
+    }
+
+    @Test
+    public void shouldEvictWhenFull() {
+        ResourceAddressCache cache = new ResourceAddressCache(2);
+        for (int i = 0; i < 10; i++) {
+            cache.intern(addressFactory, URI.create("test://opaque/" + i), transport, null);
+            assertTrue(cache.getSize() <= cache.getCapacity());
+        }
+        assertEquals(10, cache.getMissCount());
+    }
+}
@@ -27,6 +27,7 @@ import com.hazelcast.core.MessageListener;
 import java.io.IOException;
 import java.io.Serializable;
 import org.kaazing.gateway.service.messaging.MessagingMessage;
+import org.kaazing.gateway.service.messaging.buffer.MemoryMessageBuffer;
 import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
 import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
 import org.kaazing.gateway.service.messaging.buffer.MessageBufferListener;
@@ -23,6 +23,7 @@ package org.kaazing.gateway.server.messaging.buffer;
 
 import org.junit.Test;
 import org.kaazing.gateway.server.messaging.DefaultMessagingMessage;
+import org.kaazing.gateway.service.messaging.buffer.MemoryMessageBuffer;
 import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
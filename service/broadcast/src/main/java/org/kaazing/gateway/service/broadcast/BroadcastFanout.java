@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.util.ConcurrentHashSet;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.util.LatencyHistogram;
+
+/**
+ * Groups broadcast subscribers by the I/O thread that owns them, so that each message is handed to
+ * each I/O worker once, as a single task writing to all of that worker's subscribers, rather than
+ * once per subscriber.
+ *
+ * Subscribers that move to a different I/O thread are regrouped by the task of their previous
+ * worker, after writing, so that messages already handed to the previous worker stay in order.
+ */
+public class BroadcastFanout {
+
+    private final ConcurrentMap<Thread, WorkerFanout> workers;
+    private final WorkerFanout unaligned;
+
+    public BroadcastFanout() {
+        this.workers = new ConcurrentHashMap<>();
+        this.unaligned = new WorkerFanout(null, null);
+    }
+
+    public void add(IoSession session) {
+        groupOf(session).subscribers.add(session);
+    }
+
+    public void remove(IoSession session) {
+        if (!unaligned.subscribers.remove(session)) {
+            for (WorkerFanout worker : workers.values()) {
+                if (worker.subscribers.remove(session)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the message to every subscriber, directly for subscribers owned by the current thread
+     * and via one task per I/O worker otherwise.  The message must be safe to write from several threads.
+     */
+    public void write(Object message, BiConsumer<IoSession, Object> writer) {
+        long startTime = System.nanoTime();
+        Thread currentThread = Thread.currentThread();
+        for (WorkerFanout worker : workers.values()) {
+            if (!worker.subscribers.isEmpty()) {
+                if (worker.ioThread == currentThread) {
+                    worker.write(message, writer, startTime);
+                }
+                else {
+                    worker.ioExecutor.execute(new FanoutTask(worker, null, message, writer, startTime));
+                }
+            }
+        }
+        if (!unaligned.subscribers.isEmpty()) {
+            unaligned.write(message, writer, startTime);
+        }
+    }
+
+    /**
+     * Writes the message to the given sessions, which need not have been added, grouping them by I/O worker
+     * in the same way as {@link #write(Object, BiConsumer)}.
+     */
+    public void write(Object message, Collection<IoSession> sessions, BiConsumer<IoSession, Object> writer) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        Map<WorkerFanout, List<IoSession>> batches = new HashMap<>();
+        for (IoSession session : sessions) {
+            WorkerFanout worker = groupOf(session);
+            List<IoSession> batch = batches.get(worker);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(worker, batch);
+            }
+            batch.add(session);
+        }
+
+        Thread currentThread = Thread.currentThread();
+        for (Map.Entry<WorkerFanout, List<IoSession>> entry : batches.entrySet()) {
+            WorkerFanout worker = entry.getKey();
+            List<IoSession> batch = entry.getValue();
+            if (worker == unaligned || worker.ioThread == currentThread) {
+                worker.write(batch, message, writer, startTime);
+            }
+            else {
+                worker.ioExecutor.execute(new FanoutTask(worker, batch, message, writer, startTime));
+            }
+        }
+    }
+
+    public Collection<WorkerFanout> getWorkers() {
+        return Collections.unmodifiableCollection(workers.values());
+    }
+
+    private WorkerFanout groupOf(IoSession session) {
+        Thread ioThread = ioThreadOf(session);
+        if (ioThread == null) {
+            return unaligned;
+        }
+
+        WorkerFanout worker = workers.get(ioThread);
+        if (worker == null) {
+            WorkerFanout newWorker = new WorkerFanout(ioThread, ((IoSessionEx) session).getIoExecutor());
+            worker = workers.putIfAbsent(ioThread, newWorker);
+            if (worker == null) {
+                worker = newWorker;
+            }
+        }
+        return worker;
+    }
+
+    private static Thread ioThreadOf(IoSession session) {
+        if (session instanceof IoSessionEx) {
+            Thread ioThread = ((IoSessionEx) session).getIoThread();
+            if (ioThread != IoSessionEx.CURRENT_THREAD && ioThread != IoSessionEx.NO_THREAD) {
+                return ioThread;
+            }
+        }
+        return null;
+    }
+
+    public final class WorkerFanout {
+        private final Thread ioThread;
+        private final Executor ioExecutor;
+        private final Set<IoSession> subscribers;
+        private final AtomicLong fanoutCount;
+        private final LatencyHistogram fanoutLatencyHistogram;
+
+        private WorkerFanout(Thread ioThread, Executor ioExecutor) {
+            this.ioThread = ioThread;
+            this.ioExecutor = ioExecutor;
+            this.subscribers = new ConcurrentHashSet<>();
+            this.fanoutCount = new AtomicLong();
+            this.fanoutLatencyHistogram = new LatencyHistogram();
+        }
+
+        public Thread getIoThread() {
+            return ioThread;
+        }
+
+        public int getSubscriberCount() {
+            return subscribers.size();
+        }
+
+        /**
+         * Returns the number of messages written to this worker's subscribers.
+         */
+        public long getFanoutCount() {
+            return fanoutCount.get();
+        }
+
+        /**
+         * Returns the time from receipt of each message until it was written to all of this worker's subscribers.
+         */
+        public LatencyHistogram getFanoutLatencyHistogram() {
+            return fanoutLatencyHistogram;
+        }
+
+        private void write(Object message, BiConsumer<IoSession, Object> writer, long startTime) {
+            for (IoSession subscriber : subscribers) {
+                writer.accept(subscriber, message);
+
+                if (ioThreadOf(subscriber) != ioThread) {
+                    // subscriber moved to another I/O thread (or became aligned)
+                    subscribers.remove(subscriber);
+                    add(subscriber);
+
+                    // handle race with remove when subscriber closed concurrently
+                    if (!subscriber.isConnected()) {
+                        BroadcastFanout.this.remove(subscriber);
+                    }
+                }
+            }
+            fanoutCount.incrementAndGet();
+            fanoutLatencyHistogram.record(System.nanoTime() - startTime);
+        }
+
+        private void write(List<IoSession> batch, Object message, BiConsumer<IoSession, Object> writer, long startTime) {
+            for (IoSession session : batch) {
+                writer.accept(session, message);
+            }
+            fanoutCount.incrementAndGet();
+            fanoutLatencyHistogram.record(System.nanoTime() - startTime);
+        }
+    }
+
+    private static final class FanoutTask implements Runnable {
+        private final WorkerFanout worker;
+        private final List<IoSession> batch;
+        private final Object message;
+        private final BiConsumer<IoSession, Object> writer;
+        private final long startTime;
+
+        FanoutTask(WorkerFanout worker, List<IoSession> batch, Object message, BiConsumer<IoSession, Object> writer,
+                long startTime) {
+            this.worker = worker;
+            this.batch = batch;
+            this.message = message;
+            this.writer = writer;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void run() {
+            if (batch != null) {
+                worker.write(batch, message, writer, startTime);
+            }
+            else {
+                worker.write(message, writer, startTime);
+            }
+        }
+    }
+}
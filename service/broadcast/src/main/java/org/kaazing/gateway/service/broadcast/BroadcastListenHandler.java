@@ -21,8 +21,21 @@
 
 package org.kaazing.gateway.service.broadcast;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_SHARED;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.service.IoHandlerAdapter;
@@ -30,24 +43,53 @@ import org.apache.mina.core.session.IoSession;
 import org.kaazing.gateway.util.LoggingUtils;
 import org.slf4j.Logger;
 
-import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
+import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
 import org.kaazing.gateway.transport.bridge.Message;
+import org.kaazing.gateway.transport.io.IoMessage;
 import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 
 public class BroadcastListenHandler extends IoHandlerAdapter {
 
+    private static final byte[] GAP_SIGNAL = "gap:".getBytes(US_ASCII);
+
     private final Collection<IoSession> clients;
+    private final BroadcastFanout fanout;
+    private final BiConsumer<IoSession, Object> writer;
     private final IoMessageCodecFilter codec;
     private final boolean disconnectClientsOnReconnect;
     private final long maximumScheduledWriteBytes;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int maximumQueuedMessages;
+    private final byte[] conflationKeyDelimiter;
+    private final AtomicLong discardedMessages;
+    private final TopicIndex<IoSession> topicIndex;
+    private final byte[] topicDelimiter;
+    private final MessageBuffer replayBuffer;
+    private final Queue<Object> unsentSequenced;
+    private boolean fanningOut;
     private final Logger logger;
 	
-	public BroadcastListenHandler(Collection<IoSession> clients, boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger) {
+	public BroadcastListenHandler(Collection<IoSession> clients, BroadcastFanout fanout, boolean disconnectClientsOnReconnect,
+	        long maximumScheduledWriteBytes, SlowConsumerPolicy slowConsumerPolicy, int maximumQueuedMessages,
+	        byte[] conflationKeyDelimiter, byte[] topicDelimiter, MessageBuffer replayBuffer, Logger logger) {
 		this.clients = clients;
+		this.fanout = fanout;
+		this.writer = this::writeOrClose;
 		this.codec = new IoMessageCodecFilter();
 		this.disconnectClientsOnReconnect = disconnectClientsOnReconnect;
 		this.logger = logger;
 		this.maximumScheduledWriteBytes = maximumScheduledWriteBytes;
+		this.slowConsumerPolicy = slowConsumerPolicy;
+		this.maximumQueuedMessages = maximumQueuedMessages;
+		this.conflationKeyDelimiter = conflationKeyDelimiter;
+		this.discardedMessages = new AtomicLong();
+		this.topicIndex = (topicDelimiter != null) ? new TopicIndex<IoSession>() : null;
+		this.topicDelimiter = topicDelimiter;
+		this.replayBuffer = replayBuffer;
+		this.unsentSequenced = (replayBuffer != null) ? new ArrayDeque<>() : null;
 	}
 
 	@Override
@@ -70,35 +112,341 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
 	public void messageReceived(IoSession session, Object message) throws Exception {
         if (message instanceof IoBuffer) {
 			IoBuffer buf = (IoBuffer) message;
-			for (IoSession client : clients) {
-			    writeOrClose(client, buf);
-			}
+			// writes may complete on other I/O threads, so fan out an independent view of the data
+			IoBuffer view = buf.duplicate();
 			buf.skip(buf.remaining());
+			broadcast(session, view);
 		}
 		else {
 	        if (message instanceof Message) {
 	            ((Message)message).initCache();
 	        }
 	        
-			for (IoSession client : clients) {
-			    writeOrClose(client, message);
-			}
+			broadcast(session, message);
 		}
 	}
- 
+
+    public BroadcastFanout getFanout() {
+        return fanout;
+    }
+
+    /**
+     * Returns the number of messages discarded for slow consumers by the drop-oldest or conflate policies.
+     */
+    public long getDiscardedMessageCount() {
+        return discardedMessages.get();
+    }
+
+    /**
+     * Attaches broadcast state to a newly opened client session.
+     */
+    void subscribe(IoSession client) {
+        BroadcastSubscriber.SUBSCRIBER_KEY.setIfAbsent(client,
+                new BroadcastSubscriber(client, slowConsumerPolicy, maximumQueuedMessages, conflationKeyDelimiter));
+    }
+
+    boolean isTopicRoutingEnabled() {
+        return topicIndex != null;
+    }
+
+    /**
+     * Subscribes a client to a topic pattern.  Clients with at least one topic subscription receive only
+     * messages with a matching topic, instead of every message.
+     */
+    void subscribe(IoSession client, String pattern) {
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        Set<String> topics = subscriber.getTopics();
+        synchronized (topics) {
+            if (topics.add(pattern)) {
+                if (topics.size() == 1) {
+                    fanout.remove(client);
+                }
+                topicIndex.subscribe(pattern, client);
+            }
+        }
+    }
+
+    void unsubscribe(IoSession client, String pattern) {
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        Set<String> topics = subscriber.getTopics();
+        synchronized (topics) {
+            if (topics.remove(pattern)) {
+                topicIndex.unsubscribe(pattern, client);
+                if (topics.isEmpty() && client.isConnected()) {
+                    fanout.add(client);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all topic subscriptions of a closed client.
+     */
+    void unsubscribeAll(IoSession client) {
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        if (subscriber != null && topicIndex != null) {
+            Set<String> topics = subscriber.getTopics();
+            synchronized (topics) {
+                for (String pattern : topics) {
+                    topicIndex.unsubscribe(pattern, client);
+                }
+                topics.clear();
+            }
+        }
+    }
+
+    boolean isReplayEnabled() {
+        return replayBuffer != null;
+    }
+
+    /**
+     * Defers live sequenced messages to a client that is about to be caught up by {@link #replay(IoSession, int)}.
+     * Must be called before the client joins the fanout or subscribes to topics, so that no live message is
+     * written ahead of the replayed ones.
+     */
+    void beginReplay(IoSession client) {
+        BroadcastSubscriber.get(client).beginReplay();
+    }
+
+    /**
+     * Catches up a reconnecting client with the buffered messages following the last sequence number it
+     * received.  If some of those messages have already been overwritten, or the sequence number is unknown,
+     * the client is sent a gap signal "gap:<sequence>" instead, naming the latest sequence number, and should
+     * reload its state from elsewhere.  The replay runs on the client's I/O thread, followed by any live messages
+     * deferred since {@link #beginReplay(IoSession)}, skipping those already replayed.
+     */
+    void replay(final IoSession client, final int lastSequence) {
+        IoSessionEx clientEx = (IoSessionEx) client;
+        Thread ioThread = clientEx.getIoThread();
+        if (ioThread != IoSessionEx.CURRENT_THREAD && ioThread != IoSessionEx.NO_THREAD && ioThread != Thread.currentThread()) {
+            clientEx.getIoExecutor().execute(() -> replay0(client, lastSequence));
+        }
+        else {
+            replay0(client, lastSequence);
+        }
+    }
+
+    private void replay0(IoSession client, int lastSequence) {
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        List<MessageBufferEntry> entries = new ArrayList<>();
+        int youngestId;
+        boolean gap;
+        synchronized (replayBuffer) {
+            youngestId = replayBuffer.getYoungestId();
+            gap = lastSequence < replayBuffer.getOldestId() - 1 || lastSequence > youngestId;
+            if (!gap) {
+                for (int id = lastSequence + 1; id <= youngestId; id++) {
+                    entries.add(replayBuffer.get(id));
+                }
+            }
+        }
+
+        if (gap) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Unable to replay messages after %d to %s, latest is %d",
+                        lastSequence, client, youngestId));
+            }
+            subscriber.advanceSequence(youngestId);
+            client.write(gapSignal((IoSessionEx) client, youngestId));
+        }
+        else {
+            for (MessageBufferEntry entry : entries) {
+                SequencedMessage message = (SequencedMessage) entry.getMessage();
+                if (subscriber.getTopics().isEmpty() || matchesTopics(subscriber, message)) {
+                    write(client, subscriber, message);
+                }
+            }
+            subscriber.advanceSequence(youngestId);
+        }
+
+        for (Object message = subscriber.pollDeferred(); message != null; message = subscriber.pollDeferred()) {
+            write(client, subscriber, message);
+        }
+    }
+
+    /**
+     * Writes messages queued for a slow consumer while its scheduled write bytes are within the limit.
+     */
+    void flush(IoSession client) {
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        if (subscriber != null && !subscriber.isQueueEmpty() && !client.isClosing()) {
+            synchronized (subscriber) {
+                flush(client, subscriber);
+            }
+        }
+    }
+
     @Override
     public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
         LoggingUtils.log(logger, cause);
     }
 
+    private void broadcast(IoSession session, Object message) {
+        if (replayBuffer != null) {
+            // sequence under the lock, then fan out in sequence order from whichever thread is not already doing so,
+            // so that each subscriber sees increasing sequence numbers without holding the lock during the fanout
+            synchronized (replayBuffer) {
+                unsentSequenced.offer(sequence((IoSessionEx) session, message));
+                if (fanningOut) {
+                    return;
+                }
+                fanningOut = true;
+            }
+
+            boolean drained = false;
+            try {
+                while (true) {
+                    Object sequenced;
+                    synchronized (replayBuffer) {
+                        sequenced = unsentSequenced.poll();
+                        if (sequenced == null) {
+                            fanningOut = false;
+                            drained = true;
+                            return;
+                        }
+                    }
+                    fanout.write(sequenced, writer);
+                    route(sequenced);
+                }
+            }
+            finally {
+                if (!drained) {
+                    synchronized (replayBuffer) {
+                        fanningOut = false;
+                    }
+                }
+            }
+        }
+        else {
+            fanout.write(message, writer);
+            route(message);
+        }
+    }
+
+    private Object sequence(IoSessionEx session, Object message) {
+        ByteBuffer payload = BroadcastSubscriber.bufferOf(message);
+        if (payload == null) {
+            return message;
+        }
+
+        int sequence = replayBuffer.getYoungestId() + 1;
+        byte[] prefix = Integer.toString(sequence).getBytes(US_ASCII);
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ByteBuffer buf = allocator.allocate(prefix.length + 1 + payload.remaining(), FLAG_SHARED);
+        int offset = buf.position();
+        buf.put(prefix);
+        buf.put(SequencedMessage.SEQUENCE_SEPARATOR);
+        buf.put(payload.duplicate());
+        buf.flip();
+        buf.position(offset);
+
+        SequencedMessage sequenced = new SequencedMessage(allocator.wrap(buf, FLAG_SHARED), sequence, prefix.length + 1);
+        sequenced.initCache();
+        replayBuffer.set(sequence, sequenced);
+        return sequenced;
+    }
+
+    private static IoMessage gapSignal(IoSessionEx client, int sequence) {
+        byte[] latest = Integer.toString(sequence).getBytes(US_ASCII);
+        IoBufferAllocatorEx<?> allocator = client.getBufferAllocator();
+        ByteBuffer buf = allocator.allocate(GAP_SIGNAL.length + latest.length);
+        int offset = buf.position();
+        buf.put(GAP_SIGNAL);
+        buf.put(latest);
+        buf.flip();
+        buf.position(offset);
+        return new IoMessage(allocator.wrap(buf));
+    }
+
+    private boolean matchesTopics(BroadcastSubscriber subscriber, Object message) {
+        String topic = (topicIndex != null) ? topicOf(message) : null;
+        if (topic == null) {
+            return false;
+        }
+        // only this client's own patterns are relevant, so avoid matching every subscriber in the index
+        Set<String> topics = subscriber.getTopics();
+        synchronized (topics) {
+            for (String pattern : topics) {
+                if (TopicIndex.matches(pattern, topic)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String topicOf(Object message) {
+        // the topic is the message content up to the first topic delimiter
+        ByteBuffer buf = BroadcastSubscriber.bufferOf(message);
+        int topicLimit = (buf != null) ? BroadcastSubscriber.indexOf(buf, topicDelimiter) : -1;
+        if (topicLimit == -1) {
+            return null;
+        }
+        ByteBuffer topicBuf = buf.duplicate();
+        topicBuf.limit(topicLimit);
+        return UTF_8.decode(topicBuf).toString();
+    }
+
+    private void route(Object message) {
+        if (topicIndex == null) {
+            return;
+        }
+
+        String topic = topicOf(message);
+        if (topic != null) {
+            Set<IoSession> matches = new HashSet<>();
+            topicIndex.match(topic, matches);
+            fanout.write(message, matches, writer);
+        }
+    }
+
     private void writeOrClose(IoSession client, Object message) {
-        long scheduledWriteBytes = getScheduledWriteBytes(client);
+        BroadcastSubscriber subscriber = BroadcastSubscriber.get(client);
+        if (subscriber == null) {
+            subscribe(client);
+            subscriber = BroadcastSubscriber.get(client);
+        }
+
+        if (message instanceof SequencedMessage && subscriber.defer(message)) {
+            // written after the replay in progress
+            return;
+        }
+
+        write(client, subscriber, message);
+    }
+
+    private void write(IoSession client, BroadcastSubscriber subscriber, Object message) {
+        if (message instanceof SequencedMessage && !subscriber.advanceSequence(((SequencedMessage) message).getSequence())) {
+            // already sent by replay
+            return;
+        }
+
+        long scheduledWriteBytes = subscriber.getScheduledWriteBytes();
         if (logger.isDebugEnabled()) {
             logger.debug(String.format("BroadcastListenHandler: session %d: scheduledWriteBytes = %d", client.getId(), scheduledWriteBytes));
         }
 
         if (!client.isClosing()) {
-            if (scheduledWriteBytes > maximumScheduledWriteBytes) {
+            if (slowConsumerPolicy != SlowConsumerPolicy.DISCONNECT) {
+                synchronized (subscriber) {
+                    if (scheduledWriteBytes > maximumScheduledWriteBytes || !subscriber.isQueueEmpty()) {
+                        // preserve order behind previously queued messages
+                        int discarded = subscriber.offer(message);
+                        if (discarded != 0) {
+                            discardedMessages.addAndGet(discarded);
+                            if (logger.isDebugEnabled()) {
+                                logger.debug(String.format("Discarded %d message(s) for slow consumer %s using policy %s",
+                                        discarded, client, slowConsumerPolicy));
+                            }
+                        }
+                        flush(client, subscriber);
+                    }
+                    else {
+                        client.write(message);
+                    }
+                }
+            }
+            else if (scheduledWriteBytes > maximumScheduledWriteBytes) {
                 if (logger.isInfoEnabled()) {
                     String logMessage = String.format("Closing client session %s because scheduled write bytes %d exceeds the configured limit of %d",
                             client, scheduledWriteBytes, maximumScheduledWriteBytes); 
@@ -113,19 +461,14 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
         }
     }
 
-    private long getScheduledWriteBytes(IoSession client) {
-        IoSession session = client;
-        while (session instanceof BridgeSession) {
-            IoSession parent = ((BridgeSession)session).getParent();
-            if (parent == null) { // parent can occasionally be null (e.g. on a WsebSession from Flash client)
-                if (logger.isDebugEnabled()) {
-                    logger.debug(String.format("Null parent on session %s, ancestor of client session %s", session, client));
-                }
+    private void flush(IoSession client, BroadcastSubscriber subscriber) {
+        while (subscriber.getScheduledWriteBytes() <= maximumScheduledWriteBytes) {
+            Object message = subscriber.poll();
+            if (message == null) {
                 break;
             }
-            session = parent; 
+            client.write(message);
         }
-        return session.getScheduledWriteBytes();
     }
 
 }
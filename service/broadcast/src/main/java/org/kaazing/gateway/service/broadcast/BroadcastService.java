@@ -24,6 +24,7 @@ package org.kaazing.gateway.service.broadcast;
 // FIXME: Make InternalSystemProperty generic, maybe gateway.util?
 //import static org.kaazing.gateway.server.config.InternalSystemProperty.BROADCAST_SERVICE_DISCONNECT_CLIENTS_ON_RECONNECT;
 //import static org.kaazing.gateway.server.config.InternalSystemProperty.BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.kaazing.gateway.util.Utils.parseBoolean;
 import static org.kaazing.gateway.util.Utils.parsePositiveInteger;
 
@@ -48,6 +49,8 @@ import org.slf4j.LoggerFactory;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.ServiceProperties;
+import org.kaazing.gateway.service.messaging.buffer.MemoryMessageBuffer;
+import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 
 /**
@@ -63,6 +66,11 @@ public class BroadcastService implements Service {
     // services
     private static final String BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES = "org.kaazing.gateway.server.service.broadcast.MAXIMUM_PENDING_BYTES";
     private static final String BROADCAST_SERVICE_DISCONNECT_CLIENTS_ON_RECONNECT = "org.kaazing.gateway.server.service.broadcast.DISCONNECT_CLIENTS_ON_RECONNECT"; // true or false
+    private static final String BROADCAST_SERVICE_SLOW_CONSUMER_POLICY = "org.kaazing.gateway.server.service.broadcast.SLOW_CONSUMER_POLICY"; // disconnect, drop-oldest or conflate
+    private static final String BROADCAST_SERVICE_MAXIMUM_QUEUED_MESSAGES = "org.kaazing.gateway.server.service.broadcast.MAXIMUM_QUEUED_MESSAGES";
+    private static final String BROADCAST_SERVICE_CONFLATION_KEY_DELIMITER = "org.kaazing.gateway.server.service.broadcast.CONFLATION_KEY_DELIMITER";
+    private static final String BROADCAST_SERVICE_TOPIC_DELIMITER = "org.kaazing.gateway.server.service.broadcast.TOPIC_DELIMITER"; // enables topic routing
+    private static final String BROADCAST_SERVICE_REPLAY_BUFFER_SIZE = "org.kaazing.gateway.server.service.broadcast.REPLAY_BUFFER_SIZE"; // enables replay
     // FIXME: end of remove me
 
     private ScheduledExecutorService scheduler;
@@ -118,7 +126,36 @@ public class BroadcastService implements Service {
             gatewayLogger.info(String.format("Broadcast service: limiting maximum scheduled write bytes to %d",
                     maximumScheduledWriteBytes));
         }
+        String slowConsumerPolicyName = configuration.getProperty(BROADCAST_SERVICE_SLOW_CONSUMER_POLICY);
+        SlowConsumerPolicy slowConsumerPolicy = (slowConsumerPolicyName != null)
+                ? SlowConsumerPolicy.fromString(slowConsumerPolicyName) : SlowConsumerPolicy.DISCONNECT;
+        int maximumQueuedMessages = (int) parsePositiveInteger(
+                BROADCAST_SERVICE_MAXIMUM_QUEUED_MESSAGES,
+                configuration.getProperty(BROADCAST_SERVICE_MAXIMUM_QUEUED_MESSAGES),
+                128);
+        String conflationKeyDelimiter = configuration.getProperty(BROADCAST_SERVICE_CONFLATION_KEY_DELIMITER);
+        String topicDelimiter = configuration.getProperty(BROADCAST_SERVICE_TOPIC_DELIMITER);
+        if (topicDelimiter != null) {
+            gatewayLogger.info("Broadcast service: routing messages by topic");
+        }
+        String replayBufferSize = configuration.getProperty(BROADCAST_SERVICE_REPLAY_BUFFER_SIZE);
+        MessageBuffer replayBuffer = null;
+        if (replayBufferSize != null) {
+            int capacity = (int) parsePositiveInteger(BROADCAST_SERVICE_REPLAY_BUFFER_SIZE, replayBufferSize, 0);
+            // local to this gateway, since every cluster member receives the same upstream messages
+            replayBuffer = new MemoryMessageBuffer(capacity);
+            gatewayLogger.info(String.format("Broadcast service: replaying up to %d messages to reconnecting clients",
+                    capacity));
+        }
+        if (slowConsumerPolicy != SlowConsumerPolicy.DISCONNECT) {
+            gatewayLogger.info(String.format("Broadcast service: slow consumer policy %s, queuing at most %d messages",
+                    slowConsumerPolicy, maximumQueuedMessages));
+        }
         this.handler = new BroadcastServiceHandler(disconnectClientsOnReconnect, maximumScheduledWriteBytes,
+                slowConsumerPolicy, maximumQueuedMessages,
+                (conflationKeyDelimiter != null) ? conflationKeyDelimiter.getBytes(UTF_8) : null,
+                (topicDelimiter != null) ? topicDelimiter.getBytes(UTF_8) : null,
+                replayBuffer,
                 serviceContext.getLogger());
 
         Collection<URI> connectURIs = serviceContext.getConnects();
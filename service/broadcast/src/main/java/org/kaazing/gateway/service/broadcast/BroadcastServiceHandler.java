@@ -21,9 +21,15 @@
 
 package org.kaazing.gateway.service.broadcast;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.apache.mina.core.filterchain.IoFilter;
 import org.apache.mina.core.service.IoHandler;
@@ -33,21 +39,33 @@ import org.apache.mina.util.ConcurrentHashSet;
 import org.kaazing.gateway.util.LoggingUtils;
 import org.slf4j.Logger;
 
+import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.gateway.transport.http.HttpSession;
 import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
 
 class BroadcastServiceHandler extends IoHandlerAdapter {
 
+    private static final String TOPIC_QUERY_PARAMETER = "topic=";
+    private static final String LAST_ID_QUERY_PARAMETER = "last-id=";
+    private static final String SUBSCRIBE_COMMAND = "subscribe ";
+    private static final String UNSUBSCRIBE_COMMAND = "unsubscribe ";
+
     private final IoFilter codec;
     private final Collection<IoSession> clients;
-    private final IoHandler handler;
+    private final BroadcastFanout fanout;
+    private final BroadcastListenHandler handler;
     private final Logger logger;
     private IoSession connectSession;
 
-    BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger)
-            throws Exception {
+    BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes,
+            SlowConsumerPolicy slowConsumerPolicy, int maximumQueuedMessages, byte[] conflationKeyDelimiter,
+            byte[] topicDelimiter, MessageBuffer replayBuffer, Logger logger) throws Exception {
         this.clients = new ConcurrentHashSet<>();
-        this.handler = new BroadcastListenHandler(Collections.unmodifiableCollection(clients),
-                disconnectClientsOnReconnect, maximumScheduledWriteBytes, logger);
+        this.fanout = new BroadcastFanout();
+        this.handler = new BroadcastListenHandler(Collections.unmodifiableCollection(clients), fanout,
+                disconnectClientsOnReconnect, maximumScheduledWriteBytes, slowConsumerPolicy, maximumQueuedMessages,
+                conflationKeyDelimiter, topicDelimiter, replayBuffer, logger);
         this.codec = new IoMessageCodecFilter();
         this.logger = logger;
     }
@@ -82,7 +100,70 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
     @Override
     public void sessionOpened(IoSession session) throws Exception {
         session.getFilterChain().addLast("io", codec);
+        handler.subscribe(session);
         clients.add(session);
+
+        // e.g. ws://host/broadcast?topic=prices.nasdaq.*&topic=news.>&last-id=42
+        List<String> topics = new ArrayList<>();
+        Integer lastSequence = null;
+        String query = getRequestQuery(session);
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(TOPIC_QUERY_PARAMETER) && handler.isTopicRoutingEnabled()) {
+                    topics.add(parameter.substring(TOPIC_QUERY_PARAMETER.length()));
+                }
+                else if (parameter.startsWith(LAST_ID_QUERY_PARAMETER) && handler.isReplayEnabled()) {
+                    String lastId = parameter.substring(LAST_ID_QUERY_PARAMETER.length());
+                    try {
+                        lastSequence = Integer.valueOf(lastId);
+                    }
+                    catch (NumberFormatException e) {
+                        logger.debug(String.format("BroadcastServiceHandler: ignoring invalid last-id %s on %s", lastId, session));
+                    }
+                }
+            }
+        }
+
+        // defer live messages until replayed, and subscribe to topics before joining the fanout,
+        // so that the client never receives messages outside its topics
+        if (lastSequence != null) {
+            handler.beginReplay(session);
+        }
+        for (String topic : topics) {
+            handler.subscribe(session, topic);
+        }
+        if (topics.isEmpty()) {
+            fanout.add(session);
+        }
+        if (lastSequence != null) {
+            handler.replay(session, lastSequence);
+        }
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) throws Exception {
+        if (handler.isTopicRoutingEnabled()) {
+            // control frames "subscribe <pattern>" and "unsubscribe <pattern>"
+            ByteBuffer buf = BroadcastSubscriber.bufferOf(message);
+            if (buf != null) {
+                String command = UTF_8.decode(buf.duplicate()).toString().trim();
+                if (command.startsWith(SUBSCRIBE_COMMAND)) {
+                    handler.subscribe(session, command.substring(SUBSCRIBE_COMMAND.length()).trim());
+                }
+                else if (command.startsWith(UNSUBSCRIBE_COMMAND)) {
+                    handler.unsubscribe(session, command.substring(UNSUBSCRIBE_COMMAND.length()).trim());
+                }
+                else if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("BroadcastServiceHandler: ignoring unrecognized control frame on %s", session));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void messageSent(IoSession session, Object message) throws Exception {
+        // write any messages held back while this client was a slow consumer
+        handler.flush(session);
     }
 
     @Override
@@ -92,5 +173,19 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
         }
 
         clients.remove(session);
+        fanout.remove(session);
+        handler.unsubscribeAll(session);
+    }
+
+    private static String getRequestQuery(IoSession session) {
+        IoSession current = session;
+        while (current != null) {
+            if (current instanceof HttpSession) {
+                URI requestURI = ((HttpSession) current).getRequestURI();
+                return (requestURI != null) ? requestURI.getQuery() : null;
+            }
+            current = (current instanceof BridgeSession) ? ((BridgeSession) current).getParent() : null;
+        }
+        return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.util.ConcurrentHashSet;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.io.IoMessage;
+
+/**
+ * Per-session broadcast state: the cached root transport session, used to measure scheduled write bytes,
+ * the bounded queue of messages held back while the subscriber is a slow consumer, its topic subscriptions,
+ * the sequence number of the last replayable message it was sent, and the live messages deferred while
+ * it is being caught up by a replay.
+ */
+final class BroadcastSubscriber {
+
+    static final TypedAttributeKey<BroadcastSubscriber> SUBSCRIBER_KEY =
+            new TypedAttributeKey<>(BroadcastSubscriber.class, "subscriber");
+
+    private static final Object LATEST_KEY = new Object();
+
+    private final IoSession session;
+    private final SlowConsumerPolicy policy;
+    private final int maximumQueuedMessages;
+    private final byte[] conflationKeyDelimiter;
+
+    // guarded by this
+    private final Queue<Object> queue;
+    private final Map<Object, Object> conflated;
+    private Queue<Object> deferred;
+
+    private final Set<String> topics;
+
+    private volatile RootSession rootSession;
+    private volatile int lastSequence;
+
+    BroadcastSubscriber(IoSession session, SlowConsumerPolicy policy, int maximumQueuedMessages,
+            byte[] conflationKeyDelimiter) {
+        this.session = session;
+        this.policy = policy;
+        this.maximumQueuedMessages = maximumQueuedMessages;
+        this.conflationKeyDelimiter = conflationKeyDelimiter;
+        this.queue = (policy == SlowConsumerPolicy.DROP_OLDEST) ? new ArrayDeque<>() : null;
+        this.conflated = (policy == SlowConsumerPolicy.CONFLATE) ? new LinkedHashMap<>() : null;
+        this.topics = new ConcurrentHashSet<>();
+    }
+
+    static BroadcastSubscriber get(IoSession session) {
+        return SUBSCRIBER_KEY.get(session);
+    }
+
+    IoSession getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the bottom-most transport session of this subscriber's bridge session stack.  The result is
+     * cached, and recomputed only when the subscriber's immediate parent changes (e.g. a new wseb downstream).
+     */
+    IoSession getRootSession() {
+        if (!(session instanceof BridgeSession)) {
+            return session;
+        }
+
+        IoSession parent = ((BridgeSession) session).getParent();
+        RootSession root = rootSession;
+        if (root == null || root.parent != parent) {
+            root = new RootSession(parent, findRootSession(parent));
+            rootSession = root;
+        }
+        return root.session;
+    }
+
+    /**
+     * Returns the topic patterns this subscriber is subscribed to; if empty, it receives every message.
+     */
+    Set<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Records the sequence number of a message about to be sent, returning false if this subscriber
+     * has already been sent it, e.g. by a replay racing with the live fanout.
+     */
+    boolean advanceSequence(int sequence) {
+        if (sequence <= lastSequence) {
+            return false;
+        }
+        lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Starts deferring live sequenced messages until a replay has been written, see {@link #defer(Object)}.
+     */
+    synchronized void beginReplay() {
+        if (deferred == null) {
+            deferred = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Queues a live message behind a replay in progress, returning false if no replay is in progress.
+     */
+    synchronized boolean defer(Object message) {
+        if (deferred == null) {
+            return false;
+        }
+        deferred.offer(message);
+        return true;
+    }
+
+    /**
+     * Returns the next message deferred during a replay, in arrival order, or null after ending the replay
+     * once none remain, so that subsequent live messages are no longer deferred.
+     */
+    synchronized Object pollDeferred() {
+        if (deferred == null) {
+            return null;
+        }
+        Object message = deferred.poll();
+        if (message == null) {
+            deferred = null;
+        }
+        return message;
+    }
+
+    long getScheduledWriteBytes() {
+        return getRootSession().getScheduledWriteBytes();
+    }
+
+    /**
+     * Queues the message, returning the number of messages discarded (0 or 1) to respect the queue bound.
+     */
+    synchronized int offer(Object message) {
+        if (policy == SlowConsumerPolicy.CONFLATE) {
+            Object key = conflationKey(message);
+            if (conflated.remove(key) != null) {
+                conflated.put(key, message);
+                return 1;
+            }
+            conflated.put(key, message);
+            if (conflated.size() > maximumQueuedMessages) {
+                Iterator<Object> oldest = conflated.values().iterator();
+                oldest.next();
+                oldest.remove();
+                return 1;
+            }
+            return 0;
+        }
+        else if (queue == null) {
+            throw new IllegalStateException(String.format("Cannot queue messages with slow consumer policy %s", policy));
+        }
+        else {
+            queue.offer(message);
+            if (queue.size() > maximumQueuedMessages) {
+                queue.poll();
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+    synchronized Object poll() {
+        if (policy == SlowConsumerPolicy.CONFLATE) {
+            Iterator<Object> oldest = conflated.values().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            Object message = oldest.next();
+            oldest.remove();
+            return message;
+        }
+        return (queue != null) ? queue.poll() : null;
+    }
+
+    synchronized boolean isQueueEmpty() {
+        switch (policy) {
+        case CONFLATE:
+            return conflated.isEmpty();
+        case DROP_OLDEST:
+            return queue.isEmpty();
+        default:
+            return true;
+        }
+    }
+
+    private IoSession findRootSession(IoSession parent) {
+        if (parent == null) {
+            // parent can occasionally be null (e.g. on a WsebSession from Flash client)
+            return session;
+        }
+
+        IoSession root = parent;
+        while (root instanceof BridgeSession) {
+            IoSession next = ((BridgeSession) root).getParent();
+            if (next == null) {
+                break;
+            }
+            root = next;
+        }
+        return root;
+    }
+
+    private Object conflationKey(Object message) {
+        if (conflationKeyDelimiter == null) {
+            return LATEST_KEY;
+        }
+
+        ByteBuffer buf = bufferOf(message);
+        if (buf == null) {
+            return LATEST_KEY;
+        }
+
+        // the key is the message content up to the first delimiter, or the whole message if none
+        int keyLimit = indexOf(buf, conflationKeyDelimiter);
+        ByteBuffer key = buf.duplicate();
+        key.limit((keyLimit != -1) ? keyLimit : buf.limit());
+        return key;
+    }
+
+    /**
+     * Returns the content of a broadcast message, excluding any sequence prefix, or null if it is not a buffer.
+     */
+    static ByteBuffer bufferOf(Object message) {
+        if (message instanceof SequencedMessage) {
+            return ((SequencedMessage) message).getPayload();
+        }
+        else if (message instanceof IoMessage) {
+            return ((IoMessage) message).getBuffer().buf();
+        }
+        else if (message instanceof IoBuffer) {
+            return ((IoBuffer) message).buf();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the absolute index of the first occurrence of the delimiter in the remaining content, or -1.
+     */
+    static int indexOf(ByteBuffer buf, byte[] delimiter) {
+        int limit = buf.limit() - delimiter.length;
+        for (int i = buf.position(); i <= limit; i++) {
+            if (startsWith(buf, i, delimiter)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(ByteBuffer buf, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class RootSession {
+        private final IoSession parent;
+        private final IoSession session;
+
+        RootSession(IoSession parent, IoSession session) {
+            this.parent = parent;
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map.Entry;
+
+import org.kaazing.gateway.service.messaging.MessagingMessage;
+import org.kaazing.gateway.transport.io.IoMessage;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * Broadcast message prefixed with its position in the replay buffer, e.g. "42:payload", so that a
+ * reconnecting client can ask to catch up from the last sequence number it received.
+ */
+final class SequencedMessage extends IoMessage implements MessagingMessage {
+
+    static final byte SEQUENCE_SEPARATOR = ':';
+
+    private final int sequence;
+    private final int prefixLength;
+
+    SequencedMessage(IoBufferEx buffer, int sequence, int prefixLength) {
+        super(buffer);
+        this.sequence = sequence;
+        this.prefixLength = prefixLength;
+    }
+
+    int getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String getId() {
+        return Integer.toString(sequence);
+    }
+
+    /**
+     * Returns the original message content, without the sequence prefix.
+     */
+    @Override
+    public ByteBuffer getPayload() {
+        ByteBuffer payload = getBuffer().buf().duplicate();
+        payload.position(payload.position() + prefixLength);
+        return payload;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public Object removeAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public Object setAttribute(String name, Object value) {
+        throw new UnsupportedOperationException("setAttribute");
+    }
+
+    @Override
+    public Iterable<Entry<String, Object>> attributes() {
+        return Collections.emptyList();
+    }
+}
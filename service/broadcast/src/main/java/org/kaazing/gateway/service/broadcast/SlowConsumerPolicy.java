@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.util.Arrays;
+
+/**
+ * What the broadcast service does with a subscriber whose scheduled write bytes exceed the configured maximum.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Close the subscriber session.
+     */
+    DISCONNECT("disconnect"),
+
+    /**
+     * Queue messages for the subscriber, discarding the oldest queued message when the queue is full.
+     */
+    DROP_OLDEST("drop-oldest"),
+
+    /**
+     * Queue only the latest message for each conflation key, discarding the oldest queued message when
+     * the queue is full.
+     */
+    CONFLATE("conflate");
+
+    private final String name;
+
+    SlowConsumerPolicy(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static SlowConsumerPolicy fromString(String name) {
+        for (SlowConsumerPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown slow consumer policy \"%s\", expected one of %s",
+                name, Arrays.toString(values())));
+    }
+}
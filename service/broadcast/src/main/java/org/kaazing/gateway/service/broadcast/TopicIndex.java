@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.mina.util.ConcurrentHashSet;
+
+/**
+ * Concurrent index from topic patterns to subscribers.
+ *
+ * Topics are sequences of segments separated by '.', for example "prices.nasdaq.IBM".  A pattern
+ * either matches a topic exactly, or contains wildcards: '*' matches any single segment, and a
+ * trailing '>' matches one or more remaining segments, so "prices.*.IBM" and "prices.>" both match
+ * the topic above.  Exact patterns are found with a single hash lookup, wildcard patterns by walking
+ * a trie of segments, so matching cost depends on the topic depth rather than the number of
+ * subscriptions.
+ *
+ * Changes to the wildcard trie are serialized, and trie nodes left empty by an unsubscribe are
+ * pruned, so the trie only holds patterns that still have subscribers.  Matching takes no locks.
+ */
+public class TopicIndex<T> {
+
+    public static final char SEPARATOR = '.';
+    public static final String SINGLE_WILDCARD = "*";
+    public static final String MULTIPLE_WILDCARD = ">";
+
+    private final ConcurrentMap<String, Set<T>> exact;
+    private final Node<T> wildcards;
+
+    public TopicIndex() {
+        this.exact = new ConcurrentHashMap<>();
+        this.wildcards = new Node<>();
+    }
+
+    public void subscribe(String pattern, T subscriber) {
+        if (isWildcard(pattern)) {
+            synchronized (wildcards) {
+                Node<T> node = wildcards;
+                int start = 0;
+                for (int end = pattern.indexOf(SEPARATOR); end != -1; end = pattern.indexOf(SEPARATOR, start)) {
+                    node = node.child(pattern.substring(start, end));
+                    start = end + 1;
+                }
+                String last = pattern.substring(start);
+                if (MULTIPLE_WILDCARD.equals(last)) {
+                    node.remainder.add(subscriber);
+                }
+                else {
+                    node.child(last).subscribers.add(subscriber);
+                }
+            }
+        }
+        else {
+            exact.compute(pattern, (key, subscribers) -> {
+                if (subscribers == null) {
+                    subscribers = new ConcurrentHashSet<>();
+                }
+                subscribers.add(subscriber);
+                return subscribers;
+            });
+        }
+    }
+
+    public boolean unsubscribe(String pattern, T subscriber) {
+        if (isWildcard(pattern)) {
+            synchronized (wildcards) {
+                return unsubscribe(wildcards, pattern, 0, subscriber);
+            }
+        }
+        else {
+            Set<T> subscribers = exact.get(pattern);
+            if (subscribers != null && subscribers.remove(subscriber)) {
+                // re-checked atomically against a concurrent subscribe to the same pattern
+                exact.computeIfPresent(pattern, (key, current) -> current.isEmpty() ? null : current);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether a single pattern matches the topic, consistent with {@link #match(String, Collection)}.
+     */
+    public static boolean matches(String pattern, String topic) {
+        int patternStart = 0;
+        int topicStart = 0;
+        for (;;) {
+            int patternEnd = pattern.indexOf(SEPARATOR, patternStart);
+            int topicEnd = topic.indexOf(SEPARATOR, topicStart);
+            int patternLength = ((patternEnd != -1) ? patternEnd : pattern.length()) - patternStart;
+            int topicLength = ((topicEnd != -1) ? topicEnd : topic.length()) - topicStart;
+
+            if (patternEnd == -1 && pattern.startsWith(MULTIPLE_WILDCARD, patternStart) && patternLength == 1) {
+                // '>' matches one or more remaining segments
+                return topicStart < topic.length();
+            }
+            boolean singleWildcard = patternLength == 1 && pattern.startsWith(SINGLE_WILDCARD, patternStart);
+            if (!singleWildcard && (patternLength != topicLength ||
+                    !pattern.regionMatches(patternStart, topic, topicStart, patternLength))) {
+                return false;
+            }
+            if (patternEnd == -1 || topicEnd == -1) {
+                return patternEnd == topicEnd;
+            }
+            patternStart = patternEnd + 1;
+            topicStart = topicEnd + 1;
+        }
+    }
+
+    boolean isEmpty() {
+        return exact.isEmpty() && wildcards.isEmpty();
+    }
+
+    private boolean unsubscribe(Node<T> node, String pattern, int start, T subscriber) {
+        int end = pattern.indexOf(SEPARATOR, start);
+        String segment = (end != -1) ? pattern.substring(start, end) : pattern.substring(start);
+        if (end == -1 && MULTIPLE_WILDCARD.equals(segment)) {
+            return node.remainder.remove(subscriber);
+        }
+
+        Node<T> child = node.find(segment);
+        if (child == null) {
+            return false;
+        }
+        boolean removed = (end == -1) ? child.subscribers.remove(subscriber)
+                                      : unsubscribe(child, pattern, end + 1, subscriber);
+        if (removed && child.isEmpty()) {
+            node.children.remove(segment);
+        }
+        return removed;
+    }
+
+    /**
+     * Adds every subscriber with a pattern matching the topic to the given collection.  Pass a set
+     * to receive each subscriber once even when several of its patterns match.
+     */
+    public void match(String topic, Collection<? super T> matches) {
+        Set<T> subscribers = exact.get(topic);
+        if (subscribers != null) {
+            matches.addAll(subscribers);
+        }
+        if (!wildcards.isEmpty()) {
+            match(wildcards, topic, 0, matches);
+        }
+    }
+
+    private void match(Node<T> node, String topic, int start, Collection<? super T> matches) {
+        // '>' matches one or more remaining segments
+        if (start < topic.length() && !node.remainder.isEmpty()) {
+            matches.addAll(node.remainder);
+        }
+
+        int end = topic.indexOf(SEPARATOR, start);
+        String segment = (end != -1) ? topic.substring(start, end) : topic.substring(start);
+
+        Node<T> child = node.children.get(segment);
+        if (child != null) {
+            matchChild(child, topic, end, matches);
+        }
+        child = node.children.get(SINGLE_WILDCARD);
+        if (child != null) {
+            matchChild(child, topic, end, matches);
+        }
+    }
+
+    private void matchChild(Node<T> child, String topic, int end, Collection<? super T> matches) {
+        if (end == -1) {
+            matches.addAll(child.subscribers);
+        }
+        else {
+            match(child, topic, end + 1, matches);
+        }
+    }
+
+    private static boolean isWildcard(String pattern) {
+        for (String segment : pattern.split("\\" + SEPARATOR, -1)) {
+            if (SINGLE_WILDCARD.equals(segment) || MULTIPLE_WILDCARD.equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node<T> {
+        private final ConcurrentMap<String, Node<T>> children;
+        private final Set<T> subscribers;
+        private final Set<T> remainder;
+
+        Node() {
+            this.children = new ConcurrentHashMap<>();
+            this.subscribers = new ConcurrentHashSet<>();
+            this.remainder = new ConcurrentHashSet<>();
+        }
+
+        Node<T> child(String segment) {
+            Node<T> child = children.get(segment);
+            if (child == null) {
+                Node<T> newChild = new Node<>();
+                child = children.putIfAbsent(segment, newChild);
+                if (child == null) {
+                    child = newChild;
+                }
+            }
+            return child;
+        }
+
+        Node<T> find(String segment) {
+            return children.get(segment);
+        }
+
+        boolean isEmpty() {
+            return children.isEmpty() && subscribers.isEmpty() && remainder.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.service.broadcast.BroadcastFanout.WorkerFanout;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class BroadcastFanoutTest {
+
+    private Mockery context;
+    private Queue<Runnable> workerTasks;
+    private Executor workerExecutor;
+    private Thread workerThread;
+    private List<String> written;
+    private BiConsumer<IoSession, Object> writer;
+    private BroadcastFanout fanout;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        workerTasks = new LinkedList<>();
+        workerExecutor = workerTasks::add;
+        workerThread = new Thread("worker");
+        written = new ArrayList<>();
+        writer = (session, message) -> written.add(session.toString() + ":" + message);
+        fanout = new BroadcastFanout();
+    }
+
+    @Test
+    public void shouldWriteLocalSubscribersDirectlyAndBatchRemoteSubscribersPerWorker() throws Exception {
+        IoSessionEx local = mockSession("local", Thread.currentThread(), null);
+        IoSessionEx remote1 = mockSession("remote1", workerThread, workerExecutor);
+        IoSessionEx remote2 = mockSession("remote2", workerThread, workerExecutor);
+        IoSessionEx unaligned = mockSession("unaligned", IoSessionEx.CURRENT_THREAD, null);
+
+        fanout.add(local);
+        fanout.add(remote1);
+        fanout.add(remote2);
+        fanout.add(unaligned);
+
+        fanout.write("message", writer);
+
+        assertEquals(2, written.size());
+        assertTrue(written.containsAll(asList("local:message", "unaligned:message")));
+        assertEquals(1, workerTasks.size());
+
+        workerTasks.poll().run();
+        assertEquals(4, written.size());
+        assertTrue(written.containsAll(asList("remote1:message", "remote2:message")));
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldRecordFanoutPerWorker() throws Exception {
+        fanout.add(mockSession("remote", workerThread, workerExecutor));
+
+        fanout.write("message1", writer);
+        fanout.write("message2", writer);
+        while (!workerTasks.isEmpty()) {
+            workerTasks.poll().run();
+        }
+
+        assertEquals(1, fanout.getWorkers().size());
+        WorkerFanout worker = fanout.getWorkers().iterator().next();
+        assertEquals(workerThread, worker.getIoThread());
+        assertEquals(1, worker.getSubscriberCount());
+        assertEquals(2, worker.getFanoutCount());
+        assertEquals(2, worker.getFanoutLatencyHistogram().getCount());
+        assertEquals(asList("remote:message1", "remote:message2"), written);
+    }
+
+    @Test
+    public void shouldNotWriteToRemovedSubscriber() throws Exception {
+        IoSessionEx remote = mockSession("remote", workerThread, workerExecutor);
+        fanout.add(remote);
+        fanout.remove(remote);
+
+        fanout.write("message", writer);
+
+        assertTrue(workerTasks.isEmpty());
+        assertTrue(written.isEmpty());
+    }
+
+    private IoSessionEx mockSession(final String name, final Thread ioThread, final Executor ioExecutor) {
+        final IoSessionEx session = context.mock(IoSessionEx.class, name);
+        context.checking(new Expectations() {
+            {
+                allowing(session).getIoThread();
+                will(returnValue(ioThread));
+                allowing(session).getIoExecutor();
+                will(returnValue(ioExecutor));
+                allowing(session).isConnected();
+                will(returnValue(true));
+            }
+        });
+        return session;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Test;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.gateway.transport.io.IoMessage;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class BroadcastSubscriberTest {
+
+    private final Mockery context = new Mockery();
+
+    @Test
+    public void dropOldestShouldDiscardOldestMessageWhenFull() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.DROP_OLDEST, 2, null);
+
+        assertEquals(0, subscriber.offer("a"));
+        assertEquals(0, subscriber.offer("b"));
+        assertEquals(1, subscriber.offer("c"));
+
+        assertEquals("b", subscriber.poll());
+        assertEquals("c", subscriber.poll());
+        assertNull(subscriber.poll());
+        assertTrue(subscriber.isQueueEmpty());
+    }
+
+    @Test
+    public void conflateShouldKeepOnlyLatestMessageWithoutDelimiter() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.CONFLATE, 8, null);
+
+        assertEquals(0, subscriber.offer("a"));
+        assertEquals(1, subscriber.offer("b"));
+
+        assertEquals("b", subscriber.poll());
+        assertNull(subscriber.poll());
+    }
+
+    @Test
+    public void conflateShouldKeepLatestMessagePerKey() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.CONFLATE, 8, ":".getBytes(UTF_8));
+        IoMessage ibm1 = message("IBM:101");
+        IoMessage msft1 = message("MSFT:55");
+        IoMessage ibm2 = message("IBM:102");
+
+        assertEquals(0, subscriber.offer(ibm1));
+        assertEquals(0, subscriber.offer(msft1));
+        assertEquals(1, subscriber.offer(ibm2));
+
+        assertSame(msft1, subscriber.poll());
+        assertSame(ibm2, subscriber.poll());
+        assertNull(subscriber.poll());
+    }
+
+    @Test
+    public void conflateShouldIgnoreSequencePrefix() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.CONFLATE, 8, ":".getBytes(UTF_8));
+        SequencedMessage ibm1 = sequenced(1, "IBM:101");
+        SequencedMessage ibm2 = sequenced(2, "IBM:102");
+
+        assertEquals(0, subscriber.offer(ibm1));
+        assertEquals(1, subscriber.offer(ibm2));
+
+        assertSame(ibm2, subscriber.poll());
+        assertNull(subscriber.poll());
+    }
+
+    @Test
+    public void shouldNotAdvanceToPreviousSequence() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.DISCONNECT, 0, null);
+
+        assertTrue(subscriber.advanceSequence(1));
+        assertTrue(subscriber.advanceSequence(5));
+        assertFalse(subscriber.advanceSequence(5));
+        assertFalse(subscriber.advanceSequence(3));
+        assertTrue(subscriber.advanceSequence(6));
+    }
+
+    @Test
+    public void shouldDeferMessagesOnlyDuringReplay() throws Exception {
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(null, SlowConsumerPolicy.DISCONNECT, 0, null);
+        SequencedMessage message1 = sequenced(1, "a");
+        SequencedMessage message2 = sequenced(2, "b");
+
+        assertFalse(subscriber.defer(message1));
+
+        subscriber.beginReplay();
+        assertTrue(subscriber.defer(message1));
+        assertTrue(subscriber.defer(message2));
+
+        assertSame(message1, subscriber.pollDeferred());
+        assertSame(message2, subscriber.pollDeferred());
+        assertNull(subscriber.pollDeferred());
+        assertFalse(subscriber.defer(message1));
+    }
+
+    @Test
+    public void shouldCacheRootSessionUntilParentChanges() throws Exception {
+        final BridgeSession client = context.mock(BridgeSession.class, "client");
+        final BridgeSession parent1 = context.mock(BridgeSession.class, "parent1");
+        final BridgeSession parent2 = context.mock(BridgeSession.class, "parent2");
+        final IoSessionEx root = context.mock(IoSessionEx.class, "root");
+
+        context.checking(new Expectations() {
+            {
+                exactly(3).of(client).getParent();
+                will(onConsecutiveCalls(returnValue(parent1), returnValue(parent1), returnValue(parent2)));
+                oneOf(parent1).getParent();
+                will(returnValue(root));
+                oneOf(parent2).getParent();
+                will(returnValue(root));
+            }
+        });
+
+        BroadcastSubscriber subscriber = new BroadcastSubscriber(client, SlowConsumerPolicy.DISCONNECT, 0, null);
+        assertSame(root, subscriber.getRootSession());
+        assertSame(root, subscriber.getRootSession());
+        assertSame(root, subscriber.getRootSession());
+        context.assertIsSatisfied();
+    }
+
+    private static SequencedMessage sequenced(int sequence, String text) {
+        String prefix = sequence + ":";
+        byte[] bytes = (prefix + text).getBytes(UTF_8);
+        return new SequencedMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(bytes)), sequence, prefix.length());
+    }
+
+    private static IoMessage message(String text) {
+        return new IoMessage(SimpleBufferAllocator.BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(text.getBytes(UTF_8))));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares topic matching through the index against a linear scan over every subscription pattern,
+ * with a mix of exact and wildcard subscriptions.
+ * Started from main(); each round checks that both find the same matches before reporting their cost.
+ */
+public class TopicIndexBenchmarkIT {
+
+    private static final String[] EXCHANGES = { "nasdaq", "nyse", "lse", "tse" };
+
+    public static void main(String[] args) throws Exception {
+        new TopicIndexBenchmarkIT().benchmark(100000, 10000, 200, 5);
+    }
+
+    private void benchmark(int subscriptions, int symbols, int messages, int rounds) {
+        Random random = new Random(42);
+        List<String> patterns = new ArrayList<>(subscriptions);
+        TopicIndex<Integer> index = new TopicIndex<>();
+        for (int i = 0; i < subscriptions; i++) {
+            String exchange = EXCHANGES[random.nextInt(EXCHANGES.length)];
+            String symbol = "S" + random.nextInt(symbols);
+            String pattern;
+            switch (i % 10) {
+            case 0:
+                pattern = "prices.*." + symbol;
+                break;
+            case 1:
+                pattern = "prices." + exchange + ".>";
+                break;
+            default:
+                pattern = "prices." + exchange + "." + symbol;
+                break;
+            }
+            patterns.add(pattern);
+            index.subscribe(pattern, i);
+        }
+
+        String[] topics = new String[messages];
+        for (int i = 0; i < messages; i++) {
+            topics[i] = "prices." + EXCHANGES[random.nextInt(EXCHANGES.length)] + ".S" + random.nextInt(symbols);
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            long matched = 0;
+            long start = System.nanoTime();
+            for (String topic : topics) {
+                Set<Integer> matches = new HashSet<>();
+                for (int i = 0; i < subscriptions; i++) {
+                    if (matches(patterns.get(i), topic)) {
+                        matches.add(i);
+                    }
+                }
+                matched += matches.size();
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            long indexMatched = 0;
+            start = System.nanoTime();
+            for (String topic : topics) {
+                Set<Integer> matches = new HashSet<>();
+                index.match(topic, matches);
+                indexMatched += matches.size();
+            }
+            long indexNanos = System.nanoTime() - start;
+
+            System.out.println(format("round %d: scan %.1f us/message, index %.1f us/message (%d matches)", round,
+                    scanNanos / 1000.0 / messages, indexNanos / 1000.0 / messages, indexMatched));
+            assertEquals(matched, indexMatched);
+        }
+    }
+
+    // reference matcher, as a broadcast service without the index would evaluate each client's pattern
+    private static boolean matches(String pattern, String topic) {
+        String[] patternSegments = pattern.split("\\.");
+        String[] topicSegments = topic.split("\\.");
+        for (int i = 0; i < patternSegments.length; i++) {
+            if (TopicIndex.MULTIPLE_WILDCARD.equals(patternSegments[i])) {
+                return i == patternSegments.length - 1 && topicSegments.length > i;
+            }
+            if (i >= topicSegments.length) {
+                return false;
+            }
+            if (!TopicIndex.SINGLE_WILDCARD.equals(patternSegments[i]) && !patternSegments[i].equals(topicSegments[i])) {
+                return false;
+            }
+        }
+        return patternSegments.length == topicSegments.length;
+    }
+}
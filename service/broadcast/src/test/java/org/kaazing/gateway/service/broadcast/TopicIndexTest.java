@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.service.broadcast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TopicIndexTest {
+
+    private TopicIndex<String> index;
+
+    @Before
+    public void setUp() {
+        index = new TopicIndex<>();
+    }
+
+    @Test
+    public void shouldMatchExactTopic() {
+        index.subscribe("prices.nasdaq.IBM", "a");
+        index.subscribe("prices.nasdaq.MSFT", "b");
+
+        assertEquals(set("a"), match("prices.nasdaq.IBM"));
+        assertEquals(set(), match("prices.nasdaq"));
+        assertEquals(set(), match("prices.nasdaq.IBM.bid"));
+    }
+
+    @Test
+    public void shouldMatchSingleWildcard() {
+        index.subscribe("prices.*.IBM", "a");
+        index.subscribe("*", "b");
+
+        assertEquals(set("a"), match("prices.nasdaq.IBM"));
+        assertEquals(set("a"), match("prices.nyse.IBM"));
+        assertEquals(set(), match("prices.nasdaq.MSFT"));
+        assertEquals(set(), match("prices.IBM"));
+        assertEquals(set("b"), match("prices"));
+    }
+
+    @Test
+    public void shouldMatchMultipleWildcard() {
+        index.subscribe("prices.>", "a");
+        index.subscribe("prices.*.>", "b");
+
+        assertEquals(set("a", "b"), match("prices.nasdaq.IBM"));
+        assertEquals(set("a"), match("prices.nasdaq"));
+        assertEquals(set(), match("prices"));
+        assertEquals(set(), match("news.nasdaq"));
+    }
+
+    @Test
+    public void shouldMatchSubscriberOnceForOverlappingPatterns() {
+        index.subscribe("prices.nasdaq.IBM", "a");
+        index.subscribe("prices.*.IBM", "a");
+        index.subscribe("prices.>", "a");
+
+        List<String> matches = new ArrayList<>();
+        Set<String> unique = new HashSet<>();
+        index.match("prices.nasdaq.IBM", matches);
+        index.match("prices.nasdaq.IBM", unique);
+
+        assertEquals(3, matches.size());
+        assertEquals(set("a"), unique);
+    }
+
+    @Test
+    public void shouldUnsubscribe() {
+        index.subscribe("prices.nasdaq.IBM", "a");
+        index.subscribe("prices.*.IBM", "a");
+        index.subscribe("prices.>", "b");
+
+        assertTrue(index.unsubscribe("prices.nasdaq.IBM", "a"));
+        assertEquals(set("a", "b"), match("prices.nasdaq.IBM"));
+        assertTrue(index.unsubscribe("prices.*.IBM", "a"));
+        assertTrue(index.unsubscribe("prices.>", "b"));
+        assertEquals(set(), match("prices.nasdaq.IBM"));
+
+        assertFalse(index.unsubscribe("prices.>", "b"));
+        assertFalse(index.unsubscribe("news.*", "a"));
+        assertFalse(index.unsubscribe("news", "a"));
+    }
+
+    @Test
+    public void shouldMatchSinglePattern() {
+        assertTrue(TopicIndex.matches("prices.nasdaq.IBM", "prices.nasdaq.IBM"));
+        assertFalse(TopicIndex.matches("prices.nasdaq.IBM", "prices.nasdaq"));
+        assertTrue(TopicIndex.matches("prices.*.IBM", "prices.nyse.IBM"));
+        assertFalse(TopicIndex.matches("prices.*.IBM", "prices.IBM"));
+        assertTrue(TopicIndex.matches("prices.>", "prices.nasdaq.IBM"));
+        assertFalse(TopicIndex.matches("prices.>", "prices"));
+        assertTrue(TopicIndex.matches("*", "prices"));
+        assertFalse(TopicIndex.matches("*", "prices.nasdaq"));
+    }
+
+    @Test
+    public void shouldPruneEmptyPatternsOnUnsubscribe() {
+        index.subscribe("prices.nasdaq.IBM", "a");
+        index.subscribe("prices.*.IBM", "a");
+        index.subscribe("prices.*.IBM.bid", "b");
+        index.subscribe("prices.*.>", "b");
+
+        assertTrue(index.unsubscribe("prices.*.IBM", "a"));
+        assertEquals(set("b"), match("prices.nasdaq.IBM.bid"));
+        assertTrue(index.unsubscribe("prices.*.IBM.bid", "b"));
+        assertTrue(index.unsubscribe("prices.*.>", "b"));
+        assertTrue(index.unsubscribe("prices.nasdaq.IBM", "a"));
+
+        assertTrue(index.isEmpty());
+    }
+
+    private Set<String> match(String topic) {
+        Set<String> matches = new HashSet<>();
+        index.match(topic, matches);
+        return matches;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -49,7 +49,7 @@ import org.kaazing.gateway.transport.Transport;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
-import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
+import org.kaazing.mina.netty.util.threadlocal.WorkerLocal;
 import org.slf4j.Logger;
 
 /**
@@ -93,7 +93,7 @@ public final class ServiceConnectManager {
     private AtomicInteger heartbeatPingSuccesses = new AtomicInteger(0);
     private AtomicInteger heartbeatPingFailures = new AtomicInteger(0);
 
-    private final ThreadLocal<ConnectionPool> connectionPool = new VicariousThreadLocal<>();
+    private final ThreadLocal<ConnectionPool> connectionPool = new WorkerLocal<>();
 
     public ServiceConnectManager(ServiceContext service,
                                  AbstractProxyHandler connectHandler,
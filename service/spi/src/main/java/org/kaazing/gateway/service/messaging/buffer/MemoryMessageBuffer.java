@@ -19,15 +19,12 @@
  * under the License.
  */
 
-package org.kaazing.gateway.server.messaging.buffer;
+package org.kaazing.gateway.service.messaging.buffer;
 
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.kaazing.gateway.service.messaging.MessagingMessage;
-import org.kaazing.gateway.service.messaging.buffer.MessageBuffer;
-import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
-import org.kaazing.gateway.service.messaging.buffer.MessageBufferListener;
 
 // TODO: could abstract into RingArray or RingArrayList in the future to use this more general purpose
 //       might need that anyway for iteration?
@@ -19,9 +19,7 @@
  * under the License.
  */
 
-package org.kaazing.gateway.server.messaging.buffer;
-
-import org.kaazing.gateway.service.messaging.buffer.MessageBufferFactory;
+package org.kaazing.gateway.service.messaging.buffer;
 
 public class MemoryMessageBufferFactory implements MessageBufferFactory {
 
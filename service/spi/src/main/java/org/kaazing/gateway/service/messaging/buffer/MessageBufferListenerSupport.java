@@ -19,12 +19,10 @@
  * under the License.
  */
 
-package org.kaazing.gateway.server.messaging.buffer;
+package org.kaazing.gateway.service.messaging.buffer;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import org.kaazing.gateway.service.messaging.buffer.MessageBufferEntry;
-import org.kaazing.gateway.service.messaging.buffer.MessageBufferListener;
 import org.kaazing.gateway.util.GL;
 
 public class MessageBufferListenerSupport implements MessageBufferListener {
@@ -58,7 +58,9 @@ import org.kaazing.gateway.transport.NamedPipeAddress;
 import org.kaazing.gateway.transport.NextProtocolBindings;
 import org.kaazing.gateway.transport.NextProtocolBindings.NextProtocolBinding;
 import org.kaazing.gateway.transport.NextProtocolFilter;
+import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.SocketAddressFactory;
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 import org.kaazing.mina.core.future.DefaultUnbindFuture;
 import org.kaazing.mina.core.future.UnbindFuture;
@@ -115,10 +117,12 @@ public abstract class AbstractBioAcceptor<T extends SocketAddress> implements Br
                     sessionCreated0(session);
                 }
                 else {
-                    Collection<ProtocolDispatcher> dispatchers = bridgeServiceFactory.getTransportFactory().getProtocolDispatchers().values();
+                    TransportFactory transportFactory = bridgeServiceFactory.getTransportFactory();
+                    Collection<ProtocolDispatcher> dispatchers = transportFactory.getProtocolDispatchers().values();
+                    ProtocolDispatchTrie dispatchTrie = transportFactory.getProtocolDispatchTrie();
 
                     // sessionCreated will be sent down pipeline again when next-protocol has been determined
-                    NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers) {
+                    NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers, dispatchTrie) {
                         @Override
                         protected void flushInboundEvents(NextFilter nextFilter, IoSession session) throws Exception {
                             // defer sessionCreated until next-protocol determined
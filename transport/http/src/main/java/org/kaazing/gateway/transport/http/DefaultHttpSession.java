@@ -67,8 +67,10 @@ import org.kaazing.mina.core.session.IoSessionEx;
 // TODO: change to just support cookie list and internal differential for write
 public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession, HttpBuffer> implements HttpAcceptSession, HttpConnectSession {
 
-    private static final String DEFAULT_CACHE_KEY = "http";
-    private static final String GZIPPED_CACHE_KEY = "http/gzipped";
+    private static final int DEFAULT_ENCODING_ID = Message.registerEncoding("http");
+    private static final int CHUNKED_ENCODING_ID = Message.registerEncoding("http/chunked");
+    private static final int GZIPPED_ENCODING_ID = Message.registerEncoding("http/gzipped");
+    private static final int GZIPPED_CHUNKED_ENCODING_ID = Message.registerEncoding("http/gzipped/chunked");
     
 	private static final String UTF_8 = "utf-8";
 	
@@ -109,6 +111,8 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
     private final AtomicBoolean connectionClose;
     private final AtomicBoolean shutdownWrite;
     private IoBufferEx readRequest;
+    private HttpPipeline pipeline;
+    private int streamId;
 
 	private boolean isChunked;
 
@@ -194,11 +198,14 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
 
             @Override
             public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-                String cacheKey = isGzipped() ? GZIPPED_CACHE_KEY : DEFAULT_CACHE_KEY;
-                if (isChunked()) {
-                    cacheKey = cacheKey + "/chunked";
+                int encodingId;
+                if (isGzipped()) {
+                    encodingId = isChunked() ? GZIPPED_CHUNKED_ENCODING_ID : GZIPPED_ENCODING_ID;
                 }
-                return encode(cacheKey, encoder, message, allocator, flags);
+                else {
+                    encodingId = isChunked() ? CHUNKED_ENCODING_ID : DEFAULT_ENCODING_ID;
+                }
+                return encode(encodingId, encoder, message, allocator, flags);
             }
 
         };
@@ -257,6 +264,7 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
         method = request.getMethod();
         requestURI = request.getRequestURI();
         parameters = request.getParameters();
+        streamId = request.getStreamId();
 
         String host = request.getHeader("Host");
         requestURL = URI.create((secure ? "https" : "http") + "://" + host + requestURI);
@@ -561,6 +569,18 @@ public class DefaultHttpSession extends AbstractBridgeSession<DefaultHttpSession
         return connectionClose.compareAndSet(false, true);
     }
 
+    HttpPipeline getPipeline() {
+        return pipeline;
+    }
+
+    void setPipeline(HttpPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    int getStreamId() {
+        return streamId;
+    }
+
 	public boolean isChunked() {
 		return this.isChunked;
 	}
@@ -49,8 +49,14 @@ public enum HttpAcceptFilter {
     // dynamically added by HttpProtocolCompatibilityFilter
     ELEVATE_EMULATED_REQUEST("http#elevateEmulatedRequest"),
 
+    // session-specific filter added when HTTP/2 is enabled (new Http2ConnectionFilter(logger))
+    HTTP2("http#http2"),
+
     CODEC("http#codec", new HttpCodecFilter(false)),
 
+    // session-specific filter added with HTTP2 (Http2ConnectionFilter.getUpgradeFilter())
+    HTTP2_UPGRADE("http#http2-upgrade"),
+
     // always added per-session filter (new HttpSerializeRequestFilter(logger))
     HTTP_SERIALIZE_REQUEST_FILTER("http#serializeRequests"),
 
@@ -99,8 +99,23 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
                 IoBufferAllocatorEx<? extends HttpBuffer> allocator = session.getBufferAllocator();
                 HttpBuffer unsharedEmpty = allocator.wrap(allocator.allocate(0));
                 HttpContentMessage completeMessage = new HttpContentMessage(unsharedEmpty, true, session.isChunked(), session.isGzipped());
+                completeMessage.setStreamId(session.getStreamId());
                 parent.write(completeMessage);
             }
+
+            // response complete, release the next pipelined response that was waiting for this one
+            HttpPipeline pipeline = session.getPipeline();
+            if (pipeline != null) {
+                DefaultHttpSession next = pipeline.remove(session);
+                if (next != null) {
+                    if (pipeline.takeDeferredCommit(next)) {
+                        commit(next);
+                    }
+                    // flush the writes queued while waiting
+                    next.resumeWrite();
+                    updateTrafficControl(next);
+                }
+            }
         }
 
     public void commit(final DefaultHttpSession session) {
@@ -116,6 +131,12 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
             return;
         }
 
+        // pipelined responses are committed in request order, writes stay queued until then
+        HttpPipeline pipeline = session.getPipeline();
+        if (pipeline != null && pipeline.deferCommit(session)) {
+            return;
+        }
+
         // create HttpResponseMessage
         HttpResponseMessage httpResponse = new HttpResponseMessage();
         httpResponse.setStatus(session.getStatus());
@@ -134,6 +155,13 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
             httpResponse.setContentExcluded(true);
         }
 
+        if (session.getStreamId() != 0) {
+            // HTTP/2 stream, framing replaces chunking and the connection is never closed by a response
+            httpResponse.setStreamId(session.getStreamId());
+            writePersistentResponse(parent, commitFuture, httpResponse);
+            return;
+        }
+
         switch (session.getVersion()) {
         case HTTP_1_1:
             boolean isConnectionClose = "close".equals(session.getWriteHeader("Connection"));
@@ -242,6 +270,17 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
         }
     }
 
+    @Override
+    protected void flushInternal(DefaultHttpSession session) {
+        // pipelined response waiting for an earlier response, keep writes and close queued until released
+        HttpPipeline pipeline = session.getPipeline();
+        if (pipeline != null && pipeline.isWaiting(session)) {
+            return;
+        }
+
+        super.flushInternal(session);
+    }
+
     @Override
     protected WriteFuture flushNow(DefaultHttpSession session, IoSessionEx parent,
             IoBufferEx buf, IoFilterChain filterChain, WriteRequest request) {
@@ -258,6 +297,14 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
             return null;
         }
 
+        int streamId = session.getStreamId();
+        if (streamId != 0) {
+            // HTTP/2 stream, messages cached on the buffer cannot carry the stream
+            HttpContentMessage httpContent = new HttpContentMessage(buf, false);
+            httpContent.setStreamId(streamId);
+            return flushNowInternal(parent, httpContent, buf, filterChain, request);
+        }
+
         boolean isGzipped = session.isGzipped();
         boolean isChunked = session.isChunked();
         if (session.isConnectionClose() && !isChunked && !isGzipped) {
@@ -353,7 +400,7 @@ public class HttpAcceptProcessor extends BridgeAcceptProcessor<DefaultHttpSessio
     }
 
     public static void setServerHeader(IoSession session, HttpResponseMessage response) {
-        DefaultHttpSession httpSession = HttpAcceptor.SESSION_KEY.get(session);
+        DefaultHttpSession httpSession = HttpAcceptor.getSession(session, response.getStreamId());
         setServerHeader(httpSession, response);
     }
 
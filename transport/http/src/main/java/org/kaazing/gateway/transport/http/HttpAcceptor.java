@@ -38,14 +38,22 @@ import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CONDITIONAL_WR
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.CONTENT_LENGTH_ADJUSTMENT;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.ELEVATE_EMULATED_REQUEST;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HOST_HEADER;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2;
+import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP2_UPGRADE;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.HTTP_SERIALIZE_REQUEST_FILTER;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.MERGE_REQUEST;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.PROTOCOL_HTTP;
 import static org.kaazing.gateway.transport.http.HttpAcceptFilter.PROTOCOL_HTTPXE;
 import static org.kaazing.gateway.transport.http.HttpStatus.CLIENT_NOT_FOUND;
+import static org.kaazing.gateway.transport.http.bridge.filter.HttpGzipCompressor.COMPRESSOR_KEY;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpNextProtocolHeaderFilter.PROTOCOL_HTTPXE_1_1;
 import static org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolFilter.PROTOCOL_HTTP_1_1;
 import static org.kaazing.gateway.transport.http.resource.HttpDynamicResourceFactory.newHttpDynamicResourceFactory;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP2_ENABLED;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_GZIP_COMPRESSION_LEVEL;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_GZIP_COMPRESSION_MINIMUM_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_PIPELINE_MAXIMUM_BUFFERED_BYTES;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_PIPELINE_MAXIMUM_REQUESTS;
 
 import java.io.IOException;
 import java.net.SocketAddress;
@@ -53,21 +61,27 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
 import javax.security.auth.Subject;
 
 import org.apache.mina.core.filterchain.IoFilter;
+import org.apache.mina.core.filterchain.IoFilterAdapter;
 import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.future.IoFuture;
+import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.TransportMetadata;
 import org.apache.mina.core.session.AttributeKey;
 import org.apache.mina.core.session.IdleStatus;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
+import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.ResourceAddressFactory;
@@ -90,8 +104,11 @@ import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.gateway.transport.http.bridge.filter.Http2ConnectionFilter;
+import org.kaazing.gateway.transport.http.bridge.filter.Http2StreamException;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpBuffer;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpBufferAllocator;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpGzipCompressor;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpLoginSecurityFilter;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpNextAddressFilter;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpProtocolDecoderException;
@@ -117,9 +134,13 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
     public static final AttributeKey SERVICE_REGISTRATION_KEY = new AttributeKey(HttpAcceptor.class, "serviceRegistration");
 	
     static final TypedAttributeKey<DefaultHttpSession> SESSION_KEY = new TypedAttributeKey<>(HttpAcceptor.class, "session");
+    static final TypedAttributeKey<HttpPipeline> PIPELINE_KEY = new TypedAttributeKey<>(HttpAcceptor.class, "pipeline");
+    static final TypedAttributeKey<Map<Integer, DefaultHttpSession>> STREAMS_KEY =
+            new TypedAttributeKey<>(HttpAcceptor.class, "streams");
 
     private static final String FAULT_LOGGING_FILTER = HttpProtocol.NAME + "#fault";
     private static final String TRACE_LOGGING_FILTER = HttpProtocol.NAME + "#logging";
+    private static final String PIPELINE_LIMIT_FILTER = HttpProtocol.NAME + "#pipeline-limit";
 
     private final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
 
@@ -131,19 +152,42 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
     
     private IoFilter httpNextAddress;
 
+    private final IoFilter pipelineLimitFilter = new HttpPipelineLimitFilter();
+
     private SchedulerProvider schedulerProvider;
 
+    private int maximumPipelinedRequests = 1;
+    private long maximumPipelinedBufferedBytes;
+    private boolean http2Enabled;
+    private int gzipCompressionLevel;
+    private int gzipCompressionMinimumSize;
+
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
         this.schedulerProvider = provider;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.maximumPipelinedRequests = HTTP_PIPELINE_MAXIMUM_REQUESTS.getIntProperty(configuration);
+        this.maximumPipelinedBufferedBytes = HTTP_PIPELINE_MAXIMUM_BUFFERED_BYTES.getIntProperty(configuration);
+        this.http2Enabled = HTTP2_ENABLED.getBooleanProperty(configuration);
+        this.gzipCompressionLevel = HTTP_GZIP_COMPRESSION_LEVEL.getIntProperty(configuration);
+        if (gzipCompressionLevel < 0 || gzipCompressionLevel > 9) {
+            // fail on configuration rather than when each connection's filter chain is initialized
+            throw new IllegalArgumentException(format("%s must be between 0 and 9: %d",
+                    HTTP_GZIP_COMPRESSION_LEVEL.getPropertyName(), gzipCompressionLevel));
+        }
+        this.gzipCompressionMinimumSize = HTTP_GZIP_COMPRESSION_MINIMUM_SIZE.getIntProperty(configuration);
+    }
+
     public HttpAcceptor() {
         super(new DefaultIoSessionConfigEx());
         
         // note: content length adjustment filter is added dynamically for httpxe/1.1, and not needed by http/1.1
         // note: empty packet filter is added dynamically for httpx/1.1, and not needed by httpxe/1.1 nor http/1.1
         // note: serialize request filter only needed for http , not httpxe nor httpx
+        // note: HTTP/2 filters only needed for http, and only added when enabled
 
         Map<String, Set<HttpAcceptFilter>> acceptFiltersByProtocol = new HashMap<>();
         acceptFiltersByProtocol.put(PROTOCOL_HTTP_1_1, complementOf(of(CONTENT_LENGTH_ADJUSTMENT,
@@ -156,6 +200,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                                                                          MERGE_REQUEST,
                                                                          // do not serialize again
                                                                          HTTP_SERIALIZE_REQUEST_FILTER,
+                                                                         HTTP2,
+                                                                         HTTP2_UPGRADE,
                                                                          PROTOCOL_HTTP,
                                                                          HOST_HEADER,
                                                                          ELEVATE_EMULATED_REQUEST,
@@ -164,6 +210,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         acceptFiltersByProtocol.put("x-kaazing-handshake", complementOf(of(CONTENT_LENGTH_ADJUSTMENT,
                                                                            PROTOCOL_HTTPXE,
                                                                            HOST_HEADER,
+                                                                           HTTP2,
+                                                                           HTTP2_UPGRADE,
                                                                            ELEVATE_EMULATED_REQUEST,
                                                                            CONDITIONAL_WRAPPED_RESPONSE)));
 
@@ -346,14 +394,38 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 removeBridgeFilters(filterChain);
             }
 
+            Throwable cause = new Exception("Early termination of IO session").fillInStackTrace();
             DefaultHttpSession httpSession = SESSION_KEY.remove(session);
             if (httpSession != null && !httpSession.isClosing()) {
-                httpSession.reset(new Exception("Early termination of IO session").fillInStackTrace());
+                httpSession.reset(cause);
+            }
+
+            resetPipeline(session, httpSession, cause);
+            resetStreams(session, cause);
+
+            HttpGzipCompressor compressor = COMPRESSOR_KEY.remove(session);
+            if (compressor != null) {
+                compressor.dispose();
             }
         }
 
         @Override
         protected void doExceptionCaught(final IoSessionEx session, Throwable cause) throws Exception {
+            if (cause instanceof Http2StreamException) {
+                // HTTP/2 stream reset, the connection and its other streams are unaffected
+                int streamId = ((Http2StreamException) cause).getStreamId();
+                Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+                DefaultHttpSession httpSession = (streams != null) ? streams.remove(streamId) : null;
+                if (httpSession != null && !httpSession.isClosing()) {
+                    if (logger.isDebugEnabled()) {
+                        String message = format("Reset HTTP/2 stream %d: %s", streamId, cause);
+                        LoggingUtils.log(logger, message, cause);
+                    }
+                    httpSession.reset(cause);
+                }
+                return;
+            }
+
             // Note: we must removeAttribute here to avoid recursion of exceptionCaught
             DefaultHttpSession httpSession = SESSION_KEY.remove(session);
             if (httpSession != null && !httpSession.isClosing()) {
@@ -374,6 +446,8 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 }
 
                 httpSession.reset(cause);
+                resetPipeline(session, httpSession, cause);
+                resetStreams(session, cause);
             }
             else {
                 if (logger.isDebugEnabled()) {
@@ -460,8 +534,34 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                             logger.warn("Unable to find handler for new HTTP session with local address:\n{}\nbindings:\n{}\n", newHttpSession.getLocalAddress(), bindings);
                         }
                         newHttpSession.setHandler(handler);
+
+                        int streamId = httpRequest.getStreamId();
+                        if (streamId != 0) {
+                            // HTTP/2 stream, dispatched concurrently with the other streams of the connection
+                            final Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+                            streams.put(streamId, newHttpSession);
+                            newHttpSession.getCloseFuture().addListener(new IoFutureListener<CloseFuture>() {
+                                @Override
+                                public void operationComplete(CloseFuture future) {
+                                    streams.remove(streamId, newHttpSession);
+                                }
+                            });
+                            return newHttpSession;
+                        }
+
                         // need to set here so that exceptions during session created|opened are properly handled as 50x
                         SESSION_KEY.set(session, newHttpSession);
+
+                        // join the pipeline before the handler can write a response, writes stay
+                        // suspended until the responses to earlier pipelined requests are complete
+                        HttpPipeline pipeline = PIPELINE_KEY.get(session);
+                        if (pipeline != null) {
+                            newHttpSession.setPipeline(pipeline);
+                            if (pipeline.add(newHttpSession)) {
+                                newHttpSession.suspendWrite();
+                                newHttpSession.getFilterChain().addFirst(PIPELINE_LIMIT_FILTER, pipelineLimitFilter);
+                            }
+                        }
                         return newHttpSession;
                     }
                 });
@@ -478,10 +578,14 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 fireContentReceived(httpSession, httpContent);
                 break;
             case CONTENT:
-                httpSession = SESSION_KEY.get(session);
+                int streamId = httpMessage.getStreamId();
+                httpSession = getSession(session, streamId);
                 if (httpSession != null) {
                     fireContentReceived(httpSession, (HttpContentMessage) message);
                 }
+                else if (streamId != 0) {
+                    // HTTP/2 stream already closed by the application, discard the remaining content
+                }
                 else {
                     throw new Exception("HttpSession not available for HttpContent");
                 }
@@ -504,6 +608,38 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                     HttpAcceptProcessor processor = (HttpAcceptProcessor) httpSession.getProcessor();
                     processor.consume(httpSession);
                 }
+                Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+                if (streams != null) {
+                    for (DefaultHttpSession streamSession : streams.values()) {
+                        HttpAcceptProcessor processor = (HttpAcceptProcessor) streamSession.getProcessor();
+                        processor.consume(streamSession);
+                    }
+                }
+            }
+        }
+
+        private void resetStreams(IoSessionEx session, Throwable cause) {
+            // HTTP/2 stream sessions still open on the connection
+            Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+            if (streams != null) {
+                for (DefaultHttpSession streamSession : streams.values()) {
+                    if (!streamSession.isClosing()) {
+                        streamSession.reset(cause);
+                    }
+                }
+                streams.clear();
+            }
+        }
+
+        private void resetPipeline(IoSessionEx session, DefaultHttpSession httpSession, Throwable cause) {
+            // pipelined sessions still waiting for their response to be written
+            HttpPipeline pipeline = PIPELINE_KEY.remove(session);
+            if (pipeline != null) {
+                for (DefaultHttpSession pipelinedSession : pipeline.clear()) {
+                    if (pipelinedSession != httpSession && !pipelinedSession.isClosing()) {
+                        pipelinedSession.reset(cause);
+                    }
+                }
             }
         }
 
@@ -555,8 +691,27 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         Set<HttpAcceptFilter> acceptFilters = acceptFiltersByProtocol.get(nextProtocol);
         assert (acceptFilters != null && !acceptFilters.isEmpty());
 
+        if (gzipCompressionLevel > 0) {
+            // deflater allocated when the first gzipped response is written on the connection
+            COMPRESSOR_KEY.set(transport, new HttpGzipCompressor(gzipCompressionLevel, gzipCompressionMinimumSize));
+        }
+
+        Http2ConnectionFilter http2 = null;
         for (HttpAcceptFilter acceptFilter : acceptFilters) {
             switch (acceptFilter) {
+            case HTTP2:
+                // session-specific filter, added when HTTP/2 is enabled
+                if (http2Enabled) {
+                    http2 = new Http2ConnectionFilter(logger);
+                    STREAMS_KEY.set(transport, new ConcurrentHashMap<Integer, DefaultHttpSession>());
+                    chain.addLast(acceptFilter.filterName(), http2);
+                }
+                break;
+            case HTTP2_UPGRADE:
+                if (http2 != null) {
+                    chain.addLast(acceptFilter.filterName(), http2.getUpgradeFilter());
+                }
+                break;
             case NEXT_ADDRESS:
                 chain.addLast(acceptFilter.filterName(), httpNextAddress);
                 break;
@@ -565,7 +720,13 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
                 break;
             case HTTP_SERIALIZE_REQUEST_FILTER:
                 // session-specific always-added filter.
-                chain.addLast(acceptFilter.filterName(), new HttpSerializeRequestsFilter(logger));
+                HttpPipeline pipeline = null;
+                if (maximumPipelinedRequests > 1) {
+                    pipeline = new HttpPipeline(maximumPipelinedBufferedBytes);
+                    PIPELINE_KEY.set(transport, pipeline);
+                }
+                chain.addLast(acceptFilter.filterName(),
+                        new HttpSerializeRequestsFilter(logger, maximumPipelinedRequests, pipeline));
                 break;
             case SUBJECT_SECURITY:
                 // One instance of HttpSubjectSecurityFilter per session
@@ -593,8 +754,37 @@ public class HttpAcceptor extends AbstractBridgeAcceptor<DefaultHttpSession, Htt
         }
     }
 
+    static DefaultHttpSession getSession(IoSession session, int streamId) {
+        if (streamId == 0) {
+            return SESSION_KEY.get(session);
+        }
+        Map<Integer, DefaultHttpSession> streams = STREAMS_KEY.get(session);
+        return (streams != null) ? streams.get(streamId) : null;
+    }
+
     private static  URI getHostPortPathURI(URI resource) {
         return URI.create("//" + resource.getAuthority() + resource.getPath());
     }
-}
 
+    // resets the connection when responses queued behind the head of the pipeline exceed the buffering limit,
+    // writes of a waiting session only reach its own write request queue so they are checked here
+    private final class HttpPipelineLimitFilter extends IoFilterAdapter {
+
+        @Override
+        public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+            super.filterWrite(nextFilter, session, writeRequest);
+
+            DefaultHttpSession httpSession = (DefaultHttpSession) session;
+            HttpPipeline pipeline = httpSession.getPipeline();
+            if (pipeline != null && pipeline.isWaiting(httpSession) && pipeline.isBufferLimitExceeded()) {
+                IoSession parent = httpSession.getParent();
+                if (parent != null && !parent.isClosing()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(format("Pipelined responses exceeded buffering limit, resetting connection %s", parent));
+                    }
+                    parent.close(true);
+                }
+            }
+        }
+    }
+}
@@ -24,10 +24,11 @@ package org.kaazing.gateway.transport.http;
 import static org.kaazing.gateway.resource.address.ResourceAddress.ALTERNATE;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
-import java.util.NavigableSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -90,32 +91,20 @@ public class HttpBindings extends Bindings<HttpBinding> {
         if (httpBinding != null) {
             URI location = address.getResource();
             String path = location.getPath();
-
-            Binding httpBinding2 = httpBinding.get(path);
-            if (httpBinding2 != null) {
-                ResourceAddress boundAddress = httpBinding2.bindAddress();
-                ResourceAddress boundAddressFloor = getFloorTransport(boundAddress);
-                ResourceAddress sourceAddressFloor = getFloorTransport(address);
-
-                URI sourceAddressURI = sourceAddressFloor.getResource();
-                while (boundAddressFloor != null) {
-                    if (sourceAddressURI.equals(boundAddressFloor.getResource())) {
-                        return httpBinding2;
-                    }
-                    boundAddressFloor = boundAddressFloor.getOption(ALTERNATE);
-                }
-            }
+            URI sourceAddressURI = getFloorTransport(address).getResource();
+            return httpBinding.get(path, sourceAddressURI);
         }
         
         return null;
     }
 
-    private ResourceAddress getFloorTransport(ResourceAddress boundAddress) {
-        if(boundAddress.getTransport() == null){
-            return boundAddress;
+    private static ResourceAddress getFloorTransport(ResourceAddress boundAddress) {
+        ResourceAddress transport = boundAddress.getTransport();
+        while (transport != null) {
+            boundAddress = transport;
+            transport = boundAddress.getTransport();
         }
-        return getFloorTransport(boundAddress.getTransport());
-        
+        return boundAddress;
     }
 
     @Override
@@ -193,6 +182,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
         };
 
         private final ConcurrentNavigableMap<String, Binding> bindingsByPath;
+        private final HttpPathTrie<PathBinding> bindingsByPrefix;
 
         @Override
         public int hashCode() {
@@ -244,6 +234,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
         HttpBinding(ResourceAddress bindAddress) {
             super(bindAddress);
             bindingsByPath = new ConcurrentSkipListMap<>(PATH_ASCENDING);
+            bindingsByPrefix = new HttpPathTrie<>();
         }
         
         boolean isEmpty() {
@@ -255,30 +246,62 @@ public class HttpBindings extends Bindings<HttpBinding> {
         }
 
         Binding get(String path)  {
-            NavigableSet<String> paths = bindingsByPath.navigableKeySet();
-            NavigableSet<String> candidatePaths = paths.headSet(path, true);
+            PathBinding pathBinding = bindingsByPrefix.getLongestPrefix(path);
+            return (pathBinding != null) ? pathBinding.binding : null;
+        }
 
-            for (Iterator<String> $i = candidatePaths.descendingIterator(); $i.hasNext(); ) {
-                String candidatePath = $i.next();
-                if (path.startsWith(candidatePath)) {
-                    return bindingsByPath.get(candidatePath);
-                }
-            }
-            
-            return null;
+        Binding get(String path, URI transportURI)  {
+            PathBinding pathBinding = bindingsByPrefix.getLongestPrefix(path);
+            return (pathBinding != null && pathBinding.matchesTransport(transportURI)) ? pathBinding.binding : null;
         }
 
-        Binding put(String path, Binding binding)  {
-            return bindingsByPath.putIfAbsent(path, binding);
+        synchronized Binding put(String path, Binding binding)  {
+            Binding oldBinding = bindingsByPath.putIfAbsent(path, binding);
+            if (oldBinding == null) {
+                bindingsByPrefix.putIfAbsent(path, new PathBinding(binding));
+            }
+            return oldBinding;
         }
 
         boolean remove(String path, Binding binding)  {
             if ( binding == (bindingsByPath.get(path))) {
                 if ( binding.decrementReferenceCount() == 0 ) {
-                    return bindingsByPath.remove(path, binding);
+                    synchronized (this) {
+                        if (bindingsByPath.remove(path, binding)) {
+                            bindingsByPrefix.remove(path);
+                            return true;
+                        }
+                    }
                 }
             }
             return false;
         }
+
+        private static final class PathBinding {
+            private final Binding binding;
+            private final URI[] transportURIs;
+
+            PathBinding(Binding binding) {
+                this.binding = binding;
+
+                // floor transport of the bound address, followed by its alternates
+                List<URI> transportURIs = new ArrayList<>();
+                ResourceAddress transport = getFloorTransport(binding.bindAddress());
+                while (transport != null) {
+                    transportURIs.add(transport.getResource());
+                    transport = transport.getOption(ALTERNATE);
+                }
+                this.transportURIs = transportURIs.toArray(new URI[transportURIs.size()]);
+            }
+
+            boolean matchesTransport(URI transportURI) {
+                for (URI candidateURI : transportURIs) {
+                    if (transportURI.equals(candidateURI)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
     }
 }
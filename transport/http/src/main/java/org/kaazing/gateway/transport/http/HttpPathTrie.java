@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Compressed radix trie from path to value, answering longest-prefix matches.
+ *
+ * Reads are lock free and allocation free: each node is immutable, and updates rebuild the nodes
+ * along the changed path before publishing a new root.  Updates are serialized, and are expected
+ * to be rare compared to lookups (bind and unbind, versus every request).
+ */
+final class HttpPathTrie<V> {
+
+    private volatile Node<V> root;
+
+    HttpPathTrie() {
+        this.root = new Node<>("", null, Node.NO_FIRST_CHARS, Node.<V>noChildren());
+    }
+
+    boolean isEmpty() {
+        Node<V> root = this.root;
+        return root.value == null && root.children.length == 0;
+    }
+
+    /**
+     * @return the value mapped to the longest key that is a prefix of the path, or null if none
+     */
+    V getLongestPrefix(String path) {
+        Node<V> node = root;
+        V match = node.value;
+        int offset = 0;
+        int length = path.length();
+        while (offset < length) {
+            Node<V> child = node.child(path.charAt(offset));
+            if (child == null || !path.regionMatches(offset, child.label, 0, child.label.length())) {
+                break;
+            }
+            offset += child.label.length();
+            node = child;
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * @return the value mapped to exactly this key, or null if none
+     */
+    V get(String key) {
+        Node<V> node = root;
+        int offset = 0;
+        int length = key.length();
+        while (offset < length) {
+            Node<V> child = node.child(key.charAt(offset));
+            if (child == null || !key.regionMatches(offset, child.label, 0, child.label.length())) {
+                return null;
+            }
+            offset += child.label.length();
+            node = child;
+        }
+        return node.value;
+    }
+
+    /**
+     * @return the existing value when the key is already mapped, null if the value has been recorded
+     */
+    synchronized V putIfAbsent(String key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        V oldValue = get(key);
+        if (oldValue == null) {
+            root = put(root, key, 0, value);
+        }
+        return oldValue;
+    }
+
+    /**
+     * @return the value that was mapped to the key and has been removed, or null if none
+     */
+    synchronized V remove(String key) {
+        V oldValue = get(key);
+        if (oldValue != null) {
+            root = remove(root, key, 0);
+        }
+        return oldValue;
+    }
+
+    private static <V> Node<V> put(Node<V> node, String key, int offset, V value) {
+        if (offset == key.length()) {
+            return new Node<>(node.label, value, node.firstChars, node.children);
+        }
+
+        char c = key.charAt(offset);
+        int index = binarySearch(node.firstChars, c);
+        if (index < 0) {
+            Node<V> leaf = new Node<>(key.substring(offset), value, Node.NO_FIRST_CHARS, Node.<V>noChildren());
+            return node.withChildAdded(-(index + 1), leaf);
+        }
+
+        Node<V> child = node.children[index];
+        String label = child.label;
+        int common = 1;
+        int limit = Math.min(label.length(), key.length() - offset);
+        while (common < limit && label.charAt(common) == key.charAt(offset + common)) {
+            common++;
+        }
+
+        if (common < label.length()) {
+            // split the child label at the end of the common prefix
+            Node<V> suffix = new Node<>(label.substring(common), child.value, child.firstChars, child.children);
+            child = new Node<>(label.substring(0, common), null,
+                    new char[] { suffix.label.charAt(0) }, Node.singleChild(suffix));
+        }
+
+        return node.withChildReplaced(index, put(child, key, offset + common, value));
+    }
+
+    private static <V> Node<V> remove(Node<V> node, String key, int offset) {
+        if (offset == key.length()) {
+            return compact(new Node<>(node.label, null, node.firstChars, node.children));
+        }
+
+        int index = binarySearch(node.firstChars, key.charAt(offset));
+        Node<V> child = node.children[index];
+        Node<V> newChild = remove(child, key, offset + child.label.length());
+        Node<V> newNode = (newChild != null) ? node.withChildReplaced(index, newChild) : node.withChildRemoved(index);
+        return compact(newNode);
+    }
+
+    // merge a node without value into its only child, or drop it when it has no children (except the root)
+    private static <V> Node<V> compact(Node<V> node) {
+        if (node.value != null || node.label.isEmpty()) {
+            return node;
+        }
+        switch (node.children.length) {
+        case 0:
+            return null;
+        case 1:
+            Node<V> child = node.children[0];
+            return new Node<>(node.label + child.label, child.value, child.firstChars, child.children);
+        default:
+            return node;
+        }
+    }
+
+    private static final class Node<V> {
+        private static final char[] NO_FIRST_CHARS = new char[0];
+        private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+        private final String label;
+        private final V value;
+        private final char[] firstChars;
+        private final Node<V>[] children;
+
+        Node(String label, V value, char[] firstChars, Node<V>[] children) {
+            this.label = label;
+            this.value = value;
+            this.firstChars = firstChars;
+            this.children = children;
+        }
+
+        Node<V> child(char c) {
+            int index = binarySearch(firstChars, c);
+            return (index >= 0) ? children[index] : null;
+        }
+
+        Node<V> withChildAdded(int index, Node<V> child) {
+            int length = children.length;
+            char[] newFirstChars = new char[length + 1];
+            Node<V>[] newChildren = copyOf(children, length + 1);
+            System.arraycopy(firstChars, 0, newFirstChars, 0, index);
+            System.arraycopy(firstChars, index, newFirstChars, index + 1, length - index);
+            System.arraycopy(children, index, newChildren, index + 1, length - index);
+            newFirstChars[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            return new Node<>(label, value, newFirstChars, newChildren);
+        }
+
+        Node<V> withChildReplaced(int index, Node<V> child) {
+            Node<V>[] newChildren = children.clone();
+            newChildren[index] = child;
+            return new Node<>(label, value, firstChars, newChildren);
+        }
+
+        Node<V> withChildRemoved(int index) {
+            int length = children.length;
+            char[] newFirstChars = new char[length - 1];
+            Node<V>[] newChildren = copyOf(children, length - 1);
+            System.arraycopy(firstChars, 0, newFirstChars, 0, index);
+            System.arraycopy(firstChars, index + 1, newFirstChars, index, length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, length - index - 1);
+            return new Node<>(label, value, newFirstChars, newChildren);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Node<V>[] noChildren() {
+            return (Node<V>[]) NO_CHILDREN;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Node<V>[] singleChild(Node<V> child) {
+            Node<V>[] children = (Node<V>[]) new Node<?>[1];
+            children[0] = child;
+            return children;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The HTTP sessions dispatched concurrently for pipelined requests on one transport
+ * connection, in request order. Only the session at the head of the pipeline writes
+ * its response, so that responses stream back in request order. The other sessions
+ * keep their writes (and close) queued in their own write request queue until they
+ * reach the head of the pipeline, and the connection is reset if those queued writes
+ * exceed the buffering limit.
+ */
+public final class HttpPipeline {
+
+    private final Deque<DefaultHttpSession> sessions;
+    private final Set<DefaultHttpSession> deferredCommits;
+    private final long maximumBufferedBytes;
+
+    HttpPipeline(long maximumBufferedBytes) {
+        this.sessions = new ArrayDeque<>();
+        this.deferredCommits = new HashSet<>();
+        this.maximumBufferedBytes = maximumBufferedBytes;
+    }
+
+    /**
+     * @return true if the session must wait for earlier responses before writing its own
+     */
+    synchronized boolean add(DefaultHttpSession session) {
+        sessions.add(session);
+        return sessions.peekFirst() != session;
+    }
+
+    synchronized boolean isWaiting(DefaultHttpSession session) {
+        return !sessions.isEmpty() && sessions.peekFirst() != session && sessions.contains(session);
+    }
+
+    /**
+     * @return true if the session is waiting behind an earlier response and must commit later,
+     *         false if the session may commit now
+     */
+    synchronized boolean deferCommit(DefaultHttpSession session) {
+        if (!isWaiting(session)) {
+            return false;
+        }
+        deferredCommits.add(session);
+        return true;
+    }
+
+    synchronized boolean takeDeferredCommit(DefaultHttpSession session) {
+        return deferredCommits.remove(session);
+    }
+
+    /**
+     * @return the session now at the head of the pipeline if the removed session was at the head, otherwise null
+     */
+    synchronized DefaultHttpSession remove(DefaultHttpSession session) {
+        boolean wasHead = sessions.peekFirst() == session;
+        sessions.remove(session);
+        deferredCommits.remove(session);
+        return wasHead ? sessions.peekFirst() : null;
+    }
+
+    synchronized Collection<DefaultHttpSession> clear() {
+        Collection<DefaultHttpSession> removed = new ArrayDeque<>(sessions);
+        sessions.clear();
+        deferredCommits.clear();
+        return removed;
+    }
+
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns true if the responses held back behind the head of the pipeline have reached the
+     * buffering limit for this connection, in which case no further pipelined requests should be dispatched.
+     */
+    public boolean isBufferLimitReached() {
+        return getBufferedBytes() >= maximumBufferedBytes;
+    }
+
+    /**
+     * Returns true if the responses held back behind the head of the pipeline have exceeded the
+     * buffering limit for this connection, in which case the connection should be reset.
+     */
+    public boolean isBufferLimitExceeded() {
+        return getBufferedBytes() > maximumBufferedBytes;
+    }
+
+    private synchronized long getBufferedBytes() {
+        long bufferedBytes = 0L;
+        Iterator<DefaultHttpSession> iterator = sessions.iterator();
+        if (iterator.hasNext()) {
+            // head of the pipeline streams directly to the connection
+            iterator.next();
+        }
+        while (iterator.hasNext()) {
+            bufferedBytes += iterator.next().getScheduledWriteBytes();
+        }
+        return bufferedBytes;
+    }
+}
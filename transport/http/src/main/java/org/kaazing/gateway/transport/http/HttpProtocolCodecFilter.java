@@ -60,8 +60,9 @@ public class HttpProtocolCodecFilter extends ProtocolCodecFilter {
         if (writeRequest.getMessage() instanceof  Message) {
             Message message = (Message) writeRequest.getMessage();
             String nextProtocol = BridgeSession.LOCAL_ADDRESS.get(session).getOption(ResourceAddress.NEXT_PROTOCOL);
-            if (message.hasCache()) {
-                IoBufferEx cachedProtocolBuffer = message.getCache().get(nextProtocol);
+            int encodingId = (nextProtocol != null) ? Message.getEncodingId(nextProtocol) : -1;
+            if (message.hasCache() && encodingId != -1) {
+                IoBufferEx cachedProtocolBuffer = message.getCachedEncoding(encodingId);
                 if (cachedProtocolBuffer != null) {
                     if(cachedProtocolBuffer.capacity()==0) {
                         writeRequest.getFuture().setWritten();
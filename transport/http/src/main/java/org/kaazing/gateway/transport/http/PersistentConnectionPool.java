@@ -30,7 +30,7 @@ import org.kaazing.gateway.resource.address.http.HttpResourceAddress;
 import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.http.bridge.filter.HttpFilterAdapter;
 import org.kaazing.mina.core.session.IoSessionEx;
-import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
+import org.kaazing.mina.netty.util.threadlocal.WorkerLocal;
 import org.slf4j.Logger;
 
 import java.util.Arrays;
@@ -50,7 +50,7 @@ class PersistentConnectionPool {
             new TypedAttributeKey<>(PersistentConnectionPool.class, "address");
 
     // server address -> set of persistent connections (per thread).
-    // Using ThreadLocal for the following reasons:
+    // Using a WorkerLocal for the following reasons:
     // - we need to return thread-aligned IoSession
     // - it reduces contention compared to synchronized ServerConnections
     private final ThreadLocal<ServerConnections> connections;
@@ -60,7 +60,7 @@ class PersistentConnectionPool {
     private final CloseListener closeListener;
 
     PersistentConnectionPool(Logger logger) {
-        this.connections = new VicariousThreadLocal<ServerConnections>() {
+        this.connections = new WorkerLocal<ServerConnections>() {
             @Override
             protected  ServerConnections initialValue() {
                 return new ServerConnections();
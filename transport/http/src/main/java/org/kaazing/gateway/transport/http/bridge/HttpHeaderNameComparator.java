@@ -28,6 +28,11 @@ public class HttpHeaderNameComparator implements Comparator<String> {
     public static final HttpHeaderNameComparator INSTANCE = new HttpHeaderNameComparator();
 
     public int compare(String o1, String o2) {
+        // decoded well-known header names are interned, see HttpHeaderNames
+        if (o1 == o2) {
+            return 0;
+        }
+
         // Note: this is reverse ordering to deal with
         // explicit ordering of WebSocket handshake headers
         return -o1.compareToIgnoreCase(o2);
@@ -26,8 +26,19 @@ import org.kaazing.gateway.transport.bridge.Message;
 public abstract class HttpMessage extends Message {
 
 	public enum Kind { REQUEST, RESPONSE, CONTENT }
+
+	// HTTP/2 stream of this message, 0 for HTTP/1.x
+	private int streamId;
 	
 	public abstract Kind getKind();
 	
 	public abstract boolean isComplete();
+
+	public int getStreamId() {
+	    return streamId;
+	}
+
+	public void setStreamId(int streamId) {
+	    this.streamId = streamId;
+	}
 }
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * HPACK header block decoder (RFC 7541) for one direction of an HTTP/2 connection. The dynamic table is
+ * shared by all header blocks of the connection, so blocks must be decoded in the order they are received.
+ */
+public final class HpackDecoder {
+
+    public interface HeaderListener {
+
+        void header(String name, String value) throws ProtocolDecoderException;
+    }
+
+    private final int maximumTableSize;
+    private final HpackTable table;
+
+    public HpackDecoder(int maximumTableSize) {
+        this.maximumTableSize = maximumTableSize;
+        this.table = new HpackTable(maximumTableSize);
+    }
+
+    /**
+     * Decodes the complete header block remaining in {@code block}, reporting each header field in order.
+     */
+    public void decode(IoBufferEx block, HeaderListener listener) throws ProtocolDecoderException {
+        boolean tableSizeUpdateAllowed = true;
+        while (block.hasRemaining()) {
+            int b = block.get(block.position()) & 0xff;
+            if ((b & 0x80) != 0) {
+                // indexed header field
+                int index = decodeInteger(block, 7);
+                listener.header(table.getName(index), table.getValue(index));
+            }
+            else if ((b & 0xc0) == 0x40) {
+                // literal header field with incremental indexing
+                int index = decodeInteger(block, 6);
+                String name = (index != 0) ? table.getName(index) : decodeString(block);
+                String value = decodeString(block);
+                table.add(name, value);
+                listener.header(name, value);
+            }
+            else if ((b & 0xe0) == 0x20) {
+                // dynamic table size update
+                if (!tableSizeUpdateAllowed) {
+                    throw new ProtocolDecoderException("Dynamic table size update after header field");
+                }
+                int size = decodeInteger(block, 5);
+                if (size > maximumTableSize) {
+                    throw new ProtocolDecoderException("Dynamic table size exceeds maximum: " + size);
+                }
+                table.setMaximumSize(size);
+                continue;
+            }
+            else {
+                // literal header field without indexing, or never indexed
+                int index = decodeInteger(block, 4);
+                String name = (index != 0) ? table.getName(index) : decodeString(block);
+                String value = decodeString(block);
+                listener.header(name, value);
+            }
+            tableSizeUpdateAllowed = false;
+        }
+    }
+
+    static int decodeInteger(IoBufferEx block, int prefixBits) throws ProtocolDecoderException {
+        int prefixMask = (1 << prefixBits) - 1;
+        int value = block.get() & prefixMask;
+        if (value < prefixMask) {
+            return value;
+        }
+
+        long result = value;
+        int shift = 0;
+        int b;
+        do {
+            if (!block.hasRemaining()) {
+                throw new ProtocolDecoderException("Truncated integer");
+            }
+            if (shift > 28) {
+                throw new ProtocolDecoderException("Integer overflow");
+            }
+            b = block.get() & 0xff;
+            result += (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if (result > Integer.MAX_VALUE) {
+            throw new ProtocolDecoderException("Integer overflow");
+        }
+        return (int) result;
+    }
+
+    private static String decodeString(IoBufferEx block) throws ProtocolDecoderException {
+        if (!block.hasRemaining()) {
+            throw new ProtocolDecoderException("Truncated string");
+        }
+        boolean huffman = (block.get(block.position()) & 0x80) != 0;
+        int length = decodeInteger(block, 7);
+        if (length > block.remaining()) {
+            throw new ProtocolDecoderException("Truncated string");
+        }
+
+        byte[] bytes;
+        if (huffman) {
+            bytes = HpackHuffman.decode(block, length);
+        }
+        else {
+            bytes = new byte[length];
+            block.get(bytes);
+        }
+        return new String(bytes, ISO_8859_1);
+    }
+}
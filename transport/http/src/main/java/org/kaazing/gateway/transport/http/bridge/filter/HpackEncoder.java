@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * HPACK header block encoder (RFC 7541) for one direction of an HTTP/2 connection. Fields are encoded
+ * from the static table where possible. Only fields whose values tend to repeat across responses are
+ * added to the dynamic table, so per-request values never evict them. Header names must be lowercase.
+ */
+public final class HpackEncoder {
+
+    private static final Set<String> INDEXED_NAMES = new TreeSet<>();
+    private static final Set<String> SENSITIVE_NAMES = new TreeSet<>();
+
+    static {
+        INDEXED_NAMES.add("access-control-allow-credentials");
+        INDEXED_NAMES.add("access-control-allow-headers");
+        INDEXED_NAMES.add("access-control-allow-origin");
+        INDEXED_NAMES.add("cache-control");
+        INDEXED_NAMES.add("content-type");
+        INDEXED_NAMES.add("expires");
+        INDEXED_NAMES.add("pragma");
+        INDEXED_NAMES.add("server");
+        INDEXED_NAMES.add("vary");
+        INDEXED_NAMES.add("x-content-type-options");
+
+        SENSITIVE_NAMES.add("authorization");
+        SENSITIVE_NAMES.add("proxy-authorization");
+        SENSITIVE_NAMES.add("set-cookie");
+    }
+
+    private static final int ENTRY_OVERHEAD = 32;
+
+    // dynamic table index by field, as an insertion number, oldest entries are evicted first
+    private final Map<String, Integer> insertions = new HashMap<>();
+    private final Map<Integer, String> fields = new HashMap<>();
+    private int insertCount;
+    private int oldestInsertion;
+    private int size;
+    private int maximumSize;
+    private int pendingMaximumSize = -1;
+
+    public HpackEncoder(int maximumTableSize) {
+        this.maximumSize = maximumTableSize;
+    }
+
+    /**
+     * Applies the table size advertised by the peer decoder, signaled at the start of the next header block.
+     */
+    public void setMaximumTableSize(int maximumTableSize) {
+        if (maximumTableSize != maximumSize) {
+            pendingMaximumSize = maximumTableSize;
+        }
+    }
+
+    public void startBlock(IoBufferEx out) {
+        if (pendingMaximumSize != -1) {
+            maximumSize = pendingMaximumSize;
+            pendingMaximumSize = -1;
+            evict(maximumSize);
+            encodeInteger(out, 0x20, 5, maximumSize);
+        }
+    }
+
+    public void encode(IoBufferEx out, String name, String value) {
+        String field = name + ':' + value;
+        Integer staticIndex = HpackTable.STATIC_FIELD_INDEX.get(field);
+        if (staticIndex != null) {
+            encodeInteger(out, 0x80, 7, staticIndex);
+            return;
+        }
+
+        Integer insertion = insertions.get(field);
+        if (insertion != null) {
+            encodeInteger(out, 0x80, 7, HpackTable.STATIC_TABLE.length + 1 + insertCount - insertion);
+            return;
+        }
+
+        Integer nameIndex = HpackTable.STATIC_NAME_INDEX.get(name);
+        if (INDEXED_NAMES.contains(name) && add(field, name.length() + value.length() + ENTRY_OVERHEAD)) {
+            encodeLiteral(out, 0x40, 6, nameIndex, name, value);
+        }
+        else if (SENSITIVE_NAMES.contains(name)) {
+            encodeLiteral(out, 0x10, 4, nameIndex, name, value);
+        }
+        else {
+            encodeLiteral(out, 0x00, 4, nameIndex, name, value);
+        }
+    }
+
+    private boolean add(String field, int entrySize) {
+        evict(maximumSize - entrySize);
+        if (entrySize > maximumSize) {
+            return false;
+        }
+
+        insertCount++;
+        insertions.put(field, insertCount);
+        fields.put(insertCount, field);
+        size += entrySize;
+        return true;
+    }
+
+    private void evict(int targetSize) {
+        while (size > targetSize && oldestInsertion < insertCount) {
+            oldestInsertion++;
+            String field = fields.remove(oldestInsertion);
+            insertions.remove(field);
+            // name and value lengths plus the ':' separator
+            size -= field.length() - 1 + ENTRY_OVERHEAD;
+        }
+    }
+
+    private static void encodeLiteral(IoBufferEx out, int pattern, int prefixBits, Integer nameIndex, String name,
+            String value) {
+        if (nameIndex != null) {
+            encodeInteger(out, pattern, prefixBits, nameIndex);
+        }
+        else {
+            out.put((byte) pattern);
+            encodeString(out, name);
+        }
+        encodeString(out, value);
+    }
+
+    static void encodeInteger(IoBufferEx out, int pattern, int prefixBits, int value) {
+        int prefixMask = (1 << prefixBits) - 1;
+        if (value < prefixMask) {
+            out.put((byte) (pattern | value));
+            return;
+        }
+
+        out.put((byte) (pattern | prefixMask));
+        value -= prefixMask;
+        while (value >= 0x80) {
+            out.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static void encodeString(IoBufferEx out, String value) {
+        byte[] bytes = value.getBytes(ISO_8859_1);
+        int huffmanLength = HpackHuffman.encodedLength(bytes);
+        if (huffmanLength < bytes.length) {
+            encodeInteger(out, 0x80, 7, huffmanLength);
+            HpackHuffman.encode(bytes, out);
+        }
+        else {
+            encodeInteger(out, 0x00, 7, bytes.length);
+            out.put(bytes);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+
+/**
+ * HPACK static table followed by a connection's dynamic table (RFC 7541, Section 2.3), indexed from 1.
+ * The dynamic table is a ring of entries, newest first, evicted from the oldest end.
+ */
+final class HpackTable {
+
+    static final String[][] STATIC_TABLE = {
+        { ":authority", "" },
+        { ":method", "GET" },
+        { ":method", "POST" },
+        { ":path", "/" },
+        { ":path", "/index.html" },
+        { ":scheme", "http" },
+        { ":scheme", "https" },
+        { ":status", "200" },
+        { ":status", "204" },
+        { ":status", "206" },
+        { ":status", "304" },
+        { ":status", "400" },
+        { ":status", "404" },
+        { ":status", "500" },
+        { "accept-charset", "" },
+        { "accept-encoding", "gzip, deflate" },
+        { "accept-language", "" },
+        { "accept-ranges", "" },
+        { "accept", "" },
+        { "access-control-allow-origin", "" },
+        { "age", "" },
+        { "allow", "" },
+        { "authorization", "" },
+        { "cache-control", "" },
+        { "content-disposition", "" },
+        { "content-encoding", "" },
+        { "content-language", "" },
+        { "content-length", "" },
+        { "content-location", "" },
+        { "content-range", "" },
+        { "content-type", "" },
+        { "cookie", "" },
+        { "date", "" },
+        { "etag", "" },
+        { "expect", "" },
+        { "expires", "" },
+        { "from", "" },
+        { "host", "" },
+        { "if-match", "" },
+        { "if-modified-since", "" },
+        { "if-none-match", "" },
+        { "if-range", "" },
+        { "if-unmodified-since", "" },
+        { "last-modified", "" },
+        { "link", "" },
+        { "location", "" },
+        { "max-forwards", "" },
+        { "proxy-authenticate", "" },
+        { "proxy-authorization", "" },
+        { "range", "" },
+        { "referer", "" },
+        { "refresh", "" },
+        { "retry-after", "" },
+        { "server", "" },
+        { "set-cookie", "" },
+        { "strict-transport-security", "" },
+        { "transfer-encoding", "" },
+        { "user-agent", "" },
+        { "vary", "" },
+        { "via", "" },
+        { "www-authenticate", "" }
+    };
+
+    // static table index of the first entry with each name, and of each name and value pair
+    static final Map<String, Integer> STATIC_NAME_INDEX = new HashMap<>();
+    static final Map<String, Integer> STATIC_FIELD_INDEX = new HashMap<>();
+
+    static {
+        for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+            STATIC_NAME_INDEX.put(STATIC_TABLE[i][0], i + 1);
+            if (!STATIC_TABLE[i][1].isEmpty()) {
+                STATIC_FIELD_INDEX.put(STATIC_TABLE[i][0] + ':' + STATIC_TABLE[i][1], i + 1);
+            }
+        }
+    }
+
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private String[] names;
+    private String[] values;
+    private int head;
+    private int count;
+    private int size;
+    private int maximumSize;
+
+    HpackTable(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.names = new String[16];
+        this.values = new String[16];
+    }
+
+    String getName(int index) throws ProtocolDecoderException {
+        if (index > 0 && index <= STATIC_TABLE.length) {
+            return STATIC_TABLE[index - 1][0];
+        }
+        return names[dynamicSlot(index)];
+    }
+
+    String getValue(int index) throws ProtocolDecoderException {
+        if (index > 0 && index <= STATIC_TABLE.length) {
+            return STATIC_TABLE[index - 1][1];
+        }
+        return values[dynamicSlot(index)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int length() {
+        return count;
+    }
+
+    void add(String name, String value) {
+        int entrySize = name.length() + value.length() + ENTRY_OVERHEAD;
+        evict(maximumSize - entrySize);
+        if (entrySize > maximumSize) {
+            // an entry larger than the table empties the table and is not added
+            return;
+        }
+
+        if (count == names.length) {
+            String[] newNames = new String[names.length * 2];
+            String[] newValues = new String[values.length * 2];
+            for (int i = 0; i < count; i++) {
+                newNames[i] = names[(head + i) % names.length];
+                newValues[i] = values[(head + i) % values.length];
+            }
+            names = newNames;
+            values = newValues;
+            head = 0;
+        }
+
+        head = (head + names.length - 1) % names.length;
+        names[head] = name;
+        values[head] = value;
+        count++;
+        size += entrySize;
+    }
+
+    void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        evict(maximumSize);
+    }
+
+    private void evict(int targetSize) {
+        while (count > 0 && size > targetSize) {
+            int oldest = (head + count - 1) % names.length;
+            size -= names[oldest].length() + values[oldest].length() + ENTRY_OVERHEAD;
+            names[oldest] = null;
+            values[oldest] = null;
+            count--;
+        }
+    }
+
+    private int dynamicSlot(int index) throws ProtocolDecoderException {
+        int dynamicIndex = index - STATIC_TABLE.length - 1;
+        if (index <= 0 || dynamicIndex >= count) {
+            throw new ProtocolDecoderException("Invalid header table index: " + index);
+        }
+        return (head + dynamicIndex) % names.length;
+    }
+}
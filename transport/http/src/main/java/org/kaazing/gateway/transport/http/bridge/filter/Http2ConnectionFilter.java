@@ -0,0 +1,1389 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.lang.String.format;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONNECTION;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_LENGTH;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_HOST;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_TRANSFER_ENCODING;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_UPGRADE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.COMPRESSION_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.CONNECTION_PREFACE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.DEFAULT_HEADER_TABLE_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.DEFAULT_INITIAL_WINDOW_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.DEFAULT_MAXIMUM_FRAME_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.ENHANCE_YOUR_CALM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_ACK;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_END_HEADERS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_END_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_PADDED;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_PRIORITY;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLOW_CONTROL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FRAME_HEADER_LENGTH;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FRAME_SIZE_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.INTERNAL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.MAXIMUM_WINDOW_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.NO_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.PROTOCOL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.REFUSED_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_ENABLE_PUSH;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_HEADER_TABLE_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_MAX_CONCURRENT_STREAMS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_MAX_FRAME_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.STREAM_CLOSED;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_CONTINUATION;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_DATA;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_GOAWAY;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_HEADERS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_PING;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_PRIORITY;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_PUSH_PROMISE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_RST_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_SETTINGS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_WINDOW_UPDATE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.putFrameHeader;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.kaazing.gateway.transport.SslUtils;
+import org.kaazing.gateway.transport.http.HttpAcceptFilter;
+import org.kaazing.gateway.transport.http.HttpCookie;
+import org.kaazing.gateway.transport.http.HttpMethod;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpHeaderNameComparator;
+import org.kaazing.gateway.transport.http.bridge.HttpMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.future.DefaultWriteFutureEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+import org.kaazing.mina.core.write.WriteRequestEx;
+import org.slf4j.Logger;
+
+/**
+ * Serves HTTP/2 over cleartext (h2c) on an accepted HTTP connection, either by prior knowledge when the
+ * connection starts with the HTTP/2 connection preface, or after an HTTP/1.1 {@code Upgrade: h2c} request
+ * handled by the filter returned from {@link #getUpgradeFilter()}.  Once HTTP/2 is negotiated the HTTP/1.1
+ * codec is removed, the header block of each stream is decoded to an {@link HttpRequestMessage} and its DATA
+ * frames to {@link HttpContentMessage}s, all tagged with the stream id, so the filters above see HTTP/1.1
+ * semantics.  Responses written for a stream are encoded as HEADERS and flow-controlled DATA frames.
+ * Server push and stream priorities are not supported.
+ */
+public class Http2ConnectionFilter extends IoFilterAdapter {
+
+    private static final int MAXIMUM_CONCURRENT_STREAMS = 100;
+    private static final int MAXIMUM_HEADER_LIST_SIZE = 65536;
+    private static final int MAXIMUM_NON_STREAMING_CONTENT_LENGTH = 4096;
+
+    // streams the client may reset while still active, per second, before the connection is closed,
+    // as opening and immediately resetting streams costs the client nothing but dispatches every request
+    private static final int MAXIMUM_RESET_STREAMS_PER_SECOND = 100;
+    private static final long RESET_STREAMS_INTERVAL_MILLIS = 1000L;
+
+    // receive window credit is returned to the client once half of the initial window is consumed
+    private static final int WINDOW_UPDATE_THRESHOLD = DEFAULT_INITIAL_WINDOW_SIZE / 2;
+
+    private static final String HEADER_COOKIE = "Cookie";
+    private static final String HEADER_HTTP2_SETTINGS = "HTTP2-Settings";
+    private static final String HEADER_ORIGIN = "Origin";
+    private static final String HEADER_REFERER = "Referer";
+    private static final String PROTOCOL_H2C = "h2c";
+
+    // connection-specific header fields are not allowed in HTTP/2 (RFC 7540, Section 8.1.2.2)
+    private static final Set<String> CONNECTION_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade"));
+
+    private enum State { SNIFF, HTTP_1_1, PREFACE, FRAMES, CLOSED }
+
+    private final Logger logger;
+    private final HpackDecoder decoder = new HpackDecoder(DEFAULT_HEADER_TABLE_SIZE);
+    private final HpackEncoder encoder = new HpackEncoder(DEFAULT_HEADER_TABLE_SIZE);
+    private final Map<Integer, Http2Stream> streams = new HashMap<>();
+    private final Set<Http2Stream> blockedStreams = new LinkedHashSet<>();
+    private final Http2UpgradeFilter upgradeFilter = new Http2UpgradeFilter();
+
+    private NextFilter nextFilter;
+    private State state = State.SNIFF;
+    private int prefaceOffset;
+    private IoBufferEx frameBuffer;
+
+    private int headersStreamId;
+    private int headersFlags;
+    private IoBufferEx headerBlock;
+
+    private int lastStreamId;
+    private int currentStreamId;
+    private boolean goingAway;
+
+    private long resetStreamsIntervalStart;
+    private int resetStreams;
+
+    private int sendWindow = DEFAULT_INITIAL_WINDOW_SIZE;
+    private int receiveWindow = DEFAULT_INITIAL_WINDOW_SIZE;
+    private int receiveConsumed;
+    private int initialSendWindow = DEFAULT_INITIAL_WINDOW_SIZE;
+    private int maximumFrameSize = DEFAULT_MAXIMUM_FRAME_SIZE;
+
+    public Http2ConnectionFilter(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Returns the filter to be added after the HTTP/1.1 codec to handle {@code Upgrade: h2c} requests.
+     */
+    public IoFilterAdapter getUpgradeFilter() {
+        return upgradeFilter;
+    }
+
+    @Override
+    public void onPostAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        this.nextFilter = nextFilter;
+    }
+
+    @Override
+    public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+        switch (state) {
+        case SNIFF:
+            sniff((IoSessionEx) session, (IoBufferEx) message);
+            break;
+        case PREFACE:
+        case FRAMES:
+            decode((IoSessionEx) session, (IoBufferEx) message);
+            break;
+        case CLOSED:
+            // discard frames received after GOAWAY
+            break;
+        default:
+            nextFilter.messageReceived(session, message);
+            break;
+        }
+    }
+
+    @Override
+    public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
+        Object message = writeRequest.getMessage();
+        switch (state) {
+        case PREFACE:
+        case FRAMES:
+            if (message instanceof HttpMessage) {
+                write((IoSessionEx) session, (WriteRequestEx) writeRequest, (HttpMessage) message);
+            }
+            else {
+                nextFilter.filterWrite(session, writeRequest);
+            }
+            break;
+        case CLOSED:
+            if (message instanceof HttpMessage) {
+                // connection is going away, discard
+                writeRequest.getFuture().setWritten();
+            }
+            else {
+                nextFilter.filterWrite(session, writeRequest);
+            }
+            break;
+        default:
+            nextFilter.filterWrite(session, writeRequest);
+            break;
+        }
+    }
+
+    @Override
+    public void sessionIdle(NextFilter nextFilter, IoSession session, IdleStatus status) throws Exception {
+        // the keep-alive timeout applies only when no stream is active
+        if (streams.isEmpty()) {
+            super.sessionIdle(nextFilter, session, status);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(NextFilter nextFilter, IoSession session, Throwable cause) throws Exception {
+        int streamId = currentStreamId;
+        if (streamId != 0 && !(cause instanceof Http2StreamException) && streams.containsKey(streamId)) {
+            // failure while dispatching a stream, reset only that stream
+            writeResetStream((IoSessionEx) session, streamId, INTERNAL_ERROR);
+            removeStream(streamId);
+            cause = new Http2StreamException(streamId, INTERNAL_ERROR, cause);
+        }
+        super.exceptionCaught(nextFilter, session, cause);
+    }
+
+    @Override
+    public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+        state = State.CLOSED;
+        for (Integer streamId : new ArrayList<>(streams.keySet())) {
+            removeStream(streamId);
+        }
+        super.sessionClosed(nextFilter, session);
+    }
+
+    private void sniff(IoSessionEx session, IoBufferEx buffer) throws Exception {
+        int position = buffer.position();
+        int length = Math.min(buffer.remaining(), CONNECTION_PREFACE.length - prefaceOffset);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + i) != CONNECTION_PREFACE[prefaceOffset + i]) {
+                state = State.HTTP_1_1;
+                if (prefaceOffset > 0) {
+                    // replay the bytes held back while they matched the preface
+                    byte[] held = Arrays.copyOf(CONNECTION_PREFACE, prefaceOffset);
+                    nextFilter.messageReceived(session, session.getBufferAllocator().wrap(ByteBuffer.wrap(held)));
+                }
+                nextFilter.messageReceived(session, buffer);
+                return;
+            }
+        }
+
+        prefaceOffset += length;
+        buffer.skip(length);
+        if (prefaceOffset == CONNECTION_PREFACE.length) {
+            start(session);
+            state = State.FRAMES;
+            decode(session, buffer);
+        }
+    }
+
+    private void start(IoSessionEx session) {
+        IoFilterChain filterChain = session.getFilterChain();
+        for (HttpAcceptFilter filter : Arrays.asList(HttpAcceptFilter.CODEC, HttpAcceptFilter.HTTP2_UPGRADE,
+                HttpAcceptFilter.HTTP_SERIALIZE_REQUEST_FILTER)) {
+            String filterName = filter.filterName();
+            if (filterChain.contains(filterName)) {
+                filterChain.remove(filterName);
+            }
+        }
+
+        IoBufferEx payload = allocate(session, 6);
+        int offset = payload.position();
+        payload.putShort((short) SETTINGS_MAX_CONCURRENT_STREAMS);
+        payload.putInt(MAXIMUM_CONCURRENT_STREAMS);
+        writeFrame(session, TYPE_SETTINGS, 0, 0, flip(payload, offset));
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(format("Started HTTP/2 connection on %s", session));
+        }
+    }
+
+    private void decode(IoSessionEx session, IoBufferEx buffer) throws Exception {
+        IoBufferEx in = buffer;
+        if (state == State.PREFACE) {
+            int position = in.position();
+            int length = Math.min(in.remaining(), CONNECTION_PREFACE.length - prefaceOffset);
+            for (int i = 0; i < length; i++) {
+                if (in.get(position + i) != CONNECTION_PREFACE[prefaceOffset + i]) {
+                    connectionError(session, PROTOCOL_ERROR, "invalid connection preface");
+                    return;
+                }
+            }
+            prefaceOffset += length;
+            in.skip(length);
+            if (prefaceOffset < CONNECTION_PREFACE.length) {
+                return;
+            }
+            state = State.FRAMES;
+        }
+
+        if (frameBuffer != null) {
+            // complete the partial frame held back from the previous read
+            IoBufferEx partial = frameBuffer;
+            frameBuffer = null;
+            partial.put(in);
+            partial.flip();
+            in = partial;
+        }
+
+        while (state == State.FRAMES && in.remaining() >= FRAME_HEADER_LENGTH) {
+            int position = in.position();
+            int length = in.getUnsignedMediumInt(position);
+            if (length > DEFAULT_MAXIMUM_FRAME_SIZE) {
+                connectionError(session, FRAME_SIZE_ERROR, format("frame length %d exceeds maximum", length));
+                return;
+            }
+            if (in.remaining() < FRAME_HEADER_LENGTH + length) {
+                break;
+            }
+
+            int type = in.get(position + 3) & 0xff;
+            int flags = in.get(position + 4) & 0xff;
+            int streamId = in.getInt(position + 5) & 0x7fffffff;
+            in.skip(FRAME_HEADER_LENGTH);
+            IoBufferEx payload = in.getSlice(length);
+            onFrame(session, type, flags, streamId, payload);
+        }
+
+        if (state == State.FRAMES && in.hasRemaining()) {
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            ByteBuffer partial = ByteBuffer.allocate(Math.max(in.remaining() * 2, FRAME_HEADER_LENGTH * 2));
+            frameBuffer = allocator.wrap(partial).setAutoExpander(allocator);
+            frameBuffer.put(in);
+        }
+    }
+
+    private void onFrame(IoSessionEx session, int type, int flags, int streamId, IoBufferEx payload)
+            throws Exception {
+
+        if (headersStreamId != 0 && type != TYPE_CONTINUATION) {
+            connectionError(session, PROTOCOL_ERROR, "expected CONTINUATION frame");
+            return;
+        }
+
+        switch (type) {
+        case TYPE_DATA:
+            onData(session, flags, streamId, payload);
+            break;
+        case TYPE_HEADERS:
+            onHeaders(session, flags, streamId, payload);
+            break;
+        case TYPE_PRIORITY:
+            if (streamId == 0) {
+                connectionError(session, PROTOCOL_ERROR, "PRIORITY frame on stream 0");
+            }
+            else if (payload.remaining() != 5) {
+                connectionError(session, FRAME_SIZE_ERROR, "invalid PRIORITY frame length");
+            }
+            // stream priorities are advisory and not supported
+            break;
+        case TYPE_RST_STREAM:
+            onResetStream(session, streamId, payload);
+            break;
+        case TYPE_SETTINGS:
+            onSettings(session, flags, streamId, payload);
+            break;
+        case TYPE_PUSH_PROMISE:
+            connectionError(session, PROTOCOL_ERROR, "PUSH_PROMISE frame from client");
+            break;
+        case TYPE_PING:
+            if (streamId != 0) {
+                connectionError(session, PROTOCOL_ERROR, "PING frame on stream " + streamId);
+            }
+            else if (payload.remaining() != 8) {
+                connectionError(session, FRAME_SIZE_ERROR, "invalid PING frame length");
+            }
+            else if ((flags & FLAG_ACK) == 0) {
+                writeFrame(session, TYPE_PING, FLAG_ACK, 0, copy(session, payload));
+            }
+            break;
+        case TYPE_GOAWAY:
+            if (streamId != 0) {
+                connectionError(session, PROTOCOL_ERROR, "GOAWAY frame on stream " + streamId);
+                break;
+            }
+            goingAway = true;
+            if (streams.isEmpty()) {
+                state = State.CLOSED;
+                session.close(false);
+            }
+            break;
+        case TYPE_WINDOW_UPDATE:
+            onWindowUpdate(session, streamId, payload);
+            break;
+        case TYPE_CONTINUATION:
+            onContinuation(session, flags, streamId, payload);
+            break;
+        default:
+            // unknown frame types must be ignored
+            break;
+        }
+    }
+
+    private void onData(IoSessionEx session, int flags, int streamId, IoBufferEx payload) throws Exception {
+        if (streamId == 0) {
+            connectionError(session, PROTOCOL_ERROR, "DATA frame on stream 0");
+            return;
+        }
+
+        int length = payload.remaining();
+        receiveWindow -= length;
+        if (receiveWindow < 0) {
+            connectionError(session, FLOW_CONTROL_ERROR, "connection receive window exceeded");
+            return;
+        }
+
+        Http2Stream stream = streams.get(streamId);
+        if (stream == null || stream.remoteClosed) {
+            consumed(session, null, length);
+            if (streamId > lastStreamId) {
+                connectionError(session, PROTOCOL_ERROR, "DATA frame on idle stream " + streamId);
+            }
+            else {
+                resetStream(session, streamId, STREAM_CLOSED);
+            }
+            return;
+        }
+
+        stream.receiveWindow -= length;
+        if (stream.receiveWindow < 0) {
+            consumed(session, null, length);
+            resetStream(session, streamId, FLOW_CONTROL_ERROR);
+            return;
+        }
+
+        IoBufferEx data = unpad(payload, flags);
+        if (data == null) {
+            connectionError(session, PROTOCOL_ERROR, "invalid DATA frame padding");
+            return;
+        }
+
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        if (endStream) {
+            stream.remoteClosed = true;
+        }
+        onContent(session, stream, data, endStream, length);
+    }
+
+    private void onContent(IoSessionEx session, Http2Stream stream, IoBufferEx data, boolean endStream, int length)
+            throws Exception {
+        // DATA beyond or short of the declared content-length is malformed (RFC 7540, Section 8.1.2.6)
+        stream.contentReceived += data.remaining();
+        if (stream.contentLength >= 0 && (stream.contentReceived > stream.contentLength ||
+                (endStream && stream.contentReceived != stream.contentLength))) {
+            consumed(session, null, stream.heldLength + length);
+            resetStream(session, stream.id, PROTOCOL_ERROR);
+            return;
+        }
+
+        HttpRequestMessage request = stream.request;
+        if (request != null) {
+            // small request body, dispatched with the request once complete as for HTTP/1.1,
+            // window credit is returned only once the request is dispatched
+            stream.body.put(data);
+            stream.heldLength += length;
+            if (endStream) {
+                IoBufferEx body = stream.body;
+                body.flip();
+                request.setContent(new HttpContentMessage(body, true));
+                stream.request = null;
+                stream.body = null;
+                dispatch(session, stream, request);
+                consumed(session, stream, stream.heldLength);
+                stream.heldLength = 0;
+            }
+        }
+        else {
+            HttpContentMessage content = new HttpContentMessage(data, endStream);
+            content.setStreamId(stream.id);
+            dispatch(session, stream, content);
+            consumed(session, stream, length);
+        }
+        closeIfDone(session, stream);
+    }
+
+    private void onHeaders(IoSessionEx session, int flags, int streamId, IoBufferEx payload) throws Exception {
+        if (streamId == 0) {
+            connectionError(session, PROTOCOL_ERROR, "HEADERS frame on stream 0");
+            return;
+        }
+
+        IoBufferEx fragment = unpad(payload, flags);
+        if (fragment == null) {
+            connectionError(session, PROTOCOL_ERROR, "invalid HEADERS frame padding");
+            return;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            if (fragment.remaining() < 5) {
+                connectionError(session, FRAME_SIZE_ERROR, "invalid HEADERS frame length");
+                return;
+            }
+            fragment.skip(5);
+        }
+
+        if ((flags & FLAG_END_HEADERS) == 0) {
+            // header block continues in CONTINUATION frames
+            headersStreamId = streamId;
+            headersFlags = flags;
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            headerBlock = allocator.wrap(ByteBuffer.allocate(fragment.remaining() * 2)).setAutoExpander(allocator);
+            headerBlock.put(fragment);
+            return;
+        }
+
+        onHeaderBlock(session, flags, streamId, fragment);
+    }
+
+    private void onContinuation(IoSessionEx session, int flags, int streamId, IoBufferEx payload)
+            throws Exception {
+        if (streamId == 0 || streamId != headersStreamId) {
+            connectionError(session, PROTOCOL_ERROR, "unexpected CONTINUATION frame");
+            return;
+        }
+
+        headerBlock.put(payload);
+        if (headerBlock.position() > MAXIMUM_HEADER_LIST_SIZE) {
+            connectionError(session, ENHANCE_YOUR_CALM, "header block too large");
+            return;
+        }
+
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            IoBufferEx block = headerBlock;
+            block.flip();
+            headerBlock = null;
+            headersStreamId = 0;
+            onHeaderBlock(session, headersFlags, streamId, block);
+        }
+    }
+
+    private void onHeaderBlock(IoSessionEx session, int flags, int streamId, IoBufferEx block) throws Exception {
+        RequestHeaders headers = new RequestHeaders();
+        try {
+            // always decode to keep the dynamic table in sync, even for streams that are refused
+            decoder.decode(block, headers);
+        }
+        catch (ProtocolDecoderException e) {
+            connectionError(session, COMPRESSION_ERROR, e.getMessage());
+            return;
+        }
+
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        Http2Stream stream = streams.get(streamId);
+        if (stream != null) {
+            // trailers end the request content, trailer fields are not forwarded
+            if (stream.remoteClosed || !endStream) {
+                resetStream(session, streamId, PROTOCOL_ERROR);
+                return;
+            }
+            stream.remoteClosed = true;
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            onContent(session, stream, allocator.wrap(allocator.allocate(0)), true, 0);
+            return;
+        }
+
+        if ((streamId & 1) == 0 || streamId <= lastStreamId) {
+            connectionError(session, PROTOCOL_ERROR, "invalid stream identifier " + streamId);
+            return;
+        }
+        lastStreamId = streamId;
+
+        if (goingAway || streams.size() >= MAXIMUM_CONCURRENT_STREAMS) {
+            writeResetStream(session, streamId, REFUSED_STREAM);
+            return;
+        }
+
+        HttpRequestMessage request = headers.toRequest(SslUtils.isSecure(session));
+        if (request == null) {
+            writeResetStream(session, streamId, PROTOCOL_ERROR);
+            return;
+        }
+        request.setStreamId(streamId);
+
+        long contentLength = headers.getContentLength();
+        if (endStream && contentLength > 0) {
+            // declared content without any DATA frames (RFC 7540, Section 8.1.2.6)
+            writeResetStream(session, streamId, PROTOCOL_ERROR);
+            return;
+        }
+
+        stream = new Http2Stream(streamId, initialSendWindow);
+        stream.remoteClosed = endStream;
+        stream.contentLength = contentLength;
+        streams.put(streamId, stream);
+
+        if (!endStream) {
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            if (contentLength > 0 && contentLength < MAXIMUM_NON_STREAMING_CONTENT_LENGTH) {
+                // fixed capacity, content beyond the declared length resets the stream
+                stream.request = request;
+                stream.body = allocator.wrap(ByteBuffer.allocate((int) contentLength));
+                return;
+            }
+            request.setContent(new HttpContentMessage(allocator.wrap(allocator.allocate(0)), false));
+        }
+        dispatch(session, stream, request);
+    }
+
+    private void onResetStream(IoSessionEx session, int streamId, IoBufferEx payload) throws Exception {
+        if (streamId == 0 || streamId > lastStreamId) {
+            connectionError(session, PROTOCOL_ERROR, "RST_STREAM frame on idle stream " + streamId);
+            return;
+        }
+        if (payload.remaining() != 4) {
+            connectionError(session, FRAME_SIZE_ERROR, "invalid RST_STREAM frame length");
+            return;
+        }
+
+        int errorCode = payload.getInt();
+        Http2Stream stream = removeStream(streamId);
+        if (stream != null && stream.dispatched) {
+            nextFilter.exceptionCaught(session, new Http2StreamException(streamId, errorCode));
+        }
+        if (stream != null && isResettingTooManyStreams()) {
+            connectionError(session, ENHANCE_YOUR_CALM, "too many streams reset");
+            return;
+        }
+        closeIfGoingAway(session);
+    }
+
+    private boolean isResettingTooManyStreams() {
+        long now = System.currentTimeMillis();
+        if (now - resetStreamsIntervalStart >= RESET_STREAMS_INTERVAL_MILLIS) {
+            resetStreamsIntervalStart = now;
+            resetStreams = 0;
+        }
+        return ++resetStreams > MAXIMUM_RESET_STREAMS_PER_SECOND;
+    }
+
+    private void onSettings(IoSessionEx session, int flags, int streamId, IoBufferEx payload) throws Exception {
+        if (streamId != 0) {
+            connectionError(session, PROTOCOL_ERROR, "SETTINGS frame on stream " + streamId);
+            return;
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            if (payload.hasRemaining()) {
+                connectionError(session, FRAME_SIZE_ERROR, "invalid SETTINGS acknowledgement length");
+            }
+            return;
+        }
+        if (payload.remaining() % 6 != 0) {
+            connectionError(session, FRAME_SIZE_ERROR, "invalid SETTINGS frame length");
+            return;
+        }
+
+        if (applySettings(session, payload)) {
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            writeFrame(session, TYPE_SETTINGS, FLAG_ACK, 0, allocator.wrap(allocator.allocate(0)));
+            flushBlockedStreams(session);
+        }
+    }
+
+    private boolean applySettings(IoSessionEx session, IoBufferEx payload) throws Exception {
+        while (payload.remaining() >= 6) {
+            int identifier = payload.getUnsignedShort();
+            int value = payload.getInt();
+            switch (identifier) {
+            case SETTINGS_HEADER_TABLE_SIZE:
+                // the client decoder table bounds the encoder table, which never exceeds the default
+                encoder.setMaximumTableSize(value < 0 ? DEFAULT_HEADER_TABLE_SIZE
+                                                      : Math.min(value, DEFAULT_HEADER_TABLE_SIZE));
+                break;
+            case SETTINGS_ENABLE_PUSH:
+                if (value != 0 && value != 1) {
+                    connectionError(session, PROTOCOL_ERROR, "invalid SETTINGS_ENABLE_PUSH " + value);
+                    return false;
+                }
+                break;
+            case SETTINGS_INITIAL_WINDOW_SIZE:
+                if (value < 0) {
+                    connectionError(session, FLOW_CONTROL_ERROR, "invalid SETTINGS_INITIAL_WINDOW_SIZE");
+                    return false;
+                }
+                int delta = value - initialSendWindow;
+                initialSendWindow = value;
+                for (Http2Stream stream : streams.values()) {
+                    long window = (long) stream.sendWindow + delta;
+                    if (window > MAXIMUM_WINDOW_SIZE) {
+                        connectionError(session, FLOW_CONTROL_ERROR, "stream send window overflow");
+                        return false;
+                    }
+                    stream.sendWindow = (int) window;
+                }
+                break;
+            case SETTINGS_MAX_FRAME_SIZE:
+                if (value < DEFAULT_MAXIMUM_FRAME_SIZE || value > 0xffffff) {
+                    connectionError(session, PROTOCOL_ERROR, "invalid SETTINGS_MAX_FRAME_SIZE " + value);
+                    return false;
+                }
+                maximumFrameSize = value;
+                break;
+            default:
+                // unknown or advisory settings are ignored
+                break;
+            }
+        }
+        return true;
+    }
+
+    private void onWindowUpdate(IoSessionEx session, int streamId, IoBufferEx payload) throws Exception {
+        if (payload.remaining() != 4) {
+            connectionError(session, FRAME_SIZE_ERROR, "invalid WINDOW_UPDATE frame length");
+            return;
+        }
+
+        int increment = payload.getInt() & 0x7fffffff;
+        if (streamId == 0) {
+            if (increment == 0) {
+                connectionError(session, PROTOCOL_ERROR, "zero WINDOW_UPDATE increment");
+                return;
+            }
+            if ((long) sendWindow + increment > MAXIMUM_WINDOW_SIZE) {
+                connectionError(session, FLOW_CONTROL_ERROR, "connection send window overflow");
+                return;
+            }
+            sendWindow += increment;
+        }
+        else {
+            Http2Stream stream = streams.get(streamId);
+            if (stream == null) {
+                if (streamId > lastStreamId) {
+                    connectionError(session, PROTOCOL_ERROR, "WINDOW_UPDATE frame on idle stream " + streamId);
+                }
+                // otherwise the stream is already closed
+                return;
+            }
+            if (increment == 0) {
+                resetStream(session, streamId, PROTOCOL_ERROR);
+                return;
+            }
+            if ((long) stream.sendWindow + increment > MAXIMUM_WINDOW_SIZE) {
+                resetStream(session, streamId, FLOW_CONTROL_ERROR);
+                return;
+            }
+            stream.sendWindow += increment;
+        }
+        flushBlockedStreams(session);
+    }
+
+    private void dispatch(IoSessionEx session, Http2Stream stream, HttpMessage message) throws Exception {
+        stream.dispatched = true;
+        currentStreamId = stream.id;
+        try {
+            nextFilter.messageReceived(session, message);
+        }
+        finally {
+            currentStreamId = 0;
+        }
+    }
+
+    // returns receive window credit for data delivered upstream or discarded
+    private void consumed(IoSessionEx session, Http2Stream stream, int length) {
+        receiveConsumed += length;
+        if (receiveConsumed >= WINDOW_UPDATE_THRESHOLD) {
+            writeWindowUpdate(session, 0, receiveConsumed);
+            receiveWindow += receiveConsumed;
+            receiveConsumed = 0;
+        }
+        if (stream != null && !stream.remoteClosed && streams.get(stream.id) == stream) {
+            stream.receiveConsumed += length;
+            if (stream.receiveConsumed >= WINDOW_UPDATE_THRESHOLD) {
+                writeWindowUpdate(session, stream.id, stream.receiveConsumed);
+                stream.receiveWindow += stream.receiveConsumed;
+                stream.receiveConsumed = 0;
+            }
+        }
+    }
+
+    private void write(IoSessionEx session, WriteRequestEx writeRequest, HttpMessage message) throws Exception {
+        int streamId = (message.getStreamId() != 0) ? message.getStreamId() : currentStreamId;
+        Http2Stream stream = streams.get(streamId);
+        if (stream == null || stream.endQueued) {
+            // stream was reset or is already complete
+            writeRequest.getFuture().setWritten();
+            return;
+        }
+
+        switch (message.getKind()) {
+        case RESPONSE:
+            writeResponse(session, writeRequest, stream, (HttpResponseMessage) message);
+            break;
+        case CONTENT:
+            HttpContentMessage content = (HttpContentMessage) message;
+            writeData(session, writeRequest, stream, null, content.asBuffer(), content.isComplete());
+            break;
+        default:
+            throw new IllegalStateException("Unexpected message kind: " + message.getKind());
+        }
+    }
+
+    private void writeResponse(IoSessionEx session, WriteRequestEx writeRequest, Http2Stream stream,
+            HttpResponseMessage response) throws Exception {
+
+        if (stream.responseWritten) {
+            writeRequest.getFuture().setWritten();
+            return;
+        }
+        stream.responseWritten = true;
+        stream.contentExcluded = response.isContentExcluded();
+
+        HttpContentMessage content = response.getContent();
+        HttpStatus status = response.getStatus();
+
+        IoBufferEx block = allocate(session, 256);
+        int offset = block.position();
+        encoder.startBlock(block);
+        encoder.encode(block, ":status", Integer.toString(status.code()));
+        for (Map.Entry<String, List<String>> entry : response.getHeaders().entrySet()) {
+            String name = entry.getKey().toLowerCase();
+            if (!CONNECTION_HEADERS.contains(name)) {
+                for (String value : entry.getValue()) {
+                    encoder.encode(block, name, value);
+                }
+            }
+        }
+        if (!response.isContentLengthImplicit() && status != HttpStatus.REDIRECT_NOT_MODIFIED &&
+                response.getHeader(HEADER_CONTENT_LENGTH) == null) {
+            if (content == null) {
+                encoder.encode(block, "content-length", "0");
+            }
+            else if (content.isComplete() && !content.isGzipped()) {
+                encoder.encode(block, "content-length", Integer.toString(content.length()));
+            }
+        }
+        for (HttpCookie cookie : response.getCookies()) {
+            encoder.encode(block, "set-cookie", toSetCookie(cookie));
+        }
+        flip(block, offset);
+
+        IoBufferEx frames = allocate(session, block.remaining() + FRAME_HEADER_LENGTH * 2);
+        int framesOffset = frames.position();
+        boolean endStream = content == null || (content.isComplete() && (stream.contentExcluded || content.length() == 0));
+        int type = TYPE_HEADERS;
+        int flags = endStream ? FLAG_END_STREAM : 0;
+        do {
+            int length = Math.min(block.remaining(), maximumFrameSize);
+            boolean last = length == block.remaining();
+            putFrameHeader(frames, length, type, last ? flags | FLAG_END_HEADERS : flags, stream.id);
+            frames.put(block.getSlice(length));
+            type = TYPE_CONTINUATION;
+            flags = 0;
+        } while (block.hasRemaining());
+
+        if (endStream) {
+            stream.endQueued = true;
+            stream.localClosed = true;
+            writeRequest.setMessage(flip(frames, framesOffset));
+            nextFilter.filterWrite(session, writeRequest);
+            closeIfDone(session, stream);
+        }
+        else {
+            writeData(session, writeRequest, stream, frames, framesOffset, content.asBuffer(), content.isComplete());
+        }
+    }
+
+    private void writeData(IoSessionEx session, WriteRequestEx writeRequest, Http2Stream stream, IoBufferEx frames,
+            IoBufferEx data, boolean endStream) throws Exception {
+        writeData(session, writeRequest, stream, frames, 0, data, endStream);
+    }
+
+    private void writeData(IoSessionEx session, WriteRequestEx writeRequest, Http2Stream stream, IoBufferEx frames,
+            int framesOffset, IoBufferEx data, boolean endStream) throws Exception {
+
+        // private view of the content, which may be a shared buffer
+        ByteBuffer view = stream.contentExcluded ? ByteBuffer.allocate(0) : data.buf().duplicate();
+        if (endStream) {
+            stream.endQueued = true;
+        }
+
+        PendingData pending = new PendingData(view, endStream, writeRequest);
+        if (!stream.pending.isEmpty()) {
+            stream.pending.add(pending);
+            return;
+        }
+
+        IoBufferEx out = frames;
+        int offset = framesOffset;
+        if (out == null) {
+            out = allocate(session, FRAME_HEADER_LENGTH + Math.min(view.remaining(), maximumFrameSize));
+            offset = out.position();
+        }
+
+        if (frameData(out, stream, pending)) {
+            writeRequest.setMessage(flip(out, offset));
+            nextFilter.filterWrite(session, writeRequest);
+            closeIfDone(session, stream);
+        }
+        else {
+            // blocked by flow control, the remainder is written on WINDOW_UPDATE
+            stream.pending.add(pending);
+            blockedStreams.add(stream);
+            if (out.position() > offset) {
+                writeFrames(session, flip(out, offset));
+            }
+        }
+    }
+
+    private boolean frameData(IoBufferEx out, Http2Stream stream, PendingData pending) {
+        ByteBuffer data = pending.data;
+        do {
+            int window = Math.min(sendWindow, stream.sendWindow);
+            int length = Math.max(0, Math.min(data.remaining(), Math.min(maximumFrameSize, window)));
+            boolean last = length == data.remaining();
+            if (length == 0 && !(last && pending.endStream)) {
+                break;
+            }
+
+            int flags = (last && pending.endStream) ? FLAG_END_STREAM : 0;
+            putFrameHeader(out, length, TYPE_DATA, flags, stream.id);
+            ByteBuffer chunk = data.duplicate();
+            chunk.limit(chunk.position() + length);
+            out.put(chunk);
+            data.position(data.position() + length);
+            sendWindow -= length;
+            stream.sendWindow -= length;
+            if (flags != 0) {
+                stream.localClosed = true;
+            }
+        } while (data.hasRemaining());
+
+        return !data.hasRemaining() && (!pending.endStream || stream.localClosed);
+    }
+
+    private void flushBlockedStreams(IoSessionEx session) throws Exception {
+        // snapshot, completing a write may queue more data
+        for (Http2Stream stream : new ArrayList<>(blockedStreams)) {
+            if (sendWindow <= 0) {
+                break;
+            }
+            IoBufferEx out = allocate(session, FRAME_HEADER_LENGTH + maximumFrameSize);
+            int offset = out.position();
+            PendingData pending;
+            while ((pending = stream.pending.peek()) != null && frameData(out, stream, pending)) {
+                stream.pending.poll();
+                WriteRequestEx writeRequest = pending.writeRequest;
+                writeRequest.setMessage(flip(out, offset));
+                nextFilter.filterWrite(session, writeRequest);
+                out = allocate(session, FRAME_HEADER_LENGTH + maximumFrameSize);
+                offset = out.position();
+            }
+            if (out.position() > offset) {
+                writeFrames(session, flip(out, offset));
+            }
+            if (stream.pending.isEmpty()) {
+                blockedStreams.remove(stream);
+                closeIfDone(session, stream);
+            }
+        }
+    }
+
+    private void closeIfDone(IoSessionEx session, Http2Stream stream) {
+        if (stream.remoteClosed && stream.localClosed && stream.pending.isEmpty()) {
+            removeStream(stream.id);
+            closeIfGoingAway(session);
+        }
+    }
+
+    private void closeIfGoingAway(IoSessionEx session) {
+        if (goingAway && streams.isEmpty() && state != State.CLOSED) {
+            state = State.CLOSED;
+            session.close(false);
+        }
+    }
+
+    private Http2Stream removeStream(int streamId) {
+        Http2Stream stream = streams.remove(streamId);
+        if (stream != null) {
+            blockedStreams.remove(stream);
+            for (PendingData pending : stream.pending) {
+                // discarded with the stream
+                pending.writeRequest.getFuture().setWritten();
+            }
+            stream.pending.clear();
+        }
+        return stream;
+    }
+
+    private void resetStream(IoSessionEx session, int streamId, int errorCode) throws Exception {
+        writeResetStream(session, streamId, errorCode);
+        Http2Stream stream = removeStream(streamId);
+        if (stream != null && stream.dispatched) {
+            nextFilter.exceptionCaught(session, new Http2StreamException(streamId, errorCode));
+        }
+    }
+
+    private void connectionError(IoSessionEx session, int errorCode, String reason) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(format("HTTP/2 connection error %d on %s: %s", errorCode, session, reason));
+        }
+
+        IoBufferEx payload = allocate(session, 8);
+        int offset = payload.position();
+        payload.putInt(lastStreamId);
+        payload.putInt(errorCode);
+        writeFrame(session, TYPE_GOAWAY, 0, 0, flip(payload, offset));
+
+        state = State.CLOSED;
+        session.close(false);
+    }
+
+    private void writeResetStream(IoSessionEx session, int streamId, int errorCode) {
+        IoBufferEx payload = allocate(session, 4);
+        int offset = payload.position();
+        payload.putInt(errorCode);
+        writeFrame(session, TYPE_RST_STREAM, 0, streamId, flip(payload, offset));
+    }
+
+    private void writeWindowUpdate(IoSessionEx session, int streamId, int increment) {
+        IoBufferEx payload = allocate(session, 4);
+        int offset = payload.position();
+        payload.putInt(increment);
+        writeFrame(session, TYPE_WINDOW_UPDATE, 0, streamId, flip(payload, offset));
+    }
+
+    private void writeFrame(IoSessionEx session, int type, int flags, int streamId, IoBufferEx payload) {
+        IoBufferEx frame = allocate(session, FRAME_HEADER_LENGTH + payload.remaining());
+        int offset = frame.position();
+        putFrameHeader(frame, payload.remaining(), type, flags, streamId);
+        frame.put(payload);
+        writeFrames(session, flip(frame, offset));
+    }
+
+    private void writeFrames(IoSessionEx session, IoBufferEx frames) {
+        nextFilter.filterWrite(session, new DefaultWriteRequestEx(frames, new DefaultWriteFutureEx(session)));
+    }
+
+    private static IoBufferEx allocate(IoSessionEx session, int capacity) {
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        return allocator.wrap(allocator.allocate(capacity)).setAutoExpander(allocator);
+    }
+
+    private static IoBufferEx flip(IoBufferEx buffer, int offset) {
+        buffer.flip();
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private static IoBufferEx copy(IoSessionEx session, IoBufferEx payload) {
+        IoBufferEx copy = allocate(session, payload.remaining());
+        int offset = copy.position();
+        copy.put(payload);
+        return flip(copy, offset);
+    }
+
+    private static IoBufferEx unpad(IoBufferEx payload, int flags) {
+        if ((flags & FLAG_PADDED) == 0) {
+            return payload;
+        }
+        if (!payload.hasRemaining()) {
+            return null;
+        }
+        int padLength = payload.get() & 0xff;
+        if (padLength > payload.remaining()) {
+            return null;
+        }
+        return payload.getSlice(payload.remaining() - padLength);
+    }
+
+    private static String toSetCookie(HttpCookie cookie) {
+        StringBuilder setCookie = new StringBuilder();
+        setCookie.append(cookie.getName()).append('=').append(cookie.getValue());
+        if (cookie.getComment() != null) {
+            setCookie.append("; Comment=").append(cookie.getComment());
+        }
+        if (cookie.getDomain() != null) {
+            setCookie.append("; Domain=").append(cookie.getDomain());
+        }
+        if (cookie.getMaxAge() > 0) {
+            setCookie.append("; Max-Age=").append(cookie.getMaxAge());
+        }
+        if (cookie.getPath() != null) {
+            setCookie.append("; Path=").append(cookie.getPath());
+        }
+        if (cookie.isSecure()) {
+            setCookie.append("; Secure");
+        }
+        if (cookie.getVersion() > 0) {
+            setCookie.append("; Version=").append(cookie.getVersion());
+        }
+        return setCookie.toString();
+    }
+
+    private static final class Http2Stream {
+        private final int id;
+        private final Queue<PendingData> pending = new ArrayDeque<>();
+
+        private int sendWindow;
+        private int receiveWindow = DEFAULT_INITIAL_WINDOW_SIZE;
+        private int receiveConsumed;
+        private long contentLength = -1L;
+        private long contentReceived;
+        private boolean dispatched;
+        private boolean remoteClosed;
+        private boolean responseWritten;
+        private boolean contentExcluded;
+        private boolean endQueued;
+        private boolean localClosed;
+
+        // small request held back until its body is complete
+        private HttpRequestMessage request;
+        private IoBufferEx body;
+        private int heldLength;
+
+        Http2Stream(int id, int sendWindow) {
+            this.id = id;
+            this.sendWindow = sendWindow;
+        }
+    }
+
+    private static final class PendingData {
+        private final ByteBuffer data;
+        private final boolean endStream;
+        private final WriteRequestEx writeRequest;
+
+        PendingData(ByteBuffer data, boolean endStream, WriteRequestEx writeRequest) {
+            this.data = data;
+            this.endStream = endStream;
+            this.writeRequest = writeRequest;
+        }
+    }
+
+    /**
+     * Collects the decoded header fields of a request header block (RFC 7540, Section 8.1.2).
+     */
+    private static final class RequestHeaders implements HpackDecoder.HeaderListener {
+        private final Map<String, List<String>> headers = new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
+        private final StringBuilder cookie = new StringBuilder();
+
+        private String method;
+        private String scheme;
+        private String path;
+        private String authority;
+        private boolean malformed;
+        private boolean regularSeen;
+        private int size;
+
+        @Override
+        public void header(String name, String value) {
+            size += name.length() + value.length() + 32;
+            if (size > MAXIMUM_HEADER_LIST_SIZE) {
+                malformed = true;
+            }
+            if (malformed) {
+                return;
+            }
+
+            if (name.startsWith(":")) {
+                if (regularSeen) {
+                    malformed = true;
+                    return;
+                }
+                switch (name) {
+                case ":method":
+                    malformed = method != null;
+                    method = value;
+                    break;
+                case ":scheme":
+                    malformed = scheme != null;
+                    scheme = value;
+                    break;
+                case ":path":
+                    malformed = path != null || value.isEmpty();
+                    path = value;
+                    break;
+                case ":authority":
+                    malformed = authority != null;
+                    authority = value;
+                    break;
+                default:
+                    malformed = true;
+                    break;
+                }
+                return;
+            }
+
+            regularSeen = true;
+            if (!name.equals(name.toLowerCase()) || CONNECTION_HEADERS.contains(name) ||
+                    ("te".equals(name) && !"trailers".equals(value))) {
+                malformed = true;
+                return;
+            }
+
+            if ("cookie".equals(name)) {
+                // cookie crumbs are joined as a single HTTP/1.1 Cookie header (RFC 7540, Section 8.1.2.5)
+                if (cookie.length() > 0) {
+                    cookie.append("; ");
+                }
+                cookie.append(value);
+                return;
+            }
+
+            String headerName = HttpHeaderNames.canonicalize(name);
+            List<String> values = headers.get(headerName);
+            if (values == null) {
+                values = new ArrayList<>(1);
+                headers.put(headerName, values);
+            }
+            values.add(value);
+        }
+
+        long getContentLength() {
+            List<String> values = headers.get(HEADER_CONTENT_LENGTH);
+            if (values == null || values.size() != 1) {
+                return -1L;
+            }
+            try {
+                return Long.parseLong(values.get(0).trim());
+            }
+            catch (NumberFormatException e) {
+                return -1L;
+            }
+        }
+
+        HttpRequestMessage toRequest(boolean secure) {
+            if (malformed || method == null || scheme == null || path == null) {
+                return null;
+            }
+
+            try {
+                HttpMethod httpMethod = HttpMethod.valueOf(method);
+                URI requestURI = URI.create(path);
+
+                // KG-1469 Canonicalize Host header to make hostname lowercase
+                if (authority != null) {
+                    List<String> hostValues = new ArrayList<>(1);
+                    hostValues.add(authority.toLowerCase());
+                    headers.put(HEADER_HOST, hostValues);
+                }
+                else {
+                    List<String> hostValues = headers.get(HEADER_HOST);
+                    if (hostValues == null) {
+                        return null;
+                    }
+                    for (int i = 0; i < hostValues.size(); i++) {
+                        hostValues.set(i, hostValues.get(i).toLowerCase());
+                    }
+                }
+
+                try {
+                    HttpRequestDecodingState.canonicalizeURIHeaders(headers, HEADER_ORIGIN);
+                }
+                catch (IllegalArgumentException e) {
+                    // KG-5521 malformed Origin is treated as "null" (RFC 6454, Section 6.1)
+                    List<String> nullOrigin = new ArrayList<>(1);
+                    nullOrigin.add("null");
+                    headers.put(HEADER_ORIGIN, nullOrigin);
+                }
+                HttpRequestDecodingState.canonicalizeURIHeaders(headers, HEADER_REFERER);
+
+                List<String> cookieValues = null;
+                if (cookie.length() > 0) {
+                    cookieValues = new ArrayList<>(1);
+                    cookieValues.add(cookie.toString());
+                    headers.put(HEADER_COOKIE, cookieValues);
+                }
+
+                HttpRequestMessage request = new HttpRequestMessage();
+                request.setSecure(secure);
+                request.setMethod(httpMethod);
+                request.setRequestURI(requestURI);
+                request.setVersion(HttpVersion.HTTP_1_1);
+                request.setHeaders(headers);
+                request.setCookies(HttpRequestDecodingState.parseCookies(cookieValues));
+                return request;
+            }
+            catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Upgrades the connection to HTTP/2 when the first HTTP/1.1 request asks for {@code Upgrade: h2c}
+     * (RFC 7540, Section 3.2).  The upgrade request becomes stream 1, already half-closed by the client.
+     */
+    private final class Http2UpgradeFilter extends HttpFilterAdapter<IoSessionEx> {
+        private boolean requestReceived;
+
+        @Override
+        protected void httpRequestReceived(NextFilter nextFilter, IoSessionEx session, HttpRequestMessage httpRequest)
+                throws Exception {
+            boolean firstRequest = !requestReceived;
+            requestReceived = true;
+
+            byte[] settings = firstRequest ? getUpgradeSettings(httpRequest) : null;
+            if (settings == null) {
+                super.httpRequestReceived(nextFilter, session, httpRequest);
+                return;
+            }
+
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(HttpVersion.HTTP_1_1);
+            httpResponse.setStatus(HttpStatus.INFO_SWITCHING_PROTOCOLS);
+            httpResponse.setHeader(HEADER_CONNECTION, HEADER_UPGRADE);
+            httpResponse.setHeader(HEADER_UPGRADE, PROTOCOL_H2C);
+            nextFilter.filterWrite(session, new DefaultWriteRequestEx(httpResponse, new DefaultWriteFutureEx(session)));
+
+            state = State.PREFACE;
+            prefaceOffset = 0;
+            start(session);
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            if (!applySettings(session, allocator.wrap(ByteBuffer.wrap(settings)))) {
+                return;
+            }
+
+            List<String> connectionValues = httpRequest.removeHeader(HEADER_CONNECTION);
+            if (connectionValues != null) {
+                for (String connectionValue : connectionValues) {
+                    for (String token : connectionValue.split(",")) {
+                        httpRequest.removeHeader(token.trim());
+                    }
+                }
+            }
+            httpRequest.removeHeader(HEADER_UPGRADE);
+            httpRequest.removeHeader(HEADER_HTTP2_SETTINGS);
+            httpRequest.setStreamId(1);
+
+            Http2Stream stream = new Http2Stream(1, initialSendWindow);
+            stream.remoteClosed = true;
+            streams.put(1, stream);
+            lastStreamId = 1;
+            dispatch(session, stream, httpRequest);
+        }
+
+        private byte[] getUpgradeSettings(HttpRequestMessage httpRequest) {
+            List<String> upgradeValues = httpRequest.getHeaderValues(HEADER_UPGRADE, false);
+            List<String> settingsValues = httpRequest.getHeaderValues(HEADER_HTTP2_SETTINGS, false);
+            if (upgradeValues == null || settingsValues == null || settingsValues.size() != 1 ||
+                    !httpRequest.hasHeader(HEADER_CONNECTION) || !httpRequest.isComplete() ||
+                    httpRequest.hasHeader(HEADER_TRANSFER_ENCODING)) {
+                return null;
+            }
+
+            boolean h2c = false;
+            for (String upgradeValue : upgradeValues) {
+                for (String token : upgradeValue.split(",")) {
+                    h2c |= PROTOCOL_H2C.equalsIgnoreCase(token.trim());
+                }
+            }
+            if (!h2c) {
+                return null;
+            }
+
+            try {
+                byte[] settings = Base64.getUrlDecoder().decode(settingsValues.get(0).trim());
+                return (settings.length % 6 == 0) ? settings : null;
+            }
+            catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+/**
+ * HTTP/2 frame layout constants (RFC 7540, Section 4 and 6).
+ */
+public final class Http2Frames {
+
+    public static final byte[] CONNECTION_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(US_ASCII);
+
+    public static final int FRAME_HEADER_LENGTH = 9;
+    public static final int DEFAULT_MAXIMUM_FRAME_SIZE = 16384;
+    public static final int DEFAULT_INITIAL_WINDOW_SIZE = 65535;
+    public static final int DEFAULT_HEADER_TABLE_SIZE = 4096;
+    public static final int MAXIMUM_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    public static final int TYPE_DATA = 0x0;
+    public static final int TYPE_HEADERS = 0x1;
+    public static final int TYPE_PRIORITY = 0x2;
+    public static final int TYPE_RST_STREAM = 0x3;
+    public static final int TYPE_SETTINGS = 0x4;
+    public static final int TYPE_PUSH_PROMISE = 0x5;
+    public static final int TYPE_PING = 0x6;
+    public static final int TYPE_GOAWAY = 0x7;
+    public static final int TYPE_WINDOW_UPDATE = 0x8;
+    public static final int TYPE_CONTINUATION = 0x9;
+
+    public static final int FLAG_END_STREAM = 0x1;
+    public static final int FLAG_ACK = 0x1;
+    public static final int FLAG_END_HEADERS = 0x4;
+    public static final int FLAG_PADDED = 0x8;
+    public static final int FLAG_PRIORITY = 0x20;
+
+    public static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    public static final int SETTINGS_ENABLE_PUSH = 0x2;
+    public static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    public static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    public static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    public static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    public static final int NO_ERROR = 0x0;
+    public static final int PROTOCOL_ERROR = 0x1;
+    public static final int INTERNAL_ERROR = 0x2;
+    public static final int FLOW_CONTROL_ERROR = 0x3;
+    public static final int STREAM_CLOSED = 0x5;
+    public static final int FRAME_SIZE_ERROR = 0x6;
+    public static final int REFUSED_STREAM = 0x7;
+    public static final int CANCEL = 0x8;
+    public static final int COMPRESSION_ERROR = 0x9;
+    public static final int ENHANCE_YOUR_CALM = 0xb;
+
+    private Http2Frames() {
+        // utility
+    }
+
+    public static void putFrameHeader(IoBufferEx out, int length, int type, int flags, int streamId) {
+        out.put((byte) (length >>> 16));
+        out.put((byte) (length >>> 8));
+        out.put((byte) length);
+        out.put((byte) type);
+        out.put((byte) flags);
+        out.putInt(streamId & 0x7fffffff);
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+/**
+ * Signals that a single HTTP/2 stream was reset, by the peer or after a stream error,
+ * while the connection and its other streams remain usable.
+ */
+public class Http2StreamException extends Exception {
+
+    private static final long serialVersionUID = -2309840981163575612L;
+
+    private final int streamId;
+    private final int errorCode;
+
+    public Http2StreamException(int streamId, int errorCode) {
+        this(streamId, errorCode, null);
+    }
+
+    public Http2StreamException(int streamId, int errorCode, Throwable cause) {
+        super(String.format("HTTP/2 stream %d reset with error code %d", streamId, errorCode), cause);
+        this.streamId = streamId;
+        this.errorCode = errorCode;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.util.zip.Deflater.NO_COMPRESSION;
+import static java.util.zip.Deflater.SYNC_FLUSH;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+
+import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.util.threadlocal.WorkerLocal;
+
+/**
+ * Streaming deflate for gzipped responses, replacing the stored-block passthrough of {@link HttpGzipEncoder}
+ * when a compression level is configured. One instance is attached to each transport session and holds a
+ * single {@link Deflater} for the gzip stream of the current response, so repeated content across messages
+ * is compressed against the shared history. Each message is completed with a sync flush so the client can
+ * decode it without waiting for the next one.
+ * <p>
+ * Messages smaller than the minimum size are written as stored blocks through the same {@code Deflater},
+ * keeping its history consistent with what the client has decoded. Because the output depends on the session
+ * history, compressed content cannot be shared through the message encoding caches.
+ * <p>
+ * Scratch buffers and counters are kept per I/O worker, compression only happens on the session's I/O thread.
+ */
+public final class HttpGzipCompressor implements HttpContentWriter {
+
+    public static final TypedAttributeKey<HttpGzipCompressor> COMPRESSOR_KEY =
+            new TypedAttributeKey<>(HttpGzipCompressor.class, "compressor");
+
+    private static final int INITIAL_SCRATCH_SIZE = 8192;
+
+    private static final List<Worker> WORKERS = new CopyOnWriteArrayList<>();
+
+    private static final ThreadLocal<Worker> WORKER = new WorkerLocal<Worker>() {
+        @Override
+        protected Worker initialValue() {
+            Worker worker = new Worker();
+            WORKERS.add(worker);
+            return worker;
+        }
+    };
+
+    private final int level;
+    private final int minimumSize;
+
+    private Deflater deflater;
+    private int currentLevel;
+
+    public HttpGzipCompressor(int level, int minimumSize) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("level: " + level);
+        }
+        this.level = level;
+        this.minimumSize = minimumSize;
+    }
+
+    /**
+     * Starts a new gzip stream, called as the gzip header is written for a response.
+     */
+    public void reset() {
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            currentLevel = level;
+        }
+        else {
+            deflater.reset();
+        }
+    }
+
+    /**
+     * Releases the {@code Deflater}, called when the transport session is closed.
+     */
+    public void dispose() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+
+    @Override
+    public IoBufferEx write(IoBufferEx sourceIoBuf, IoBufferAllocatorEx<?> allocator) {
+        ByteBuffer source = sourceIoBuf.buf();
+        int remaining = source.remaining();
+        if (remaining == 0) {
+            return sourceIoBuf;
+        }
+
+        if (deflater == null) {
+            // content written before any gzipped response header, start the stream anyway
+            reset();
+        }
+
+        Worker worker = WORKER.get();
+        long start = System.nanoTime();
+
+        boolean paramsChanged = false;
+        int newLevel = (remaining < minimumSize) ? NO_COMPRESSION : level;
+        if (newLevel != currentLevel) {
+            // stored blocks still pass through the deflater to keep its history in step with the client
+            deflater.setLevel(newLevel);
+            currentLevel = newLevel;
+            paramsChanged = true;
+        }
+
+        if (source.hasArray()) {
+            deflater.setInput(source.array(), source.arrayOffset() + source.position(), remaining);
+        }
+        else {
+            byte[] input = worker.input(remaining);
+            // (KG-8125) source may be shared, so read from a duplicate
+            source.duplicate().get(input, 0, remaining);
+            deflater.setInput(input, 0, remaining);
+        }
+
+        byte[] output = worker.output;
+        int written = 0;
+        while (true) {
+            if (written == output.length) {
+                output = worker.growOutput();
+            }
+            written += deflater.deflate(output, written, output.length - written, SYNC_FLUSH);
+
+            // a level change may consume input without completing the flush, so always deflate again
+            if (!paramsChanged && written < output.length && deflater.needsInput()) {
+                break;
+            }
+            paramsChanged = false;
+        }
+
+        ByteBuffer newSource = allocator.allocate(written);
+        int offset = newSource.position();
+        newSource.put(output, 0, written);
+        newSource.flip();
+        newSource.position(offset);
+
+        worker.bytesIn += remaining;
+        worker.bytesOut += written;
+        worker.deflateNanos += System.nanoTime() - start;
+
+        return allocator.wrap(newSource, sourceIoBuf.flags());
+    }
+
+    /**
+     * Returns the uncompressed bytes written through all compressors.
+     */
+    public static long getBytesIn() {
+        long bytesIn = 0L;
+        for (Worker worker : WORKERS) {
+            bytesIn += worker.bytesIn;
+        }
+        return bytesIn;
+    }
+
+    /**
+     * Returns the compressed bytes produced by all compressors.
+     */
+    public static long getBytesOut() {
+        long bytesOut = 0L;
+        for (Worker worker : WORKERS) {
+            bytesOut += worker.bytesOut;
+        }
+        return bytesOut;
+    }
+
+    /**
+     * Returns the time spent compressing, in nanoseconds.
+     */
+    public static long getDeflateNanos() {
+        long deflateNanos = 0L;
+        for (Worker worker : WORKERS) {
+            deflateNanos += worker.deflateNanos;
+        }
+        return deflateNanos;
+    }
+
+    /**
+     * Returns uncompressed bytes divided by compressed bytes, or 0 if nothing has been compressed.
+     */
+    public static double getCompressionRatio() {
+        long bytesOut = getBytesOut();
+        return (bytesOut != 0L) ? (double) getBytesIn() / bytesOut : 0.0;
+    }
+
+    /**
+     * Returns the average time spent compressing each uncompressed byte, in nanoseconds.
+     */
+    public static double getDeflateNanosPerByte() {
+        long bytesIn = getBytesIn();
+        return (bytesIn != 0L) ? (double) getDeflateNanos() / bytesIn : 0.0;
+    }
+
+    // written only by the owning I/O worker, summed by the static accessors
+    private static final class Worker {
+        private byte[] input = new byte[INITIAL_SCRATCH_SIZE];
+        private byte[] output = new byte[INITIAL_SCRATCH_SIZE];
+
+        private volatile long bytesIn;
+        private volatile long bytesOut;
+        private volatile long deflateNanos;
+
+        byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length << 1)];
+            }
+            return input;
+        }
+
+        byte[] growOutput() {
+            output = Arrays.copyOf(output, output.length << 1);
+            return output;
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class HttpGzipEncoder implements HttpContentWriter {
     public static final int GZIP_PREFIX_SIZE = 5;
 
     /*
-     * Gzipped Transfer-Encoding (trivial passthrough)
+     * Gzipped Transfer-Encoding (trivial passthrough), see HttpGzipCompressor for streaming deflate
      */
 	private static IoBufferEx writeGzipped(IoBufferEx sourceIoBuf, IoBufferAllocatorEx<?> allocator) {
         ByteBuffer source = sourceIoBuf.buf();
@@ -21,14 +21,13 @@
 
 package org.kaazing.gateway.transport.http.bridge.filter;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
@@ -43,37 +42,7 @@ import org.kaazing.mina.filter.codec.statemachine.ConsumeToCrLfDecodingState;
 import org.kaazing.mina.filter.codec.statemachine.ConsumeToTerminatorDecodingState;
 
 public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
-    private static final Set<String> COMMA_SEPARATED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-    static {
-        COMMA_SEPARATED_HEADERS.add("Accept-Ranges");
-        COMMA_SEPARATED_HEADERS.add("Accept");
-        COMMA_SEPARATED_HEADERS.add("Accept-Charset");
-        COMMA_SEPARATED_HEADERS.add("Accept-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Accept-Language");
-        COMMA_SEPARATED_HEADERS.add("Allow");
-
-        COMMA_SEPARATED_HEADERS.add("Connection");
-        COMMA_SEPARATED_HEADERS.add("Content-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Content-Language");
-        COMMA_SEPARATED_HEADERS.add("If-Match");
-        COMMA_SEPARATED_HEADERS.add("If-None-Match");
-        COMMA_SEPARATED_HEADERS.add("Cache-Control");
-        COMMA_SEPARATED_HEADERS.add("Pragma");
-        COMMA_SEPARATED_HEADERS.add("Proxy-Authenticate");
-
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Protocol");
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Extensions");
-        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Version");
-
-        COMMA_SEPARATED_HEADERS.add("TE");
-        COMMA_SEPARATED_HEADERS.add("Transfer-Encoding");
-        COMMA_SEPARATED_HEADERS.add("Upgrade");
-        COMMA_SEPARATED_HEADERS.add("Vary");
-        COMMA_SEPARATED_HEADERS.add("Via");
-        COMMA_SEPARATED_HEADERS.add("Warning");
-        COMMA_SEPARATED_HEADERS.add("WWW-Authenticate");
-    }
-    
+
 	private static final String HEADER_WEBSOCKET_KEY_PREFIX = "Sec-WebSocket-Key";
 
 	private static final Charset US_ASCII = Charset.forName("US-ASCII");
@@ -108,7 +77,11 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
 		    if (buffer == null || !buffer.hasRemaining()) {
 		        throw new ProtocolDecoderException("Invalid header name in the request");
 		    }
-			lastHeaderName = buffer.getString(asciiDecoder);
+			// well-known names are matched on the raw bytes and shared, others are decoded
+			lastHeaderName = HttpHeaderNames.lookup(buffer);
+			if (lastHeaderName == null) {
+			    lastHeaderName = buffer.getString(asciiDecoder);
+			}
 			return AFTER_READ_HEADER_NAME;
 		}
 	};
@@ -124,21 +97,27 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
         @Override
         protected DecodingState finishDecode(IoBuffer buffer,
                                              ProtocolDecoderOutput out) throws Exception {
-            String value = buffer.getString(utf8Decoder);
             List<String> values = headers.get(lastHeaderName);
             if (values == null) {
-                values = new ArrayList<>();
+                values = new HttpHeaderValues();
                 headers.put(lastHeaderName, values);
             }
 
-            if (COMMA_SEPARATED_HEADERS.contains(lastHeaderName)) {
+            // copy the value bytes once, ASCII values stay as slices until asked for
+            byte[] value = new byte[buffer.remaining()];
+            buffer.get(value);
+            int length = asciiLength(value);
+            if (length == -1 || !(values instanceof HttpHeaderValues)) {
+                addValues(values, decodeUtf8(value));
+                return AFTER_READ_HEADER_VALUE;
+            }
+
+            HttpHeaderValues slices = (HttpHeaderValues) values;
+            if (HttpHeaderNames.isCommaSeparated(lastHeaderName)) {
                 // multiple values for the same header has comma separator
-                String[] separatedValues = value.split(",");
-                for (String separatedValue : separatedValues) {
-                    values.add(separatedValue.trim());
-                }
+                addCommaSeparatedSlices(slices, value, length);
             } else {
-                values.add(value);
+                slices.addSlice(value, 0, length);
             }
 
             return AFTER_READ_HEADER_VALUE;
@@ -173,4 +152,70 @@ public abstract class HttpHeaderDecodingState extends DecodingStateMachine {
     private void initHeaders() {
         headers = new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
     }
+
+    private String decodeUtf8(byte[] value) throws CharacterCodingException {
+        // decoded as IoBuffer.getString, up to any NUL
+        String decoded = utf8Decoder.reset().decode(ByteBuffer.wrap(value)).toString();
+        int nul = decoded.indexOf('\0');
+        return (nul != -1) ? decoded.substring(0, nul) : decoded;
+    }
+
+    private void addValues(List<String> values, String value) {
+        if (HttpHeaderNames.isCommaSeparated(lastHeaderName)) {
+            // multiple values for the same header has comma separator
+            String[] separatedValues = value.split(",");
+            for (String separatedValue : separatedValues) {
+                values.add(separatedValue.trim());
+            }
+        } else {
+            values.add(value);
+        }
+    }
+
+    // equivalent to String.split(",") followed by String.trim() for each value
+    private static void addCommaSeparatedSlices(HttpHeaderValues values, byte[] value, int length) {
+        int end = length;
+        if (end == 0) {
+            values.addSlice(value, 0, 0);
+            return;
+        }
+
+        // like String.split, drop trailing empty values
+        while (end > 0 && value[end - 1] == ',') {
+            end--;
+        }
+
+        int start = 0;
+        while (start < end) {
+            int comma = start;
+            while (comma < end && value[comma] != ',') {
+                comma++;
+            }
+
+            int from = start;
+            int to = comma;
+            while (from < to && value[from] <= ' ') {
+                from++;
+            }
+            while (to > from && value[to - 1] <= ' ') {
+                to--;
+            }
+            values.addSlice(value, from, to - from);
+            start = comma + 1;
+        }
+    }
+
+    // length up to any NUL, as for IoBuffer.getString, or -1 if the value is not ASCII
+    private static int asciiLength(byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            byte b = value[i];
+            if (b == 0) {
+                return i;
+            }
+            if (b < 0) {
+                return -1;
+            }
+        }
+        return value.length;
+    }
 }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.mina.core.buffer.IoBuffer;
+
+/**
+ * Static perfect-hash table of well-known HTTP header names. A header name received with the same bytes
+ * as a well-known name is returned as the interned {@code String} constant, without decoding the bytes.
+ * The hash seed and table size are chosen when the class is initialized so that no two names collide,
+ * so each lookup is one hash over the name bytes and one comparison.
+ */
+final class HttpHeaderNames {
+
+    private static final String[] WELL_KNOWN_NAMES = {
+        "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Accept-Ranges", "Allow",
+        "Authorization", "Cache-Control", "Connection", "Content-Encoding", "Content-Language",
+        "Content-Length", "Content-Type", "Cookie", "Date", "Expires", "Host", "If-Match", "If-Modified-Since",
+        "If-None-Match", "Keep-Alive", "Last-Modified", "Location", "Max-Age", "Origin", "Pragma",
+        "Proxy-Authenticate", "Proxy-Authorization", "Referer", "Sec-WebSocket-Accept", "Sec-WebSocket-Extensions",
+        "Sec-WebSocket-Key", "Sec-WebSocket-Key1", "Sec-WebSocket-Key2", "Sec-WebSocket-Protocol",
+        "Sec-WebSocket-Version", "Server", "Set-Cookie", "TE", "Transfer-Encoding", "Upgrade", "User-Agent",
+        "Vary", "Via", "Warning", "WWW-Authenticate", "X-Accept-Commands", "X-Create-Encoding",
+        "X-Next-Protocol", "X-Origin", "X-Sequence-No", "X-WebSocket-Extensions", "X-WebSocket-Protocol",
+        "X-WebSocket-Version"
+    };
+
+    private static final Set<String> COMMA_SEPARATED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    static {
+        COMMA_SEPARATED_HEADERS.add("Accept-Ranges");
+        COMMA_SEPARATED_HEADERS.add("Accept");
+        COMMA_SEPARATED_HEADERS.add("Accept-Charset");
+        COMMA_SEPARATED_HEADERS.add("Accept-Encoding");
+        COMMA_SEPARATED_HEADERS.add("Accept-Language");
+        COMMA_SEPARATED_HEADERS.add("Allow");
+
+        COMMA_SEPARATED_HEADERS.add("Connection");
+        COMMA_SEPARATED_HEADERS.add("Content-Encoding");
+        COMMA_SEPARATED_HEADERS.add("Content-Language");
+        COMMA_SEPARATED_HEADERS.add("If-Match");
+        COMMA_SEPARATED_HEADERS.add("If-None-Match");
+        COMMA_SEPARATED_HEADERS.add("Cache-Control");
+        COMMA_SEPARATED_HEADERS.add("Pragma");
+        COMMA_SEPARATED_HEADERS.add("Proxy-Authenticate");
+
+        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Protocol");
+        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Extensions");
+        COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Version");
+
+        COMMA_SEPARATED_HEADERS.add("TE");
+        COMMA_SEPARATED_HEADERS.add("Transfer-Encoding");
+        COMMA_SEPARATED_HEADERS.add("Upgrade");
+        COMMA_SEPARATED_HEADERS.add("Vary");
+        COMMA_SEPARATED_HEADERS.add("Via");
+        COMMA_SEPARATED_HEADERS.add("Warning");
+        COMMA_SEPARATED_HEADERS.add("WWW-Authenticate");
+    }
+
+    private static final int SEED;
+    private static final int MASK;
+    private static final String[] NAMES;
+    private static final byte[][] NAME_BYTES;
+    private static final boolean[] COMMA_SEPARATED;
+    private static final Map<String, String> LOWER_CASE_NAMES = new HashMap<>();
+
+    static {
+        byte[][] wellKnownBytes = new byte[WELL_KNOWN_NAMES.length][];
+        for (int i = 0; i < WELL_KNOWN_NAMES.length; i++) {
+            wellKnownBytes[i] = WELL_KNOWN_NAMES[i].getBytes(US_ASCII);
+        }
+
+        int size = Integer.highestOneBit(WELL_KNOWN_NAMES.length) << 2;
+        int seed = 31;
+        while (!isPerfect(wellKnownBytes, seed, size - 1)) {
+            seed += 2;
+            if (seed > 0xffff) {
+                seed = 31;
+                size <<= 1;
+            }
+        }
+
+        SEED = seed;
+        MASK = size - 1;
+        NAMES = new String[size];
+        NAME_BYTES = new byte[size][];
+        COMMA_SEPARATED = new boolean[size];
+        for (int i = 0; i < WELL_KNOWN_NAMES.length; i++) {
+            int index = hash(wellKnownBytes[i], seed) & MASK;
+            NAMES[index] = WELL_KNOWN_NAMES[i].intern();
+            NAME_BYTES[index] = wellKnownBytes[i];
+            COMMA_SEPARATED[index] = COMMA_SEPARATED_HEADERS.contains(WELL_KNOWN_NAMES[i]);
+            LOWER_CASE_NAMES.put(WELL_KNOWN_NAMES[i].toLowerCase(), NAMES[index]);
+        }
+    }
+
+    private HttpHeaderNames() {
+        // utility
+    }
+
+    /**
+     * Returns the interned well-known header name with exactly the remaining bytes of the buffer,
+     * or {@code null} if there is none. The buffer position is not changed.
+     */
+    static String lookup(IoBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+
+        int hash = 0;
+        for (int i = position; i < limit; i++) {
+            hash = hash * SEED + buffer.get(i);
+        }
+
+        int index = mix(hash) & MASK;
+        byte[] nameBytes = NAME_BYTES[index];
+        if (nameBytes == null || nameBytes.length != limit - position) {
+            return null;
+        }
+        for (int i = 0; i < nameBytes.length; i++) {
+            if (nameBytes[i] != buffer.get(position + i)) {
+                return null;
+            }
+        }
+        return NAMES[index];
+    }
+
+    /**
+     * Returns the interned well-known header name for a lower case name, as received in HTTP/2,
+     * or the lower case name itself if it is not well-known.
+     */
+    static String canonicalize(String lowerCaseName) {
+        String name = LOWER_CASE_NAMES.get(lowerCaseName);
+        return (name != null) ? name : lowerCaseName;
+    }
+
+    /**
+     * Returns whether values of the named header are a comma separated list.
+     */
+    static boolean isCommaSeparated(String name) {
+        int index = mix(hash(name)) & MASK;
+        return (NAMES[index] == name) ? COMMA_SEPARATED[index] : COMMA_SEPARATED_HEADERS.contains(name);
+    }
+
+    private static boolean isPerfect(byte[][] names, int seed, int mask) {
+        boolean[] used = new boolean[mask + 1];
+        for (byte[] name : names) {
+            int index = hash(name, seed) & mask;
+            if (used[index]) {
+                return false;
+            }
+            used[index] = true;
+        }
+        return true;
+    }
+
+    private static int hash(byte[] name, int seed) {
+        int hash = 0;
+        for (byte b : name) {
+            hash = hash * seed + b;
+        }
+        return mix(hash);
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = hash * SEED + (byte) name.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
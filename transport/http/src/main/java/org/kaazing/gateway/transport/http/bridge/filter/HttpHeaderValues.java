@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Header values decoded from a request, kept as slices of the received ASCII bytes until each value is
+ * first asked for. Values can be replaced, added and removed like any other list, but only reading them is
+ * safe from several threads.
+ */
+final class HttpHeaderValues extends AbstractList<String> implements RandomAccess {
+
+    private byte[][] sources;
+    private int[] offsets;
+    private int[] lengths;
+    private String[] strings;
+    private int size;
+
+    HttpHeaderValues() {
+        sources = new byte[2][];
+        offsets = new int[2];
+        lengths = new int[2];
+        strings = new String[2];
+    }
+
+    /**
+     * Adds a value as a slice of ASCII bytes, decoded on first access.
+     */
+    void addSlice(byte[] source, int offset, int length) {
+        ensureCapacity(size + 1);
+        sources[size] = source;
+        offsets[size] = offset;
+        lengths[size] = length;
+        strings[size] = null;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        String value = strings[index];
+        if (value == null) {
+            // the slice is left in place, so concurrent readers can at worst decode the same value twice
+            byte[] source = sources[index];
+            if (source != null) {
+                value = new String(source, offsets[index], lengths[index], ISO_8859_1);
+                strings[index] = value;
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String set(int index, String value) {
+        String oldValue = get(index);
+        sources[index] = null;
+        strings[index] = value;
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, String value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        int moved = size - index;
+        System.arraycopy(sources, index, sources, index + 1, moved);
+        System.arraycopy(offsets, index, offsets, index + 1, moved);
+        System.arraycopy(lengths, index, lengths, index + 1, moved);
+        System.arraycopy(strings, index, strings, index + 1, moved);
+        sources[index] = null;
+        strings[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        String oldValue = get(index);
+        int moved = size - index - 1;
+        System.arraycopy(sources, index + 1, sources, index, moved);
+        System.arraycopy(offsets, index + 1, offsets, index, moved);
+        System.arraycopy(lengths, index + 1, lengths, index, moved);
+        System.arraycopy(strings, index + 1, strings, index, moved);
+        size--;
+        sources[size] = null;
+        strings[size] = null;
+        modCount++;
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(sources, 0, size, null);
+        Arrays.fill(strings, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > strings.length) {
+            int newCapacity = Math.max(capacity, strings.length << 1);
+            sources = Arrays.copyOf(sources, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            strings = Arrays.copyOf(strings, newCapacity);
+        }
+    }
+}
@@ -23,6 +23,7 @@ package org.kaazing.gateway.transport.http.bridge.filter;
 
 import static java.lang.String.format;
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_LENGTH;
+import static org.kaazing.gateway.transport.http.bridge.filter.HttpGzipCompressor.COMPRESSOR_KEY;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_NONE;
 
 import java.nio.ByteBuffer;
@@ -131,7 +132,11 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
             }
 
             IoBufferEx content;
-            if (httpContent.hasCache()) {
+            HttpGzipCompressor compressor = isGzipped ? COMPRESSOR_KEY.get(session) : null;
+            if (compressor != null) {
+                content = encodeCompressed(compressor, httpContent, isChunked);
+            }
+            else if (httpContent.hasCache()) {
                 content = cachingEncoder.encode(contentMessageEncoder, httpContent, allocator, FLAG_NONE);
             }
             else {
@@ -175,7 +180,11 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 			}
 
 			IoBufferEx content;
-			if (httpContent.hasCache()) {
+			HttpGzipCompressor compressor = isGzipped ? COMPRESSOR_KEY.get(session) : null;
+			if (compressor != null) {
+				content = encodeCompressed(compressor, httpContent, isChunked);
+			}
+			else if (httpContent.hasCache()) {
 				content = cachingEncoder.encode(contentMessageEncoder, httpContent, allocator, FLAG_NONE);
 			}
 			else {
@@ -193,6 +202,31 @@ abstract class HttpMessageEncoder<T extends HttpStartMessage> extends ProtocolEn
 		}
 	}
 
+    protected final void encodeGzipStart(IoSessionEx session, IoBufferEx buf) {
+        buf.put(HttpGzipEncoder.GZIP_START_OF_FRAME_BYTES);
+
+        // each gzipped response starts a new deflate stream
+        HttpGzipCompressor compressor = COMPRESSOR_KEY.get(session);
+        if (compressor != null) {
+            compressor.reset();
+        }
+    }
+
+    private IoBufferEx encodeCompressed(HttpGzipCompressor compressor, HttpContentMessage httpContent, boolean isChunked) {
+        // compressed output depends on the session's deflate history, so cannot be shared through the cache
+        IoBufferEx content = httpContent.asBuffer();
+
+        if (content.hasRemaining()) {
+            content = compressor.write(content, allocator);
+        }
+
+        if (isChunked && content.hasRemaining()) {
+            content = chunkedEncoder.write(content, allocator);
+        }
+
+        return content;
+    }
+
 	protected final void encodeHeaders(IoSessionEx session, T httpStart, IoBufferEx buf) throws CharacterCodingException {
 		for (Map.Entry<String, List<String>> entry : httpStart.getHeaders().entrySet()) {
 			String headerName = entry.getKey();
@@ -72,7 +72,8 @@ public class HttpPersistenceFilter extends HttpFilterAdapter<IoSessionEx> {
 	protected void httpRequestReceived(NextFilter nextFilter,
 			IoSessionEx session, HttpRequestMessage httpRequest) throws Exception {
         // GL.debug("http", getClass().getSimpleName()+" request received.");
-        if (isClosing(httpRequest)) {
+        // HTTP/2 streams never close the connection
+        if (httpRequest.getStreamId() == 0 && isClosing(httpRequest)) {
 			session.setAttribute(CONNECTION_CLOSE_KEY);
 		}
 
@@ -93,7 +94,7 @@ public class HttpPersistenceFilter extends HttpFilterAdapter<IoSessionEx> {
 			IoSessionEx session, WriteRequest writeRequest, HttpResponseMessage httpResponse)
 			throws Exception {
 
-        boolean isClosing = isClosing(httpResponse);
+        boolean isClosing = httpResponse.getStreamId() == 0 && isClosing(httpResponse);
 
         if (isClosing) {
             session.setAttribute(CONNECTION_CLOSE_KEY);
@@ -140,7 +141,7 @@ public class HttpPersistenceFilter extends HttpFilterAdapter<IoSessionEx> {
 	protected Object doFilterWriteHttpContent(NextFilter nextFilter,
 			IoSessionEx session, WriteRequest writeRequest, HttpContentMessage httpContent) throws Exception {
 		if (httpContent.isComplete()) {
-		    if (session.containsAttribute(CONNECTION_CLOSE_KEY)) {
+		    if (httpContent.getStreamId() == 0 && session.containsAttribute(CONNECTION_CLOSE_KEY)) {
 				writeRequest.getFuture().addListener(new IoFutureListener<WriteFuture>() {
 					@Override
 					public void operationComplete(WriteFuture future) {
@@ -53,6 +53,7 @@ import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.gateway.transport.IoFilterAdapter;
+import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.http.DefaultHttpSession;
 import org.kaazing.gateway.transport.http.HttpAcceptFilter;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
@@ -76,6 +77,7 @@ import org.slf4j.LoggerFactory;
 public class HttpProtocolCompatibilityFilter extends HttpFilterAdapter<IoSessionEx> {
 
     public static final String PROTOCOL_HTTPXE_1_1 = "httpxe/1.1";
+    private static final int HTTPXE_ENCODING_ID = Message.registerEncoding(PROTOCOL_HTTPXE_1_1);
     
     private static final String CONTENT_TYPE_APPLICATION_X_MESSAGE_HTTP = "application/x-message-http";
     
@@ -720,7 +722,8 @@ public class HttpProtocolCompatibilityFilter extends HttpFilterAdapter<IoSession
 
                 IoBufferAllocatorEx<?> allocator = httpSession.getBufferAllocator();
 
-                IoBufferEx oldBuffer = httpResponse.getCache().putIfAbsent("httpxe/1.1", allocator.wrap(allocator.allocate(0)));
+                IoBufferEx oldBuffer = httpResponse.putCachedEncodingIfAbsent(HTTPXE_ENCODING_ID,
+                        allocator.wrap(allocator.allocate(0)));
                 if (oldBuffer != null) {
                     if (logger.isDebugEnabled()) {
                         String msgFormat = "Unexpected existing buffer associated with old websocket "
@@ -374,7 +374,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 		return null;
 	}
 	
-	private void canonicalizeURIHeaders(Map<String, List<String>> headers, String... headerNames) {
+	static void canonicalizeURIHeaders(Map<String, List<String>> headers, String... headerNames) {
 	    for (String headerName : headerNames) {
             List<String> headerValues = headers.get(headerName);
             if (headerValues != null) {
@@ -403,7 +403,7 @@ public class HttpRequestDecodingState extends DecodingStateMachine {
 		}
 	}
 
-    private Set<HttpCookie> parseCookies(List<String> cookieHeaderValues) {
+    static Set<HttpCookie> parseCookies(List<String> cookieHeaderValues) {
         // parse cookies
         Set<HttpCookie> cookies = new HashSet<>();
         if (cookieHeaderValues != null && !cookieHeaderValues.isEmpty()) {
@@ -134,15 +134,17 @@ public abstract class HttpRequestLineDecodingState extends DecodingStateMachine
 
             // handle special case of leading double slash
             // to avoid mistakenly parsing the URI as having an authority
-            request = MULTIPLE_LEADING_SLASHES.matcher(request).replaceAll(SINGLE_SLASH);
+            if (request.startsWith("//")) {
+                request = MULTIPLE_LEADING_SLASHES.matcher(request).replaceAll(SINGLE_SLASH);
+            }
 
             // parse request as URI
             URI requestURI = new URI(request);
             
-            // canonicalize slashes in request path
+            // canonicalize slashes in request path, only needed for paths with repeated slashes
             String path = requestURI.getPath();
-            String canonicalPath = MULTIPLE_SLASHES.matcher(path).replaceAll(SINGLE_SLASH);
-            if (!path.equals(canonicalPath)) {
+            if (path.contains("//")) {
+                String canonicalPath = MULTIPLE_SLASHES.matcher(path).replaceAll(SINGLE_SLASH);
                 String scheme = requestURI.getScheme();
                 String authority = requestURI.getAuthority();
                 String query = requestURI.getQuery();
@@ -173,8 +175,7 @@ public abstract class HttpRequestLineDecodingState extends DecodingStateMachine
             HttpVersion version = null;
             try
             {
-                version = HttpVersion.valueOf(httpVersion
-                        .replaceAll("\\/|\\.", "_"));
+                version = HttpVersion.valueOf(httpVersion.replace('/', '_').replace('.', '_'));
             } catch(IllegalArgumentException e) {
                 throw new HttpProtocolDecoderException(HttpStatus.CLIENT_BAD_REQUEST);
             }
@@ -25,6 +25,9 @@ import static org.kaazing.gateway.transport.bridge.CachingMessageEncoder.IO_MESS
 
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.mina.filter.codec.ProtocolEncoderException;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
@@ -79,7 +82,19 @@ public final class HttpResponseEncoder extends HttpMessageEncoder<HttpResponseMe
 
     private void encodeResponse(IoSessionEx session, HttpResponseMessage httpResponse, ProtocolEncoderOutput out) throws Exception {
 
-        
+        if (HttpResponseTemplate.isTemplatable(httpResponse)) {
+            int hash = HttpResponseTemplate.hash(httpResponse);
+            HttpResponseTemplate template = HttpResponseTemplate.lookup(httpResponse, hash);
+            if (template == null && HttpResponseTemplate.recur(hash)) {
+                template = newTemplate(httpResponse, hash);
+                HttpResponseTemplate.register(template);
+            }
+            if (template != null) {
+                encodeResponse(session, httpResponse, template, out);
+                return;
+            }
+        }
+
         boolean isGzipped = HttpUtils.isGzipped(httpResponse);
         boolean isChunked = HttpUtils.isChunked(httpResponse);
             ByteBuffer nioBuf = allocator.allocate(1024);
@@ -90,7 +105,7 @@ public final class HttpResponseEncoder extends HttpMessageEncoder<HttpResponseMe
 
         // Insert GZIP Start of Frame if necessary
         if (isGzipped) {
-            buf.put(HttpGzipEncoder.GZIP_START_OF_FRAME_BYTES);
+            encodeGzipStart(session, buf);
         }
 
         HttpContentMessage httpContent = httpResponse.getContent();
@@ -104,6 +119,93 @@ public final class HttpResponseEncoder extends HttpMessageEncoder<HttpResponseMe
 
     }
     
+    private void encodeResponse(IoSessionEx session, HttpResponseMessage httpResponse, HttpResponseTemplate template,
+            ProtocolEncoderOutput out) throws Exception {
+
+        boolean isGzipped = HttpUtils.isGzipped(httpResponse);
+        boolean isChunked = HttpUtils.isChunked(httpResponse);
+
+        // status line and fixed headers are copied from the template, only the slots are encoded per response
+        HttpContentMessage httpContent = httpResponse.getContent();
+        int contentLength = (httpContent != null) ? httpContent.asBuffer().remaining() : 0;
+        ByteBuffer nioBuf = allocator.allocate(template.length() + 128 + contentLength);
+        IoBufferEx buf = allocator.wrap(nioBuf).setAutoExpander(allocator);
+        int allocatedPos = buf.position();
+        buf.put(template.getPrefix());
+        int slot = 0;
+        for (Map.Entry<String, List<String>> entry : httpResponse.getHeaders().entrySet()) {
+            String headerName = entry.getKey();
+            List<String> headerValues = entry.getValue();
+            if (headerName != null && headerValues != null && HttpResponseTemplate.isSlot(headerName)) {
+                for (String headerValue : headerValues) {
+                    encodeHeader(buf, headerName, headerValue);
+                }
+                buf.put(template.getSuffix(slot++));
+            }
+        }
+        encodeContentLength(session, httpResponse, buf);
+        buf.put(CRLF_BYTES);
+
+        // Insert GZIP Start of Frame if necessary
+        if (isGzipped) {
+            encodeGzipStart(session, buf);
+        }
+
+        if (httpContent != null) {
+            encodeContent(session, httpContent, buf, isChunked, isGzipped);
+        }
+
+        buf.flip();
+        buf.position(allocatedPos);
+        out.write(buf);
+    }
+
+    private HttpResponseTemplate newTemplate(HttpResponseMessage httpResponse, int hash) throws CharacterCodingException {
+        IoBufferEx buf = allocator.wrap(ByteBuffer.allocate(256)).setAutoExpander(allocator);
+        encodeResponseLine(httpResponse.getVersion(), httpResponse.getStatus(), httpResponse.getReason(), buf);
+
+        // split the fixed header bytes at each slot
+        byte[] prefix = null;
+        List<byte[]> suffixes = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : httpResponse.getHeaders().entrySet()) {
+            String headerName = entry.getKey();
+            List<String> headerValues = entry.getValue();
+            if (headerName != null && headerValues != null) {
+                if (HttpResponseTemplate.isSlot(headerName)) {
+                    byte[] segment = flipToArray(buf);
+                    if (prefix == null) {
+                        prefix = segment;
+                    }
+                    else {
+                        suffixes.add(segment);
+                    }
+                }
+                else {
+                    for (String headerValue : headerValues) {
+                        encodeHeader(buf, headerName, headerValue);
+                    }
+                }
+            }
+        }
+
+        byte[] segment = flipToArray(buf);
+        if (prefix == null) {
+            prefix = segment;
+        }
+        else {
+            suffixes.add(segment);
+        }
+        return new HttpResponseTemplate(httpResponse, hash, prefix, suffixes.toArray(new byte[suffixes.size()][]));
+    }
+
+    private static byte[] flipToArray(IoBufferEx buf) {
+        buf.flip();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        buf.clear();
+        return bytes;
+    }
+
     private void encodeResponseLine(HttpVersion version, HttpStatus status, String reason, IoBufferEx buf) throws CharacterCodingException {
 
         assert version != null : "version required in response";
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+
+/**
+ * Pre-serialized status line and headers shared by all responses with the same version, status, reason and
+ * fixed headers. Headers whose values typically differ between otherwise identical responses are slots: only
+ * their names are part of the template, and their values are encoded per response between the template segments,
+ * so headers keep the order of the response header map.
+ * <p>
+ * The encoded response start is still written as a single buffer, because filters such as
+ * {@link HttpContentLengthAdjustmentFilter} rely on one buffer per response, but the template segments are
+ * copied in bulk instead of encoding each header through the charset encoder.
+ * <p>
+ * Templates are kept in a small process-wide table indexed by a hash of the response shape. A template is only
+ * created when the same shape is seen again, so one-off responses do not pay for serializing a template.
+ * Templates are immutable, so they are published through the table without synchronization.
+ */
+final class HttpResponseTemplate {
+
+    private static final String[] SLOT_HEADERS = {
+        "Content-Length", "Date", "ETag", "Expires", "Last-Modified", "Location", "Sec-WebSocket-Accept"
+    };
+
+    private static final int TABLE_SIZE = 256;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    private static final HttpResponseTemplate[] TEMPLATES = new HttpResponseTemplate[TABLE_SIZE];
+    private static final int[] CANDIDATES = new int[TABLE_SIZE];
+
+    private final int hash;
+    private final HttpVersion version;
+    private final HttpStatus status;
+    private final String reason;
+
+    // one entry per fixed header value and per slot header, with a null value for slots
+    private final String[] names;
+    private final String[] values;
+
+    private final byte[] prefix;
+    private final byte[][] suffixes;
+    private final int length;
+
+    HttpResponseTemplate(HttpResponseMessage httpResponse, int hash, byte[] prefix, byte[][] suffixes) {
+        List<String> names = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : httpResponse.getHeaders().entrySet()) {
+            String headerName = entry.getKey();
+            List<String> headerValues = entry.getValue();
+            if (headerName != null && headerValues != null) {
+                if (isSlot(headerName)) {
+                    names.add(headerName);
+                    values.add(null);
+                }
+                else {
+                    for (String headerValue : headerValues) {
+                        names.add(headerName);
+                        values.add(headerValue);
+                    }
+                }
+            }
+        }
+
+        int length = prefix.length;
+        for (byte[] suffix : suffixes) {
+            length += suffix.length;
+        }
+
+        this.hash = hash;
+        this.version = httpResponse.getVersion();
+        this.status = httpResponse.getStatus();
+        this.reason = httpResponse.getReason();
+        this.names = names.toArray(new String[names.size()]);
+        this.values = values.toArray(new String[values.size()]);
+        this.prefix = prefix;
+        this.suffixes = suffixes;
+        this.length = length;
+    }
+
+    /**
+     * Returns the status line and fixed header bytes preceding the first slot.
+     */
+    byte[] getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the fixed header bytes that follow the given slot, in the order slots appear in the response.
+     */
+    byte[] getSuffix(int slot) {
+        return suffixes[slot];
+    }
+
+    /**
+     * Returns the total length of the template bytes, to size the per-response buffer.
+     */
+    int length() {
+        return length;
+    }
+
+    boolean matches(HttpResponseMessage httpResponse, int hash) {
+        if (this.hash != hash || version != httpResponse.getVersion() || status != httpResponse.getStatus() ||
+                !reason.equals(httpResponse.getReason())) {
+            return false;
+        }
+
+        int index = 0;
+        for (Map.Entry<String, List<String>> entry : httpResponse.getHeaders().entrySet()) {
+            String headerName = entry.getKey();
+            List<String> headerValues = entry.getValue();
+            if (headerName != null && headerValues != null) {
+                if (isSlot(headerName)) {
+                    if (index == names.length || values[index] != null || !names[index].equals(headerName)) {
+                        return false;
+                    }
+                    index++;
+                }
+                else {
+                    for (String headerValue : headerValues) {
+                        if (index == names.length || !names[index].equals(headerName) ||
+                                !headerValue.equals(values[index])) {
+                            return false;
+                        }
+                        index++;
+                    }
+                }
+            }
+        }
+        return index == names.length;
+    }
+
+    static boolean isSlot(String headerName) {
+        // header names are usually the same constants, so check identity before comparing
+        for (String slotHeader : SLOT_HEADERS) {
+            if (slotHeader == headerName) {
+                return true;
+            }
+        }
+        for (String slotHeader : SLOT_HEADERS) {
+            if (slotHeader.equalsIgnoreCase(headerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a response can be encoded from a template, that is when it has a status line and no cookies.
+     */
+    static boolean isTemplatable(HttpResponseMessage httpResponse) {
+        return httpResponse.getVersion() != null && httpResponse.getStatus() != null && !httpResponse.hasCookies();
+    }
+
+    static int hash(HttpResponseMessage httpResponse) {
+        int hash = httpResponse.getVersion().ordinal();
+        hash = hash * 31 + httpResponse.getStatus().ordinal();
+        hash = hash * 31 + httpResponse.getReason().hashCode();
+        for (Map.Entry<String, List<String>> entry : httpResponse.getHeaders().entrySet()) {
+            String headerName = entry.getKey();
+            List<String> headerValues = entry.getValue();
+            if (headerName != null && headerValues != null) {
+                hash = hash * 31 + headerName.hashCode();
+                if (!isSlot(headerName)) {
+                    for (String headerValue : headerValues) {
+                        hash = hash * 31 + headerValue.hashCode();
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    static HttpResponseTemplate lookup(HttpResponseMessage httpResponse, int hash) {
+        HttpResponseTemplate template = TEMPLATES[index(hash)];
+        return (template != null && template.matches(httpResponse, hash)) ? template : null;
+    }
+
+    /**
+     * Records a response shape that has no template yet and returns true if the same shape was the previous one
+     * recorded for its table entry, meaning a template is worth creating.
+     */
+    static boolean recur(int hash) {
+        int index = index(hash);
+        if (CANDIDATES[index] == hash) {
+            return true;
+        }
+        CANDIDATES[index] = hash;
+        return false;
+    }
+
+    static void register(HttpResponseTemplate template) {
+        TEMPLATES[index(template.hash)] = template;
+    }
+
+    private static int index(int hash) {
+        return (hash ^ (hash >>> 16)) & TABLE_MASK;
+    }
+}
@@ -22,6 +22,7 @@
 package org.kaazing.gateway.transport.http.bridge.filter;
 
 import static java.lang.String.format;
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_UPGRADE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.Queue;
@@ -30,6 +31,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.http.HttpPipeline;
 import org.kaazing.gateway.transport.http.HttpProtocol;
 import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
 import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
@@ -37,33 +39,52 @@ import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
 import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
 
+/**
+ * Dispatches pipelined HTTP requests received on one connection.  By default each request is dispatched
+ * only after the response to the previous request is complete.  When configured with a maximum greater
+ * than one, up to that many complete requests are dispatched concurrently, while the {@link HttpPipeline}
+ * holds back their responses so they are written in request order.  Requests that upgrade the connection
+ * are never dispatched concurrently with other requests.
+ */
 public class HttpSerializeRequestsFilter extends HttpFilterAdapter<IoSessionEx> {
 
     private final Queue<Object> messageQueue = new ConcurrentLinkedQueue<>();
     private final Logger logger;
+    private final int maximumPipelinedRequests;
+    private final HttpPipeline pipeline;
 
     private final AtomicInteger requestsCompleted = new AtomicInteger();
     private final AtomicInteger responsesCompleted = new AtomicInteger();
 
     private boolean lastHttpResponseComplete;
+    private volatile boolean upgradeRequested;
 
     public HttpSerializeRequestsFilter() {
         this(getLogger(HttpSerializeRequestsFilter.class));
     }
 
     public HttpSerializeRequestsFilter(Logger logger) {
+        this(logger, 1, null);
+    }
+
+    public HttpSerializeRequestsFilter(Logger logger, int maximumPipelinedRequests, HttpPipeline pipeline) {
+        if (maximumPipelinedRequests < 1) {
+            throw new IllegalArgumentException("maximumPipelinedRequests: " + maximumPipelinedRequests);
+        }
         this.logger = logger;
+        this.maximumPipelinedRequests = maximumPipelinedRequests;
+        this.pipeline = pipeline;
     }
 
     @Override
     public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
-        if (requestsCompleted.get() == responsesCompleted.get()) {
+        if (messageQueue.isEmpty() && canDispatch(message)) {
             super.messageReceived(nextFilter, session, message);
         } else {
             if (messageQueue.isEmpty()) {
                 if (logger.isTraceEnabled()) {
                     logger.trace(format("[%s#%s] Suspending reads for HTTP pipelined request", HttpProtocol.NAME, session.getId()));
-    }
+                }
                 session.suspendRead();
             }
             messageQueue.add(message);
@@ -74,19 +95,42 @@ public class HttpSerializeRequestsFilter extends HttpFilterAdapter<IoSessionEx>
     public void filterWrite(NextFilter nextFilter, IoSession session, WriteRequest writeRequest) throws Exception {
         super.filterWrite(nextFilter, session, writeRequest);
 
-        while (!messageQueue.isEmpty() && requestsCompleted.get() == responsesCompleted.get()) {
-            Object message = messageQueue.poll();
-            if (message == null) {
+        while (!messageQueue.isEmpty()) {
+            Object message = messageQueue.peek();
+            if (message == null || !canDispatch(message)) {
+                break;
+            }
+            messageQueue.poll();
+            super.messageReceived(nextFilter, session, message);
+            if (messageQueue.isEmpty()) {
                 if (logger.isTraceEnabled()) {
                     logger.trace(format("[%s#%s] Resuming reads for HTTP pipelined request", HttpProtocol.NAME, session.getId()));
                 }
                 session.resumeRead();
-                break;
             }
-            super.messageReceived(nextFilter, session, message);
         }
     }
 
+    private boolean canDispatch(Object message) {
+        boolean request = message instanceof HttpRequestMessage;
+        boolean upgrade = request && ((HttpRequestMessage) message).getHeader(HEADER_UPGRADE) != null;
+
+        int requestsInFlight = requestsCompleted.get() - responsesCompleted.get();
+        if (requestsInFlight == 0) {
+            if (request) {
+                upgradeRequested = upgrade;
+            }
+            return true;
+        }
+
+        // hold back upgrade requests and requests pipelined after an upgrade until earlier responses are complete,
+        // and other requests while too many response bytes are held back
+        return !upgrade &&
+               !upgradeRequested &&
+               requestsInFlight < maximumPipelinedRequests &&
+               (pipeline == null || !pipeline.isBufferLimitReached());
+    }
+
     @Override
     protected void httpRequestReceived(NextFilter nextFilter, IoSessionEx session, HttpRequestMessage httpRequest)
             throws Exception {
@@ -0,0 +1,535 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.INJECTABLE_HEADERS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.CANCEL;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.CONNECTION_PREFACE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.ENHANCE_YOUR_CALM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_ACK;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_END_HEADERS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FLAG_END_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.FRAME_HEADER_LENGTH;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.NO_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.PROTOCOL_ERROR;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_CONTINUATION;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_DATA;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_GOAWAY;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_HEADERS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_RST_STREAM;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_SETTINGS;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.TYPE_WINDOW_UPDATE;
+import static org.kaazing.gateway.transport.http.bridge.filter.Http2Frames.putFrameHeader;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP2_ENABLED;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.resource.address.ResourceOptions;
+import org.kaazing.gateway.resource.address.http.HttpInjectableHeader;
+import org.kaazing.gateway.transport.BridgeServiceFactory;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.http.bridge.filter.HpackDecoder;
+import org.kaazing.gateway.transport.http.bridge.filter.HpackEncoder;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+public class Http2IT {
+
+    private static final String UPGRADE_REQUEST = "GET /path?request=1 HTTP/1.1\r\n" +
+                                                  "Host: localhost:8000\r\n" +
+                                                  "Connection: Upgrade, HTTP2-Settings\r\n" +
+                                                  "Upgrade: h2c\r\n" +
+                                                  "HTTP2-Settings: AAMAAABkAAQAAP__\r\n" +
+                                                  "\r\n";
+
+    private HttpAcceptor httpAcceptor;
+    private NioSocketAcceptor tcpAcceptor;
+    private ResourceAddress httpAddress;
+
+    private final HpackEncoder encoder = new HpackEncoder(4096);
+    private final HpackDecoder decoder = new HpackDecoder(4096);
+    private final Map<Integer, List<String>> responseHeaders = new HashMap<>();
+    private final Map<Integer, StringBuilder> responseBodies = new HashMap<>();
+
+    @Before
+    public void setupAcceptor() {
+        ResourceAddressFactory addressFactory = newResourceAddressFactory();
+        Map<String, ?> config = Collections.emptyMap();
+        TransportFactory transportFactory = TransportFactory.newTransportFactory(config);
+        BridgeServiceFactory serviceFactory = new BridgeServiceFactory(transportFactory);
+
+        httpAcceptor = (HttpAcceptor)transportFactory.getTransport("http").getAcceptor();
+        httpAcceptor.setBridgeServiceFactory(serviceFactory);
+        httpAcceptor.setResourceAddressFactory(addressFactory);
+
+        SchedulerProvider provider = new SchedulerProvider();
+        httpAcceptor.setSchedulerProvider(provider);
+
+        tcpAcceptor = (NioSocketAcceptor)transportFactory.getTransport("tcp").getAcceptor();
+        tcpAcceptor.setSchedulerProvider(provider);
+        tcpAcceptor.setResourceAddressFactory(addressFactory);
+        tcpAcceptor.setBridgeServiceFactory(serviceFactory);
+
+        Properties configuration = new Properties();
+        configuration.setProperty(HTTP2_ENABLED.getPropertyName(), "true");
+        httpAcceptor.setConfiguration(configuration);
+
+        URI location = URI.create("http://localhost:8000/path");
+        ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+        options.setOption(INJECTABLE_HEADERS, Collections.<HttpInjectableHeader>emptySet());
+        httpAddress = addressFactory.newResourceAddress(location, options);
+    }
+
+    @After
+    public void disposeAcceptor() {
+        if (httpAcceptor != null) {
+            httpAcceptor.dispose();
+        }
+
+        if (tcpAcceptor != null) {
+            tcpAcceptor.dispose();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldServeConcurrentStreamsWithPriorKnowledge() throws Exception {
+        // responds only once both streams are dispatched, last stream first
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            private final List<HttpAcceptSession> sessions = new ArrayList<>();
+
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                sessions.add((HttpAcceptSession) session);
+                if (sessions.size() == 2) {
+                    respond(sessions.get(1));
+                    respond(sessions.get(0));
+                }
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("GET", 1)));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 3, requestHeaders("GET", 3)));
+            output.flush();
+
+            readResponses(socket, 1, 3);
+            assertEquals(Arrays.asList(":status", "200"), responseHeaders.get(1).subList(0, 2));
+            assertTrue(responseHeaders.get(1).contains("text/plain"));
+            assertEquals("response 1", responseBodies.get(1).toString());
+            assertEquals("response 3", responseBodies.get(3).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldDeliverRequestBody() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void messageReceived(IoSession session, Object message) throws Exception {
+                // echo the request body
+                HttpAcceptSession httpSession = (HttpAcceptSession) session;
+                IoBufferEx buf = (IoBufferEx) message;
+                byte[] body = new byte[buf.remaining()];
+                buf.get(body);
+                IoBufferAllocatorEx<?> allocator = httpSession.getBufferAllocator();
+                httpSession.write(allocator.wrap(ByteBuffer.wrap(body)));
+                httpSession.close(false);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS, 1, requestHeaders("POST", 1, "content-length", "5")));
+            output.write(frame(TYPE_DATA, 0, 1, "hel".getBytes(US_ASCII)));
+            output.write(frame(TYPE_DATA, FLAG_END_STREAM, 1, "lo".getBytes(US_ASCII)));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("hello", responseBodies.get(1).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldUpgradeToHttp2() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(UPGRADE_REQUEST.getBytes(US_ASCII));
+            output.flush();
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            StringBuilder response = new StringBuilder();
+            while (response.indexOf("\r\n\r\n") == -1) {
+                response.append((char) input.readUnsignedByte());
+            }
+            assertTrue(response.toString(), response.toString().startsWith("HTTP/1.1 101 "));
+            assertTrue(response.toString(), response.toString().contains("Upgrade: h2c"));
+
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("response 1", responseBodies.get(1).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWriteQueuedDataOnWindowUpdate() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, setting(SETTINGS_INITIAL_WINDOW_SIZE, 4)));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("GET", 1)));
+            output.flush();
+
+            // response is blocked by the stream send window after the first 4 bytes
+            readData(socket, 1, 4);
+            assertEquals("resp", responseBodies.get(1).toString());
+
+            output.write(frame(TYPE_WINDOW_UPDATE, 0, 1, ByteBuffer.allocate(4).putInt(6).array()));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("response 1", responseBodies.get(1).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWriteQueuedDataOnInitialWindowSizeIncrease() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, setting(SETTINGS_INITIAL_WINDOW_SIZE, 4)));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("GET", 1)));
+            output.flush();
+
+            readData(socket, 1, 4);
+            assertEquals("resp", responseBodies.get(1).toString());
+
+            // the delta from the previous initial window size applies to the open stream
+            output.write(frame(TYPE_SETTINGS, 0, 0, setting(SETTINGS_INITIAL_WINDOW_SIZE, 10)));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("response 1", responseBodies.get(1).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldDecodeHeaderBlockContinuation() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            byte[] block = requestHeaders("GET", 1);
+            int split = block.length / 2;
+
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_STREAM, 1, Arrays.copyOfRange(block, 0, split)));
+            output.write(frame(TYPE_CONTINUATION, FLAG_END_HEADERS, 1, Arrays.copyOfRange(block, split, block.length)));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("response 1", responseBodies.get(1).toString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldResetOnlyStreamSession() throws Exception {
+        final CountDownLatch reset = new CountDownLatch(1);
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                HttpAcceptSession httpSession = (HttpAcceptSession) session;
+                if ("3".equals(httpSession.getParameter("request"))) {
+                    respond(httpSession);
+                }
+            }
+
+            @Override
+            public void sessionClosed(IoSession session) throws Exception {
+                if ("1".equals(((HttpAcceptSession) session).getParameter("request"))) {
+                    reset.countDown();
+                }
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("GET", 1)));
+            output.write(frame(TYPE_RST_STREAM, 0, 1, ByteBuffer.allocate(4).putInt(NO_ERROR).array()));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 3, requestHeaders("GET", 3)));
+            output.flush();
+
+            assertTrue(reset.await(5, TimeUnit.SECONDS));
+            readResponses(socket, 3);
+            assertEquals("response 3", responseBodies.get(3).toString());
+            assertFalse(responseHeaders.containsKey(1));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCloseConnectionAfterActiveStreamsOnGoAway() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, 1, requestHeaders("GET", 1)));
+            output.write(frame(TYPE_GOAWAY, 0, 0, ByteBuffer.allocate(8).putInt(0).putInt(NO_ERROR).array()));
+            output.flush();
+
+            readResponses(socket, 1);
+            assertEquals("response 1", responseBodies.get(1).toString());
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            try {
+                while (true) {
+                    readFrame(socket, input);
+                }
+            }
+            catch (EOFException | SocketException e) {
+                // connection closed once the active stream completed
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldResetStreamWhenContentExceedsContentLength() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter(), null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS, 1, requestHeaders("POST", 1, "content-length", "3")));
+            output.write(frame(TYPE_DATA, FLAG_END_STREAM, 1, "hello".getBytes(US_ASCII)));
+            output.flush();
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            Frame frame;
+            do {
+                frame = readFrame(socket, input);
+            } while (frame.type != TYPE_RST_STREAM);
+            assertEquals(1, frame.streamId);
+            assertEquals(PROTOCOL_ERROR, ByteBuffer.wrap(frame.payload).getInt());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCloseConnectionWhenClientResetsTooManyStreams() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter(), null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(CONNECTION_PREFACE);
+            output.write(frame(TYPE_SETTINGS, 0, 0, new byte[0]));
+            for (int streamId = 1; streamId <= 401; streamId += 2) {
+                output.write(frame(TYPE_HEADERS, FLAG_END_HEADERS | FLAG_END_STREAM, streamId,
+                        requestHeaders("GET", streamId)));
+                output.write(frame(TYPE_RST_STREAM, 0, streamId, ByteBuffer.allocate(4).putInt(CANCEL).array()));
+            }
+            output.flush();
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            Frame frame;
+            do {
+                frame = readFrame(socket, input);
+            } while (frame.type != TYPE_GOAWAY);
+            assertEquals(ENHANCE_YOUR_CALM, ByteBuffer.wrap(frame.payload, 4, 4).getInt());
+        }
+    }
+
+    private static void respond(HttpAcceptSession session) {
+        byte[] body = ("response " + session.getParameter("request")).getBytes(US_ASCII);
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        session.setWriteHeader("Content-Type", "text/plain");
+        session.write(allocator.wrap(ByteBuffer.wrap(body)));
+        session.close(false);
+    }
+
+    private byte[] requestHeaders(String method, int request, String... headers) {
+        IoBufferEx block = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(256));
+        encoder.encode(block, ":method", method);
+        encoder.encode(block, ":scheme", "http");
+        encoder.encode(block, ":path", "/path?request=" + request);
+        encoder.encode(block, ":authority", "localhost:8000");
+        for (int i = 0; i < headers.length; i += 2) {
+            encoder.encode(block, headers[i], headers[i + 1]);
+        }
+        block.flip();
+        byte[] bytes = new byte[block.remaining()];
+        block.get(bytes);
+        return bytes;
+    }
+
+    private void readResponses(Socket socket, Integer... streamIds) throws Exception {
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        List<Integer> openStreams = new ArrayList<>(Arrays.asList(streamIds));
+        while (!openStreams.isEmpty()) {
+            Frame frame = readFrame(socket, input);
+            if ((frame.type == TYPE_HEADERS || frame.type == TYPE_DATA) && (frame.flags & FLAG_END_STREAM) != 0) {
+                openStreams.remove(Integer.valueOf(frame.streamId));
+            }
+        }
+    }
+
+    private void readData(Socket socket, int streamId, int length) throws Exception {
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        while (!responseBodies.containsKey(streamId) || responseBodies.get(streamId).length() < length) {
+            readFrame(socket, input);
+        }
+    }
+
+    private Frame readFrame(Socket socket, DataInputStream input) throws Exception {
+        byte[] header = new byte[FRAME_HEADER_LENGTH];
+        input.readFully(header);
+        int length = ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff);
+        int type = header[3] & 0xff;
+        int flags = header[4] & 0xff;
+        int streamId = ByteBuffer.wrap(header, 5, 4).getInt() & 0x7fffffff;
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+
+        switch (type) {
+        case TYPE_HEADERS:
+            final List<String> fields = new ArrayList<>();
+            decoder.decode(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(payload)), new HpackDecoder.HeaderListener() {
+                @Override
+                public void header(String name, String value) {
+                    fields.add(name);
+                    fields.add(value);
+                }
+            });
+            responseHeaders.put(streamId, fields);
+            responseBodies.put(streamId, new StringBuilder());
+            break;
+        case TYPE_DATA:
+            responseBodies.get(streamId).append(new String(payload, US_ASCII));
+            break;
+        case TYPE_SETTINGS:
+            if ((flags & FLAG_ACK) == 0) {
+                socket.getOutputStream().write(frame(TYPE_SETTINGS, FLAG_ACK, 0, new byte[0]));
+            }
+            break;
+        default:
+            break;
+        }
+
+        return new Frame(type, flags, streamId, payload);
+    }
+
+    private static byte[] setting(int identifier, int value) {
+        return ByteBuffer.allocate(6).putShort((short) identifier).putInt(value).array();
+    }
+
+    private static byte[] frame(int type, int flags, int streamId, byte[] payload) {
+        IoBufferEx frame = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(FRAME_HEADER_LENGTH + payload.length));
+        putFrameHeader(frame, payload.length, type, flags, streamId);
+        frame.put(payload);
+        return frame.array();
+    }
+
+    private static final class Frame {
+        private final int type;
+        private final int flags;
+        private final int streamId;
+        private final byte[] payload;
+
+        Frame(int type, int flags, int streamId, byte[] payload) {
+            this.type = type;
+            this.flags = flags;
+            this.streamId = streamId;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertNotNull;
+import static org.kaazing.gateway.resource.address.ResourceAddress.ALTERNATE;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.kaazing.gateway.resource.address.NameResolver;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.transport.Bindings.Binding;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+
+/**
+ * Compares HTTP binding lookups through the path trie against the previous skip list scan,
+ * for 10, 100 and 1000 services bound on the same port.
+ * Launched by hand through main(), it prints the average lookup time of each implementation per round.
+ */
+public class HttpBindingsBenchmarkIT {
+
+    private static final int[] BIND_COUNTS = { 10, 100, 1000 };
+
+    public static void main(String[] args) throws Exception {
+        new HttpBindingsBenchmarkIT().benchmark(1000000, 5);
+    }
+
+    private void benchmark(int lookups, int rounds) throws Exception {
+        ResourceAddressFactory addressFactory = newResourceAddressFactory();
+        Map<String, Object> options = new HashMap<>();
+        options.put("tcp.resolver", new NameResolver() {
+            @Override
+            public Collection<InetAddress> getAllByName(String host) throws UnknownHostException {
+                return Collections.singleton(InetAddress.getLoopbackAddress());
+            }
+        });
+
+        for (int binds : BIND_COUNTS) {
+            HttpBindings bindings = new HttpBindings();
+            LegacyBindings legacyBindings = new LegacyBindings();
+            ResourceAddress[] requests = new ResourceAddress[binds];
+            for (int i = 0; i < binds; i++) {
+                URI location = URI.create(format("http://localhost:8000/service%d", i));
+                ResourceAddress bindAddress = addressFactory.newResourceAddress(location, options);
+                Binding binding = new Binding(bindAddress, new IoHandlerAdapter<>());
+                bindings.addBinding(binding);
+                legacyBindings.put(bindAddress.getResource().getPath(), binding);
+                URI requestURI = URI.create(format("http://localhost:8000/service%d/;e/cb", i));
+                requests[i] = addressFactory.newResourceAddress(requestURI, options);
+            }
+
+            for (int round = 0; round < rounds; round++) {
+                long legacyNanos = runLegacy(legacyBindings, requests, lookups);
+                long trieNanos = run(bindings, requests, lookups);
+                System.out.println(format("%d binds, round %d: skip list %.1f ns/lookup, trie %.1f ns/lookup", binds,
+                        round, (double) legacyNanos / lookups, (double) trieNanos / lookups));
+            }
+        }
+    }
+
+    private long run(HttpBindings bindings, ResourceAddress[] requests, int lookups) {
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            ResourceAddress request = requests[i % requests.length];
+            assertNotNull(bindings.getBinding(request));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runLegacy(LegacyBindings bindings, ResourceAddress[] requests, int lookups) {
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            ResourceAddress request = requests[i % requests.length];
+            assertNotNull(bindings.get(request));
+        }
+        return System.nanoTime() - start;
+    }
+
+    // previous implementation, a skip list scan followed by a walk of the transport alternates
+    private static final class LegacyBindings {
+        private static final Comparator<String> PATH_ASCENDING = new Comparator<String>() {
+
+            @Override
+            public int compare(String path1, String path2) {
+                String[] segments1 = path1.split("/");
+                String[] segments2 = path2.split("/");
+
+                int nSegments = Math.min(segments1.length, segments2.length);
+                int comparison = 0;
+                for (int i = 0; i < nSegments && comparison == 0; i++) {
+                    comparison = segments1[i].compareTo(segments2[i]);
+                }
+                return (comparison == 0) ? segments1.length - segments2.length : comparison;
+            }
+        };
+
+        private final ConcurrentSkipListMap<String, Binding> bindingsByPath = new ConcurrentSkipListMap<>(PATH_ASCENDING);
+
+        void put(String path, Binding binding) {
+            bindingsByPath.put(path, binding);
+        }
+
+        Binding get(ResourceAddress address) {
+            String path = address.getResource().getPath();
+            NavigableSet<String> candidatePaths = bindingsByPath.navigableKeySet().headSet(path, true);
+            for (Iterator<String> $i = candidatePaths.descendingIterator(); $i.hasNext(); ) {
+                String candidatePath = $i.next();
+                if (path.startsWith(candidatePath)) {
+                    Binding binding = bindingsByPath.get(candidatePath);
+                    ResourceAddress boundAddressFloor = getFloorTransport(binding.bindAddress());
+                    URI sourceAddressURI = getFloorTransport(address).getResource();
+                    while (boundAddressFloor != null) {
+                        if (sourceAddressURI.equals(boundAddressFloor.getResource())) {
+                            return binding;
+                        }
+                        boundAddressFloor = boundAddressFloor.getOption(ALTERNATE);
+                    }
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private static ResourceAddress getFloorTransport(ResourceAddress address) {
+            return (address.getTransport() == null) ? address : getFloorTransport(address.getTransport());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpPathTrieTest {
+
+    private HttpPathTrie<String> trie;
+
+    @Before
+    public void setUp() {
+        trie = new HttpPathTrie<>();
+        assertTrue(trie.isEmpty());
+    }
+
+    @Test
+    public void shouldMatchLongestPrefix() {
+        trie.putIfAbsent("/foo", "foo");
+        trie.putIfAbsent("/foo/baz", "baz");
+        trie.putIfAbsent("/bar/fiz", "fiz");
+        trie.putIfAbsent("/bar/buz", "buz");
+
+        assertNull(trie.getLongestPrefix("/"));
+        assertNull(trie.getLongestPrefix("/bar"));
+        assertNull(trie.getLongestPrefix("/bar/extra"));
+        assertEquals("foo", trie.getLongestPrefix("/foo"));
+        assertEquals("foo", trie.getLongestPrefix("/foo/bar"));
+        assertEquals("foo", trie.getLongestPrefix("/foo/ba"));
+        assertEquals("baz", trie.getLongestPrefix("/foo/baz/extra"));
+        assertEquals("fiz", trie.getLongestPrefix("/bar/fiz/extra"));
+        assertEquals("buz", trie.getLongestPrefix("/bar/buz"));
+    }
+
+    @Test
+    public void shouldMatchRootPath() {
+        trie.putIfAbsent("/", "root");
+        trie.putIfAbsent("", "empty");
+        trie.putIfAbsent("/echo", "echo");
+
+        assertEquals("empty", trie.getLongestPrefix(""));
+        assertEquals("root", trie.getLongestPrefix("/other"));
+        assertEquals("echo", trie.getLongestPrefix("/echo/;e/cb"));
+    }
+
+    @Test
+    public void shouldNotReplaceExistingValue() {
+        assertNull(trie.putIfAbsent("/foo", "foo"));
+        assertEquals("foo", trie.putIfAbsent("/foo", "other"));
+        assertEquals("foo", trie.get("/foo"));
+    }
+
+    @Test
+    public void shouldSplitAndMergeLabels() {
+        trie.putIfAbsent("/echo/;e/ct", "ct");
+        trie.putIfAbsent("/echo/;e/cte", "cte");
+        trie.putIfAbsent("/echo/;e/ctem", "ctem");
+        trie.putIfAbsent("/echo/;e/cb", "cb");
+        assertNull(trie.get("/echo/;e/c"));
+
+        assertEquals("cte", trie.remove("/echo/;e/cte"));
+        assertNull(trie.get("/echo/;e/cte"));
+        assertEquals("ct", trie.getLongestPrefix("/echo/;e/cte"));
+        assertEquals("ctem", trie.getLongestPrefix("/echo/;e/ctem/x"));
+
+        assertNull(trie.remove("/echo/;e/c"));
+        assertEquals("ct", trie.remove("/echo/;e/ct"));
+        assertEquals("ctem", trie.remove("/echo/;e/ctem"));
+        assertEquals("cb", trie.remove("/echo/;e/cb"));
+        assertTrue(trie.isEmpty());
+    }
+}
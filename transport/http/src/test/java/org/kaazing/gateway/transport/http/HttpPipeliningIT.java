@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.resource.address.http.HttpResourceAddress.INJECTABLE_HEADERS;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_PIPELINE_MAXIMUM_REQUESTS;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.resource.address.ResourceOptions;
+import org.kaazing.gateway.resource.address.http.HttpInjectableHeader;
+import org.kaazing.gateway.transport.BridgeServiceFactory;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+
+public class HttpPipeliningIT {
+
+    private static final String REQUEST = "GET /path?request=%d HTTP/1.1\r\nHost: localhost:8000\r\n\r\n";
+
+    private HttpAcceptor httpAcceptor;
+    private NioSocketAcceptor tcpAcceptor;
+    private ResourceAddress httpAddress;
+
+    @Before
+    public void setupAcceptor() {
+        ResourceAddressFactory addressFactory = newResourceAddressFactory();
+        Map<String, ?> config = Collections.emptyMap();
+        TransportFactory transportFactory = TransportFactory.newTransportFactory(config);
+        BridgeServiceFactory serviceFactory = new BridgeServiceFactory(transportFactory);
+
+        httpAcceptor = (HttpAcceptor)transportFactory.getTransport("http").getAcceptor();
+        httpAcceptor.setBridgeServiceFactory(serviceFactory);
+        httpAcceptor.setResourceAddressFactory(addressFactory);
+
+        SchedulerProvider provider = new SchedulerProvider();
+        httpAcceptor.setSchedulerProvider(provider);
+
+        tcpAcceptor = (NioSocketAcceptor)transportFactory.getTransport("tcp").getAcceptor();
+        tcpAcceptor.setSchedulerProvider(provider);
+        tcpAcceptor.setResourceAddressFactory(addressFactory);
+        tcpAcceptor.setBridgeServiceFactory(serviceFactory);
+
+        URI location = URI.create("http://localhost:8000/path");
+        ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
+        options.setOption(INJECTABLE_HEADERS, Collections.<HttpInjectableHeader>emptySet());
+        httpAddress = addressFactory.newResourceAddress(location, options);
+    }
+
+    @After
+    public void disposeAcceptor() {
+        if (httpAcceptor != null) {
+            httpAcceptor.dispose();
+        }
+
+        if (tcpAcceptor != null) {
+            tcpAcceptor.dispose();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWritePipelinedResponsesInRequestOrder() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty(HTTP_PIPELINE_MAXIMUM_REQUESTS.getPropertyName(), "3");
+        httpAcceptor.setConfiguration(configuration);
+
+        // responds only once all three requests are dispatched, last request first
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            private final List<HttpAcceptSession> sessions = new ArrayList<>();
+
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                sessions.add((HttpAcceptSession) session);
+                if (sessions.size() == 3) {
+                    for (int i = sessions.size() - 1; i >= 0; i--) {
+                        respond(sessions.get(i));
+                    }
+                }
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            write(socket, format(REQUEST, 1) + format(REQUEST, 2) + format(REQUEST, 3));
+            String responses = read(socket, "response 1", "response 2", "response 3");
+            int response1 = responses.indexOf("response 1");
+            int response2 = responses.indexOf("response 2");
+            int response3 = responses.indexOf("response 3");
+            assertTrue(responses, response1 != -1 && response1 < response2 && response2 < response3);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldServePipelinedRequestsSeriallyByDefault() throws Exception {
+        httpAcceptor.bind(httpAddress, new IoHandlerAdapter() {
+            @Override
+            public void sessionOpened(IoSession session) throws Exception {
+                respond((HttpAcceptSession) session);
+            }
+        }, null);
+
+        try (Socket socket = new Socket("localhost", 8000)) {
+            write(socket, format(REQUEST, 1) + format(REQUEST, 2) + format(REQUEST, 3));
+            read(socket, "response 1", "response 2", "response 3");
+
+            // reads resume once the pipelined requests have been served
+            write(socket, format(REQUEST, 4));
+            read(socket, "response 4");
+        }
+    }
+
+    private static void respond(HttpAcceptSession session) {
+        byte[] body = ("response " + session.getParameter("request")).getBytes(US_ASCII);
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        session.setWriteHeader("Content-Type", "text/plain");
+        session.write(allocator.wrap(ByteBuffer.wrap(body)));
+        session.close(false);
+    }
+
+    private static void write(Socket socket, String requests) throws Exception {
+        OutputStream output = socket.getOutputStream();
+        output.write(requests.getBytes(US_ASCII));
+        output.flush();
+    }
+
+    private static String read(Socket socket, String... expected) throws Exception {
+        InputStream input = socket.getInputStream();
+        StringBuilder responses = new StringBuilder();
+        byte[] buf = new byte[1024];
+        while (!containsAll(responses, expected)) {
+            int length = input.read(buf);
+            if (length == -1) {
+                break;
+            }
+            responses.append(new String(buf, 0, length, US_ASCII));
+        }
+        return responses.toString();
+    }
+
+    private static boolean containsAll(StringBuilder responses, String... expected) {
+        for (String response : expected) {
+            if (responses.indexOf(response) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String format(String request, int index) {
+        return String.format(request, index);
+    }
+}
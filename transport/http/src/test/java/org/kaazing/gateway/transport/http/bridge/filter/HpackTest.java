@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+public class HpackTest {
+
+    @Test
+    public void shouldEncodeIntegers() throws Exception {
+        // RFC 7541, Appendix C.1
+        assertArrayEquals(bytes("0a"), encodeInteger(5, 10));
+        assertArrayEquals(bytes("1f9a0a"), encodeInteger(5, 1337));
+        assertArrayEquals(bytes("2a"), encodeInteger(8, 42));
+
+        assertEquals(1337, HpackDecoder.decodeInteger(wrap(bytes("1f9a0a")), 5));
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void shouldRejectIntegerOverflow() throws Exception {
+        HpackDecoder.decodeInteger(wrap(bytes("1fffffffffff0f")), 5);
+    }
+
+    @Test
+    public void shouldDecodeRequestsWithoutHuffman() throws Exception {
+        // RFC 7541, Appendix C.3
+        HpackDecoder decoder = new HpackDecoder(4096);
+        assertEquals(fields(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com"),
+                decode(decoder, "828684410f7777772e6578616d706c652e636f6d"));
+        assertEquals(fields(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+                            "cache-control", "no-cache"),
+                decode(decoder, "828684be58086e6f2d6361636865"));
+        assertEquals(fields(":method", "GET", ":scheme", "https", ":path", "/index.html",
+                            ":authority", "www.example.com", "custom-key", "custom-value"),
+                decode(decoder, "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565"));
+    }
+
+    @Test
+    public void shouldDecodeRequestsWithHuffman() throws Exception {
+        // RFC 7541, Appendix C.4
+        HpackDecoder decoder = new HpackDecoder(4096);
+        assertEquals(fields(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com"),
+                decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+        assertEquals(fields(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+                            "cache-control", "no-cache"),
+                decode(decoder, "828684be5886a8eb10649cbf"));
+        assertEquals(fields(":method", "GET", ":scheme", "https", ":path", "/index.html",
+                            ":authority", "www.example.com", "custom-key", "custom-value"),
+                decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"));
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void shouldRejectInvalidIndex() throws Exception {
+        decode(new HpackDecoder(4096), "be");
+    }
+
+    @Test
+    public void shouldRoundTripHuffmanStrings() throws Exception {
+        byte[] value = "text/html; charset=UTF-8 \u00ff\u0000".getBytes(ISO_8859_1);
+        IoBufferEx out = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(64));
+        HpackHuffman.encode(value, out);
+        assertEquals(HpackHuffman.encodedLength(value), out.position());
+        out.flip();
+        assertArrayEquals(value, HpackHuffman.decode(out, out.remaining()));
+    }
+
+    @Test
+    public void shouldRoundTripResponseHeadersAcrossBlocks() throws Exception {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096);
+        List<String> response = fields(":status", "200", "content-type", "text/plain", "server", "Kaazing Gateway",
+                                       "set-cookie", "id=1", "x-custom", "value");
+
+        int firstLength = 0;
+        for (int i = 0; i < 3; i++) {
+            IoBufferEx block = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(256));
+            encoder.startBlock(block);
+            for (int j = 0; j < response.size(); j += 2) {
+                encoder.encode(block, response.get(j), response.get(j + 1));
+            }
+            block.flip();
+            if (i == 0) {
+                firstLength = block.remaining();
+            }
+            else {
+                // indexed from the dynamic table after the first response
+                assertEquals(true, block.remaining() < firstLength);
+            }
+            assertEquals(response, decode(decoder, block));
+        }
+    }
+
+    @Test
+    public void shouldNeverIndexSensitiveHeaders() throws Exception {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        IoBufferEx block = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(64));
+        encoder.encode(block, "set-cookie", "id=1");
+        assertEquals(0x10, block.get(0) & 0xf0);
+    }
+
+    @Test
+    public void shouldApplyTableSizeUpdate() throws Exception {
+        HpackEncoder encoder = new HpackEncoder(4096);
+        HpackDecoder decoder = new HpackDecoder(4096);
+        encoder.setMaximumTableSize(0);
+
+        IoBufferEx block = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(64));
+        encoder.startBlock(block);
+        encoder.encode(block, "content-type", "text/plain");
+        block.flip();
+        assertEquals(0x20, block.get(0) & 0xff);
+        assertEquals(fields("content-type", "text/plain"), decode(decoder, block));
+    }
+
+    private static List<String> decode(HpackDecoder decoder, String hex) throws Exception {
+        return decode(decoder, wrap(bytes(hex)));
+    }
+
+    private static List<String> decode(HpackDecoder decoder, IoBufferEx block) throws Exception {
+        final List<String> fields = new ArrayList<>();
+        decoder.decode(block, new HpackDecoder.HeaderListener() {
+            @Override
+            public void header(String name, String value) {
+                fields.add(name);
+                fields.add(value);
+            }
+        });
+        return fields;
+    }
+
+    private static byte[] encodeInteger(int prefixBits, int value) {
+        IoBufferEx out = BUFFER_ALLOCATOR.wrap(ByteBuffer.allocate(8));
+        HpackEncoder.encodeInteger(out, 0, prefixBits, value);
+        out.flip();
+        byte[] bytes = new byte[out.remaining()];
+        out.get(bytes);
+        return bytes;
+    }
+
+    private static List<String> fields(String... namesAndValues) {
+        List<String> fields = new ArrayList<>();
+        for (String nameOrValue : namesAndValues) {
+            fields.add(nameOrValue);
+        }
+        return fields;
+    }
+
+    private static IoBufferEx wrap(byte[] bytes) {
+        return BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
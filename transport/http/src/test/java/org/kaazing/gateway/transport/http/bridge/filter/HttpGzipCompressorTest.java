@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+
+public class HttpGzipCompressorTest {
+
+    private final IoBufferAllocatorEx<?> allocator = SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+    private HttpGzipCompressor compressor;
+    private ByteArrayOutputStream expected;
+    private ByteArrayOutputStream compressed;
+
+    @Before
+    public void setUp() {
+        compressor = new HttpGzipCompressor(6, 64);
+        compressor.reset();
+        expected = new ByteArrayOutputStream();
+        compressed = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown() {
+        compressor.dispose();
+    }
+
+    @Test
+    public void shouldCompressRepeatedMessagesAgainstSharedHistory() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            write(allocator.wrap(ByteBuffer.wrap(message(i))));
+        }
+
+        assertArrayEquals(expected.toByteArray(), inflate(compressed.toByteArray()));
+        assertTrue(expected.size() > 3 * compressed.size());
+    }
+
+    @Test
+    public void shouldInterleaveStoredBlocksForSmallMessages() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            byte[] message = (i % 3 == 0) ? ("{\"seq\":" + i + "}").getBytes(UTF_8) : message(i);
+            write(allocator.wrap(ByteBuffer.wrap(message)));
+        }
+
+        assertArrayEquals(expected.toByteArray(), inflate(compressed.toByteArray()));
+    }
+
+    @Test
+    public void shouldCompressDirectBuffer() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            byte[] message = message(i);
+            ByteBuffer data = ByteBuffer.allocateDirect(message.length);
+            data.put(message);
+            data.flip();
+            write(allocator.wrap(data));
+            assertEquals(message.length, data.remaining());
+        }
+
+        assertArrayEquals(expected.toByteArray(), inflate(compressed.toByteArray()));
+    }
+
+    @Test
+    public void shouldCompressPaddingWithoutBreakingStream() throws Exception {
+        write(allocator.wrap(ByteBuffer.wrap(HttpGzipEncoder.SSE_4K_PADDING_BYTES)));
+        write(allocator.wrap(ByteBuffer.wrap(message(1))));
+
+        assertArrayEquals(expected.toByteArray(), inflate(compressed.toByteArray()));
+    }
+
+    @Test
+    public void shouldStartNewStreamOnReset() throws Exception {
+        write(allocator.wrap(ByteBuffer.wrap(message(1))));
+
+        compressor.reset();
+        expected.reset();
+        compressed.reset();
+        write(allocator.wrap(ByteBuffer.wrap(message(2))));
+
+        assertArrayEquals(expected.toByteArray(), inflate(compressed.toByteArray()));
+    }
+
+    @Test
+    public void shouldRecordMetrics() throws Exception {
+        long bytesIn = HttpGzipCompressor.getBytesIn();
+        long bytesOut = HttpGzipCompressor.getBytesOut();
+
+        write(allocator.wrap(ByteBuffer.wrap(message(1))));
+
+        assertEquals(expected.size(), HttpGzipCompressor.getBytesIn() - bytesIn);
+        assertEquals(compressed.size(), HttpGzipCompressor.getBytesOut() - bytesOut);
+        assertTrue(HttpGzipCompressor.getCompressionRatio() > 0.0);
+        assertTrue(HttpGzipCompressor.getDeflateNanosPerByte() > 0.0);
+    }
+
+    private void write(IoBufferEx buf) {
+        ByteBuffer source = buf.buf();
+        byte[] bytes = new byte[source.remaining()];
+        source.duplicate().get(bytes);
+        expected.write(bytes, 0, bytes.length);
+
+        ByteBuffer output = compressor.write(buf, allocator).buf();
+        byte[] deflated = new byte[output.remaining()];
+        output.get(deflated);
+        compressed.write(deflated, 0, deflated.length);
+
+        // every message ends with a sync flush marker
+        int length = deflated.length;
+        assertArrayEquals(new byte[] { 0, 0, (byte) 0xff, (byte) 0xff }, new byte[] {
+            deflated[length - 4], deflated[length - 3], deflated[length - 2], deflated[length - 1] });
+    }
+
+    private static byte[] message(int seq) {
+        StringBuilder message = new StringBuilder("{\"seq\":").append(seq).append(",\"quotes\":[");
+        for (int i = 0; i < 8; i++) {
+            message.append("{\"symbol\":\"KZNG\",\"bid\":").append(100 + (seq + i) % 7)
+                   .append(",\"ask\":").append(101 + (seq + i) % 5).append("},");
+        }
+        return message.append("{}]}").toString().getBytes(UTF_8);
+    }
+
+    private static byte[] inflate(byte[] deflated) throws Exception {
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(deflated);
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int length;
+        while ((length = inflater.inflate(chunk)) > 0) {
+            inflated.write(chunk, 0, length);
+        }
+        assertTrue(inflater.needsInput());
+        inflater.end();
+        return inflated.toByteArray();
+    }
+}
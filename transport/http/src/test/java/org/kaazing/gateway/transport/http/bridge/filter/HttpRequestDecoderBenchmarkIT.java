@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolDecoderException;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.apache.mina.filter.codec.statemachine.CrLfDecodingState;
+import org.apache.mina.filter.codec.statemachine.DecodingState;
+import org.apache.mina.filter.codec.statemachine.LinearWhitespaceSkippingState;
+import org.kaazing.gateway.transport.DecodingStateMachine;
+import org.kaazing.gateway.transport.http.bridge.HttpHeaderNameComparator;
+import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.kaazing.mina.filter.codec.statemachine.ConsumeToCrLfDecodingState;
+import org.kaazing.mina.filter.codec.statemachine.ConsumeToTerminatorDecodingState;
+
+/**
+ * Compares the byte-level header decoding against the previous CharsetDecoder and String.split based decoding
+ * for WebSocket upgrade and long-poll requests, reading the headers the gateway typically inspects, and reports
+ * the cost of decoding each complete request.  It has no test methods and is run from main().
+ */
+public class HttpRequestDecoderBenchmarkIT {
+
+    private static final String UPGRADE_HEADERS =
+            "Host: gateway.example.com:8000\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Pragma: no-cache\r\n" +
+            "Cache-Control: no-cache\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Origin: http://www.example.com\r\n" +
+            "Sec-WebSocket-Version: 13\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/45.0 Safari/537.36\r\n" +
+            "Accept-Encoding: gzip, deflate, sdch\r\n" +
+            "Accept-Language: en-US,en;q=0.8\r\n" +
+            "Cookie: session=4f7a9c2e1b; theme=dark\r\n" +
+            "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+            "Sec-WebSocket-Extensions: permessage-deflate; client_max_window_bits\r\n" +
+            "Sec-WebSocket-Protocol: x-kaazing-handshake, chat\r\n" +
+            "\r\n";
+
+    private static final String LONG_POLL_HEADERS =
+            "Host: gateway.example.com:8000\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Accept: */*\r\n" +
+            "Origin: http://www.example.com\r\n" +
+            "X-Origin: http://www.example.com\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/45.0 Safari/537.36\r\n" +
+            "Referer: http://www.example.com/chat/index.html\r\n" +
+            "Accept-Encoding: gzip, deflate, sdch\r\n" +
+            "Accept-Language: en-US,en;q=0.8\r\n" +
+            "Cookie: session=4f7a9c2e1b; theme=dark\r\n" +
+            "\r\n";
+
+    private static final String UPGRADE_REQUEST = "GET /echo HTTP/1.1\r\n" + UPGRADE_HEADERS;
+    private static final String LONG_POLL_REQUEST =
+            "GET /echo/;e/cb/Yx4sV2RkJ8mQ?.kcc=text%2Fplain%3Bcharset%3Dutf-8&.kb=4096&.kid=12 HTTP/1.1\r\n" +
+            LONG_POLL_HEADERS;
+
+    private static final String[] INSPECTED_HEADERS = {
+        "Host", "Upgrade", "Connection", "Origin", "Sec-WebSocket-Key", "Sec-WebSocket-Protocol", "Cookie", "Referer"
+    };
+
+    public static void main(String[] args) throws Exception {
+        new HttpRequestDecoderBenchmarkIT().benchmark(200000, 5);
+    }
+
+    private void benchmark(int requests, int rounds) throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        HeaderBlockDecoder headerDecoder = new HeaderBlockDecoder(new HttpHeaderDecodingState(allocator) {
+            @Override
+            protected DecodingState finishDecode(List<Object> childProducts, ProtocolDecoderOutput out) {
+                out.write(childProducts.get(0));
+                return null;
+            }
+        });
+        HeaderBlockDecoder legacyDecoder = new HeaderBlockDecoder(new LegacyHeaderDecodingState(allocator) {
+            @Override
+            protected DecodingState finishDecode(List<Object> childProducts, ProtocolDecoderOutput out) {
+                out.write(childProducts.get(0));
+                return null;
+            }
+        });
+
+        IoBufferEx upgradeHeaders = allocator.wrap(ByteBuffer.wrap(UPGRADE_HEADERS.getBytes(US_ASCII)));
+        IoBufferEx longPollHeaders = allocator.wrap(ByteBuffer.wrap(LONG_POLL_HEADERS.getBytes(US_ASCII)));
+        assertEquals(legacyDecoder.decode(upgradeHeaders), headerDecoder.decode(upgradeHeaders));
+        assertEquals(legacyDecoder.decode(longPollHeaders), headerDecoder.decode(longPollHeaders));
+
+        for (int round = 0; round < rounds; round++) {
+            System.out.println(format("round %d: upgrade headers legacy %.1f ns, byte-level %.1f ns; " +
+                    "long-poll headers legacy %.1f ns, byte-level %.1f ns; complete upgrade request %.1f ns, " +
+                    "complete long-poll request %.1f ns", round,
+                    run(legacyDecoder, upgradeHeaders, requests), run(headerDecoder, upgradeHeaders, requests),
+                    run(legacyDecoder, longPollHeaders, requests), run(headerDecoder, longPollHeaders, requests),
+                    runRequests(UPGRADE_REQUEST, requests), runRequests(LONG_POLL_REQUEST, requests)));
+        }
+    }
+
+    private static double run(HeaderBlockDecoder decoder, IoBufferEx headers, int requests) throws Exception {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            Map<String, List<String>> decoded = decoder.decode(headers);
+            for (String name : INSPECTED_HEADERS) {
+                List<String> values = decoded.get(name);
+                if (values != null && !values.get(0).isEmpty()) {
+                    found++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, found % requests);
+        return (double) elapsed / requests;
+    }
+
+    private static double runRequests(String request, int requests) throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        HttpRequestDecoder decoder = new HttpRequestDecoder();
+        IoBufferEx in = session.getBufferAllocator().wrap(ByteBuffer.wrap(request.getBytes(US_ASCII)));
+
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            decoder.decode(session, (IoBuffer) in.duplicate(), session.getDecoderOutput());
+            HttpRequestMessage httpRequest = (HttpRequestMessage) session.getDecoderOutputQueue().poll();
+            for (String name : INSPECTED_HEADERS) {
+                if (httpRequest.getHeader(name) != null) {
+                    found++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, found % requests);
+        return (double) elapsed / requests;
+    }
+
+    private static final class HeaderBlockDecoder {
+        private final DecodingStateMachine headerState;
+        private final ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+
+        HeaderBlockDecoder(DecodingStateMachine headerState) {
+            this.headerState = headerState;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> decode(IoBufferEx headers) throws Exception {
+            headerState.decode((IoBuffer) headers.duplicate(), session.getDecoderOutput());
+            return (Map<String, List<String>>) session.getDecoderOutputQueue().poll();
+        }
+    }
+
+    // previous implementation of HttpHeaderDecodingState
+    private abstract static class LegacyHeaderDecodingState extends DecodingStateMachine {
+        private static final Set<String> COMMA_SEPARATED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        static {
+            COMMA_SEPARATED_HEADERS.add("Accept-Ranges");
+            COMMA_SEPARATED_HEADERS.add("Accept");
+            COMMA_SEPARATED_HEADERS.add("Accept-Charset");
+            COMMA_SEPARATED_HEADERS.add("Accept-Encoding");
+            COMMA_SEPARATED_HEADERS.add("Accept-Language");
+            COMMA_SEPARATED_HEADERS.add("Allow");
+            COMMA_SEPARATED_HEADERS.add("Connection");
+            COMMA_SEPARATED_HEADERS.add("Content-Encoding");
+            COMMA_SEPARATED_HEADERS.add("Content-Language");
+            COMMA_SEPARATED_HEADERS.add("If-Match");
+            COMMA_SEPARATED_HEADERS.add("If-None-Match");
+            COMMA_SEPARATED_HEADERS.add("Cache-Control");
+            COMMA_SEPARATED_HEADERS.add("Pragma");
+            COMMA_SEPARATED_HEADERS.add("Proxy-Authenticate");
+            COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Protocol");
+            COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Extensions");
+            COMMA_SEPARATED_HEADERS.add("Sec-WebSocket-Version");
+            COMMA_SEPARATED_HEADERS.add("TE");
+            COMMA_SEPARATED_HEADERS.add("Transfer-Encoding");
+            COMMA_SEPARATED_HEADERS.add("Upgrade");
+            COMMA_SEPARATED_HEADERS.add("Vary");
+            COMMA_SEPARATED_HEADERS.add("Via");
+            COMMA_SEPARATED_HEADERS.add("Warning");
+            COMMA_SEPARATED_HEADERS.add("WWW-Authenticate");
+        }
+
+        private final CharsetDecoder asciiDecoder = Charset.forName("US-ASCII").newDecoder();
+        private final CharsetDecoder utf8Decoder = Charset.forName("UTF-8").newDecoder();
+
+        private Map<String, List<String>> headers;
+        private String lastHeaderName;
+
+        private final DecodingState findEmptyLine = new CrLfDecodingState() {
+            @Override
+            protected DecodingState finishDecode(boolean foundCRLF, ProtocolDecoderOutput out) throws Exception {
+                if (foundCRLF) {
+                    out.write(headers);
+                    initHeaders();
+                    return null;
+                }
+                return readHeaderName;
+            }
+        };
+
+        private final DecodingState readHeaderName = new ConsumeToTerminatorDecodingState(allocator, (byte) ':') {
+            @Override
+            protected DecodingState finishDecode(IoBuffer buffer, ProtocolDecoderOutput out) throws Exception {
+                if (buffer == null || !buffer.hasRemaining()) {
+                    throw new ProtocolDecoderException("Invalid header name in the request");
+                }
+                lastHeaderName = buffer.getString(asciiDecoder);
+                return afterReadHeaderName;
+            }
+        };
+
+        private final DecodingState afterReadHeaderName = new LinearWhitespaceSkippingState() {
+            @Override
+            protected DecodingState finishDecode(int skippedBytes) throws Exception {
+                return readHeaderValue;
+            }
+        };
+
+        private final DecodingState readHeaderValue = new ConsumeToCrLfDecodingState(allocator) {
+            @Override
+            protected DecodingState finishDecode(IoBuffer buffer, ProtocolDecoderOutput out) throws Exception {
+                String value = buffer.getString(utf8Decoder);
+                List<String> values = headers.get(lastHeaderName);
+                if (values == null) {
+                    values = new ArrayList<>();
+                    headers.put(lastHeaderName, values);
+                }
+                if (COMMA_SEPARATED_HEADERS.contains(lastHeaderName)) {
+                    for (String separatedValue : value.split(",")) {
+                        values.add(separatedValue.trim());
+                    }
+                } else {
+                    values.add(value);
+                }
+                return afterReadHeaderValue;
+            }
+        };
+
+        private final DecodingState afterReadHeaderValue = new LinearWhitespaceSkippingState() {
+            @Override
+            protected DecodingState finishDecode(int skippedBytes) throws Exception {
+                return (skippedBytes == 0) ? findEmptyLine : readHeaderValue;
+            }
+        };
+
+        LegacyHeaderDecodingState(IoBufferAllocatorEx<?> allocator) {
+            super(allocator);
+        }
+
+        @Override
+        protected DecodingState init() throws Exception {
+            initHeaders();
+            return findEmptyLine;
+        }
+
+        @Override
+        protected void destroy() throws Exception {
+        }
+
+        private void initHeaders() {
+            headers = new TreeMap<>(HttpHeaderNameComparator.INSTANCE);
+        }
+    }
+}
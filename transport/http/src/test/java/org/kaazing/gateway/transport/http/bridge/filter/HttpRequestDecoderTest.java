@@ -110,6 +110,39 @@ public class HttpRequestDecoderTest {
         assertFalse(in.hasRemaining());
     }
 
+    @Test
+    public void decodeWebSocketUpgradeHeaders() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        ProtocolDecoder decoder = new HttpRequestDecoder();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+
+        ByteBuffer in = ByteBuffer.wrap(("GET /echo HTTP/1.1\r\n" +
+                                         "Host: example.com\r\n" +
+                                         "Upgrade: websocket\r\n" +
+                                         "connection: Upgrade , keep-alive,\r\n" +
+                                         "Sec-WebSocket-Protocol: chat,, superchat\r\n" +
+                                         "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                                         "X-Custom: a, b\r\n" +
+                                         "User-Agent: caf\u00e9\r\n" +
+                                         "\r\n").getBytes(UTF_8));
+
+        IoBufferEx buf = allocator.wrap(in);
+        decoder.decode(session, (IoBuffer) buf, session.getDecoderOutput());
+
+        HttpRequestMessage httpRequest = (HttpRequestMessage)session.getDecoderOutputQueue().poll();
+        assertEquals("/echo", httpRequest.getRequestURI().toASCIIString());
+        assertEquals(Arrays.asList("websocket"), httpRequest.getHeaderValues("Upgrade"));
+        assertEquals(Arrays.asList("Upgrade", "keep-alive"), httpRequest.getHeaderValues("Connection"));
+        assertEquals(Arrays.asList("chat", "", "superchat"), httpRequest.getHeaderValues("sec-websocket-protocol"));
+        assertEquals("dGhlIHNhbXBsZSBub25jZQ==", httpRequest.getHeader("Sec-WebSocket-Key"));
+        assertEquals(Arrays.asList("a, b"), httpRequest.getHeaderValues("X-Custom"));
+        assertEquals("caf\u00e9", httpRequest.getHeader("User-Agent"));
+
+        httpRequest.getHeaderValues("Connection").add("close");
+        assertEquals(Arrays.asList("Upgrade", "keep-alive", "close"), httpRequest.getHeaderValues("Connection"));
+        assertTrue(session.getDecoderOutputQueue().isEmpty());
+    }
+
     @Test
     public void decodeNonCanonicalHttpRequest() throws Exception {
         ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
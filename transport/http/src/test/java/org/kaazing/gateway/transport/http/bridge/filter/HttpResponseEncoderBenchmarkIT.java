@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+import static org.kaazing.gateway.transport.bridge.CachingMessageEncoder.IO_MESSAGE_ENCODER;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.util.Queue;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
+import org.kaazing.gateway.transport.http.HttpHeaders;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpUtils;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Compares encoding responses from pre-serialized templates against the previous encoding of every response
+ * into a freshly allocated buffer, for the fixed responses the gateway sends most: WebSocket upgrades,
+ * emulated WebSocket create responses, 304 Not Modified, 404 Not Found and long-poll heartbeats.
+ * Run from main(), it reports the encoder time and the bytes allocated per response.
+ */
+public class HttpResponseEncoderBenchmarkIT {
+
+    private static final String SERVER = "Kaazing Gateway";
+    private static final String DATE = "Tue, 15 Nov 1994 08:12:31 GMT";
+
+    public static void main(String[] args) throws Exception {
+        new HttpResponseEncoderBenchmarkIT().benchmark(200000, 5);
+    }
+
+    private void benchmark(int responses, int rounds) throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolEncoder templateEncoder = new HttpResponseEncoder(allocator);
+        ProtocolEncoder legacyEncoder = new LegacyResponseEncoder(allocator);
+
+        String[] names = { "upgrade", "create", "not modified", "not found", "heartbeat" };
+        for (int round = 0; round < rounds; round++) {
+            StringBuilder report = new StringBuilder(format("round %d:", round));
+            for (int kind = 0; kind < names.length; kind++) {
+                Result legacy = run(legacyEncoder, session, kind, responses);
+                Result template = run(templateEncoder, session, kind, responses);
+                assertEquals(legacy.bytes, template.bytes);
+                report.append(format(" %s legacy %.1f ns %d B, template %.1f ns %d B;", names[kind],
+                        legacy.nanos, legacy.allocated, template.nanos, template.allocated));
+            }
+            System.out.println(report);
+        }
+    }
+
+    private static Result run(ProtocolEncoder encoder, ProtocolCodecSessionEx session, int kind, int responses)
+            throws Exception {
+        ProtocolEncoderOutput out = session.getEncoderOutput();
+        Queue<Object> queue = session.getEncoderOutputQueue();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        HttpResponseMessage[] httpResponses = new HttpResponseMessage[responses];
+        for (int i = 0; i < responses; i++) {
+            httpResponses[i] = newResponse(kind, i, allocator);
+        }
+
+        // warm up the template for this response shape before measuring
+        for (int i = 0; i < 2; i++) {
+            encoder.encode(session, newResponse(kind, i, allocator), out);
+            queue.clear();
+        }
+
+        long bytes = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (HttpResponseMessage httpResponse : httpResponses) {
+            encoder.encode(session, httpResponse, out);
+            for (Object encoded = queue.poll(); encoded != null; encoded = queue.poll()) {
+                bytes += ((IoBufferEx) encoded).remaining();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        return new Result((double) elapsed / responses, allocated / responses, bytes);
+    }
+
+    private static HttpResponseMessage newResponse(int kind, int index, IoBufferAllocatorEx<?> allocator) {
+        HttpResponseMessage httpResponse = new HttpResponseMessage();
+        httpResponse.setVersion(HttpVersion.HTTP_1_1);
+        httpResponse.setHeader("Server", SERVER);
+        httpResponse.setHeader(HttpHeaders.HEADER_DATE, DATE);
+        switch (kind) {
+        case 0:
+            httpResponse.setStatus(HttpStatus.INFO_SWITCHING_PROTOCOLS);
+            httpResponse.setHeader(HttpHeaders.HEADER_UPGRADE, "websocket");
+            httpResponse.setHeader(HttpHeaders.HEADER_CONNECTION, "Upgrade");
+            httpResponse.setHeader("Sec-WebSocket-Accept", format("s3pPLMBiTxaQ9kYGzzhZRbK+x%03d=", index % 1000));
+            httpResponse.setHeader("Sec-WebSocket-Protocol", "x-kaazing-handshake");
+            break;
+        case 1:
+            httpResponse.setStatus(HttpStatus.SUCCESS_CREATED);
+            httpResponse.setHeader(HttpHeaders.HEADER_CONTENT_TYPE, "text/plain;charset=UTF-8");
+            httpResponse.setHeader(HttpHeaders.HEADER_CACHE_CONTROL, "no-cache");
+            httpResponse.setContent(newContent(allocator, format(
+                    "http://gateway.example.com:8000/echo/;e/ut/%1$08d\nhttp://gateway.example.com:8000/echo/;e/dt/%1$08d\n",
+                    index)));
+            break;
+        case 2:
+            httpResponse.setStatus(HttpStatus.REDIRECT_NOT_MODIFIED);
+            httpResponse.setHeader("ETag", format("\"%08x\"", index));
+            break;
+        case 3:
+            httpResponse.setStatus(HttpStatus.CLIENT_NOT_FOUND);
+            break;
+        default:
+            httpResponse.setStatus(HttpStatus.SUCCESS_OK);
+            httpResponse.setHeader(HttpHeaders.HEADER_CONTENT_TYPE, "application/octet-stream");
+            httpResponse.setHeader(HttpHeaders.HEADER_CACHE_CONTROL, "no-cache");
+            httpResponse.setHeader(HttpHeaders.HEADER_CONNECTION, "keep-alive");
+            httpResponse.setContent(newContent(allocator, "\u000101\u00ff"));
+            break;
+        }
+        return httpResponse;
+    }
+
+    private static HttpContentMessage newContent(IoBufferAllocatorEx<?> allocator, String content) {
+        byte[] bytes = content.getBytes(ISO_8859_1);
+        return new HttpContentMessage(allocator.wrap(ByteBuffer.wrap(bytes)), true);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    private static final class Result {
+        final double nanos;
+        final long allocated;
+        final long bytes;
+
+        Result(double nanos, long allocated, long bytes) {
+            this.nanos = nanos;
+            this.allocated = allocated;
+            this.bytes = bytes;
+        }
+    }
+
+    // previous implementation of HttpResponseEncoder, encoding each response into a new buffer
+    private static final class LegacyResponseEncoder extends HttpMessageEncoder<HttpResponseMessage> {
+
+        LegacyResponseEncoder(IoBufferAllocatorEx<?> allocator) {
+            super(IO_MESSAGE_ENCODER, allocator);
+        }
+
+        @Override
+        protected void encode(IoSessionEx session, HttpMessage httpMessage, ProtocolEncoderOutput out) throws Exception {
+            HttpResponseMessage httpResponse = (HttpResponseMessage) httpMessage;
+            boolean isGzipped = HttpUtils.isGzipped(httpResponse);
+            boolean isChunked = HttpUtils.isChunked(httpResponse);
+            ByteBuffer nioBuf = allocator.allocate(1024);
+            IoBufferEx buf = allocator.wrap(nioBuf).setAutoExpander(allocator);
+            int allocatedPos = buf.position();
+
+            buf.put(HTTP_1_1_BYTES);
+            buf.put(SPACE_BYTES);
+            buf.putString(Integer.toString(httpResponse.getStatus().code()), asciiEncoder);
+            buf.put(SPACE_BYTES);
+            buf.putString(httpResponse.getReason(), asciiEncoder);
+            buf.put(CRLF_BYTES);
+            encodeHeaders(session, httpResponse, buf);
+
+            HttpContentMessage httpContent = httpResponse.getContent();
+            if (httpContent != null) {
+                encodeContent(session, httpContent, buf, isChunked, isGzipped);
+            }
+
+            buf.flip();
+            buf.position(allocatedPos);
+            out.write(buf);
+        }
+
+        @Override
+        protected void encodeContentLength(IoSessionEx session, HttpResponseMessage httpResponse, IoBufferEx buf)
+                throws CharacterCodingException {
+            switch (httpResponse.getStatus()) {
+            case INFO_SWITCHING_PROTOCOLS:
+            case REDIRECT_NOT_MODIFIED:
+                break;
+            default:
+                if (httpResponse.getHeader(HttpHeaders.HEADER_CONTENT_LENGTH) == null &&
+                        httpResponse.getHeader(HttpHeaders.HEADER_TRANSFER_ENCODING) == null) {
+                    super.encodeContentLength(session, httpResponse, buf);
+                }
+                break;
+            }
+        }
+
+        @Override
+        protected void encodeCookies(IoSessionEx session, HttpResponseMessage httpResponse, IoBufferEx buf) {
+            // benchmark responses have no cookies
+        }
+    }
+}
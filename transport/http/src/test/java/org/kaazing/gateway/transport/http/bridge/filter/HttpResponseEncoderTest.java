@@ -175,6 +175,48 @@ public class HttpResponseEncoderTest {
 				     buf.getString(Charset.forName("UTF-8").newDecoder()));
 	}
 
+    @Test
+    public void encodeHttpResponseFromTemplate() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolEncoder encoder = new HttpResponseEncoder(allocator);
+        ProtocolEncoderOutput encoderOut = session.getEncoderOutput();
+
+        // first response records the shape, second response is encoded from the template
+        encoder.encode(session, newNotModifiedResponse("\"1\""), encoderOut);
+        encoderOut.mergeAll();
+        IoBufferEx buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        assertEquals("HTTP/1.1 304 Not Modified\r\n" +
+                     "Date: Tue, 15 Nov 1994 08:12:31 GMT\r\n" +
+                     "ETag: \"1\"\r\n" +
+                     "Server: Template Test\r\n" +
+                     "\r\n",
+                     buf.getString(Charset.forName("UTF-8").newDecoder()));
+
+        encoder.encode(session, newNotModifiedResponse("\"2\""), encoderOut);
+        assertEquals(1, session.getEncoderOutputQueue().size());
+        buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        assertEquals("HTTP/1.1 304 Not Modified\r\n" +
+                     "Date: Tue, 15 Nov 1994 08:12:31 GMT\r\n" +
+                     "ETag: \"2\"\r\n" +
+                     "Server: Template Test\r\n" +
+                     "\r\n",
+                     buf.getString(Charset.forName("UTF-8").newDecoder()));
+
+        // a different fixed header value does not match the template
+        HttpResponseMessage httpResponse = newNotModifiedResponse("\"3\"");
+        httpResponse.setHeader("Server", "Other");
+        encoder.encode(session, httpResponse, encoderOut);
+        encoderOut.mergeAll();
+        buf = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        assertEquals("HTTP/1.1 304 Not Modified\r\n" +
+                     "Date: Tue, 15 Nov 1994 08:12:31 GMT\r\n" +
+                     "ETag: \"3\"\r\n" +
+                     "Server: Other\r\n" +
+                     "\r\n",
+                     buf.getString(Charset.forName("UTF-8").newDecoder()));
+    }
+
 	@Test
 	public void encodeContent() throws Exception {
         ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
@@ -368,4 +410,14 @@ public class HttpResponseEncoderTest {
         assertEquals(expected, buf);
     }
 
+
+    private static HttpResponseMessage newNotModifiedResponse(String etag) {
+        HttpResponseMessage httpResponse = new HttpResponseMessage();
+        httpResponse.setVersion(HttpVersion.HTTP_1_1);
+        httpResponse.setStatus(HttpStatus.REDIRECT_NOT_MODIFIED);
+        httpResponse.setHeader("Server", "Template Test");
+        httpResponse.setHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT");
+        httpResponse.setHeader("ETag", etag);
+        return httpResponse;
+    }
 }
@@ -21,7 +21,117 @@
 
 package org.kaazing.gateway.transport.http.bridge.filter;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.write.DefaultWriteRequest;
+import org.jmock.Sequence;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.Test;
+import org.kaazing.gateway.transport.http.bridge.HttpRequestMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.gateway.transport.test.Expectations;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.test.util.Mockery;
 
 public class HttpSerializeRequestsFilterTest {
-    // TODO!!!
+
+    private Mockery context = new Mockery() { {
+        setThreadingPolicy(new Synchroniser());
+    } };
+    private IoSessionEx session = context.mock(IoSessionEx.class);
+    private NextFilter nextFilter = context.mock(NextFilter.class);
+
+    @Test
+    public void shouldSerializePipelinedRequests() throws Exception {
+        final HttpRequestMessage request1 = new HttpRequestMessage();
+        final HttpRequestMessage request2 = new HttpRequestMessage();
+        final HttpResponseMessage response1 = new HttpResponseMessage();
+        final Sequence order = context.sequence("order");
+
+        context.checking(new Expectations() { {
+            oneOf(nextFilter).messageReceived(session, request1); inSequence(order);
+            allowing(session).getId(); will(returnValue(1L));
+            oneOf(session).suspendRead(); inSequence(order);
+            oneOf(nextFilter).filterWrite(with(session), with(hasMessage(response1))); inSequence(order);
+            oneOf(nextFilter).messageReceived(session, request2); inSequence(order);
+            oneOf(session).resumeRead(); inSequence(order);
+        } });
+
+        HttpSerializeRequestsFilter filter = new HttpSerializeRequestsFilter(getLogger(HttpSerializeRequestsFilterTest.class));
+        filter.messageReceived(nextFilter, session, request1);
+        filter.messageReceived(nextFilter, session, request2);
+        filter.filterWrite(nextFilter, session, new DefaultWriteRequest(response1));
+
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldDispatchPipelinedRequestsConcurrently() throws Exception {
+        final HttpRequestMessage request1 = new HttpRequestMessage();
+        final HttpRequestMessage request2 = new HttpRequestMessage();
+        final HttpRequestMessage request3 = new HttpRequestMessage();
+        final HttpResponseMessage response1 = new HttpResponseMessage();
+
+        context.checking(new Expectations() { {
+            oneOf(nextFilter).messageReceived(session, request1);
+            oneOf(nextFilter).messageReceived(session, request2);
+            allowing(session).getId(); will(returnValue(1L));
+            oneOf(session).suspendRead();
+            oneOf(nextFilter).filterWrite(with(session), with(hasMessage(response1)));
+            oneOf(nextFilter).messageReceived(session, request3);
+            oneOf(session).resumeRead();
+        } });
+
+        HttpSerializeRequestsFilter filter =
+                new HttpSerializeRequestsFilter(getLogger(HttpSerializeRequestsFilterTest.class), 2, null);
+        filter.messageReceived(nextFilter, session, request1);
+        filter.messageReceived(nextFilter, session, request2);
+        filter.messageReceived(nextFilter, session, request3);
+        filter.filterWrite(nextFilter, session, new DefaultWriteRequest(response1));
+
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldNotDispatchRequestsPipelinedAfterUpgrade() throws Exception {
+        final HttpRequestMessage request1 = new HttpRequestMessage();
+        request1.setHeader("Upgrade", "websocket");
+        final HttpRequestMessage request2 = new HttpRequestMessage();
+
+        context.checking(new Expectations() { {
+            oneOf(nextFilter).messageReceived(session, request1);
+            allowing(session).getId(); will(returnValue(1L));
+            oneOf(session).suspendRead();
+            never(nextFilter).messageReceived(session, request2);
+        } });
+
+        HttpSerializeRequestsFilter filter =
+                new HttpSerializeRequestsFilter(getLogger(HttpSerializeRequestsFilterTest.class), 2, null);
+        filter.messageReceived(nextFilter, session, request1);
+        filter.messageReceived(nextFilter, session, request2);
+
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldNotDispatchUpgradeRequestPipelinedAfterRequest() throws Exception {
+        final HttpRequestMessage request1 = new HttpRequestMessage();
+        final HttpRequestMessage request2 = new HttpRequestMessage();
+        request2.setHeader("Upgrade", "websocket");
+
+        context.checking(new Expectations() { {
+            oneOf(nextFilter).messageReceived(session, request1);
+            allowing(session).getId(); will(returnValue(1L));
+            oneOf(session).suspendRead();
+            never(nextFilter).messageReceived(session, request2);
+        } });
+
+        HttpSerializeRequestsFilter filter =
+                new HttpSerializeRequestsFilter(getLogger(HttpSerializeRequestsFilterTest.class), 2, null);
+        filter.messageReceived(nextFilter, session, request1);
+        filter.messageReceived(nextFilter, session, request2);
+
+        context.assertIsSatisfied();
+    }
 }
@@ -52,7 +52,13 @@ public enum NioSystemProperty {
     TCP_RECEIVE_BUFFER_SIZE("org.kaazing.gateway.server.transport.tcp.RECEIVE_BUFFER_SIZE"),
     TCP_SEND_BUFFER_SIZE("org.kaazing.gateway.server.transport.tcp.SEND_BUFFER_SIZE"),
     TCP_SO_LINGER("org.kaazing.gateway.server.transport.tcp.SO_LINGER"),
-    TCP_IP_TOS("org.kaazing.gateway.server.transport.tcp.IP_TOS");
+    TCP_IP_TOS("org.kaazing.gateway.server.transport.tcp.IP_TOS"),
+
+    // Moving busy sessions between I/O workers (NioWorkerRebalancer), disabled unless the interval is positive
+    TCP_REBALANCE_INTERVAL("org.kaazing.gateway.server.transport.tcp.REBALANCE_INTERVAL", "0"), // milliseconds
+    TCP_REBALANCE_THRESHOLD("org.kaazing.gateway.server.transport.tcp.REBALANCE_THRESHOLD", "1.5"), // hottest / coldest
+    TCP_REBALANCE_MAX_MIGRATIONS("org.kaazing.gateway.server.transport.tcp.REBALANCE_MAX_MIGRATIONS", "4"), // per interval
+    TCP_REBALANCE_SESSION_COOLDOWN("org.kaazing.gateway.server.transport.tcp.REBALANCE_SESSION_COOLDOWN", "60000"); // ms
 
     private final String name;
     private final String defaultValue;
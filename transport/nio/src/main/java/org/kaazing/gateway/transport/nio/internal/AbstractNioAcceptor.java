@@ -76,6 +76,8 @@ import org.kaazing.gateway.transport.NextProtocolBindings.NextProtocolBinding;
 import org.kaazing.gateway.transport.NextProtocolFilter;
 import org.kaazing.gateway.transport.NioBindException;
 import org.kaazing.gateway.transport.ObjectLoggingFilter;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -103,6 +105,7 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
 
     private IoAcceptorEx acceptor;
     private ScheduledExecutorService unbindScheduler;
+    private SchedulerProvider schedulerProvider;
     private boolean skipIPv6Addresses = false;
 
     protected ResourceAddressFactory resourceAddressFactory;
@@ -177,10 +180,12 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
                 sessionCreated0(session);
             }
             else {
-                Collection<ProtocolDispatcher> dispatchers = bridgeServiceFactory.getTransportFactory().getProtocolDispatchers().values();
+                TransportFactory transportFactory = bridgeServiceFactory.getTransportFactory();
+                Collection<ProtocolDispatcher> dispatchers = transportFactory.getProtocolDispatchers().values();
+                ProtocolDispatchTrie dispatchTrie = transportFactory.getProtocolDispatchTrie();
 
                 // sessionCreated will be sent down pipeline again when next-protocol has been determined
-                NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers) {
+                NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers, dispatchTrie) {
                     @Override
                     protected void flushInboundEvents(NextFilter nextFilter, IoSession session) throws Exception {
                         // defer sessionCreated until next-protocol determined
@@ -282,6 +287,11 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
     @Resource(name = "schedulerProvider")
     public final void setSchedulerProvider(SchedulerProvider provider) {
         unbindScheduler = provider.getScheduler(this + "_unbind", true);
+        schedulerProvider = provider;
+    }
+
+    protected final SchedulerProvider getSchedulerProvider() {
+        return schedulerProvider;
     }
 
     @Override
@@ -575,10 +585,12 @@ public abstract class AbstractNioAcceptor implements BridgeAcceptor {
                         NEXT_PROTOCOL_KEY.set(session, nextProtocolNames.first());
                     }
                     else {
-                        Collection<ProtocolDispatcher> dispatchers = bridgeServiceFactory.getTransportFactory().getProtocolDispatchers().values();
+                        TransportFactory transportFactory = bridgeServiceFactory.getTransportFactory();
+                        Collection<ProtocolDispatcher> dispatchers = transportFactory.getProtocolDispatchers().values();
+                        ProtocolDispatchTrie dispatchTrie = transportFactory.getProtocolDispatchTrie();
 
                         // sessionCreated will be sent down pipeline again when next-protocol has been determined
-                        NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers);
+                        NextProtocolFilter nextProtocol = new NextProtocolFilter(dispatchers, dispatchTrie);
                         IoFilterChain filterChain = session.getFilterChain();
                         filterChain.addLast(NEXT_PROTOCOL_FILTER, nextProtocol);
                     }
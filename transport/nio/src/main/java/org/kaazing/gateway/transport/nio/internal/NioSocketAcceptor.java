@@ -32,6 +32,7 @@ import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_MINIMUM_RE
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_NO_DELAY;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_PROCESSOR_COUNT;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_READ_BUFFER_SIZE;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_INTERVAL;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_RECEIVE_BUFFER_SIZE;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REUSE_ADDRESS;
 import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_SEND_BUFFER_SIZE;
@@ -68,14 +69,17 @@ import org.jboss.netty.util.ExternalResourceReleasable;
 import org.jboss.netty.util.internal.ExecutorUtil;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.transport.AbstractBridgeSession;
 import org.kaazing.gateway.transport.BridgeSessionInitializer;
 import org.kaazing.gateway.transport.NioBindException;
 import org.kaazing.gateway.transport.nio.TcpExtension;
 import org.kaazing.gateway.transport.nio.TcpExtensionFactorySpi;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.service.IoAcceptorEx;
 import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
 import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
-import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
+import org.kaazing.mina.netty.util.threadlocal.WorkerLocal;
+import org.kaazing.mina.netty.util.threadlocal.WorkerThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -111,7 +115,7 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
         }
     }
 
-    private static final ThreadLocal<Executor> CURRENT_EXECUTOR = new VicariousThreadLocal<>();
+    private static final ThreadLocal<Executor> CURRENT_EXECUTOR = new WorkerLocal<>();
 
     private static final class SetCurrentWorkerTask implements Callable<NioWorker> {
 
@@ -138,6 +142,8 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
 
     private final AtomicReference<DistributedNioWorkerPool> currentWorkerPool = new AtomicReference<>();
 
+    private volatile NioWorkerRebalancer rebalancer;
+
     NioSocketAcceptor(Properties configuration, TcpExtensionFactory extensionFactory) {
         super(configuration, LoggerFactory.getLogger(LOGGER_NAME));
         this.extensionFactory = extensionFactory;
@@ -162,6 +168,13 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
 
     @Override
     public void dispose() {
+        NioWorkerRebalancer rebalancer = this.rebalancer;
+        if (rebalancer != null) {
+            rebalancer.stop();
+            this.rebalancer = null;
+            AbstractBridgeSession.untrackChildSessions();
+        }
+
         // Unset static state on the thread to allow gateway to be restarted in same thread
         currentWorkerPool.set(null);
         super.dispose();
@@ -265,9 +278,27 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
         acceptor.setReuseAddress(reuseAddress);
         acceptor.getSessionConfig().setReuseAddress(reuseAddress);
 
+        SchedulerProvider schedulerProvider = getSchedulerProvider();
+        if (NioWorkerRebalancer.isEnabled(configuration) && schedulerProvider != null) {
+            NioWorkerRebalancer newRebalancer =
+                    new NioWorkerRebalancer(currentWorkerPool.get().workers, acceptor, configuration, logger);
+            // the rebalancer finds the top of each session stack through the child sessions
+            AbstractBridgeSession.trackChildSessions();
+            newRebalancer.start(schedulerProvider.getScheduler("tcp_rebalancer", false));
+            rebalancer = newRebalancer;
+            logger.debug("REBALANCE_INTERVAL setting for TCP acceptor: {}", TCP_REBALANCE_INTERVAL.getProperty(configuration));
+        }
+
         return acceptor;
     }
 
+    /**
+     * @return the rebalancer moving sessions between the I/O workers, or null when rebalancing is disabled
+     */
+    public NioWorkerRebalancer getRebalancer() {
+        return rebalancer;
+    }
+
 
     public Worker[] getWorkers() {
         // KG-10074: if only non-TCP binds, worker pool may not yet be initialized (causing NPE below)
@@ -294,7 +325,7 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
         		System.out.println("NioWorkerPool.DEBUG=true");
         	}
         	final ConcurrentMap<NioWorker, Thread> threadsByWorker = new ConcurrentHashMap<>();
-        	workerPool = new DistributedNioWorkerPool(newCachedThreadPool(), workerCount) {
+        	workerPool = new DistributedNioWorkerPool(newCachedThreadPool(WorkerThread.FACTORY), workerCount) {
 	        	@Override
 	        	public NioWorker nextWorker() {
 	        		NioWorker worker = CURRENT_WORKER.get();
@@ -453,7 +484,7 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
 
     }
 
-    private static class DistributedNioWorker extends NioWorker {
+    static class DistributedNioWorker extends NioWorker {
 
         private final AtomicInteger channelCount;
         private final ChannelFutureListener closeListener;
@@ -479,6 +510,16 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
             childChannel.getCloseFuture().addListener(closeListener);
         }
 
+        // called on the I/O thread of the new worker after a channel has been moved there
+        void childChannelMoved(NioSocketChannel childChannel, DistributedNioWorker newWorker) {
+            ChannelFuture closeFuture = childChannel.getCloseFuture();
+            if (!closeFuture.isDone()) {
+                closeFuture.removeListener(closeListener);
+                channelCount.decrementAndGet();
+                newWorker.childChannelOpen(childChannel);
+            }
+        }
+
     }
 
     private static class AffinityIoAcceptorChannelHandlerFactory extends SimpleChannelUpstreamHandler {
@@ -0,0 +1,363 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.nio.internal;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.kaazing.gateway.transport.BridgeSession.CHILD_SESSION;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_INTERVAL;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_MAX_MIGRATIONS;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_SESSION_COOLDOWN;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_THRESHOLD;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.nio.NioSocketChannel;
+import org.kaazing.gateway.transport.BridgeSession;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor.DistributedNioWorker;
+import org.kaazing.mina.core.service.IoServiceEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession;
+import org.slf4j.Logger;
+
+/**
+ * Periodically moves the busiest accepted sessions from the most loaded NIO worker to the least loaded one.
+ *
+ * Connections are spread over the workers by connection count when they are accepted, which does not account for
+ * how busy each connection turns out to be. Each interval, the load of a worker is measured as the CPU time of its
+ * thread, falling back to the bytes read and written by its sessions when thread CPU time is not available. When
+ * the hottest worker exceeds the coldest worker by the configured threshold, enough of its busiest sessions are
+ * moved, together with the bridge sessions layered on them, to close about half the gap.
+ */
+public final class NioWorkerRebalancer implements Runnable {
+
+    // a hot worker that is mostly idle does not need relief, regardless of the imbalance
+    private static final double MINIMUM_HOT_UTILIZATION = 0.1;
+
+    private final DistributedNioWorker[] workers;
+    private final IoServiceEx service;
+    private final Logger logger;
+    private final ThreadMXBean threads;
+
+    private final long intervalMillis;
+    private final double threshold;
+    private final int maxMigrations;
+    private final long sessionCooldownMillis;
+
+    private final long[] lastCpuTimes;
+    private Map<Long, Long> lastSessionBytes;
+    private Map<Long, Long> lastMigrationTimes;
+    private long lastRebalanceNanos;
+
+    private final AtomicLong rebalanceCount;
+    private final AtomicLong migrationCount;
+    private final AtomicLong migrationsCompleted;
+    private final AtomicLong migrationsAbandoned;
+
+    private ScheduledFuture<?> future;
+
+    NioWorkerRebalancer(DistributedNioWorker[] workers, IoServiceEx service, Properties configuration, Logger logger) {
+        this.workers = workers;
+        this.service = service;
+        this.logger = logger;
+        this.threads = ManagementFactory.getThreadMXBean();
+        this.intervalMillis = Long.parseLong(TCP_REBALANCE_INTERVAL.getProperty(configuration));
+        this.threshold = Double.parseDouble(TCP_REBALANCE_THRESHOLD.getProperty(configuration));
+        this.maxMigrations = TCP_REBALANCE_MAX_MIGRATIONS.getIntProperty(configuration);
+        this.sessionCooldownMillis = Long.parseLong(TCP_REBALANCE_SESSION_COOLDOWN.getProperty(configuration));
+        this.lastCpuTimes = new long[workers.length];
+        this.lastSessionBytes = new HashMap<>();
+        this.lastMigrationTimes = new HashMap<>();
+        this.rebalanceCount = new AtomicLong();
+        this.migrationCount = new AtomicLong();
+        this.migrationsCompleted = new AtomicLong();
+        this.migrationsAbandoned = new AtomicLong();
+    }
+
+    static boolean isEnabled(Properties configuration) {
+        return Long.parseLong(TCP_REBALANCE_INTERVAL.getProperty(configuration)) > 0L;
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler) {
+        if (future == null) {
+            lastRebalanceNanos = System.nanoTime();
+            future = scheduler.scheduleWithFixedDelay(this, intervalMillis, intervalMillis, MILLISECONDS);
+        }
+    }
+
+    synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /**
+     * @return the number of times the worker loads have been compared
+     */
+    public long getRebalanceCount() {
+        return rebalanceCount.get();
+    }
+
+    /**
+     * @return the number of sessions selected to move to another worker
+     */
+    public long getMigrationCount() {
+        return migrationCount.get();
+    }
+
+    /**
+     * @return the number of sessions that have been moved to another worker
+     */
+    public long getMigrationsCompleted() {
+        return migrationsCompleted.get();
+    }
+
+    /**
+     * @return the number of selected sessions left in place, for example because they closed before they could move
+     */
+    public long getMigrationsAbandoned() {
+        return migrationsAbandoned.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            rebalance();
+        }
+        catch (RuntimeException e) {
+            logger.warn("Unable to rebalance sessions across I/O workers", e);
+        }
+    }
+
+    void rebalance() {
+        int workerCount = workers.length;
+        if (workerCount < 2) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long elapsedNanos = now - lastRebalanceNanos;
+        lastRebalanceNanos = now;
+
+        long[] loads = sampleCpuTimes();
+        boolean cpuTimeAvailable = loads != null;
+
+        long[] workerBytes = new long[workerCount];
+        List<List<SessionLoad>> workerSessions = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workerSessions.add(new ArrayList<SessionLoad>());
+        }
+
+        Map<Long, Long> sessionBytes = new HashMap<>();
+        for (IoSession session : service.getManagedSessions().values()) {
+            if (!(session instanceof NioSocketChannelIoSession)) {
+                continue;
+            }
+            NioSocketChannelIoSession nioSession = (NioSocketChannelIoSession) session;
+            int index = indexOf(((NioSocketChannel) nioSession.getChannel()).getWorker());
+            if (index == -1) {
+                continue;
+            }
+
+            long sessionId = session.getId();
+            long bytes = session.getReadBytes() + session.getWrittenBytes();
+            sessionBytes.put(sessionId, bytes);
+            Long lastBytes = lastSessionBytes.get(sessionId);
+            if (lastBytes != null && bytes > lastBytes) {
+                long bytesDelta = bytes - lastBytes;
+                workerBytes[index] += bytesDelta;
+                workerSessions.get(index).add(new SessionLoad(nioSession, bytesDelta));
+            }
+        }
+        lastSessionBytes = sessionBytes;
+        lastMigrationTimes.keySet().retainAll(sessionBytes.keySet());
+
+        if (!cpuTimeAvailable) {
+            loads = workerBytes;
+        }
+
+        int hot = 0;
+        int cold = 0;
+        for (int i = 1; i < workerCount; i++) {
+            if (loads[i] > loads[hot]) {
+                hot = i;
+            }
+            if (loads[i] < loads[cold]) {
+                cold = i;
+            }
+        }
+
+        rebalanceCount.incrementAndGet();
+
+        long hotLoad = loads[hot];
+        long coldLoad = loads[cold];
+        if (hot == cold || hotLoad <= threshold * coldLoad || workerBytes[hot] == 0L) {
+            return;
+        }
+        if (cpuTimeAvailable && hotLoad < MINIMUM_HOT_UTILIZATION * elapsedNanos) {
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Rebalancing I/O workers: worker #%d load %d, worker #%d load %d",
+                    hot + 1, hotLoad, cold + 1, coldLoad));
+        }
+
+        // move the busiest sessions first, as long as they do not overshoot and make the cold worker the hot one
+        List<SessionLoad> candidates = workerSessions.get(hot);
+        candidates.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+
+        long currentTimeMillis = currentTimeMillis();
+        long targetLoad = (hotLoad - coldLoad) / 2;
+        long movedLoad = 0L;
+        int migrations = 0;
+        for (SessionLoad candidate : candidates) {
+            if (migrations >= maxMigrations) {
+                break;
+            }
+
+            long sessionId = candidate.session.getId();
+            Long lastMigrationTime = lastMigrationTimes.get(sessionId);
+            if (lastMigrationTime != null && currentTimeMillis - lastMigrationTime < sessionCooldownMillis) {
+                continue;
+            }
+
+            long sessionLoad = (long) ((double) hotLoad * candidate.bytes / workerBytes[hot]);
+            if (movedLoad + sessionLoad > targetLoad) {
+                continue;
+            }
+
+            lastMigrationTimes.put(sessionId, currentTimeMillis);
+            migrate(candidate.session, workers[hot], workers[cold]);
+            movedLoad += sessionLoad;
+            migrations++;
+        }
+    }
+
+    void migrate(final NioSocketChannelIoSession session, final DistributedNioWorker oldWorker,
+                 final DistributedNioWorker newWorker) {
+        migrationCount.incrementAndGet();
+        session.getIoExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                migrate0(session, oldWorker, newWorker);
+            }
+        });
+    }
+
+    private void migrate0(final NioSocketChannelIoSession session, final DistributedNioWorker oldWorker,
+                          final DistributedNioWorker newWorker) {
+        final NioSocketChannel channel = (NioSocketChannel) session.getChannel();
+        if (currentThread() != session.getIoThread() || channel.getWorker() != oldWorker || session.isClosing()) {
+            // session closed or moved since it was selected
+            migrationsAbandoned.incrementAndGet();
+            return;
+        }
+
+        IoSessionEx topSession = topSession(session);
+        if (topSession == null) {
+            migrationsAbandoned.incrementAndGet();
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Moving session %s to another I/O worker", topSession));
+        }
+
+        session.realign(topSession, newWorker, new Runnable() {
+            @Override
+            public void run() {
+                oldWorker.childChannelMoved(channel, newWorker);
+                migrationsCompleted.incrementAndGet();
+            }
+        });
+    }
+
+    // finds the top of the session stack layered on the transport session, or null when it cannot be moved as a whole
+    private static IoSessionEx topSession(IoSessionEx session) {
+        Thread ioThread = currentThread();
+        if (!session.isIoAligned()) {
+            return null;
+        }
+
+        IoSessionEx topSession = session;
+        BridgeSession child = CHILD_SESSION.get(topSession);
+        while (child != null && child.getParent() == topSession && !child.isClosing()) {
+            if (!child.isIoAligned() || child.getIoThread() != ioThread) {
+                return null;
+            }
+            topSession = child;
+            child = CHILD_SESSION.get(topSession);
+        }
+        return topSession;
+    }
+
+    private long[] sampleCpuTimes() {
+        if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+            return null;
+        }
+
+        long[] cpuTimes = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            Thread thread = workers[i].getThread();
+            long cpuTime = (thread != null) ? threads.getThreadCpuTime(thread.getId()) : -1L;
+            if (cpuTime == -1L) {
+                return null;
+            }
+            cpuTimes[i] = (lastCpuTimes[i] != 0L) ? cpuTime - lastCpuTimes[i] : 0L;
+            lastCpuTimes[i] = cpuTime;
+        }
+        return cpuTimes;
+    }
+
+    private int indexOf(Object worker) {
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] == worker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class SessionLoad {
+        private final NioSocketChannelIoSession session;
+        private final long bytes;
+
+        SessionLoad(NioSocketChannelIoSession session, long bytes) {
+            this.session = session;
+            this.bytes = bytes;
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.nio.internal;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.resource.address.ResourceAddressFactory.newResourceAddressFactory;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_PROCESSOR_COUNT;
+import static org.kaazing.gateway.transport.nio.NioSystemProperty.TCP_REBALANCE_INTERVAL;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.mina.core.future.IoFuture;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.jboss.netty.channel.socket.Worker;
+import org.jboss.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.transport.BridgeSessionInitializerAdapter;
+import org.kaazing.gateway.transport.IoFilterAdapter;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.nio.internal.NioSocketAcceptor.DistributedNioWorker;
+import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession;
+import org.kaazing.test.util.MethodExecutionTrace;
+
+public class NioWorkerRebalancerTest {
+
+    @Rule
+    public TestRule testExecutionTrace = new MethodExecutionTrace();
+
+    private NioSocketAcceptor acceptor;
+    private SchedulerProvider schedulerProvider;
+
+    @Before
+    public void before() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty(TCP_PROCESSOR_COUNT.getPropertyName(), "2");
+        // long interval, so only the explicit migration below moves the session
+        configuration.setProperty(TCP_REBALANCE_INTERVAL.getPropertyName(), "3600000");
+        acceptor = new NioSocketAcceptor(configuration);
+        acceptor.setSchedulerProvider(schedulerProvider = new SchedulerProvider());
+        acceptor.setResourceAddressFactory(newResourceAddressFactory());
+    }
+
+    @After
+    public void after() throws Exception {
+        schedulerProvider.shutdownNow();
+        acceptor.dispose();
+    }
+
+    @Test(timeout = 10000)
+    public void shouldMoveSessionToAnotherWorker() throws Exception {
+        final CountDownLatch sessionOpened = new CountDownLatch(1);
+        final CountDownLatch messageReceived = new CountDownLatch(1);
+        final AtomicReference<IoSessionEx> sessionRef = new AtomicReference<>();
+        final AtomicReference<Thread> receivedThread = new AtomicReference<>();
+
+        int bindPort = findFreePort();
+        ResourceAddress bindAddress = newResourceAddressFactory().newResourceAddress(
+                URI.create(format("tcp://localhost:%d", bindPort)));
+        acceptor.bind(bindAddress, new IoHandlerAdapter<IoSessionEx>(), new BridgeSessionInitializerAdapter<IoFuture>() {
+            @Override
+            public void initializeSession(IoSession session, IoFuture future) {
+                session.getFilterChain().addFirst("test", new IoFilterAdapter<IoSessionEx>() {
+                    @Override
+                    protected void doSessionOpened(NextFilter nextFilter, IoSessionEx session) throws Exception {
+                        sessionRef.set(session);
+                        sessionOpened.countDown();
+                    }
+
+                    @Override
+                    protected void doMessageReceived(NextFilter nextFilter, IoSessionEx session, Object message)
+                            throws Exception {
+                        receivedThread.set(Thread.currentThread());
+                        messageReceived.countDown();
+                    }
+                });
+            }
+        });
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", bindPort));
+            assertTrue("Failed to establish connection", sessionOpened.await(5, SECONDS));
+
+            NioSocketChannelIoSession session = (NioSocketChannelIoSession) sessionRef.get();
+            NioSocketChannel channel = (NioSocketChannel) session.getChannel();
+            Worker[] workers = acceptor.getWorkers();
+            DistributedNioWorker oldWorker = (DistributedNioWorker) channel.getWorker();
+            DistributedNioWorker newWorker = (DistributedNioWorker) (workers[0] == oldWorker ? workers[1] : workers[0]);
+            Thread oldThread = session.getIoThread();
+
+            NioWorkerRebalancer rebalancer = acceptor.getRebalancer();
+            assertNotNull(rebalancer);
+            rebalancer.migrate(session, oldWorker, newWorker);
+            while (rebalancer.getMigrationsCompleted() == 0) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, rebalancer.getMigrationCount());
+            assertEquals(0, rebalancer.getMigrationsAbandoned());
+            assertSame(newWorker, channel.getWorker());
+            assertNotSame(oldThread, session.getIoThread());
+
+            socket.getOutputStream().write(new byte[] { 0x01, 0x02, 0x03 });
+            assertTrue("Failed to receive message", messageReceived.await(5, SECONDS));
+            assertSame(session.getIoThread(), receivedThread.get());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldMoveIdleTrackingWithSession() throws Exception {
+        final CountDownLatch sessionOpened = new CountDownLatch(1);
+        final AtomicReference<IoSessionEx> sessionRef = new AtomicReference<>();
+
+        int bindPort = findFreePort();
+        ResourceAddress bindAddress = newResourceAddressFactory().newResourceAddress(
+                URI.create(format("tcp://localhost:%d", bindPort)));
+        acceptor.bind(bindAddress, new IoHandlerAdapter<IoSessionEx>(), new BridgeSessionInitializerAdapter<IoFuture>() {
+            @Override
+            public void initializeSession(IoSession session, IoFuture future) {
+                session.getFilterChain().addFirst("test", new IoFilterAdapter<IoSessionEx>() {
+                    @Override
+                    protected void doSessionOpened(NextFilter nextFilter, IoSessionEx session) throws Exception {
+                        session.getConfig().setIdleTimeInMillis(IdleStatus.READER_IDLE, 60000L);
+                        sessionRef.set(session);
+                        sessionOpened.countDown();
+                    }
+                });
+            }
+        });
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", bindPort));
+            assertTrue("Failed to establish connection", sessionOpened.await(5, SECONDS));
+
+            NioSocketChannelIoSession session = (NioSocketChannelIoSession) sessionRef.get();
+            NioSocketChannel channel = (NioSocketChannel) session.getChannel();
+            Worker[] workers = acceptor.getWorkers();
+            DistributedNioWorker oldWorker = (DistributedNioWorker) channel.getWorker();
+            DistributedNioWorker newWorker = (DistributedNioWorker) (workers[0] == oldWorker ? workers[1] : workers[0]);
+            assertEquals(1, timingWheelSize(oldWorker));
+            assertEquals(0, timingWheelSize(newWorker));
+
+            NioWorkerRebalancer rebalancer = acceptor.getRebalancer();
+            rebalancer.migrate(session, oldWorker, newWorker);
+            while (rebalancer.getMigrationsCompleted() == 0) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, timingWheelSize(newWorker));
+            while (timingWheelSize(oldWorker) != 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static int timingWheelSize(final DistributedNioWorker worker) throws Exception {
+        FutureTask<Integer> size = new FutureTask<>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return worker.getTimingWheel().size();
+            }
+        });
+        worker.executeInIoThread(size, /* alwaysAsync */ true);
+        return size.get(5, SECONDS);
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            return server.getLocalPort();
+        }
+    }
+
+}
@@ -94,7 +94,7 @@ public abstract class AbstractBridgeService<T extends AbstractBridgeSession<?, ?
         IoFilterChain filterChain = session.getFilterChain();
 
         try {
-            this.getFilterChainBuilder().buildFilterChain(filterChain);
+            buildFilterChain(filterChain);
         } catch (Throwable t) {
             ExceptionMonitor.getInstance().exceptionCaught(t);
         }
@@ -23,6 +23,7 @@ package org.kaazing.gateway.transport;
 
 import java.net.URI;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.mina.core.service.IoHandler;
@@ -42,6 +43,9 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoBufferEx> extends AbstractIoSessionEx implements BridgeSession {
 
+    // number of users of CHILD_SESSION, such as acceptors moving session stacks between I/O threads
+    private static final AtomicInteger CHILD_SESSION_TRACKERS = new AtomicInteger();
+
     private final IoProcessorEx<S> processor;
     private final IoSessionConfigEx sessionConfig;
     private final ResourceAddress localAddress;
@@ -145,6 +149,10 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
         this.sessionConfig = config.getClass() == DefaultIoSessionConfigEx.class ? new BridgeSessionConfigEx(config) : config;
 
         this.direction = direction;
+
+        if (parent != null && CHILD_SESSION_TRACKERS.get() > 0) {
+            CHILD_SESSION.set(parent, this);
+        }
     }
 
     @Override
@@ -196,6 +204,18 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
 
     // --
 
+    /**
+     * Starts recording {@link BridgeSession#CHILD_SESSION} on the parents of bridge sessions, until a matching call
+     * to {@link #untrackChildSessions()}. Child sessions are not recorded unless something needs them.
+     */
+    public static void trackChildSessions() {
+        CHILD_SESSION_TRACKERS.incrementAndGet();
+    }
+
+    public static void untrackChildSessions() {
+        CHILD_SESSION_TRACKERS.decrementAndGet();
+    }
+
     @Override
     public IoSessionEx getParent() {
     	return parent.get();
@@ -203,10 +223,17 @@ public abstract class AbstractBridgeSession<S extends IoSessionEx, B extends IoB
 
     protected boolean compareAndSetParent(IoSessionEx expectedParent,
                                           IoSessionEx newParent) {
-        return parent.compareAndSet(expectedParent, newParent);
+        boolean parentChanged = parent.compareAndSet(expectedParent, newParent);
+        if (parentChanged && newParent != null && CHILD_SESSION_TRACKERS.get() > 0) {
+            CHILD_SESSION.set(newParent, this);
+        }
+        return parentChanged;
     }
 
     protected IoSessionEx setParent(IoSessionEx newParent) {
+        if (newParent != null && CHILD_SESSION_TRACKERS.get() > 0) {
+            CHILD_SESSION.set(newParent, this);
+        }
         return parent.getAndSet(newParent);
     }
 
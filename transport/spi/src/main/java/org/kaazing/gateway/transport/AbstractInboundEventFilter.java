@@ -31,8 +31,9 @@ import org.apache.mina.core.write.WriteRequest;
 
 public abstract class AbstractInboundEventFilter extends IoFilterAdapter {
 
-    private final TypedAttributeKey<Queue<InboundEvent>> inboundEventsKey = 
-                        new TypedAttributeKey<>(getClass(), "inboundEvents");
+    // one key per filter instance, and filters may be created per session, so not indexed
+    private final TypedAttributeKey<Queue<InboundEvent>> inboundEventsKey =
+                        TypedAttributeKey.unindexed(getClass(), "inboundEvents");
 
     @Override
     public void sessionCreated(NextFilter nextFilter, IoSession session) throws Exception {
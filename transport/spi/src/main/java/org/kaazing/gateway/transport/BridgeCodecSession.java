@@ -109,15 +109,15 @@ public class BridgeCodecSession extends ProtocolCodecSessionEx implements Bridge
     }
 
     private static final class CachingMessageEncoderImpl extends CachingMessageEncoder {
-        private final String cacheKey;
+        private final int encodingId;
 
         private CachingMessageEncoderImpl(String cacheKey) {
-            this.cacheKey = cacheKey;
+            this.encodingId = Message.registerEncoding(cacheKey);
         }
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode(cacheKey, encoder, message, allocator, flags);
+            return encode(encodingId, encoder, message, allocator, flags);
         }
     }
 
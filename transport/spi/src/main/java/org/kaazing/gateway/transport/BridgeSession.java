@@ -32,6 +32,15 @@ import org.kaazing.mina.core.session.IoSessionEx;
 public interface BridgeSession extends IoSessionEx {
 
     TypedAttributeKey<String> NEXT_PROTOCOL_KEY = new TypedAttributeKey<>(BridgeSession.class, "nextProtocol");
+
+    /**
+     * Used as an attribute on a parent session to reference the bridge session most recently layered on top of it.
+     *
+     * Following this attribute upwards from a transport session, while each child still reports the session below
+     * as its parent, finds the top of the session stack, for example to move the whole stack to another I/O thread.
+     * Only recorded while {@link AbstractBridgeSession#trackChildSessions()} is in effect.
+     */
+    TypedAttributeKey<BridgeSession> CHILD_SESSION = new TypedAttributeKey<>(BridgeSession.class, "childSession");
     /**
      * Used as an attribute on transports below bridge acceptors
      * that use InetSocketAddresses rather than ResourceAddress objects
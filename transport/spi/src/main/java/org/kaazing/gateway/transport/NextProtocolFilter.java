@@ -22,23 +22,36 @@
 package org.kaazing.gateway.transport;
 
 import static org.kaazing.gateway.transport.BridgeSession.NEXT_PROTOCOL_KEY;
+import static org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie.START;
 
 import java.util.Collection;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
 
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 
 public class NextProtocolFilter extends AbstractInboundEventFilter {
 
+    private static final TypedAttributeKey<Integer> MATCH_STATE_KEY = new TypedAttributeKey<>(NextProtocolFilter.class, "matchState");
+
     private final Collection<ProtocolDispatcher> dispatchers;
+    private final ProtocolDispatchTrie dispatchTrie;
 
     public NextProtocolFilter(Collection<ProtocolDispatcher> dispatchers) {
+        this(dispatchers, ProtocolDispatchTrie.compile(dispatchers));
+    }
+
+    public NextProtocolFilter(Collection<ProtocolDispatcher> dispatchers, ProtocolDispatchTrie dispatchTrie) {
         if (dispatchers == null) {
             throw new NullPointerException("dispatchers");
         }
+        if (dispatchTrie == null) {
+            throw new NullPointerException("dispatchTrie");
+        }
         this.dispatchers = dispatchers;
+        this.dispatchTrie = dispatchTrie;
     }
 
     @Override
@@ -67,24 +80,28 @@ public class NextProtocolFilter extends AbstractInboundEventFilter {
 
         if (message instanceof IoBuffer) {
             IoBuffer buffer = (IoBuffer) message;
-            int initialByte = buffer.get(buffer.position()) & 0xff;
-
-            // TODO: consider multiple bytes
-            outer:
-            for (ProtocolDispatcher dispatcher : dispatchers) {
-                Collection<byte[]> discriminators = dispatcher.getDiscriminators();
-                for (byte[] discriminator : discriminators) {
-                    if (initialByte == discriminator[0]) {
-                        String protocolName = dispatcher.getProtocolName();
-                        NEXT_PROTOCOL_KEY.set(session, protocolName);
-                        break outer;
-                    }
+
+            // resume from the previous buffer only when a discriminator spans buffers
+            Integer matchState = MATCH_STATE_KEY.get(session);
+            int state = dispatchTrie.match(matchState != null ? matchState : START, buffer);
+
+            if (dispatchTrie.isDecided(state)) {
+                if (matchState != null) {
+                    MATCH_STATE_KEY.remove(session);
                 }
-            }
 
-            // force NEXT_PROTOCOL_KEY -> null if not detected (avoids stall and eventual out-of-memory)
-            flushInboundEvents(nextFilter, session);
-            session.getFilterChain().remove(this);
+                String protocolName = dispatchTrie.getProtocolName(state);
+                if (protocolName != null) {
+                    NEXT_PROTOCOL_KEY.set(session, protocolName);
+                }
+
+                // force NEXT_PROTOCOL_KEY -> null if not detected (avoids stall and eventual out-of-memory)
+                flushInboundEvents(nextFilter, session);
+                session.getFilterChain().remove(this);
+            }
+            else {
+                MATCH_STATE_KEY.set(session, state);
+            }
         }
 
         // capture this message if still suspended, or pass through if not
@@ -23,6 +23,7 @@ package org.kaazing.gateway.transport;
 
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 
 import java.lang.reflect.Method;
@@ -48,6 +49,7 @@ public class TransportFactory {
     private final Map<Proxy.Type, ProxyHandler> proxyHandlersByType;
     private final Map<String, Protocol> protocolsBySchemeName;
     private final Map<String, ProtocolDispatcher> dispatchersByProtocolName;
+    private final ProtocolDispatchTrie protocolDispatchTrie;
 
     private TransportFactory(Map<String, Transport> transportsByName,
                              Map<String, Transport> transportsBySchemeName,
@@ -59,6 +61,7 @@ public class TransportFactory {
         this.proxyHandlersByType = unmodifiableMap(proxyHandlersByType);
         this.protocolsBySchemeName = unmodifiableMap(protocolsBySchemeName);
         this.dispatchersByProtocolName = unmodifiableMap(dispatchersByProtocolName);
+        this.protocolDispatchTrie = ProtocolDispatchTrie.compile(dispatchersByProtocolName.values());
     }
 
     /**
@@ -179,6 +182,15 @@ public class TransportFactory {
         return dispatchersByProtocolName.get(protocolName);
     }
 
+    /**
+     * Returns the prefix automaton compiled from the discriminators of all protocol dispatchers.
+     *
+     * @return protocol dispatch trie, shared by all sessions that sniff their next protocol
+     */
+    public ProtocolDispatchTrie getProtocolDispatchTrie() {
+        return protocolDispatchTrie;
+    }
+
     /**
      * Inject the given resources plus all available transport acceptors and connectors into every available acceptor
      * and connector.
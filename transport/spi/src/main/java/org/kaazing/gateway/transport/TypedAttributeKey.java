@@ -24,9 +24,15 @@ package org.kaazing.gateway.transport;
 import java.io.Serializable;
 
 import org.apache.mina.core.session.IoSession;
+import org.kaazing.mina.core.session.IndexedAttributeKey;
 
+/**
+ * Typed session attribute key. Each key is assigned a slot index when created, so sessions derived from
+ * org.kaazing.mina.core.session.AbstractIoSession store its value in a slot array rather than a hash map.
+ * Slot indexes are never reused, so keys created per filter or handler instance must use {@link #unindexed}.
+ */
 @SuppressWarnings("unchecked")
-public class TypedAttributeKey<T> implements Serializable {
+public class TypedAttributeKey<T> extends IndexedAttributeKey implements Serializable {
     /**
      * The serial version UID
      */
@@ -51,10 +57,22 @@ public class TypedAttributeKey<T> implements Serializable {
      * Creates a new instance of TypedAttributeKeywith a default value.
      */
     public TypedAttributeKey(Class<?> source, String name, T defaultValue) {
+        this(source, name, defaultValue, true);
+    }
+
+    private TypedAttributeKey(Class<?> source, String name, T defaultValue, boolean indexed) {
+        super(indexed);
         this.name = source.getName() + '.' + name + '@' + Integer.toHexString(this.hashCode());
         this.defaultValue = defaultValue;
     }
 
+    /**
+     * Creates a new instance of TypedAttributeKey stored in the session attribute map rather than a slot,
+     * for keys created per filter or handler instance.
+     */
+    public static <T> TypedAttributeKey<T> unindexed(Class<?> source, String name) {
+        return new TypedAttributeKey<>(source, name, null, false);
+    }
 
     /**
      * The String representation of this object is its constructed name.
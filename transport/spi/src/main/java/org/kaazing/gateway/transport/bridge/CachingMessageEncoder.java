@@ -23,8 +23,6 @@ package org.kaazing.gateway.transport.bridge;
 
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_ZERO_COPY;
 
-import java.util.concurrent.ConcurrentMap;
-
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -34,21 +32,19 @@ public abstract class CachingMessageEncoder {
 
     public abstract <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags);
 
-    protected final <T extends Message> IoBufferEx encode(String cacheKey, MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-        ConcurrentMap<String, IoBufferEx> cache = message.getCache();
-        
+    protected final <T extends Message> IoBufferEx encode(int encodingId, MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
         // if cache is not initialized, throw exception (caller should guard)
-        if (cache == null) {
+        if (!message.hasCache()) {
             throw new IllegalStateException("Cache not initialized");
         }
 
         // lookup existing cached encoding entry
-        IoBufferEx cachedBuffer = cache.get(cacheKey);
+        IoBufferEx cachedBuffer = message.getCachedEncoding(encodingId);
         if (cachedBuffer == null) {
             // when cachedBuffer is null, perform encode, then cache the result
             // with standard atomic race condition awareness (put-if-absent)            
             if ((flags & FLAG_ZERO_COPY) != 0) {
-                if (!cache.isEmpty()) {
+                if (!message.isCacheEmpty()) {
                     flags &= ~FLAG_ZERO_COPY;
                 }
             }
@@ -58,7 +54,7 @@ public abstract class CachingMessageEncoder {
                 MessageBuffer<?> cacheableBuffer = (MessageBuffer<?>) newCachedBuffer;
                 cacheableBuffer.setAutoCache(true);
             }
-            cachedBuffer = cache.putIfAbsent(cacheKey, newCachedBuffer);
+            cachedBuffer = message.putCachedEncodingIfAbsent(encodingId, newCachedBuffer);
             if (cachedBuffer == null) {
                 cachedBuffer = newCachedBuffer;
             }
@@ -71,11 +67,13 @@ public abstract class CachingMessageEncoder {
         return (session instanceof BridgeSession) ? ((BridgeSession)session).getMessageEncoder() : IO_MESSAGE_ENCODER;
     }
 
+    private static final int IO_ENCODING_ID = Message.registerEncoding("io");
+
     public static final CachingMessageEncoder IO_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("io", encoder, message, allocator, flags);
+            return encode(IO_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
@@ -23,46 +23,110 @@ package org.kaazing.gateway.transport.bridge;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.kaazing.mina.core.buffer.IoBufferEx;
-import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 
 
 /**
  * Message is the common top-level superclass for all message types.  Includes optional 
  * storage for different transport encodings of this message.
+ *
+ * Each transport encoding is identified by an encoding id obtained from {@link #registerEncoding(String)},
+ * typically once per encoder class, so that the cached encodings can be held in a fixed slot array
+ * shared by all threads instead of a string-keyed map per thread.
  */
 public class Message implements Cloneable {
 
-    private static final class CacheRef extends VicariousThreadLocal<ConcurrentMap<String, IoBufferEx>> {
-        
-        @Override
-        protected ConcurrentMap<String, IoBufferEx> initialValue() {
-            return new ConcurrentHashMap<>();
+    /**
+     * The maximum number of distinct transport encodings that can be registered.
+     */
+    public static final int MAXIMUM_ENCODINGS = 32;
+
+    private static final ConcurrentMap<String, Integer> ENCODING_IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger ENCODING_COUNT = new AtomicInteger();
+
+    /**
+     * The optional transport encoded buffer cache, indexed by encoding id.
+     */
+    private AtomicReferenceArray<IoBufferEx> cache;
+
+    /**
+     * Registers a transport encoding name, returning the id of its slot in the message cache.
+     * Registering the same name again returns the same id.
+     *
+     * @throws IllegalStateException if more than {@link #MAXIMUM_ENCODINGS} encodings are registered
+     */
+    public static int registerEncoding(String name) {
+        Integer encodingId = ENCODING_IDS.get(name);
+        if (encodingId == null) {
+            synchronized (ENCODING_IDS) {
+                encodingId = ENCODING_IDS.get(name);
+                if (encodingId == null) {
+                    int newEncodingId = ENCODING_COUNT.get();
+                    if (newEncodingId == MAXIMUM_ENCODINGS) {
+                        throw new IllegalStateException("Too many message encodings registered: " + name);
+                    }
+                    encodingId = newEncodingId;
+                    ENCODING_IDS.put(name, encodingId);
+                    ENCODING_COUNT.set(newEncodingId + 1);
+                }
+            }
         }
+        return encodingId;
     }
-    
+
     /**
-     * The optional transport encoded buffer cache.
+     * Returns the id of a previously registered transport encoding, or -1 if not registered.
      */
-    private ThreadLocal<ConcurrentMap<String, IoBufferEx>> cacheRef;
+    public static int getEncodingId(String name) {
+        Integer encodingId = ENCODING_IDS.get(name);
+        return (encodingId != null) ? encodingId : -1;
+    }
 
     /**
      * Initializes the transport buffer cache.
      */
     public void initCache() {
-        if (cacheRef != null) {
+        if (cache != null) {
             throw new IllegalStateException("Cache already initialized");
         }
-        cacheRef = new CacheRef();
-    }
-    
-    public ConcurrentMap<String, IoBufferEx> getCache() {
-        return cacheRef.get();
+        cache = new AtomicReferenceArray<>(MAXIMUM_ENCODINGS);
     }
-    
+
     public boolean hasCache() {
-        return (cacheRef != null);
+        return (cache != null);
+    }
+
+    /**
+     * Returns the cached buffer for the given encoding id, or null if not yet encoded.
+     */
+    public IoBufferEx getCachedEncoding(int encodingId) {
+        return cache.get(encodingId);
+    }
+
+    /**
+     * Caches the buffer for the given encoding id unless another thread already did so.
+     * Cached buffers are visible to all threads and must not be mutated once cached.
+     *
+     * @return the previously cached buffer, or null if the given buffer was cached
+     */
+    public IoBufferEx putCachedEncodingIfAbsent(int encodingId, IoBufferEx buffer) {
+        // cached entries are never removed, so a failed compare-and-set always observes the winner
+        return cache.compareAndSet(encodingId, null, buffer) ? null : cache.get(encodingId);
+    }
+
+    public boolean isCacheEmpty() {
+        AtomicReferenceArray<IoBufferEx> encodings = cache;
+        if (encodings != null) {
+            for (int i = ENCODING_COUNT.get() - 1; i >= 0; i--) {
+                if (encodings.get(i) != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     // A more verbose (and expensive-to-generate) version of toString(),
@@ -74,7 +138,7 @@ public class Message implements Cloneable {
     @Override
     public Object clone() throws CloneNotSupportedException {
         Message clonedMessage = (Message)super.clone();
-        clonedMessage.cacheRef = null;
+        clonedMessage.cache = null;
         return clonedMessage;
     }
     
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.dispatch;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.mina.core.buffer.IoBuffer;
+
+/**
+ * Byte-level prefix automaton compiled from the discriminators of a set of {@link ProtocolDispatcher}s.
+ * Each state has a dense 256-entry transition row, so the next protocol is decided in a single pass over
+ * the initial bytes, reading them in place without copying. Matching can resume from a returned state
+ * when a discriminator spans more than one buffer.
+ */
+public final class ProtocolDispatchTrie {
+
+    public static final int START = 0;
+    public static final int NO_MATCH = -1;
+
+    private final int[] transitions;
+    private final String[] protocolNames;
+
+    private ProtocolDispatchTrie(int[] transitions, String[] protocolNames) {
+        this.transitions = transitions;
+        this.protocolNames = protocolNames;
+    }
+
+    public static ProtocolDispatchTrie compile(Collection<ProtocolDispatcher> dispatchers) {
+        if (dispatchers == null) {
+            throw new NullPointerException("dispatchers");
+        }
+
+        int maxStates = 1;
+        for (ProtocolDispatcher dispatcher : dispatchers) {
+            for (byte[] discriminator : dispatcher.getDiscriminators()) {
+                maxStates += discriminator.length;
+            }
+        }
+
+        int[] transitions = new int[maxStates << 8];
+        String[] protocolNames = new String[maxStates];
+        int states = 1;
+        for (ProtocolDispatcher dispatcher : dispatchers) {
+            String protocolName = dispatcher.getProtocolName();
+            for (byte[] discriminator : dispatcher.getDiscriminators()) {
+                if (discriminator.length == 0) {
+                    continue;
+                }
+                int state = START;
+                for (byte b : discriminator) {
+                    if (protocolNames[state] != null) {
+                        // shorter discriminator already decides this prefix
+                        break;
+                    }
+                    int index = (state << 8) | (b & 0xff);
+                    int next = transitions[index];
+                    if (next == START) {
+                        next = states++;
+                        transitions[index] = next;
+                    }
+                    state = next;
+                }
+                if (protocolNames[state] == null) {
+                    // shorter discriminator decides first, longer ones below it become unreachable
+                    protocolNames[state] = protocolName;
+                }
+            }
+        }
+
+        return new ProtocolDispatchTrie(Arrays.copyOf(transitions, states << 8), Arrays.copyOf(protocolNames, states));
+    }
+
+    /**
+     * Advances the automaton over the remaining bytes of the buffer, without changing its position,
+     * stopping as soon as a protocol is decided.
+     *
+     * @param state  the state to resume from, initially {@link #START}
+     * @param buffer the received bytes
+     * @return the resulting state, or {@link #NO_MATCH} if no discriminator matches
+     */
+    public int match(int state, IoBuffer buffer) {
+        if (state == NO_MATCH || protocolNames[state] != null) {
+            return state;
+        }
+
+        int[] transitions = this.transitions;
+        for (int i = buffer.position(), limit = buffer.limit(); i < limit; i++) {
+            state = transitions[(state << 8) | (buffer.get(i) & 0xff)];
+            if (state == START) {
+                return NO_MATCH;
+            }
+            if (protocolNames[state] != null) {
+                break;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns the protocol decided by the given state, or {@code null} if no protocol has been decided yet.
+     */
+    public String getProtocolName(int state) {
+        return (state == NO_MATCH) ? null : protocolNames[state];
+    }
+
+    public boolean isDecided(int state) {
+        return state == NO_MATCH || protocolNames[state] != null;
+    }
+}
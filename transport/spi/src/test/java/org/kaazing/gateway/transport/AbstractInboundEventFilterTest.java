@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
+import org.kaazing.mina.core.session.IndexedAttributeKey;
+
+public class AbstractInboundEventFilterTest {
+
+    @Test
+    public void shouldNotExhaustIndexedKeysWithPerSessionFilters() {
+        // NextProtocolFilter is created for every accepted session
+        for (int i = 0; i <= IndexedAttributeKey.MAXIMUM_INDEXED_KEYS; i++) {
+            new NextProtocolFilter(Collections.<ProtocolDispatcher>emptyList());
+        }
+
+        TypedAttributeKey<String> key = new TypedAttributeKey<>(AbstractInboundEventFilterTest.class, "key");
+        assertTrue(key.index() >= 0);
+    }
+}
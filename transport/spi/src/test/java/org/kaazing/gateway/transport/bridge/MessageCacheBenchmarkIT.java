@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.bridge;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_SHARED;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CyclicBarrier;
+
+import org.kaazing.gateway.transport.io.IoMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
+
+/**
+ * Compares the per-message encoding cache against the previous per-thread string-keyed cache
+ * for a broadcast fanout, where every message is encoded once per subscriber by several I/O threads.
+ * Not run by the build; run main() with the test classpath to print the cost per encode for each round.
+ */
+public class MessageCacheBenchmarkIT {
+
+    private static final String[] ENCODINGS = { "benchmark/ws", "benchmark/wse", "benchmark/sse" };
+    private static final byte[] PAYLOAD = new byte[128];
+
+    private static final MessageEncoder<BenchmarkMessage> ENCODER = new MessageEncoder<BenchmarkMessage>() {
+
+        @Override
+        public IoBufferEx encode(IoBufferAllocatorEx<?> allocator, BenchmarkMessage message, int flags) {
+            return allocator.wrap(ByteBuffer.wrap(PAYLOAD), FLAG_SHARED);
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        new MessageCacheBenchmarkIT().benchmark(4, 50000, 200, 5);
+    }
+
+    private void benchmark(int threads, int subscribers, int messages, int rounds) throws Exception {
+        SlotCache slotCache = new SlotCache();
+        LegacyCache legacyCache = new LegacyCache();
+        for (int round = 0; round < rounds; round++) {
+            long legacyNanos = run(legacyCache, threads, subscribers, messages);
+            long slotNanos = run(slotCache, threads, subscribers, messages);
+            long encodes = (long) subscribers * messages;
+            System.out.println(format("round %d: legacy %.1f ns/encode, slots %.1f ns/encode", round,
+                    (double) legacyNanos / encodes, (double) slotNanos / encodes));
+        }
+    }
+
+    private long run(final Cache cache, final int threads, final int subscribers, int messages) throws Exception {
+        final BenchmarkMessage[] fanout = new BenchmarkMessage[messages];
+        for (int i = 0; i < messages; i++) {
+            fanout[i] = new BenchmarkMessage();
+            cache.init(fanout[i]);
+        }
+
+        final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (BenchmarkMessage message : fanout) {
+                        // each worker writes the message to its own partition of subscribers
+                        for (int s = worker; s < subscribers; s += threads) {
+                            cache.encode(s % ENCODINGS.length, message);
+                        }
+                    }
+                    barrier.await();
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, "benchmark-" + t);
+            workers[t].start();
+        }
+
+        barrier.await();
+        long start = System.nanoTime();
+        barrier.await();
+        long elapsed = System.nanoTime() - start;
+        for (Thread worker : workers) {
+            worker.join(NANOSECONDS.toMillis(elapsed) + 1000L);
+        }
+        return elapsed;
+    }
+
+    private interface Cache {
+
+        void init(BenchmarkMessage message);
+
+        IoBufferEx encode(int encoding, BenchmarkMessage message);
+    }
+
+    private static final class SlotCache extends CachingMessageEncoder implements Cache {
+        private final int[] encodingIds = new int[ENCODINGS.length];
+
+        SlotCache() {
+            for (int i = 0; i < ENCODINGS.length; i++) {
+                encodingIds[i] = Message.registerEncoding(ENCODINGS[i]);
+            }
+        }
+
+        @Override
+        public void init(BenchmarkMessage message) {
+            message.initCache();
+        }
+
+        @Override
+        public IoBufferEx encode(int encoding, BenchmarkMessage message) {
+            return encode(encodingIds[encoding], ENCODER, message, BUFFER_ALLOCATOR, FLAG_SHARED);
+        }
+
+        @Override
+        public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message,
+                IoBufferAllocatorEx<?> allocator, int flags) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // previous implementation, a string-keyed map per message per thread
+    private static final class LegacyCache implements Cache {
+
+        @Override
+        public void init(BenchmarkMessage message) {
+            message.legacyCache = new VicariousThreadLocal<ConcurrentMap<String, IoBufferEx>>() {
+
+                @Override
+                protected ConcurrentMap<String, IoBufferEx> initialValue() {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+        }
+
+        @Override
+        public IoBufferEx encode(int encoding, BenchmarkMessage message) {
+            ConcurrentMap<String, IoBufferEx> cache = message.legacyCache.get();
+            String cacheKey = ENCODINGS[encoding];
+            IoBufferEx cachedBuffer = cache.get(cacheKey);
+            if (cachedBuffer == null) {
+                IoBufferEx newCachedBuffer = ENCODER.encode(BUFFER_ALLOCATOR, message, FLAG_SHARED);
+                cachedBuffer = cache.putIfAbsent(cacheKey, newCachedBuffer);
+                if (cachedBuffer == null) {
+                    cachedBuffer = newCachedBuffer;
+                }
+            }
+            return cachedBuffer;
+        }
+    }
+
+    private static final class BenchmarkMessage extends IoMessage {
+        private ThreadLocal<ConcurrentMap<String, IoBufferEx>> legacyCache;
+
+        BenchmarkMessage() {
+            super(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(PAYLOAD)));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.dispatch;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie.START;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+
+import org.apache.mina.core.buffer.IoBuffer;
+
+/**
+ * Compares the compiled dispatch trie against the previous per-dispatcher discriminator scan
+ * for a storm of new connections whose first buffers mix HTTP, AMQP, RTMP, TLS and unknown bytes.
+ * Intended to be run from main(): it first verifies that both agree on every connection, then times them.
+ */
+public class ProtocolDispatchBenchmarkIT {
+
+    private static final String[] HTTP_METHODS = { "GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "TRACE", "CONNECT" };
+
+    private static final List<ProtocolDispatcher> DISPATCHERS = Arrays.<ProtocolDispatcher>asList(
+            new BenchmarkDispatcher("http/1.1", httpDiscriminators()),
+            new BenchmarkDispatcher("amqp/0.9.1", "AMQP\u0000\u0000\u0009\u0001"),
+            new BenchmarkDispatcher("rtmp/1.0", "\u0003"),
+            new BenchmarkDispatcher("tls", "\u0016\u0003"),
+            new BenchmarkDispatcher("x-kaazing-handshake", "\u00ef\u0083")
+    );
+
+    private static final String[] FIRST_BYTES = {
+        "GET / HTTP/1.1\r\n", "POST /echo HTTP/1.1\r\n", "\u0003\u0000\u0000\u0000",
+        "\u0016\u0003\u0001\u0002\u0000", "AMQP\u0000\u0000\u0009\u0001", "\u00ef\u0083\u0000", "SSH-2.0-OpenSSH\r\n"
+    };
+
+    public static void main(String[] args) throws Exception {
+        new ProtocolDispatchBenchmarkIT().benchmark(4, 1000000, 5);
+    }
+
+    private void benchmark(int threads, int connections, int rounds) throws Exception {
+        // split some first buffers so that discriminators span more than one read
+        Random random = new Random(0L);
+        IoBuffer[][] storm = new IoBuffer[connections][];
+        for (int i = 0; i < connections; i++) {
+            byte[] bytes = FIRST_BYTES[random.nextInt(FIRST_BYTES.length)].getBytes(ISO_8859_1);
+            int split = random.nextInt(4) == 0 ? 1 : bytes.length;
+            storm[i] = (split < bytes.length)
+                    ? new IoBuffer[] { IoBuffer.wrap(bytes, 0, split), IoBuffer.wrap(bytes, split, bytes.length - split) }
+                    : new IoBuffer[] { IoBuffer.wrap(bytes) };
+        }
+
+        Sniffer trieSniffer = new TrieSniffer(ProtocolDispatchTrie.compile(DISPATCHERS));
+        Sniffer legacySniffer = new LegacySniffer(DISPATCHERS);
+        for (IoBuffer[] reads : storm) {
+            assertEquals(legacySniffer.sniff(reads), trieSniffer.sniff(reads));
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            long legacyNanos = run(legacySniffer, threads, storm);
+            long trieNanos = run(trieSniffer, threads, storm);
+            System.out.println(format("round %d: legacy %.1f ns/connection, trie %.1f ns/connection", round,
+                    (double) legacyNanos / connections, (double) trieNanos / connections));
+        }
+    }
+
+    private long run(final Sniffer sniffer, final int threads, final IoBuffer[][] storm) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    int decided = 0;
+                    for (int i = worker; i < storm.length; i += threads) {
+                        if (sniffer.sniff(storm[i]) != null) {
+                            decided++;
+                        }
+                    }
+                    barrier.await();
+                    if (decided < 0) {
+                        throw new IllegalStateException();
+                    }
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, "benchmark-" + t);
+            workers[t].start();
+        }
+
+        barrier.await();
+        long start = System.nanoTime();
+        barrier.await();
+        long elapsed = System.nanoTime() - start;
+        for (Thread worker : workers) {
+            worker.join(NANOSECONDS.toMillis(elapsed) + 1000L);
+        }
+        return elapsed;
+    }
+
+    private static String[] httpDiscriminators() {
+        List<String> discriminators = new ArrayList<>();
+        for (String method : HTTP_METHODS) {
+            discriminators.add(method.substring(0, 1));
+            discriminators.add(method.substring(0, 1).toLowerCase());
+        }
+        return discriminators.toArray(new String[discriminators.size()]);
+    }
+
+    private interface Sniffer {
+
+        String sniff(IoBuffer[] reads);
+    }
+
+    private static final class TrieSniffer implements Sniffer {
+        private final ProtocolDispatchTrie trie;
+
+        TrieSniffer(ProtocolDispatchTrie trie) {
+            this.trie = trie;
+        }
+
+        @Override
+        public String sniff(IoBuffer[] reads) {
+            int state = START;
+            for (IoBuffer read : reads) {
+                state = trie.match(state, read);
+                if (trie.isDecided(state)) {
+                    break;
+                }
+            }
+            return trie.getProtocolName(state);
+        }
+    }
+
+    // previous approach, accumulating reads and asking each dispatcher in turn
+    private static final class LegacySniffer implements Sniffer {
+        private final Collection<ProtocolDispatcher> dispatchers;
+
+        LegacySniffer(Collection<ProtocolDispatcher> dispatchers) {
+            this.dispatchers = dispatchers;
+        }
+
+        @Override
+        public String sniff(IoBuffer[] reads) {
+            IoBuffer accumulated = IoBuffer.allocate(16).setAutoExpand(true);
+            for (IoBuffer read : reads) {
+                accumulated.put(read.duplicate());
+                IoBuffer candidate = accumulated.duplicate().flip();
+                boolean pending = false;
+                for (ProtocolDispatcher dispatcher : dispatchers) {
+                    for (byte[] discriminator : dispatcher.getDiscriminators()) {
+                        int length = Math.min(discriminator.length, candidate.remaining());
+                        int i = 0;
+                        while (i < length && candidate.get(i) == discriminator[i]) {
+                            i++;
+                        }
+                        if (i == discriminator.length) {
+                            return dispatcher.getProtocolName();
+                        }
+                        pending |= (i == length);
+                    }
+                }
+                if (!pending) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class BenchmarkDispatcher implements ProtocolDispatcher {
+        private final String protocolName;
+        private final Collection<byte[]> discriminators;
+
+        BenchmarkDispatcher(String protocolName, String... discriminators) {
+            this.protocolName = protocolName;
+            this.discriminators = new ArrayList<>();
+            for (String discriminator : discriminators) {
+                this.discriminators.add(discriminator.getBytes(ISO_8859_1));
+            }
+        }
+
+        @Override
+        public int compareTo(ProtocolDispatcher pd) {
+            return protocolDispatchComparator.compare(this, pd);
+        }
+
+        @Override
+        public String getProtocolName() {
+            return protocolName;
+        }
+
+        @Override
+        public Collection<byte[]> getDiscriminators() {
+            return discriminators;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.dispatch;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie.NO_MATCH;
+import static org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie.START;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.junit.Test;
+
+public class ProtocolDispatchTrieTest {
+
+    private final ProtocolDispatchTrie trie = ProtocolDispatchTrie.compile(asList(
+            new TestProtocolDispatcher("http/1.1", "G", "P", "g", "p"),
+            new TestProtocolDispatcher("http/2", "PRI * HTTP/2.0"),
+            new TestProtocolDispatcher("rtmp/1.0", "\u0003"),
+            new TestProtocolDispatcher("tls", "\u0016\u0003")));
+
+    @Test
+    public void shouldMatchSingleByteDiscriminator() {
+        IoBuffer buffer = wrap("GET / HTTP/1.1\r\n");
+        int state = trie.match(START, buffer);
+
+        assertTrue(trie.isDecided(state));
+        assertEquals("http/1.1", trie.getProtocolName(state));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void shouldMatchMultiByteDiscriminator() {
+        int state = trie.match(START, wrap("\u0016\u0003\u0001"));
+
+        assertEquals("tls", trie.getProtocolName(state));
+    }
+
+    @Test
+    public void shouldResumeAcrossBuffers() {
+        int state = trie.match(START, wrap("\u0016"));
+        assertFalse(trie.isDecided(state));
+        assertNull(trie.getProtocolName(state));
+
+        state = trie.match(state, wrap("\u0003\u0001"));
+        assertEquals("tls", trie.getProtocolName(state));
+    }
+
+    @Test
+    public void shouldPreferShorterDiscriminator() {
+        int state = trie.match(START, wrap("PRI * HTTP/2.0\r\n"));
+
+        assertEquals("http/1.1", trie.getProtocolName(state));
+    }
+
+    @Test
+    public void shouldNotMatchUnknownPrefix() {
+        int state = trie.match(START, wrap("\u0016\u0004"));
+
+        assertEquals(NO_MATCH, state);
+        assertTrue(trie.isDecided(state));
+        assertNull(trie.getProtocolName(state));
+    }
+
+    @Test
+    public void shouldNotDecideEmptyBuffer() {
+        int state = trie.match(START, wrap(""));
+
+        assertEquals(START, state);
+        assertFalse(trie.isDecided(state));
+    }
+
+    @Test
+    public void shouldMatchFromBufferPosition() {
+        IoBuffer buffer = wrap("xxG");
+        buffer.position(2);
+
+        assertEquals("http/1.1", trie.getProtocolName(trie.match(START, buffer)));
+    }
+
+    @Test
+    public void shouldNotMatchWithoutDispatchers() {
+        ProtocolDispatchTrie trie = ProtocolDispatchTrie.compile(Collections.<ProtocolDispatcher>emptyList());
+
+        assertEquals(NO_MATCH, trie.match(START, wrap("GET")));
+    }
+
+    private static IoBuffer wrap(String bytes) {
+        return IoBuffer.wrap(bytes.getBytes(US_ASCII));
+    }
+
+    private static final class TestProtocolDispatcher implements ProtocolDispatcher {
+        private final String protocolName;
+        private final Collection<byte[]> discriminators;
+
+        TestProtocolDispatcher(String protocolName, String... discriminators) {
+            this.protocolName = protocolName;
+            this.discriminators = new ArrayList<>();
+            for (String discriminator : discriminators) {
+                this.discriminators.add(discriminator.getBytes(US_ASCII));
+            }
+        }
+
+        @Override
+        public int compareTo(ProtocolDispatcher pd) {
+            return protocolDispatchComparator.compare(this, pd);
+        }
+
+        @Override
+        public String getProtocolName() {
+            return protocolName;
+        }
+
+        @Override
+        public Collection<byte[]> getDiscriminators() {
+            return discriminators;
+        }
+    }
+}
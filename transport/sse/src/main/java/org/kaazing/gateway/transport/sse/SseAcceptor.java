@@ -28,7 +28,6 @@ import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -75,7 +74,6 @@ import org.kaazing.gateway.transport.sse.bridge.SseMessage;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseAcceptCodecFilter;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBufferAllocator;
-import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.future.UnbindFuture;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -96,6 +94,9 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
     private static final TypedAttributeKey<ResourceAddress> NEXT_PROTOCOL_RESOURCE_ADDRESS =
              new TypedAttributeKey<>(SseAcceptor.class, "nextProtocolResourceAddress");
 
+    private static final TypedAttributeKey<SseSession> SSE_SESSION_KEY =
+            new TypedAttributeKey<>(SseAcceptor.class, "sseSession");
+
     private static final String CODEC_FILTER = SseProtocol.NAME + "#codec";
     private static final String FAULT_LOGGING_FILTER = SseProtocol.NAME + "#fault";
     private static final String TRACE_LOGGING_FILTER = SseProtocol.NAME + "#logging";
@@ -109,8 +110,6 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
 
 	private final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
 
-    private ScheduledExecutorService scheduler;
-
     private IoFilter sseCodec;
 
     private BridgeServiceFactory bridgeServiceFactory;
@@ -130,12 +129,6 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         super(new DefaultSseSessionConfig());
     }
 
-
-    @Resource(name = "schedulerProvider")
-    public void setSchedulerProvider(SchedulerProvider provider) {
-        this.scheduler = provider.getScheduler("KeepAlive-Sse", true);
-    }
-
     @Override
     public void init() {
         super.init();
@@ -216,12 +209,6 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
         return transportAcceptor.unbind(transportBindAddress);
     }
 
-    @Override
-    protected IoFuture dispose0() throws Exception {
-        scheduler.shutdownNow();
-        return super.dispose0();
-    }
-
     private IoHandler selectTransportHandler(ResourceAddress address) {
         Protocol protocol  = bridgeServiceFactory.getTransportFactory().getProtocol(address.getResource());
         if ( protocol instanceof HttpProtocol ) {
@@ -244,7 +231,6 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
     }
     private IoHandler bridgeHandler = new IoHandlerAdapter<HttpAcceptSession>() {
 
-        private final TypedAttributeKey<SseSession> SSE_SESSION_KEY = new TypedAttributeKey<>(SseAcceptor.class, "sseSession");
         @Override
         protected void doSessionOpened(HttpAcceptSession httpSession) throws Exception {
             IoFilterChain filterChain = httpSession.getFilterChain();
@@ -511,7 +497,7 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
 
                     // schedule timeout monitor for this sseSession
                     if (!sseSession.isClosing()) {
-                        ScheduledFuture<?> timeoutFuture = scheduler.schedule(new TimeoutCommand(sseSession),
+                        ScheduledFuture<?> timeoutFuture = sseSession.schedule(new TimeoutCommand(sseSession),
                                 TIME_TO_TIMEOUT_RECONNECT_MILLIS, TimeUnit.MILLISECONDS);
                         sseSession.setAttribute(TIMEOUT_FUTURE_KEY, timeoutFuture);
                     }
@@ -553,7 +539,7 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
                             long flushDelayMillis = Integer.parseInt(flushDelay);
                             if (flushDelayMillis > 0L) {
                                 Runnable command = new AttachParentCommand(sseSession, httpSession);
-                                scheduler.schedule(command, flushDelayMillis, TimeUnit.MILLISECONDS);
+                                sseSession.schedule(command, flushDelayMillis, TimeUnit.MILLISECONDS);
                             }
                             else {
                                 sseSession.attach(httpSession);
@@ -624,7 +610,7 @@ public class SseAcceptor extends AbstractBridgeAcceptor<SseSession, Binding> {
             // defeating the purpose of the delay (needed by Silverlight)
             // therefore, write an SSE comment a little later as a backup to make
             // sure that the connection does not get stalled
-            scheduler.schedule(new FlushCommand(sseSession), TIME_TO_FIRST_WRITE_MILLIS, TimeUnit.MILLISECONDS);
+            sseSession.schedule(new FlushCommand(sseSession), TIME_TO_FIRST_WRITE_MILLIS, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -25,7 +25,7 @@ import static java.lang.String.format;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
@@ -34,7 +34,6 @@ import org.apache.mina.core.filterchain.IoFilter;
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultConnectFuture;
-import org.apache.mina.core.future.IoFuture;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.TransportMetadata;
@@ -57,7 +56,6 @@ import org.kaazing.gateway.transport.sse.bridge.SseMessage;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBuffer;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseBufferAllocator;
 import org.kaazing.gateway.transport.sse.bridge.filter.SseConnectCodecFilter;
-import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.slf4j.Logger;
@@ -77,8 +75,6 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
 
 	private final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
 
-    private ScheduledExecutorService scheduler;
-
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
 
@@ -93,11 +89,6 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
         super(new DefaultSseSessionConfig());
     }
 
-    @Resource(name = "schedulerProvider")
-    public void setSchedulerProvider(SchedulerProvider provider) {
-        this.scheduler = provider.getScheduler("SseConnector_reconnect", false);
-    }
-
     @Resource(name = "resourceAddressFactory")
     public void setResourceAddressFactory(ResourceAddressFactory factory) {
         this.resourceAddressFactory = factory;
@@ -186,12 +177,6 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
     }
 
 
-    @Override
-    protected IoFuture dispose0() throws Exception {
-        scheduler.shutdownNow();
-        return super.dispose0();
-    }
-
     private <T extends ConnectFuture> IoSessionInitializer<ConnectFuture> createParentInitializer(final ResourceAddress connectAddress,
             final IoHandler handler, final IoSessionInitializer<T> initializer, final DefaultConnectFuture sseConnectFuture) {
         // initialize parent session before connection attempt
@@ -252,7 +237,7 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
                 connector.connect(connectAddress, httpHandler, null).addListener(connectListener);
             } else {
                 // reconnect after "retry" milliseconds
-                scheduler.schedule(new ReconnectCommand(sseSession), retry, TimeUnit.MILLISECONDS);
+                sseSession.schedule(new ReconnectCommand(sseSession), retry, TimeUnit.MILLISECONDS);
             }
         }
         else {
@@ -315,20 +300,16 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
                 if (location == null) {
                     sseSession.reset(new Exception("Redirect attempted without Location header").fillInStackTrace());
                 } else {
+                    // resolve the redirect host without blocking this I/O thread
                     URI locationURI = URI.create(location);
-                    ResourceAddress newConnectAddress = resourceAddressFactory.newResourceAddress(locationURI);
-                    BridgeConnector connector = bridgeServiceFactory.newBridgeConnector(newConnectAddress);
-                    connector.connect(newConnectAddress, httpHandler, new IoSessionInitializer<ConnectFuture>() {
-                        @Override
-                        public void initializeSession(IoSession session, ConnectFuture future) {
-                            SSE_SESSION_FACTORY_KEY.set(session, new Callable<SseSession>() {
-                                @Override
-                                public SseSession call() throws Exception {
-                                    return sseSession;
-                                }
-                            });
+                    resourceAddressFactory.newResourceAddressAsync(locationURI).whenCompleteAsync((newConnectAddress, cause) -> {
+                        if (cause != null) {
+                            sseSession.reset((cause instanceof CompletionException) ? cause.getCause() : cause);
                         }
-                    }).addListener(new ReconnectListener(sseSession));
+                        else {
+                            redirect(sseSession, newConnectAddress);
+                        }
+                    }, sseSession.getIoExecutor());
                 }
                 break;
             default:
@@ -337,6 +318,21 @@ public class SseConnector extends AbstractBridgeConnector<SseSession> {
             }
         }
 
+        private void redirect(final SseSession sseSession, ResourceAddress newConnectAddress) {
+            BridgeConnector connector = bridgeServiceFactory.newBridgeConnector(newConnectAddress);
+            connector.connect(newConnectAddress, httpHandler, new IoSessionInitializer<ConnectFuture>() {
+                @Override
+                public void initializeSession(IoSession session, ConnectFuture future) {
+                    SSE_SESSION_FACTORY_KEY.set(session, new Callable<SseSession>() {
+                        @Override
+                        public SseSession call() throws Exception {
+                            return sseSession;
+                        }
+                    });
+                }
+            }).addListener(new ReconnectListener(sseSession));
+        }
+
         @Override
         protected void doExceptionCaught(HttpSession session, Throwable cause) throws Exception {
             SseSession sseSession = SSE_SESSION_KEY.get(session);
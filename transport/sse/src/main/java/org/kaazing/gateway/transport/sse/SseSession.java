@@ -41,11 +41,13 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public class SseSession extends AbstractBridgeSession<SseSession, SseBuffer> {
 
+    private static final int SSE_ENCODING_ID = Message.registerEncoding("sse");
+
     private static final CachingMessageEncoder SSE_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("sse", encoder, message, allocator, flags);
+            return encode(SSE_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
@@ -89,7 +89,6 @@ public class SseAcceptorIT {
         SseAcceptor sseAcceptor = (SseAcceptor)transportFactory.getTransport("sse").getAcceptor();
         sseAcceptor.setBridgeServiceFactory(serviceFactory);
         sseAcceptor.setResourceAddressFactory(addressFactory);
-        sseAcceptor.setSchedulerProvider(provider);
 
         HttpAcceptor httpAcceptor = (HttpAcceptor)transportFactory.getTransport("http").getAcceptor();
         httpAcceptor.setBridgeServiceFactory(serviceFactory);
@@ -71,6 +71,7 @@ import org.kaazing.gateway.resource.address.ResourceAddressFactory;
 import org.kaazing.gateway.resource.address.ResourceOptions;
 import org.kaazing.gateway.resource.address.ssl.SslResourceAddress;
 import org.kaazing.gateway.security.SecurityContext;
+import org.kaazing.gateway.transport.dispatch.ProtocolDispatchTrie;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 import org.kaazing.gateway.transport.AbstractBridgeAcceptor;
 import org.kaazing.gateway.transport.Bindings;
@@ -84,6 +85,7 @@ import org.kaazing.gateway.transport.DefaultTransportMetadata;
 import org.kaazing.gateway.transport.NextProtocolBindings;
 import org.kaazing.gateway.transport.NextProtocolBindings.NextProtocolBinding;
 import org.kaazing.gateway.transport.NextProtocolFilter;
+import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.transport.NioBindException;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslCertificateSelectionFilter;
@@ -299,8 +301,10 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
             NEXT_PROTOCOL_KEY.set(session, nextProtocolNames.first());
         }
         else {
-            Collection<ProtocolDispatcher> dispatchers = bridgeServiceFactory.getTransportFactory().getProtocolDispatchers().values();
-            filterChain.addLast(NEXT_PROTOCOL_FILTER, new NextProtocolFilter(dispatchers));
+            TransportFactory transportFactory = bridgeServiceFactory.getTransportFactory();
+            Collection<ProtocolDispatcher> dispatchers = transportFactory.getProtocolDispatchers().values();
+            ProtocolDispatchTrie dispatchTrie = transportFactory.getProtocolDispatchTrie();
+            filterChain.addLast(NEXT_PROTOCOL_FILTER, new NextProtocolFilter(dispatchers, dispatchTrie));
         }
 
         if (!encryption) {
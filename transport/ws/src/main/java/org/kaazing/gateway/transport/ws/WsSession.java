@@ -36,11 +36,13 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public class WsSession extends AbstractBridgeSession<WsSession, WsBuffer> {
 
+    private static final int WS_ENCODING_ID = Message.registerEncoding("ws");
+
     private static final CachingMessageEncoder WS_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("ws", encoder, message, allocator, flags);
+            return encode(WS_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
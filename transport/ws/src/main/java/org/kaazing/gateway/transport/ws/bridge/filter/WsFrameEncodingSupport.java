@@ -24,7 +24,6 @@ package org.kaazing.gateway.transport.ws.bridge.filter;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_ZERO_COPY;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentMap;
 
 import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.ws.WsCloseMessage;
@@ -318,14 +317,7 @@ public class WsFrameEncodingSupport {
     }
 
     private  static boolean isCacheEmpty(Message message) {
-        boolean emptyCache = true;
-        
-        if (message.hasCache()) {
-            ConcurrentMap<String, IoBufferEx> cache = message.getCache();
-            emptyCache = cache.isEmpty();
-        }
-
-        return emptyCache;
+        return message.isCacheEmpty();
     }
 
 }
@@ -22,8 +22,11 @@
 package org.kaazing.gateway.transport.ws.bridge;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
@@ -34,6 +37,7 @@ import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 import org.junit.Test;
 import org.kaazing.gateway.transport.BridgeCodecSession;
 import org.kaazing.gateway.transport.bridge.CachingMessageEncoder;
+import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.io.IoMessage;
 import org.kaazing.gateway.transport.io.filter.IoMessageEncoder;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -88,4 +92,31 @@ public class MessageTest {
         assertNotSame(primaryOut, secondaryOut);
 	}
 
+    @Test
+    public void registeringSameEncodingShouldReturnSameId() throws Exception {
+        int encodingId = Message.registerEncoding("test/same");
+
+        assertEquals(encodingId, Message.registerEncoding("test/same"));
+        assertEquals(encodingId, Message.getEncodingId("test/same"));
+        assertTrue(encodingId != Message.registerEncoding("test/other"));
+        assertEquals(-1, Message.getEncodingId("test/unregistered"));
+    }
+
+    @Test
+    public void firstCachedEncodingShouldWin() throws Exception {
+        SimpleBufferAllocator allocator = SimpleBufferAllocator.BUFFER_ALLOCATOR;
+        int encodingId = Message.registerEncoding("test/first");
+
+        IoMessage in = new IoMessage(allocator.wrap(ByteBuffer.wrap("abcd".getBytes(UTF_8))));
+        in.initCache();
+        assertTrue(in.isCacheEmpty());
+
+        IoBufferEx first = allocator.wrap(ByteBuffer.wrap("first".getBytes(UTF_8)));
+        IoBufferEx second = allocator.wrap(ByteBuffer.wrap("second".getBytes(UTF_8)));
+        assertNull(in.putCachedEncodingIfAbsent(encodingId, first));
+        assertSame(first, in.putCachedEncodingIfAbsent(encodingId, second));
+        assertSame(first, in.getCachedEncoding(encodingId));
+        assertFalse(in.isCacheEmpty());
+    }
+
 }
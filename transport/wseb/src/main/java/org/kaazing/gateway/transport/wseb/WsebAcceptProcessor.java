@@ -43,17 +43,9 @@ import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ScheduledExecutorService;
-
-
 public class WsebAcceptProcessor extends BridgeAcceptProcessor<WsebSession> {
     private static final Logger LOGGER = LoggerFactory.getLogger(WsebAcceptProcessor.class);
     private static final CheckInitialPadding CHECK_INITIAL_PADDING = new CheckInitialPadding();
-    private final ScheduledExecutorService scheduler;
-
-    public WsebAcceptProcessor(ScheduledExecutorService scheduler) {
-        this.scheduler = scheduler;
-    }
 
     @Override
     protected void removeInternal(WsebSession session) {
@@ -145,7 +137,7 @@ public class WsebAcceptProcessor extends BridgeAcceptProcessor<WsebSession> {
                 session.detachWriter(writer);
                 boolean attached = session.attachPendingWriter();
                 if (!attached) {
-                    session.scheduleTimeout(scheduler);
+                    session.scheduleTimeout();
                 }
                 break;
             }
@@ -194,7 +194,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
     @Override
     protected IoProcessorEx<WsebSession> initProcessor() {
-        return new WsebAcceptProcessor(scheduler);
+        return new WsebAcceptProcessor();
     }
 
     @Resource(name = "configuration")
@@ -332,6 +332,8 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                     selectCreateHandler(createMixedTextEscapedAddress),
                     wrapperHttpInitializer);
 
+            bindSessionRoutes(transportAddress);
+
         } catch (Exception e) {
             throw new RuntimeException("Unable to bind address " + address + ": " + e.getMessage(),e );
         }
@@ -419,9 +421,54 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         future = combineFutures(future, acceptor.unbind(createMixedAddress));
         future = combineFutures(future, acceptor.unbind(createMixedTextAddress));
         future = combineFutures(future, acceptor.unbind(createMixedTextEscapedAddress));
+        future = combineFutures(future, unbindSessionRoutes(transportAddress));
         return future;
     }
 
+    private void bindSessionRoutes(ResourceAddress transportAddress) {
+        ResourceAddress routeAddress = newSessionRouteAddress(transportAddress);
+        for (WsebCreateHandler createHandler : createHandlers) {
+            ResourceAddress downstreamAddress = createHandler.resolveDownstream(routeAddress);
+            bridgeServiceFactory.newBridgeAcceptor(downstreamAddress).bind(downstreamAddress, createHandler.downstreamRouter, null);
+
+            ResourceAddress upstreamAddress = createHandler.resolveUpstream(routeAddress);
+            bridgeServiceFactory.newBridgeAcceptor(upstreamAddress).bind(upstreamAddress, createHandler.upstreamRouter, null);
+        }
+    }
+
+    private UnbindFuture unbindSessionRoutes(ResourceAddress transportAddress) {
+        ResourceAddress routeAddress = newSessionRouteAddress(transportAddress);
+        UnbindFuture future = null;
+        for (WsebCreateHandler createHandler : createHandlers) {
+            ResourceAddress downstreamAddress = createHandler.resolveDownstream(routeAddress);
+            future = combineFutures(future, bridgeServiceFactory.newBridgeAcceptor(downstreamAddress).unbind(downstreamAddress));
+
+            ResourceAddress upstreamAddress = createHandler.resolveUpstream(routeAddress);
+            future = combineFutures(future, bridgeServiceFactory.newBridgeAcceptor(upstreamAddress).unbind(upstreamAddress));
+        }
+        return future;
+    }
+
+    // up- and downstream requests are authorized by the unguessable session id, so bind without security realm
+    private ResourceAddress newSessionRouteAddress(ResourceAddress httpAddress) {
+        final ResourceAddress httpxeAddress = httpAddress.getOption(ALTERNATE);
+
+        ResourceOptions httpNoSecurityOptions = new NoSecurityResourceOptions(httpAddress);
+        if (httpxeAddress != null) {
+            ResourceOptions httpxeNoSecurityOptions = new NoSecurityResourceOptions(httpxeAddress);
+            httpxeNoSecurityOptions.setOption(ALTERNATE, null);
+            ResourceAddress httpxeBaseAddress =
+                    resourceAddressFactory.newResourceAddress(httpxeAddress.getExternalURI(),
+                                                              httpxeNoSecurityOptions,
+                                                              httpxeAddress.getOption(ResourceAddress.QUALIFIER));
+            httpNoSecurityOptions.setOption(ALTERNATE, httpxeBaseAddress);
+        }
+
+        return resourceAddressFactory.newResourceAddress(httpAddress.getExternalURI(),
+                                                         httpNoSecurityOptions,
+                                                         httpAddress.getOption(ResourceAddress.QUALIFIER));
+    }
+
     @Override
     protected IoFuture dispose0() throws Exception {
         for (IoSessionIdleTracker tracker : sessionInactivityTrackers) {
@@ -441,6 +488,8 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         private final String createSuffix;
         private final String downstreamSuffix;
         private final String upstreamSuffix;
+        private final WsebSessionRouter downstreamRouter;
+        private final WsebSessionRouter upstreamRouter;
 
         public WsebCreateHandler(String createSuffix,
                                  String downstreamSuffix,
@@ -448,13 +497,20 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             this.createSuffix = createSuffix;
             this.downstreamSuffix = downstreamSuffix;
             this.upstreamSuffix = upstreamSuffix;
+            this.downstreamRouter = new WsebSessionRouter();
+            this.upstreamRouter = new WsebSessionRouter();
         }
 
-        private IoFutureListener<CloseFuture> getWsebCloseListener(final BridgeAcceptor upstreamAcceptor,
-                                                                   final BridgeAcceptor downstreamAcceptor,
-                                                                   final WsebSession wsebSession,
-                                                                   final ResourceAddress downstreamAddress,
-                                                                   final ResourceAddress upstreamAddress) {
+        ResourceAddress resolveDownstream(ResourceAddress routeAddress) {
+            return routeAddress.resolve(createResolvePath(routeAddress.getResource(), downstreamSuffix));
+        }
+
+        ResourceAddress resolveUpstream(ResourceAddress routeAddress) {
+            return routeAddress.resolve(createResolvePath(routeAddress.getResource(), upstreamSuffix));
+        }
+
+        private IoFutureListener<CloseFuture> getWsebCloseListener(final WsebSession wsebSession,
+                                                                   final String sessionId) {
             return new IoFutureListener<CloseFuture>() {
                 @Override
                 public void operationComplete(CloseFuture future) {
@@ -462,8 +518,8 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                         currentSessionInactivityTracker.get().removeSession(wsebSession);
                     }
 
-                    downstreamAcceptor.unbind(downstreamAddress);
-                    upstreamAcceptor.unbind(upstreamAddress);
+                    downstreamRouter.unregister(sessionId);
+                    upstreamRouter.unregister(sessionId);
 
                     wsebSession.shutdownScheduledCommands();
                     wsebSession.logout();
@@ -700,48 +756,16 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                                                  remoteExternalHttp11.getFragment());
 
             //
-            // UP- and DOWN- STREAMS: BIND
+            // UP- and DOWN- STREAMS: ROUTE
             //
-            final ResourceAddress httpAddress = localAddress.getTransport();
-            final ResourceAddress httpxeAddress = localAddress.getTransport().getOption(ALTERNATE);
-
-            ResourceOptions httpxeNoSecurityOptions = new NoSecurityResourceOptions(httpxeAddress);
-            httpxeNoSecurityOptions.setOption(ALTERNATE, null);
-            ResourceAddress httpxeBaseAddress =
-                    resourceAddressFactory.newResourceAddress(httpxeAddress.getExternalURI(),
-                                                              httpxeNoSecurityOptions,
-                                                              httpxeAddress.getOption(ResourceAddress.QUALIFIER));
-
-            ResourceOptions httpNoSecurityOptions = new NoSecurityResourceOptions(httpAddress);
-            httpNoSecurityOptions.setOption(ALTERNATE, httpxeBaseAddress);
-
-            ResourceAddress httpBaseAddress =
-                    resourceAddressFactory.newResourceAddress(httpAddress.getExternalURI(),
-                                                              httpNoSecurityOptions,
-                                                              httpAddress.getOption(ResourceAddress.QUALIFIER));
-
-
-            ResourceAddress localDownstream = httpBaseAddress.resolve(createResolvePath(httpBaseAddress.getResource(), downstreamSuffix + sessionIdSuffix));
-            logger.trace("Binding "+localDownstream.getTransport()+" to downstreamHandler");
-
-            ResourceAddress localUpstream = httpBaseAddress.resolve(createResolvePath(httpBaseAddress.getResource(), upstreamSuffix + sessionIdSuffix));
-            logger.trace("Binding "+localUpstream.getTransport()+" to upstreamHandler");
-
-            BridgeAcceptor downstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(localDownstream);
-            downstreamAcceptor.bind(localDownstream,
-                    selectDownstreamHandler(localAddress, wsebSession),
-                    null);
-
-            BridgeAcceptor upstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(localUpstream);
-            upstreamAcceptor.bind(localUpstream,
-                selectUpstreamHandler(localAddress, wsebSession),
-                    null);
+            downstreamRouter.register(sessionId, selectDownstreamHandler(localAddress, wsebSession));
+            upstreamRouter.register(sessionId, selectUpstreamHandler(localAddress, wsebSession));
 
             //
             // WEBSOCKET SESSION CLOSE
             //
             CloseFuture closeFuture = wsebSession.getCloseFuture();
-            closeFuture.addListener(getWsebCloseListener(upstreamAcceptor, downstreamAcceptor, wsebSession, localDownstream, localUpstream));
+            closeFuture.addListener(getWsebCloseListener(wsebSession, sessionId));
 
 
             //
@@ -773,7 +797,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             SESSION_KEY.set(session, wsebSession);
 
             // timeout session if downstream is never attached
-            wsebSession.scheduleTimeout(scheduler);
+            wsebSession.scheduleTimeout();
         }
 
         private boolean validWsebVersion(HttpAcceptSession session) {
@@ -827,28 +851,28 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                 IoSessionIdleTracker inactivityTracker =
                              wsebSession.getInactivityTimeout() > 0 ?  currentSessionInactivityTracker.get() : null;
                 if ( DOWNSTREAM_SUFFIX.equals(downstreamSuffix) ) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler,
+                    return new WsebDownstreamHandler(address, wsebSession,
                                                      WsebEncodingStrategy.TEXT_AS_BINARY, inactivityTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_TEXT_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, "text/plain; charset=windows-1252",
                                   WsebEncodingStrategy.TEXT_AS_BINARY, inactivityTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_TEXT_ESCAPED_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, "text/plain; charset=windows-1252",
                                   Encoding.ESCAPE_ZERO_AND_NEWLINE, WsebEncodingStrategy.TEXT_AS_BINARY, inactivityTracker, bridgeServiceFactory);
 
                 } else if ( DOWNSTREAM_MIXED_SUFFIX.equals(downstreamSuffix) ) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler,
+                    return new WsebDownstreamHandler(address, wsebSession,
                                                      WsebEncodingStrategy.DEFAULT, inactivityTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_MIXED_TEXT_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, "text/plain; charset=windows-1252",
                                   WsebEncodingStrategy.DEFAULT, inactivityTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX.equals(downstreamSuffix)) {
                     wsebSession.setEncodeEscapeType(EscapeTypes.ESCAPE_ZERO_AND_NEWLINES);  //cache key
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, "text/plain; charset=windows-1252",
                                   Encoding.ESCAPE_ZERO_AND_NEWLINE, WsebEncodingStrategy.DEFAULT, inactivityTracker, bridgeServiceFactory);
                 }
             }
@@ -902,14 +926,12 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                 resource = truncateURI(resource, CREATE_MIXED_TEXT_ESCAPED_SUFFIX);
             }
 
-            ResourceOptions options = ResourceOptions.FACTORY.newResourceOptions();
-            options.setOption(TRANSPORT, session.getLocalAddress().resolve(resource.getPath()));
-            options.setOption(NEXT_PROTOCOL, nextProtocol);
+            ResourceAddress transport = session.getLocalAddress().resolve(resource.getPath());
 
             URI wseLocalAddressLocation = modifyURIScheme(resource, "ws");
 
-            ResourceAddress candidate = resourceAddressFactory.newResourceAddress(
-                    wseLocalAddressLocation, options);
+            ResourceAddress candidate = resourceAddressFactory.internResourceAddress(
+                    wseLocalAddressLocation, transport, nextProtocol);
 
             Binding binding = bindings.getBinding(candidate);
 
@@ -950,31 +972,31 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             }
             return null;
         }
+    }
 
-        private class NoSecurityResourceOptions implements ResourceOptions {
-            private final ResourceOptions options;
+    private static final class NoSecurityResourceOptions implements ResourceOptions {
+        private final ResourceOptions options;
 
-            public NoSecurityResourceOptions(ResourceAddress defaultsAddress) {
-                options = ResourceOptions.FACTORY.newResourceOptions(defaultsAddress);
-            }
+        public NoSecurityResourceOptions(ResourceAddress defaultsAddress) {
+            options = ResourceOptions.FACTORY.newResourceOptions(defaultsAddress);
+        }
 
-            @Override
-            public <T> T setOption(ResourceOption<T> key, T value) {
-                if (key == HttpResourceAddress.REALM_NAME) return null;
-                return options.setOption(key,value);
-            }
+        @Override
+        public <T> T setOption(ResourceOption<T> key, T value) {
+            if (key == HttpResourceAddress.REALM_NAME) return null;
+            return options.setOption(key,value);
+        }
 
-            @Override
-            public <T> T getOption(ResourceOption<T> key) {
-                if (key == HttpResourceAddress.REALM_NAME) return null;
-                return options.getOption(key);
-            }
+        @Override
+        public <T> T getOption(ResourceOption<T> key) {
+            if (key == HttpResourceAddress.REALM_NAME) return null;
+            return options.getOption(key);
+        }
 
-            @Override
-            public <T> boolean hasOption(ResourceOption<T> key) {
-                if (key == HttpResourceAddress.REALM_NAME) return false;
-                return options.hasOption(key);
-            }
+        @Override
+        public <T> boolean hasOption(ResourceOption<T> key) {
+            if (key == HttpResourceAddress.REALM_NAME) return false;
+            return options.hasOption(key);
         }
     }
 
@@ -1029,16 +1051,19 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         }
     };
 
-    private final IoHandler createHandler = new WsebCreateHandler(CREATE_SUFFIX, DOWNSTREAM_SUFFIX, UPSTREAM_SUFFIX);
+    private final WsebCreateHandler createHandler = new WsebCreateHandler(CREATE_SUFFIX, DOWNSTREAM_SUFFIX, UPSTREAM_SUFFIX);
+
+    private final WsebCreateHandler createTextHandler = new WsebCreateHandler(CREATE_TEXT_SUFFIX, DOWNSTREAM_TEXT_SUFFIX, UPSTREAM_TEXT_SUFFIX);
 
-    private final IoHandler createTextHandler = new WsebCreateHandler(CREATE_TEXT_SUFFIX, DOWNSTREAM_TEXT_SUFFIX, UPSTREAM_TEXT_SUFFIX);
+    private final WsebCreateHandler createTextEscapedHandler = new WsebCreateHandler(CREATE_TEXT_ESCAPED_SUFFIX, DOWNSTREAM_TEXT_ESCAPED_SUFFIX, UPSTREAM_TEXT_ESCAPED_SUFFIX);
 
-    private final IoHandler createTextEscapedHandler = new WsebCreateHandler(CREATE_TEXT_ESCAPED_SUFFIX, DOWNSTREAM_TEXT_ESCAPED_SUFFIX, UPSTREAM_TEXT_ESCAPED_SUFFIX);
+    private final WsebCreateHandler createMixedHandler = new WsebCreateHandler(CREATE_MIXED_SUFFIX, DOWNSTREAM_MIXED_SUFFIX, UPSTREAM_MIXED_SUFFIX);
 
-    private final IoHandler createMixedHandler = new WsebCreateHandler(CREATE_MIXED_SUFFIX, DOWNSTREAM_MIXED_SUFFIX, UPSTREAM_MIXED_SUFFIX);
+    private final WsebCreateHandler createMixedTextHandler = new WsebCreateHandler(CREATE_MIXED_TEXT_SUFFIX, DOWNSTREAM_MIXED_TEXT_SUFFIX, UPSTREAM_MIXED_TEXT_SUFFIX);
 
-    private final IoHandler createMixedTextHandler = new WsebCreateHandler(CREATE_MIXED_TEXT_SUFFIX, DOWNSTREAM_MIXED_TEXT_SUFFIX, UPSTREAM_MIXED_TEXT_SUFFIX);
+    private final WsebCreateHandler createMixedTextEscapedHandler = new WsebCreateHandler(CREATE_MIXED_TEXT_ESCAPED_SUFFIX, DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX, UPSTREAM_MIXED_TEXT_ESCAPED_SUFFIX);
 
-    private final IoHandler createMixedTextEscapedHandler = new WsebCreateHandler(CREATE_MIXED_TEXT_ESCAPED_SUFFIX, DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX, UPSTREAM_MIXED_TEXT_ESCAPED_SUFFIX);
+    private final List<WsebCreateHandler> createHandlers = asList(createHandler, createTextHandler, createTextEscapedHandler,
+            createMixedHandler, createMixedTextHandler, createMixedTextEscapedHandler);
 
 }
@@ -33,6 +33,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
@@ -371,9 +373,26 @@ public class WsebConnector extends AbstractBridgeConnector<WsebSession> {
             URI writeURI = URI.create(locations[0]);
             URI readURI = URI.create(locations[1]);
 
-            ResourceAddress writeAddress = resourceAddressFactory.newResourceAddress(writeURI);
-            ResourceAddress readAddress = resourceAddressFactory.newResourceAddress(readURI);
+            // resolve the write and read hosts without blocking this I/O thread
+            final CompletableFuture<ResourceAddress> writeAddress = resourceAddressFactory.newResourceAddressAsync(writeURI);
+            final CompletableFuture<ResourceAddress> readAddress = resourceAddressFactory.newResourceAddressAsync(readURI);
+            CompletableFuture.allOf(writeAddress, readAddress).whenCompleteAsync((ignore, cause) -> {
+                Throwable failure = (cause instanceof CompletionException) ? cause.getCause() : cause;
+                if (failure == null) {
+                    try {
+                        attach(wsebSession, writeAddress.join(), readAddress.join());
+                    }
+                    catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+                if (failure != null && !wsebSession.isClosing()) {
+                    wsebSession.reset(failure);
+                }
+            }, wsebSession.getIoExecutor());
+        }
 
+        private void attach(final WsebSession wsebSession, ResourceAddress writeAddress, ResourceAddress readAddress) {
             if (!wsebSession.isClosing()) {
                 wsebSession.setWriteAddress(writeAddress);
                 wsebSession.setReadAddress(readAddress);
@@ -400,8 +419,6 @@ public class WsebConnector extends AbstractBridgeConnector<WsebSession> {
             }
         }
 
-
-
         @Override
         protected void doExceptionCaught(HttpSession createSession, Throwable cause) throws Exception {
             WsebSession wsebSession = WSE_SESSION_KEY.get(createSession);
@@ -26,7 +26,6 @@ import static java.lang.String.format;
 import static org.kaazing.gateway.transport.wseb.WsebEncodingStrategy.TEXT_AS_BINARY;
 
 import java.net.URI;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mina.core.filterchain.IoFilter;
@@ -68,21 +67,20 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
     private final WsebSession wsebSession;
     private final WsebEncodingCodecFilter codec;
     private final IoFilter encoding;
-    private final ScheduledExecutorService scheduler;
     private IoSessionIdleTracker inactivityTracker = null;
     private final BridgeServiceFactory bridgeServiceFactory;
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress,  WsebSession wsebSession, ScheduledExecutorService scheduler,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress,  WsebSession wsebSession,
                                  WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
-        this(nextProtocolAddress, wsebSession, scheduler, "application/octet-stream", encodingStrategy, inactivityTracker, bridgeServiceFactory);
+        this(nextProtocolAddress, wsebSession, "application/octet-stream", encodingStrategy, inactivityTracker, bridgeServiceFactory);
     }
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession,
                                  String contentType, WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
-        this(nextProtocolAddress, wsebSession, scheduler, contentType, null, encodingStrategy, inactivityTracker, bridgeServiceFactory);
+        this(nextProtocolAddress, wsebSession, contentType, null, encodingStrategy, inactivityTracker, bridgeServiceFactory);
     }
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler, String contentType,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, String contentType,
                                  Encoding escapeEncoding, WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
         this.wsebSession = wsebSession;
         this.contentType = contentType;
@@ -96,7 +94,6 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
             this.codec = escapeEncoding != null ? new WsebEncodingCodecFilter(EscapeTypes.ESCAPE_ZERO_AND_NEWLINES) : new WsebEncodingCodecFilter();
             this.encoding = null;
         }
-        this.scheduler = scheduler;
         this.inactivityTracker = inactivityTracker;
         this.bridgeServiceFactory = bridgeServiceFactory;
     }
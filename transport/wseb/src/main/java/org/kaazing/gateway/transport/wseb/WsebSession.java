@@ -27,7 +27,6 @@ import static org.kaazing.gateway.transport.wseb.WsebDownstreamHandler.TIME_TO_T
 
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -79,29 +78,35 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
     private static final boolean ALIGN_DOWNSTREAM = Boolean.parseBoolean(System.getProperty("org.kaazing.gateway.transport.wseb.ALIGN_DOWNSTREAM", "true"));
     private static final boolean ALIGN_UPSTREAM = Boolean.parseBoolean(System.getProperty("org.kaazing.gateway.transport.wseb.ALIGN_UPSTREAM", "true"));
 
+    private static final int WSEB_ENCODING_ID = Message.registerEncoding("wseb");
+
     static final CachingMessageEncoder WSEB_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("wseb", encoder, message, allocator, flags);
+            return encode(WSEB_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
 
+    private static final int WSEB_ESCAPE_ZERO_ENCODING_ID = Message.registerEncoding("wseb-escape0");
+
     static final CachingMessageEncoder WSEB_MESSAGE_ESCAPE_ZERO_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("wseb-escape0", encoder, message, allocator, flags);
+            return encode(WSEB_ESCAPE_ZERO_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
 
+    private static final int WSEB_ESCAPE_ZERO_AND_NEWLINE_ENCODING_ID = Message.registerEncoding("wseb-escape");
+
     static final CachingMessageEncoder WSEB_MESSAGE_ESCAPE_ZERO_AND_NEWLINE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("wseb-escape", encoder, message, allocator, flags);
+            return encode(WSEB_ESCAPE_ZERO_AND_NEWLINE_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
@@ -358,9 +363,9 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         return false;
     }
 
-    void scheduleTimeout(ScheduledExecutorService scheduler) {
+    void scheduleTimeout() {
         if (timeoutFuture == null || timeoutFuture.cancel(false)) {
-            timeoutFuture = scheduler.schedule(timeout, TIME_TO_TIMEOUT_RECONNECT_MILLIS, MILLISECONDS);
+            timeoutFuture = schedule(timeout, TIME_TO_TIMEOUT_RECONNECT_MILLIS, MILLISECONDS);
         }
     }
 
@@ -608,7 +613,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                         // after delay to force Silverlight client to notice payload
                         if (flushDelayMillis > 0L) {
                             Runnable command = new AttachParentCommand(WsebSession.this, session, flushDelayMillis);
-                            scheduler.schedule(command, flushDelayMillis, TimeUnit.MILLISECONDS);
+                            schedule(command, flushDelayMillis, TimeUnit.MILLISECONDS);
                         }
                     }
                 });
@@ -640,9 +645,9 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             // therefore, write a comment frame a little later as a backup to make
             // sure that the connection does not get stalled
 
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 2, TimeUnit.MILLISECONDS);
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 4, TimeUnit.MILLISECONDS);
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 8, TimeUnit.MILLISECONDS);
+            wsebSession.schedule(new FlushCommand(wsebSession), flushDelayMillis * 2, TimeUnit.MILLISECONDS);
+            wsebSession.schedule(new FlushCommand(wsebSession), flushDelayMillis * 4, TimeUnit.MILLISECONDS);
+            wsebSession.schedule(new FlushCommand(wsebSession), flushDelayMillis * 8, TimeUnit.MILLISECONDS);
         }
     }
 
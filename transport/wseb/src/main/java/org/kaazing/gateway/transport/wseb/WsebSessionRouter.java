@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.wseb;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.transport.AbstractBridgeSession;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+
+/**
+ * Routes upstream or downstream HTTP requests for "&lt;suffix&gt;/&lt;sessionId&gt;" to the handler registered
+ * for that WSEB session.  A single HTTP binding per suffix serves every session, so creating a session, and
+ * attaching a new upstream or downstream to it, costs a concurrent map operation instead of an HTTP bind.
+ *
+ * The handler is looked up on the first event of each HTTP session, then installed as the session handler
+ * so later events are delivered directly.
+ */
+final class WsebSessionRouter implements IoHandler {
+
+    private static final IoHandler NOT_FOUND_HANDLER = new IoHandlerAdapter<HttpAcceptSession>() {
+
+        @Override
+        protected void doSessionOpened(HttpAcceptSession session) throws Exception {
+            // respond on the transport session, exactly as for a request to an unbound path
+            HttpResponseMessage httpResponse = new HttpResponseMessage();
+            httpResponse.setVersion(HttpVersion.HTTP_1_1);
+            httpResponse.setStatus(HttpStatus.CLIENT_NOT_FOUND);
+
+            IoSession transport = session.getParent();
+            while (transport instanceof HttpSession) {
+                // emulated requests are nested in an outer http/1.1 session
+                transport = ((HttpSession) transport).getParent();
+            }
+            transport.write(httpResponse).addListener(future -> future.getSession().close(false));
+        }
+    };
+
+    private final ConcurrentMap<String, IoHandler> handlers;
+
+    WsebSessionRouter() {
+        this.handlers = new ConcurrentHashMap<>();
+    }
+
+    void register(String sessionId, IoHandler handler) {
+        handlers.put(sessionId, handler);
+    }
+
+    void unregister(String sessionId) {
+        handlers.remove(sessionId);
+    }
+
+    int size() {
+        return handlers.size();
+    }
+
+    @Override
+    public void sessionCreated(IoSession session) throws Exception {
+        route(session).sessionCreated(session);
+    }
+
+    @Override
+    public void sessionOpened(IoSession session) throws Exception {
+        route(session).sessionOpened(session);
+    }
+
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        route(session).sessionClosed(session);
+    }
+
+    @Override
+    public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+        route(session).sessionIdle(session, status);
+    }
+
+    @Override
+    public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+        route(session).exceptionCaught(session, cause);
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) throws Exception {
+        route(session).messageReceived(session, message);
+    }
+
+    @Override
+    public void messageSent(IoSession session, Object message) throws Exception {
+        route(session).messageSent(session, message);
+    }
+
+    private IoHandler route(IoSession session) {
+        IoHandler handler = session.getHandler();
+        if (handler == this) {
+            HttpAcceptSession httpSession = (HttpAcceptSession) session;
+            handler = handlers.get(getSessionId(httpSession.getRequestURI().getPath()));
+            if (handler == null) {
+                handler = NOT_FOUND_HANDLER;
+            }
+            ((AbstractBridgeSession<?, ?>) session).setHandler(handler);
+        }
+        return handler;
+    }
+
+    // session ids are base-62, and older clients append parameters without a '?', as in "<sessionId>&.kr=..."
+    static String getSessionId(String path) {
+        int start = path.lastIndexOf('/', path.endsWith("/") ? path.length() - 2 : path.length() - 1) + 1;
+        int end = start;
+        while (end < path.length() && Character.isLetterOrDigit(path.charAt(end))) {
+            end++;
+        }
+        return path.substring(start, end);
+    }
+}
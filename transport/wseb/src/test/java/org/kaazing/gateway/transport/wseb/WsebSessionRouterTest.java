@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2007-2014 Kaazing Corporation. All rights reserved.
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.kaazing.gateway.transport.wseb;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+
+public class WsebSessionRouterTest {
+
+    @Test
+    public void shouldExtractSessionIdFromPath() {
+        assertEquals("abc123", WsebSessionRouter.getSessionId("/echo/;e/ub/abc123"));
+        assertEquals("abc123", WsebSessionRouter.getSessionId("/echo/;e/dtem/abc123/"));
+        assertEquals("abc123", WsebSessionRouter.getSessionId("abc123"));
+        assertEquals("abc123", WsebSessionRouter.getSessionId("/echo/;e/utm/abc123&.krn=0.6848790338262916"));
+    }
+
+    @Test
+    public void shouldRegisterAndUnregisterSessions() {
+        WsebSessionRouter router = new WsebSessionRouter();
+        router.register("a", new IoHandlerAdapter<>());
+        router.register("b", new IoHandlerAdapter<>());
+        assertEquals(2, router.size());
+
+        router.unregister("a");
+        router.unregister("unknown");
+        assertEquals(1, router.size());
+    }
+}
@@ -25,7 +25,6 @@ import static java.lang.String.format;
 import static org.kaazing.gateway.transport.wsn.WsnSession.SESSION_KEY;
 
 import java.util.Properties;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -43,6 +42,7 @@ import org.kaazing.gateway.util.Utils;
 import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 import org.kaazing.mina.core.future.DefaultWriteFutureEx;
 import org.kaazing.mina.core.future.WriteFutureEx;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.core.write.DefaultWriteRequestEx;
 import org.kaazing.mina.core.write.WriteRequestEx;
 import org.slf4j.Logger;
@@ -72,7 +72,6 @@ public class WsCloseFilter
     private static final String DEFAULT_CLOSE_TIMEOUT = "5sec";
 
     private final Logger logger;
-    private final ScheduledExecutorService scheduler;
 
     private AtomicBoolean sentCloseFrame;
     private AtomicBoolean receivedCloseFrame;
@@ -87,16 +86,13 @@ public class WsCloseFilter
 
     public WsCloseFilter(WebSocketWireProtocol wsVersion,
                          Properties configuration,
-                         Logger logger,
-                         ScheduledExecutorService scheduler) {
+                         Logger logger) {
         this.sentCloseFrame = new AtomicBoolean(false);
         this.receivedCloseFrame = new AtomicBoolean(false);
         this.timedOut = new AtomicBoolean(false);
 
         this.wsVersion = wsVersion;
         this.logger = logger;
-        assert scheduler != null;
-        this.scheduler = scheduler;
 
         // Check the configuration for the timeout to use
         this.closeTimeout = getCloseTimeout(configuration);
@@ -258,7 +254,7 @@ public class WsCloseFilter
                 }
                 closeNextFilter = nextFilter;
                 closeSession = session;
-                closeFuture = scheduler.schedule(WsCloseFilter.this, closeTimeout, TimeUnit.MILLISECONDS);
+                closeFuture = ((IoSessionEx) session).schedule(WsCloseFilter.this, closeTimeout, TimeUnit.MILLISECONDS);
 
                 WriteFuture writeFuture = writeRequest.getFuture();
                 writeFuture.addListener(new IoFutureListener<WriteFuture>() {
@@ -746,7 +746,7 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                     logger.trace(String.format("Adding CLOSE frame filter for WS protocol version %s for session %s", wsVersion, session));
                 }
 
-                filterChain.addLast(WsAcceptor.CLOSE_FILTER, new WsCloseFilter(wsVersion, configuration, logger, scheduler));
+                filterChain.addLast(WsAcceptor.CLOSE_FILTER, new WsCloseFilter(wsVersion, configuration, logger));
             }
 
             // Set the extensions on whichever WsnSession they were negotiated (light weight or wsx).
@@ -33,7 +33,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ScheduledExecutorService;
 
 import javax.annotation.Resource;
 
@@ -82,7 +81,6 @@ import org.kaazing.gateway.transport.ws.bridge.filter.WsFrameTextFilter;
 import org.kaazing.gateway.transport.ws.util.WsUtils;
 import org.kaazing.gateway.util.Encoding;
 import org.kaazing.gateway.util.Utils;
-import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
@@ -119,7 +117,6 @@ public class WsnConnector extends AbstractBridgeConnector<WsnSession> {
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
     private Properties configuration = new Properties();
-    private ScheduledExecutorService scheduler;
 
     public WsnConnector() {
         super(new DefaultIoSessionConfigEx());
@@ -141,11 +138,6 @@ public class WsnConnector extends AbstractBridgeConnector<WsnSession> {
         this.configuration = configuration;
     }
 
-    @Resource(name = "schedulerProvider")
-    public void setSchedulerProvider(SchedulerProvider provider) {
-        this.scheduler = provider.getScheduler("Scheduler-wsn", false);
-    }
-
     @Resource(name = "resourceAddressFactory")
     public void setResourceAddressFactory(ResourceAddressFactory factory) {
         this.resourceAddressFactory = factory;
@@ -187,7 +179,7 @@ public class WsnConnector extends AbstractBridgeConnector<WsnSession> {
 
         // We speak a new enough version of the WebSocket protocol that
         // we need to conform to the proper CLOSE semantics.
-        filterChain.addLast(WsAcceptor.CLOSE_FILTER, new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger, scheduler));
+        filterChain.addLast(WsAcceptor.CLOSE_FILTER, new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger));
 
         // post-upgrade filter is added before WebSocket codec filter
         // where the type of this filter chain is still IoBuffer
@@ -46,20 +46,24 @@ import org.kaazing.mina.core.session.IoSessionEx;
 public class WsnSession extends AbstractWsBridgeSession<WsnSession, WsBuffer> {
     public static final TypedAttributeKey<WsnSession> SESSION_KEY = new TypedAttributeKey<>(WsnSession.class, "session");
 
+    private static final int WS_RFC6455_ENCODING_ID = Message.registerEncoding("ws/rcf6455");
+
     private static final CachingMessageEncoder WS_RFC6455_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("ws/rcf6455", encoder, message, allocator, flags);
+            return encode(WS_RFC6455_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
 
+    private static final int WS_DRAFT7X_ENCODING_ID = Message.registerEncoding("ws/draft-7x");
+
     private static final CachingMessageEncoder WS_DRAFT7X_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("ws/draft-7x", encoder, message, allocator, flags);
+            return encode(WS_DRAFT7X_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
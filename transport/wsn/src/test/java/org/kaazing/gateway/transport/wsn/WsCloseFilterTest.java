@@ -25,13 +25,11 @@ import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATO
 
 import java.nio.ByteBuffer;
 import java.util.Properties;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mina.core.filterchain.IoFilter.NextFilter;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.future.WriteFuture;
-import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -45,6 +43,7 @@ import org.kaazing.gateway.transport.ws.WsBinaryMessage;
 import org.kaazing.gateway.transport.ws.WsCloseMessage;
 import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.slf4j.Logger;
 
 /**
@@ -60,10 +59,9 @@ public class WsCloseFilterTest {
         }};
         context.setThreadingPolicy(new Synchroniser());
         final NextFilter nextFilter = context.mock(NextFilter.class);
-        final IoSession session = context.mock(IoSession.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
         final WriteRequest writeRequest = context.mock(WriteRequest.class);
         final Logger logger = context.mock(Logger.class);
-        final ScheduledExecutorService scheduler = context.mock(ScheduledExecutorService.class);
         final WsMessage message = new WsBinaryMessage(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(new byte[]{0x41})));
 
         context.checking(new Expectations() {
@@ -75,7 +73,7 @@ public class WsCloseFilterTest {
         });
 
         Properties configuration = new Properties();
-        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger, scheduler);
+        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger);
         filter.filterWrite(nextFilter, session, writeRequest);
         context.assertIsSatisfied();
     }
@@ -87,11 +85,10 @@ public class WsCloseFilterTest {
         }};
         context.setThreadingPolicy(new Synchroniser());
         final NextFilter nextFilter = context.mock(NextFilter.class);
-        final IoSession session = context.mock(IoSession.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
         final WriteRequest closeRequest = context.mock(WriteRequest.class, "closeRequest");
         final WriteRequest writeRequest = context.mock(WriteRequest.class);
         final Logger logger = context.mock(Logger.class);
-        final ScheduledExecutorService scheduler = context.mock(ScheduledExecutorService.class);
         final WriteFuture closeFuture = context.mock(WriteFuture.class, "closeFuture");
         final WsMessage close = new WsCloseMessage();
 
@@ -103,12 +100,12 @@ public class WsCloseFilterTest {
                 oneOf(closeFuture).addListener(with(any(IoFutureListener.class)));
                 exactly(2).of(closeRequest).getMessage(); will(returnValue(close));
                 oneOf(nextFilter).filterWrite(session, closeRequest);
-                oneOf(scheduler).schedule(with(any(WsCloseFilter.class)), with(any(Long.class)), with(TimeUnit.MILLISECONDS));
+                oneOf(session).schedule(with(any(WsCloseFilter.class)), with(any(Long.class)), with(TimeUnit.MILLISECONDS));
             }
         });
 
         Properties configuration = new Properties();
-        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger, scheduler);
+        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger);
         filter.filterWrite(nextFilter, session, closeRequest);
         filter.filterWrite(nextFilter, session, writeRequest);
         context.assertIsSatisfied();
@@ -121,9 +118,8 @@ public class WsCloseFilterTest {
         }};
         context.setThreadingPolicy(new Synchroniser());
         final NextFilter nextFilter = context.mock(NextFilter.class);
-        final IoSession session = context.mock(IoSession.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
         final Logger logger = context.mock(Logger.class);
-        final ScheduledExecutorService scheduler = context.mock(ScheduledExecutorService.class);
         final WsMessage message = new WsBinaryMessage(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(new byte[]{0x41})));
 
         context.checking(new Expectations() {
@@ -134,7 +130,7 @@ public class WsCloseFilterTest {
         });
 
         Properties configuration = new Properties();
-        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger, scheduler);
+        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger);
         filter.messageReceived(nextFilter, session, message);
         context.assertIsSatisfied();
     }
@@ -146,9 +142,8 @@ public class WsCloseFilterTest {
         }};
         context.setThreadingPolicy(new Synchroniser());
         final NextFilter nextFilter = context.mock(NextFilter.class);
-        final IoSession session = context.mock(IoSession.class);
+        final IoSessionEx session = context.mock(IoSessionEx.class);
         final Logger logger = context.mock(Logger.class);
-        final ScheduledExecutorService scheduler = context.mock(ScheduledExecutorService.class);
         final WsMessage close = new WsCloseMessage();
         final WsMessage message = new WsBinaryMessage(BUFFER_ALLOCATOR.wrap(ByteBuffer.wrap(new byte[]{0x41})));
 
@@ -175,7 +170,7 @@ public class WsCloseFilterTest {
         });
 
         Properties configuration = new Properties();
-        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger, scheduler);
+        WsCloseFilter filter = new WsCloseFilter(WebSocketWireProtocol.RFC_6455, configuration, logger);
         filter.messageReceived(nextFilter, session, close);
         filter.messageReceived(nextFilter, session, message);
         context.assertIsSatisfied();
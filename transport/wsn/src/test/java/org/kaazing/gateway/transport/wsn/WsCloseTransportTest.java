@@ -184,7 +184,6 @@ public class WsCloseTransportTest {
         }
 
         wsnConnector.setBridgeServiceFactory(bridgeServiceFactory);
-        wsnConnector.setSchedulerProvider(schedulerProvider);
         wsnConnector.setResourceAddressFactory(resourceAddressFactory);
         if (wsConnectCloseTimeout != null) {
             wsnConnector.setConfiguration(wsConnectProperties);
@@ -99,7 +99,6 @@ public class WsnAcceptorTest {
 
         wsnConnector = (WsnConnector)transportFactory.getTransport("wsn").getConnector();
         wsnConnector.setBridgeServiceFactory(serviceFactory);
-        wsnConnector.setSchedulerProvider(schedulerProvider);
     }
     
     @After
@@ -118,7 +118,6 @@ public class WsnConnectorRule implements TestRule {
                 wsnConnector = (WsnConnector)transportFactory.getTransport("wsn").getConnector();
                 wsnConnector.setConfiguration(new Properties());
                 wsnConnector.setBridgeServiceFactory(serviceFactory);
-                wsnConnector.setSchedulerProvider(schedulerProvider);
                 wsnConnector.setResourceAddressFactory(addressFactory);
 
                 base.evaluate();
@@ -141,7 +141,6 @@ public class WsnConnectorTest {
         wsnConnector = (WsnConnector)transportFactory.getTransport("wsn").getConnector();
 		wsnConnector.setConfiguration(new Properties());
         wsnConnector.setBridgeServiceFactory(serviceFactory);
-        wsnConnector.setSchedulerProvider(schedulerProvider);
         wsnConnector.setResourceAddressFactory(addressFactory);
     }
 
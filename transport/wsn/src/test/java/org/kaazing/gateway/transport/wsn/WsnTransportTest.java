@@ -125,7 +125,6 @@ public class WsnTransportTest {
 		wsnConnector = (WsnConnector)transportFactory.getTransport("wsn").getConnector();
 		wsnConnector.setBridgeServiceFactory(serviceFactory);
         wsnConnector.setResourceAddressFactory(addressFactory);
-        wsnConnector.setSchedulerProvider(schedulerProvider);
 	}
 
 	@After
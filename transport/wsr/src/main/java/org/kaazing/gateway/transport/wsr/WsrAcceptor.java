@@ -487,7 +487,7 @@ public class WsrAcceptor extends AbstractBridgeAcceptor<WsrSession, WsrBindings.
             session.close(false);
 
             // timeout session if rtmp(s) connection is never established
-            ScheduledFuture<?> timeoutFuture = scheduler.schedule(wsrSession.getTimeoutCommand(), TIME_TO_TIMEOUT_CONNECT_MILLIS, TimeUnit.MILLISECONDS);
+            ScheduledFuture<?> timeoutFuture = wsrSession.schedule(wsrSession.getTimeoutCommand(), TIME_TO_TIMEOUT_CONNECT_MILLIS, TimeUnit.MILLISECONDS);
             wsrSession.setAttribute(TIMEOUT_FUTURE_KEY, timeoutFuture);
 
             // Cancel commands and clear session maps when a session is closed - avoid session reference leak.
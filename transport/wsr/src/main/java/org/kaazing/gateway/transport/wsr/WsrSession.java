@@ -42,11 +42,13 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public class WsrSession extends AbstractWsBridgeSession<WsrSession, WsrBuffer> {
 
+    private static final int WSR_ENCODING_ID = Message.registerEncoding("wsr");
+
     private static final CachingMessageEncoder WSR_MESSAGE_ENCODER = new CachingMessageEncoder() {
 
         @Override
         public <T extends Message> IoBufferEx encode(MessageEncoder<T> encoder, T message, IoBufferAllocatorEx<?> allocator, int flags) {
-            return encode("wsr", encoder, message, allocator, flags);
+            return encode(WSR_ENCODING_ID, encoder, message, allocator, flags);
         }
 
     };
@@ -89,6 +89,26 @@ public enum InternalSystemProperty {
     TCP_IP_TOS
             ("org.kaazing.gateway.server.transport.tcp.IP_TOS"),
 
+    // Pipelined HTTP requests dispatched concurrently per connection, 1 serializes requests
+    HTTP_PIPELINE_MAXIMUM_REQUESTS
+            ("org.kaazing.gateway.server.transport.http.PIPELINE_MAXIMUM_REQUESTS", "1"),
+
+    // Response bytes held back per connection before further pipelined requests are dispatched
+    HTTP_PIPELINE_MAXIMUM_BUFFERED_BYTES
+            ("org.kaazing.gateway.server.transport.http.PIPELINE_MAXIMUM_BUFFERED_BYTES", "65536"),
+
+    // Accept HTTP/2 over cleartext (h2c) by prior knowledge or Upgrade on HTTP/1.1 connections
+    HTTP2_ENABLED
+            ("org.kaazing.gateway.server.transport.http.HTTP2_ENABLED", "false"),
+
+    // Deflate level (1-9) for gzipped streaming responses (block padding), 0 keeps uncompressed stored blocks
+    HTTP_GZIP_COMPRESSION_LEVEL
+            ("org.kaazing.gateway.server.transport.http.GZIP_COMPRESSION_LEVEL", "0"),
+
+    // Messages smaller than this are written as stored blocks in the gzipped stream rather than compressed
+    HTTP_GZIP_COMPRESSION_MINIMUM_SIZE
+            ("org.kaazing.gateway.server.transport.http.GZIP_COMPRESSION_MINIMUM_SIZE", "64"),
+
     // services
     BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES
             ("org.kaazing.gateway.server.service.broadcast.MAXIMUM_PENDING_BYTES"),